@@ -21,6 +21,7 @@ import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
 import org.springframework.ide.eclipse.aop.core.internal.model.AopReferenceModel;
+import org.springframework.ide.eclipse.aop.core.internal.model.builder.AopReferenceMatchCache;
 import org.springframework.ide.eclipse.aop.core.model.IAopReferenceModel;
 import org.springframework.ide.eclipse.core.MessageUtils;
 
@@ -69,6 +70,8 @@ public class Activator extends AbstractUIPlugin {
 		// add default value
 		getPreferenceStore().setDefault(PERSIST_AOP_MODEL_PREFERENCE, true);
 
+		AopReferenceMatchCache.startListening();
+
 		Job modelJob = new Job("Initializing Spring Aop Model") {
 			
 			@Override
@@ -90,6 +93,7 @@ public class Activator extends AbstractUIPlugin {
 	 */
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		AopReferenceMatchCache.stopListening();
 		model.shutdown();
 		plugin = null;
 		resourceBundle = null;
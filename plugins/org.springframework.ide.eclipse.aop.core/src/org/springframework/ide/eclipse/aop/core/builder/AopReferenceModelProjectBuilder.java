@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,10 +22,13 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.jobs.Job;
 import org.springframework.ide.eclipse.aop.core.Activator;
 import org.springframework.ide.eclipse.aop.core.internal.model.AopReferenceModel;
+import org.springframework.ide.eclipse.aop.core.internal.model.builder.AopReferenceMatchCache;
 import org.springframework.ide.eclipse.aop.core.internal.model.builder.AopReferenceModelBuilderJob;
+import org.springframework.ide.eclipse.aop.core.internal.model.builder.CompiledPointcutCache;
 import org.springframework.ide.eclipse.aop.core.util.AopReferenceModelMarkerUtils;
 import org.springframework.ide.eclipse.aop.core.util.AopReferenceModelUtils;
 import org.springframework.ide.eclipse.core.java.JdtUtils;
+import org.springframework.ide.eclipse.core.java.TypeStructureState;
 import org.springframework.ide.eclipse.core.project.IProjectBuilder;
 import org.springframework.ide.eclipse.core.project.IProjectContributorState;
 import org.springframework.ide.eclipse.core.project.IProjectContributorStateAware;
@@ -47,6 +50,8 @@ public class AopReferenceModelProjectBuilder implements IProjectBuilder, IProjec
 	public Set<IResource> getAffectedResources(IResource resource, int kind, int deltaKind) throws CoreException {
 		Set<IResource> resources = new LinkedHashSet<IResource>();
 		if (resource instanceof IFile) {
+			AopReferenceMatchCache.recordChangedResource(resource, kind, deltaKind, context
+					.get(TypeStructureState.class));
 			resources.addAll(AopReferenceModelUtils.getAffectedFiles(kind, deltaKind, resource, context));
 		}
 		return resources;
@@ -63,9 +68,11 @@ public class AopReferenceModelProjectBuilder implements IProjectBuilder, IProjec
 			if (kind == IncrementalProjectBuilder.CLEAN_BUILD || kind == IncrementalProjectBuilder.FULL_BUILD) {
 				AopReferenceModelMarkerUtils.deleteProblemMarkers(project);
 				((AopReferenceModel) Activator.getModel()).removeProject(JdtUtils.getJavaProject(project));
+				AopReferenceMatchCache.clear(project);
+				CompiledPointcutCache.clear(project);
 			}
 			Job job = new AopReferenceModelBuilderJob(project, AopReferenceModelUtils
-					.getAffectedFilesFromBeansConfig(affectedResources), affectedResources);
+					.getAffectedFilesFromBeansConfig(affectedResources));
 			job.schedule();
 		}
 		monitor.done();
@@ -86,6 +93,8 @@ public class AopReferenceModelProjectBuilder implements IProjectBuilder, IProjec
 			if (JdtUtils.isJavaProject(project)) {
 				Activator.getModel().removeProject(JdtUtils.getJavaProject(project));
 			}
+			AopReferenceMatchCache.clear(project);
+			CompiledPointcutCache.clear(project);
 		}
 		finally {
 			monitor.done();
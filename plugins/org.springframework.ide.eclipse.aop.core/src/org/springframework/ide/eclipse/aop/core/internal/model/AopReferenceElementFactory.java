@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -51,41 +51,50 @@ public class AopReferenceElementFactory implements IElementFactory {
 	public static String FACTORY_ID = Activator.PLUGIN_ID + ".aopReferenceElementFactory";
 
 	public final IAdaptable createElement(IMemento memento) {
-		ADVICE_TYPE type = ADVICE_TYPE.valueOf(memento.getString(ADVICE_TYPE_ATTRIBUTE));
-		
-		String sourceHandle = memento.getString(SOURCE_ATTRIBUTE);
-		Integer sourceStartLine = Integer.valueOf(-1);
+		return createAopReference(ADVICE_TYPE.valueOf(memento.getString(ADVICE_TYPE_ATTRIBUTE)), memento
+				.getString(SOURCE_ATTRIBUTE), memento.getInteger(SOURCE_START_LINE_ATTRIBUTE), memento
+				.getString(TARGET_ATTRIBUTE), memento.getInteger(TARGET_START_LINE_ATTRIBUTE), memento
+				.getString(FILE_ATTRIBUTE), memento.getString(BEAN_ATTRIBUTE), memento
+				.getInteger(BEAN_START_LINE_ATTRIBUTE), memento.getString(BEAN_FILE_ATTRIBUTE));
+	}
+
+	/**
+	 * Creates an {@link AopReference} from its persisted values; returns <code>null</code> if any of the referenced
+	 * elements doesn't exist anymore.
+	 * @since 3.8.4
+	 */
+	static AopReference createAopReference(ADVICE_TYPE type, String sourceHandle, Integer sourceStartLine,
+			String targetHandle, Integer targetStartLine, String fileName, String beanId, Integer beanStartline,
+			String beanFileName) {
 		IJavaElement source = null;
 		if (sourceHandle != null) {
 			source = JavaCore.create(sourceHandle);
-			sourceStartLine = memento.getInteger(SOURCE_START_LINE_ATTRIBUTE);
 			if (sourceStartLine == null) {
 				sourceStartLine = JdtUtils.getLineNumber(source);
 			}
 		}
+		else {
+			sourceStartLine = Integer.valueOf(-1);
+		}
 
-		String targetHandle = memento.getString(TARGET_ATTRIBUTE);
-		Integer targetStartLine = Integer.valueOf(-1);
 		IJavaElement target = null;
 		if (targetHandle != null) {
 			target = JavaCore.create(targetHandle);
-			targetStartLine = memento.getInteger(TARGET_START_LINE_ATTRIBUTE);
 			if (targetStartLine == null) {
 				targetStartLine = JdtUtils.getLineNumber(target);
 			}
 		}
+		else {
+			targetStartLine = Integer.valueOf(-1);
+		}
 
-		String fileName = memento.getString(FILE_ATTRIBUTE);
 		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
 		IResource member = root.findMember(fileName);
 
-		String beanId = memento.getString(BEAN_ATTRIBUTE);
-		Integer beanStartline = memento.getInteger(BEAN_START_LINE_ATTRIBUTE);
 		if (beanStartline == null) {
 			beanStartline = 0;
 		}
 
-		String beanFileName = memento.getString(BEAN_FILE_ATTRIBUTE);
 		IResource beanResource = null;
 		// Pre 2.3.0 version weren't persisting the file attribute; so be careful
 		if (beanFileName != null) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 Spring IDE Developers
+ * Copyright (c) 2006, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -21,8 +21,13 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
 import org.springframework.ide.eclipse.aop.core.model.IAopModelChangedListener;
 import org.springframework.ide.eclipse.aop.core.model.IAopProject;
 import org.springframework.ide.eclipse.aop.core.model.IAopReference;
@@ -58,6 +63,9 @@ public class AopReferenceModel implements IAopReferenceModel {
 	}
 
 	public List<IAopReference> getAdviceDefinition(IJavaElement je) {
+		if (je != null) {
+			loadProject(je.getJavaProject());
+		}
 		List<IAopReference> advices = new LinkedList<IAopReference>();
 		for (IAopReference reference : getAllReferences()) {
 			if (reference.getSource() != null && reference.getSource().equals(je)) {
@@ -67,6 +75,10 @@ public class AopReferenceModel implements IAopReferenceModel {
 		return advices;
 	}
 
+	/**
+	 * Returns the references of all loaded projects. Persisted projects that have not been requested yet are loaded in
+	 * the background; the registered listeners are notified once they are.
+	 */
 	public List<IAopReference> getAllReferences() {
 		List<IAopReference> refs = new ArrayList<IAopReference>();
 		for (Map.Entry<IJavaProject, IAopProject> e : projects.entrySet()) {
@@ -76,6 +88,7 @@ public class AopReferenceModel implements IAopReferenceModel {
 	}
 
 	public List<IAopReference> getAllReferencesForResource(IResource resource) {
+		loadProject(resource);
 		List<IAopReference> references = new ArrayList<IAopReference>();
 		for (IAopReference ref : getAllReferences()) {
 			if ((ref.getResource() != null && ref.getResource().equals(resource))
@@ -95,11 +108,23 @@ public class AopReferenceModel implements IAopReferenceModel {
 		return getProjectWithInitialization(project);
 	}
 
+	/**
+	 * Returns the loaded projects; see {@link #getAllReferences()}.
+	 */
 	public Collection<IAopProject> getProjects() {
 		return this.projects.values();
 	}
 
+	/**
+	 * Returns the projects that are loaded already; doesn't trigger loading persisted projects.
+	 * @since 3.8.4
+	 */
+	Collection<IAopProject> getLoadedProjects() {
+		return this.projects.values();
+	}
+
 	public IAopProject getProjectWithInitialization(IJavaProject project) {
+		loadProject(project);
 		if (this.projects.containsKey(project)) {
 			return this.projects.get(project);
 		}
@@ -116,6 +141,7 @@ public class AopReferenceModel implements IAopReferenceModel {
 
 	public boolean isAdvised(IJavaElement je) {
 		if (je != null) {
+			loadProject(je.getJavaProject());
 			List<IAopReference> references = getAllReferences();
 			for (IAopReference reference : references) {
 				if (reference.getTarget().equals(je)) {
@@ -128,6 +154,7 @@ public class AopReferenceModel implements IAopReferenceModel {
 
 	public boolean isAdvised(IBean bean) {
 		if (bean != null) {
+			loadProject(bean.getElementResource());
 			String beanId = bean.getElementID();
 			List<IAopReference> references = getAllReferences();
 			for (IAopReference reference : references) {
@@ -145,6 +172,9 @@ public class AopReferenceModel implements IAopReferenceModel {
 	}
 
 	public synchronized void removeProject(IJavaProject project) {
+		if (persistence != null) {
+			persistence.removeProject(project);
+		}
 		for (IJavaProject jp : projects.keySet()) {
 			if (jp.equals(project)) {
 				projects.remove(jp);
@@ -155,6 +185,9 @@ public class AopReferenceModel implements IAopReferenceModel {
 	}
 
 	public synchronized void clearProjects() {
+		if (persistence != null) {
+			persistence.clearProjects();
+		}
 		this.projects.clear();
 	}
 
@@ -179,13 +212,51 @@ public class AopReferenceModel implements IAopReferenceModel {
 		IWorkspace workspace = ResourcesPlugin.getWorkspace();
 		workspace.addResourceChangeListener(workspaceListener, SpringResourceChangeListener.LISTENER_FLAGS);
 
-		persistence = new AopReferenceModelPeristence();
+		persistence = new AopReferenceModelPeristence(this);
 		persistence.loadReferenceModel();
 
+		// load the remaining persisted projects in the background to restore their markers
+		if (persistence.hasPendingProjects()) {
+			Job job = new Job("Loading AOP reference model") {
+
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					loadPendingProjects();
+					// references of the projects loaded now were missing in the answers given so far
+					fireModelChanged();
+					return Status.OK_STATUS;
+				}
+			};
+			job.setSystem(true);
+			job.setPriority(Job.DECORATE);
+			job.schedule();
+		}
+
 		// modelChangeListener = new AopBeansModelListener();
 		// BeansCorePlugin.getModel().addChangeListener(modelChangeListener);
 	}
 
+	private void loadPendingProjects() {
+		if (persistence != null && persistence.hasPendingProjects()) {
+			persistence.loadPendingProjects();
+		}
+	}
+
+	/**
+	 * Loads the persisted state of the given project only, if it has not been loaded yet.
+	 */
+	private void loadProject(IJavaProject project) {
+		if (persistence != null && project != null) {
+			persistence.loadProject(project);
+		}
+	}
+
+	private void loadProject(IResource resource) {
+		if (resource != null) {
+			loadProject(JavaCore.create(resource.getProject()));
+		}
+	}
+
 	public void unregisterAopModelChangedListener(IAopModelChangedListener listener) {
 		this.listeners.remove(listener);
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2008 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,17 +10,24 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.aop.core.internal.model;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Reader;
-import java.io.Writer;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -40,11 +47,17 @@ import org.eclipse.ui.XMLMemento;
 import org.springframework.ide.eclipse.aop.core.Activator;
 import org.springframework.ide.eclipse.aop.core.model.IAopProject;
 import org.springframework.ide.eclipse.aop.core.model.IAopReference;
+import org.springframework.ide.eclipse.aop.core.model.IAopReference.ADVICE_TYPE;
 import org.springframework.ide.eclipse.aop.core.model.IAopReferenceModel;
 import org.springframework.ide.eclipse.aop.core.model.IAspectDefinition;
 import org.springframework.ide.eclipse.aop.core.util.AopReferenceModelMarkerUtils;
 
 /**
+ * Persists the {@link IAopReferenceModel} across restarts.
+ * <p>
+ * Every project is stored in a file of its own in a compact binary format: strings like handle identifiers and file
+ * names are written only once per file and referenced by index afterwards. Projects are loaded lazily on first access
+ * to the project through the model; the state file of the previous XML based format is still read on startup.
  * @author Christian Dupuis
  * @since 2.0
  */
@@ -68,34 +81,40 @@ public class AopReferenceModelPeristence {
 				new AopReferenceElementFactory());
 	}
 
+	private static final int MAGIC = 0x414f504d;
+
+	private static final int VERSION = 1;
+
+	private static final String STATE_FOLDER_NAME = "aop-model";
+
+	private static final String STATE_FILE_EXTENSION = ".state";
+
 	private static final String AOP_PROJECT_ELEMENT = "aop-project";
 
 	private static final String AOP_REFERENCE_ELEMENT = "aop-reference";
 
-	private static final String AOP_REFERENCE_MODEL_ELEMENT = "aop-reference-model";
-
 	private static final String ASPECT_DEFINITION_ELEMENT = "aspect-definition";
 
 	private static final String FACTORY_ID = "factory-id";
 
 	private static final String NAME_ATTRIBUTE = "name";
 
+	private final AopReferenceModel model;
+
 	private IPath defaultFile = null;
 
-	public AopReferenceModelPeristence() {
-		this.defaultFile = Activator.getDefault().getStateLocation().append(".state");
-	}
+	private IPath stateFolder = null;
 
-	private IMemento appendNewChild(IMemento memento, String type) {
-		memento.createChild(type);
-		IMemento[] ms = memento.getChildren(type);
-		if (ms != null && ms.length > 0) {
-			return ms[ms.length - 1];
-		}
-		return memento;
+	/** Names of the projects with a state file that have not been loaded yet */
+	private final Map<String, PendingProject> pendingProjects = new ConcurrentHashMap<String, PendingProject>();
+
+	public AopReferenceModelPeristence(AopReferenceModel model) {
+		this.model = model;
+		this.defaultFile = Activator.getDefault().getStateLocation().append(".state");
+		this.stateFolder = Activator.getDefault().getStateLocation().append(STATE_FOLDER_NAME);
 	}
 
-	private void createAopProjects(IAopReferenceModel model, XMLMemento memento) {
+	private void createAopProjects(XMLMemento memento) {
 		IMemento[] projects = memento.getChildren(AOP_PROJECT_ELEMENT);
 		if (projects != null && projects.length > 0) {
 			for (IMemento project : projects) {
@@ -109,11 +128,7 @@ public class AopReferenceModelPeristence {
 					createAspectDefinitions(projects, project, aopProject);
 
 					// recreate the marker
-					Set<IAopReference> references = aopProject.getAllReferences();
-					for (IAopReference reference : references) {
-						AopReferenceModelMarkerUtils.createMarker(reference, reference
-								.getResource());
-					}
+					createMarkers(aopProject);
 				}
 			}
 		}
@@ -150,26 +165,54 @@ public class AopReferenceModelPeristence {
 		}
 	}
 
+	private void createMarkers(IAopProject aopProject) {
+		Set<IAopReference> references = aopProject.getAllReferences();
+		for (IAopReference reference : references) {
+			AopReferenceModelMarkerUtils.createMarker(reference, reference.getResource());
+		}
+	}
+
 	protected boolean isPersisted() {
 		return defaultFile.toFile().exists();
 	}
 
+	/**
+	 * Registers the projects with a state file for lazy loading; the state file of the previous XML based format is
+	 * loaded right away.
+	 */
 	protected synchronized void loadReferenceModel() {
-		if (!shouldModelByPersisted() || !isPersisted()) {
+		if (!shouldModelByPersisted()) {
 			return;
 		}
 
-		IAopReferenceModel model = Activator.getModel();
+		if (isPersisted()) {
+			loadLegacyReferenceModel();
+			return;
+		}
+
+		File[] stateFiles = stateFolder.toFile().listFiles();
+		if (stateFiles != null) {
+			for (File stateFile : stateFiles) {
+				String fileName = stateFile.getName();
+				if (fileName.endsWith(STATE_FILE_EXTENSION)) {
+					pendingProjects.put(fileName.substring(0, fileName.length() - STATE_FILE_EXTENSION.length()),
+							new PendingProject());
+				}
+			}
+		}
+	}
+
+	private void loadLegacyReferenceModel() {
 		Reader reader = null;
 		try {
 			reader = new FileReader(defaultFile.toFile());
 			XMLMemento memento = XMLMemento.createReadRoot(reader);
-			createAopProjects(model, memento);
+			createAopProjects(memento);
 		}
 		catch (Exception e) {
 			Activator.log("Cannot load .state model file", e);
 			// re-init aop reference model
-			Activator.getModel().clearProjects();
+			model.clearProjects();
 		}
 		finally {
 			if (reader != null) {
@@ -182,6 +225,175 @@ public class AopReferenceModelPeristence {
 		}
 	}
 
+	/**
+	 * Returns <code>true</code> if there are projects that have not been loaded yet.
+	 */
+	public boolean hasPendingProjects() {
+		return !pendingProjects.isEmpty();
+	}
+
+	/**
+	 * Loads the persisted state of the given project into the model if it has not been loaded yet. Callers that ask
+	 * for a project while it is being loaded by another thread wait until it has been loaded.
+	 */
+	public void loadProject(IJavaProject javaProject) {
+		String projectName = javaProject.getElementName();
+		PendingProject pendingProject = pendingProjects.get(projectName);
+		if (pendingProject == null) {
+			return;
+		}
+
+		IAopProject aopProject = null;
+		synchronized (pendingProject) {
+			// loading accesses the model again from the same thread
+			if (pendingProject.done || pendingProject.loadingThread == Thread.currentThread()) {
+				return;
+			}
+			pendingProject.loadingThread = Thread.currentThread();
+			try {
+				aopProject = loadProjectState(javaProject, getStateFile(projectName));
+				if (aopProject != null) {
+					model.addProject(javaProject, aopProject);
+				}
+			}
+			finally {
+				pendingProject.loadingThread = null;
+				pendingProject.done = true;
+				pendingProjects.remove(projectName);
+			}
+		}
+
+		if (aopProject != null) {
+			// recreate the markers
+			createMarkers(aopProject);
+		}
+	}
+
+	/**
+	 * Loads the persisted state of all projects that have not been loaded yet.
+	 */
+	public void loadPendingProjects() {
+		String[] projectNames = pendingProjects.keySet().toArray(new String[0]);
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		for (String projectName : projectNames) {
+			IProject project = root.getProject(projectName);
+			if (project.isAccessible()) {
+				loadProject(JavaCore.create(project));
+			}
+		}
+	}
+
+	/**
+	 * Forgets the persisted state of the given project; it won't be loaded anymore.
+	 */
+	public void removeProject(IJavaProject javaProject) {
+		discard(pendingProjects.remove(javaProject.getElementName()));
+	}
+
+	/**
+	 * Forgets the persisted state of all projects.
+	 */
+	public void clearProjects() {
+		for (String projectName : pendingProjects.keySet().toArray(new String[0])) {
+			discard(pendingProjects.remove(projectName));
+		}
+	}
+
+	/**
+	 * Waits for a load of the given project that is in progress, so that it can't add the project to the model
+	 * after it has been removed.
+	 */
+	private void discard(PendingProject pendingProject) {
+		if (pendingProject != null && pendingProject.loadingThread != Thread.currentThread()) {
+			synchronized (pendingProject) {
+				pendingProject.done = true;
+			}
+		}
+	}
+
+	/**
+	 * Reads the persisted state of the given project from the given file; returns <code>null</code> if there is none
+	 * or it can't be read.
+	 * @since 3.8.4
+	 */
+	public IAopProject loadProjectState(IJavaProject javaProject, File file) {
+		if (!file.exists()) {
+			return null;
+		}
+
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				return null;
+			}
+			StringTableReader strings = new StringTableReader(in);
+
+			IAopProject aopProject = new AopProject(javaProject);
+			int definitionCount = in.readInt();
+			for (int i = 0; i < definitionCount; i++) {
+				IAspectDefinition aspectDefinition = readAspectDefinition(in, strings);
+
+				int referenceCount = in.readInt();
+				for (int j = 0; j < referenceCount; j++) {
+					String adviceType = strings.read();
+					String sourceHandle = strings.read();
+					int sourceStartLine = in.readInt();
+					String targetHandle = strings.read();
+					int targetStartLine = in.readInt();
+					String fileName = strings.read();
+					String beanId = strings.read();
+					int beanStartLine = in.readInt();
+					String beanFileName = strings.read();
+
+					// The aopReference can be null if the resource has been deleted or is an external
+					if (aspectDefinition != null && fileName != null) {
+						IAopReference aopReference = AopReferenceElementFactory.createAopReference(ADVICE_TYPE
+								.valueOf(adviceType), sourceHandle, sourceStartLine, targetHandle, targetStartLine,
+								fileName, beanId, beanStartLine, beanFileName);
+						if (aopReference != null) {
+							aopReference.setDefinition(aspectDefinition);
+							aopProject.addAopReference(aopReference);
+						}
+					}
+				}
+			}
+
+			return aopProject;
+		}
+		catch (Exception e) {
+			Activator.log(String.format("Cannot load AOP reference model state of project '%s'", javaProject
+					.getElementName()), e);
+			return null;
+		}
+		finally {
+			if (in != null) {
+				try {
+					in.close();
+				}
+				catch (IOException e) {
+				}
+			}
+		}
+	}
+
+	private IAspectDefinition readAspectDefinition(DataInputStream in, StringTableReader strings) throws IOException {
+		String factoryId = strings.read();
+		XMLMemento memento = XMLMemento.createWriteRoot(ASPECT_DEFINITION_ELEMENT);
+		int attributeCount = in.readInt();
+		for (int i = 0; i < attributeCount; i++) {
+			String key = strings.read();
+			String value = strings.read();
+			memento.putString(key, value);
+		}
+
+		IElementFactory factory = ELEMENT_FACTORIES.get(factoryId);
+		if (factory != null) {
+			return (IAspectDefinition) factory.createElement(memento);
+		}
+		return null;
+	}
+
 	private boolean shouldModelByPersisted() {
 		IScopeContext context = new InstanceScope();
 		IEclipsePreferences node = context.getNode(Activator.PLUGIN_ID);
@@ -189,73 +401,220 @@ public class AopReferenceModelPeristence {
 	}
 
 	protected synchronized void saveReferenceModel() {
+		if (isPersisted()) {
+			defaultFile.toFile().delete();
+		}
+
 		if (!shouldModelByPersisted()) {
-			if (isPersisted()) {
-				defaultFile.toFile().delete();
+			File[] stateFiles = stateFolder.toFile().listFiles();
+			if (stateFiles != null) {
+				for (File stateFile : stateFiles) {
+					stateFile.delete();
+				}
 			}
 			return;
 		}
 
-		XMLMemento memento = XMLMemento.createWriteRoot(AOP_REFERENCE_MODEL_ELEMENT);
-		Collection<IAopProject> projects = Activator.getModel().getProjects();
-		for (IAopProject project : projects) {
-			IMemento projectM = appendNewChild(memento, AOP_PROJECT_ELEMENT);
-			projectM.putString(NAME_ATTRIBUTE, project.getProject().getElementName());
+		Set<String> savedProjects = new HashSet<String>();
+		stateFolder.toFile().mkdirs();
+		for (IAopProject project : model.getLoadedProjects()) {
+			String projectName = project.getProject().getElementName();
+			savedProjects.add(projectName);
+			saveProjectState(project, getStateFile(projectName));
+		}
 
-			Set<IAopReference> refs = project.getAllReferences();
-			Map<IAspectDefinition, List<IAopReference>> maps = new HashMap<IAspectDefinition, List<IAopReference>>();
-			for (IAopReference ref : refs) {
-				if (maps.containsKey(ref.getDefinition())) {
-					maps.get(ref.getDefinition()).add(ref);
-				}
-				else {
-					List<IAopReference> r = new ArrayList<IAopReference>();
-					r.add(ref);
-					maps.put(ref.getDefinition(), r);
+		// keep the untouched state of projects that have not been loaded; delete the state of removed projects
+		File[] stateFiles = stateFolder.toFile().listFiles();
+		if (stateFiles != null) {
+			IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+			for (File stateFile : stateFiles) {
+				String fileName = stateFile.getName();
+				String projectName = fileName.endsWith(STATE_FILE_EXTENSION) ? fileName.substring(0, fileName
+						.length()
+						- STATE_FILE_EXTENSION.length()) : null;
+				if (projectName == null
+						|| (!savedProjects.contains(projectName) && (!pendingProjects.containsKey(projectName) || !root
+								.getProject(projectName).exists()))) {
+					stateFile.delete();
 				}
 			}
+		}
+	}
+
+	/**
+	 * Writes the state of the given project to the given file.
+	 * @since 3.8.4
+	 */
+	public void saveProjectState(IAopProject project, File file) {
+		Map<IAspectDefinition, List<IAopReference>> maps = new LinkedHashMap<IAspectDefinition, List<IAopReference>>();
+		for (IAopReference ref : project.getAllReferences()) {
+			if (!(ref.getDefinition() instanceof IAdaptable)) {
+				continue;
+			}
+			if (maps.containsKey(ref.getDefinition())) {
+				maps.get(ref.getDefinition()).add(ref);
+			}
+			else {
+				List<IAopReference> r = new ArrayList<IAopReference>();
+				r.add(ref);
+				maps.put(ref.getDefinition(), r);
+			}
+		}
+
+		File tempFile = new File(file.getPath() + ".tmp");
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			StringTableWriter strings = new StringTableWriter(out);
 
+			List<IPersistableElement> definitions = new ArrayList<IPersistableElement>();
+			List<List<IAopReference>> definitionReferences = new ArrayList<List<IAopReference>>();
 			for (Map.Entry<IAspectDefinition, List<IAopReference>> entry : maps.entrySet()) {
-				IMemento definitionM = appendNewChild(projectM, ASPECT_DEFINITION_ELEMENT);
-				if (entry.getKey() instanceof IAdaptable) {
-					IPersistableElement pers = (IPersistableElement) ((IAdaptable) entry.getKey())
-							.getAdapter(IPersistableElement.class);
-					if (pers != null) {
-						pers.saveState(definitionM);
-						definitionM.putString(FACTORY_ID, pers.getFactoryId());
-					}
-					for (IAopReference ref : entry.getValue()) {
-						if (ref instanceof IAdaptable) {
-							IPersistableElement pers2 = (IPersistableElement) ((IAdaptable) ref)
-									.getAdapter(IPersistableElement.class);
-							if (pers2 != null) {
-								IMemento refM = appendNewChild(definitionM, AOP_REFERENCE_ELEMENT);
-								pers2.saveState(refM);
-								refM.putString(FACTORY_ID, pers2.getFactoryId());
-							}
-						}
-					}
+				IPersistableElement pers = (IPersistableElement) ((IAdaptable) entry.getKey())
+						.getAdapter(IPersistableElement.class);
+				if (pers != null) {
+					definitions.add(pers);
+					definitionReferences.add(entry.getValue());
 				}
 			}
-		}
 
-		// save memento to default map file
-		Writer writer = null;
-		try {
-			writer = new FileWriter(defaultFile.toFile());
-			memento.save(writer);
+			out.writeInt(definitions.size());
+			for (int i = 0; i < definitions.size(); i++) {
+				writeAspectDefinition(out, strings, definitions.get(i));
+
+				List<IAopReference> references = definitionReferences.get(i);
+				out.writeInt(references.size());
+				for (IAopReference reference : references) {
+					strings.write(reference.getAdviceType().toString());
+					strings.write(reference.getSource() != null ? reference.getSource().getHandleIdentifier() : null);
+					out.writeInt(reference.getSourceStartLine());
+					strings.write(reference.getTarget() != null ? reference.getTarget().getHandleIdentifier() : null);
+					out.writeInt(reference.getTargetStartLine());
+					strings.write(reference.getResource() != null ? reference.getResource().getFullPath().toString()
+							: null);
+					strings.write(reference.getTargetBeanId());
+					out.writeInt(reference.getTargetBeanStartline());
+					strings.write(reference.getTargetBeanResource() != null ? reference.getTargetBeanResource()
+							.getFullPath().toString() : null);
+				}
+			}
+			out.close();
+			out = null;
+
+			file.delete();
+			if (!tempFile.renameTo(file)) {
+				tempFile.delete();
+			}
 		}
 		catch (IOException e) {
+			Activator.log(String.format("Cannot save AOP reference model state of project '%s'", project
+					.getProject().getElementName()), e);
 		}
 		finally {
-			if (writer != null) {
+			if (out != null) {
 				try {
-					writer.flush();
-					writer.close();
+					out.close();
 				}
 				catch (IOException e) {
 				}
+				tempFile.delete();
+			}
+		}
+	}
+
+	private void writeAspectDefinition(DataOutputStream out, StringTableWriter strings, IPersistableElement definition)
+			throws IOException {
+		XMLMemento memento = XMLMemento.createWriteRoot(ASPECT_DEFINITION_ELEMENT);
+		definition.saveState(memento);
+
+		strings.write(definition.getFactoryId());
+		String[] keys = memento.getAttributeKeys();
+		out.writeInt(keys.length);
+		for (String key : keys) {
+			strings.write(key);
+			strings.write(memento.getString(key));
+		}
+	}
+
+	private File getStateFile(String projectName) {
+		return stateFolder.append(projectName + STATE_FILE_EXTENSION).toFile();
+	}
+
+	/**
+	 * Writes every distinct string only once; repeated strings are written as index into the table of the strings
+	 * written so far.
+	 */
+	private static class StringTableWriter {
+
+		private final DataOutputStream out;
+
+		private final Map<String, Integer> table = new HashMap<String, Integer>();
+
+		public StringTableWriter(DataOutputStream out) {
+			this.out = out;
+		}
+
+		public void write(String string) throws IOException {
+			if (string == null) {
+				out.writeInt(-1);
+				return;
+			}
+			Integer index = table.get(string);
+			if (index != null) {
+				out.writeInt(index);
+			}
+			else {
+				table.put(string, table.size());
+				byte[] bytes = string.getBytes("UTF-8");
+				out.writeInt(-2);
+				out.writeInt(bytes.length);
+				out.write(bytes);
 			}
 		}
 	}
+
+	/**
+	 * Reads the strings written by a {@link StringTableWriter}.
+	 */
+	private static class StringTableReader {
+
+		private final DataInputStream in;
+
+		private final List<String> table = new ArrayList<String>();
+
+		public StringTableReader(DataInputStream in) {
+			this.in = in;
+		}
+
+		public String read() throws IOException {
+			int index = in.readInt();
+			if (index == -1) {
+				return null;
+			}
+			else if (index == -2) {
+				byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				String string = new String(bytes, "UTF-8");
+				table.add(string);
+				return string;
+			}
+			else if (index < 0 || index >= table.size()) {
+				throw new IOException("Invalid string table index " + index);
+			}
+			return table.get(index);
+		}
+	}
+
+	/**
+	 * Load state of a project with a state file; its monitor is held while the project is being loaded.
+	 */
+	private static class PendingProject {
+
+		private volatile Thread loadingThread;
+
+		private volatile boolean done = false;
+	}
+
 }
@@ -0,0 +1,465 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.aop.core.internal.model.builder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.springframework.ide.eclipse.aop.core.model.IAspectDefinition;
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.core.java.ITypeStructureCache;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
+import org.springframework.ide.eclipse.core.java.TypeStructureState;
+
+/**
+ * Cache for the results of matching a single {@link IAspectDefinition} against a single {@link IBean}.
+ * <p>
+ * Results are keyed by the values of the aspect definition and the bean, not by identity, so that results survive the
+ * re-creation of both on every build. A result is dropped as soon as a type it depends on changes: the types of the
+ * target class hierarchy, the aspect class and the types named in the pointcut expression. All of them are recorded
+ * by their fully-qualified names; names in the pointcut expression that are not qualified are resolved against the
+ * package of the aspect class.
+ * <p>
+ * Changed types are recorded by {@link #recordChangedResource(IResource, int, int, TypeStructureState)} while the
+ * project builder collects the affected resources of a build and applied by {@link #applyChanges()} before the next
+ * build job starts matching, so that changes covered by cancelled jobs are not lost. The build job itself only sees the
+ * affected beans configs, never the changed Java files. Changes of the classpath and of the contents of jars on the
+ * classpath drop all results of the affected projects. Closing or deleting a project drops its results together with
+ * its {@link CompiledPointcutCache}.
+ * @since 3.8.4
+ */
+public class AopReferenceMatchCache {
+
+	private static final String JAVA_FILE_EXTENSION = ".java";
+
+	/** Qualified or simple Java identifiers within a pointcut expression */
+	private static final Pattern IDENTIFIER = Pattern.compile("[\\p{javaJavaIdentifierStart}][\\p{javaJavaIdentifierPart}.]*");
+
+	private static final int CLASSPATH_CHANGED_FLAGS = IJavaElementDelta.F_CLASSPATH_CHANGED
+			| IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED;
+
+	private static final int ROOT_CHANGED_FLAGS = IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED
+			| IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH;
+
+	private static IElementChangedListener classpathListener;
+
+	private static IResourceChangeListener projectListener;
+
+	private static final Map<IProject, AopReferenceMatchCache> caches = new ConcurrentHashMap<IProject, AopReferenceMatchCache>();
+
+	private static final Set<String> pendingChangedTypes = new HashSet<String>();
+
+	private static final Set<IProject> pendingClearedProjects = new HashSet<IProject>();
+
+	private final Map<String, MatchResult> results = new ConcurrentHashMap<String, MatchResult>();
+
+	/**
+	 * Returns the cache for the given project.
+	 */
+	public static AopReferenceMatchCache getCache(IProject project) {
+		AopReferenceMatchCache cache = caches.get(project);
+		if (cache == null) {
+			synchronized (caches) {
+				cache = caches.get(project);
+				if (cache == null) {
+					cache = new AopReferenceMatchCache();
+					caches.put(project, cache);
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Removes all cached results of the given project.
+	 */
+	public static void clear(IProject project) {
+		caches.remove(project);
+	}
+
+	/**
+	 * Records the given resource as changed if it is a Java file that has been removed or has structural changes that
+	 * can affect pointcut matching. Full builds drop all results of the project anyway.
+	 * @param structureState the structure state of the current build; might be <code>null</code>
+	 */
+	public static void recordChangedResource(IResource resource, int kind, int deltaKind,
+			TypeStructureState structureState) {
+		if (kind == IncrementalProjectBuilder.FULL_BUILD || !resource.getName().endsWith(JAVA_FILE_EXTENSION)) {
+			return;
+		}
+		if (deltaKind == IResourceDelta.REMOVED
+				|| structureState == null
+				|| structureState.hasStructuralChanges(resource, ITypeStructureCache.FLAG_ANNOTATION
+						| ITypeStructureCache.FLAG_ANNOTATION_VALUE)) {
+			recordChangedResources(resource.getProject(), Collections.singleton(resource));
+		}
+	}
+
+	/**
+	 * Starts dropping the results of projects whose classpath or jars change and of projects that are closed or
+	 * deleted.
+	 */
+	public static synchronized void startListening() {
+		if (classpathListener == null) {
+			classpathListener = new ClasspathChangeListener();
+			JavaCore.addElementChangedListener(classpathListener, ElementChangedEvent.POST_CHANGE);
+		}
+		if (projectListener == null) {
+			projectListener = new ProjectCloseListener();
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(projectListener,
+					IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
+		}
+	}
+
+	/**
+	 * Stops listening for classpath and project changes.
+	 */
+	public static synchronized void stopListening() {
+		if (classpathListener != null) {
+			JavaCore.removeElementChangedListener(classpathListener);
+			classpathListener = null;
+		}
+		if (projectListener != null) {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(projectListener);
+			projectListener = null;
+		}
+	}
+
+	/**
+	 * Records the types declared in the given changed Java files. If the types can't be determined, e.g. because a
+	 * file has been removed, all results of the project are dropped.
+	 */
+	public static void recordChangedResources(IProject project, Set<IResource> changedResources) {
+		Set<String> changedTypes = new HashSet<String>();
+		boolean clearProject = false;
+
+		for (IResource resource : changedResources) {
+			if (resource instanceof IFile && resource.getName().endsWith(JAVA_FILE_EXTENSION)) {
+				ICompilationUnit compilationUnit = resource.exists() ? JavaCore.createCompilationUnitFrom((IFile) resource)
+						: null;
+				if (compilationUnit == null) {
+					clearProject = true;
+					continue;
+				}
+				try {
+					for (IType type : compilationUnit.getAllTypes()) {
+						changedTypes.add(type.getFullyQualifiedName('$'));
+					}
+				}
+				catch (JavaModelException e) {
+					clearProject = true;
+				}
+			}
+		}
+
+		if (clearProject) {
+			recordClearedProject(project);
+			// classes of the project might be loaded by the classloaders of other projects as well
+			CompiledPointcutCache.clearAll();
+		}
+		recordChangedTypes(changedTypes);
+	}
+
+	/**
+	 * Records the types with the given fully-qualified names as changed.
+	 */
+	public static void recordChangedTypes(Set<String> changedTypes) {
+		if (changedTypes.isEmpty()) {
+			return;
+		}
+		synchronized (pendingChangedTypes) {
+			for (String changedType : changedTypes) {
+				pendingChangedTypes.add(toSourceName(changedType));
+			}
+		}
+		// classes loaded by the classloaders kept with the compiled pointcuts are stale now
+		CompiledPointcutCache.clearAll();
+	}
+
+	/**
+	 * Records that all results of the given project need to be dropped.
+	 */
+	public static void recordClearedProject(IProject project) {
+		synchronized (pendingChangedTypes) {
+			pendingClearedProjects.add(project);
+		}
+		CompiledPointcutCache.clear(project);
+	}
+
+	/**
+	 * Drops all results that depend on types recorded as changed since the last invocation.
+	 */
+	public static void applyChanges() {
+		Set<String> changedTypes;
+		Set<IProject> clearedProjects;
+		synchronized (pendingChangedTypes) {
+			changedTypes = new HashSet<String>(pendingChangedTypes);
+			clearedProjects = new HashSet<IProject>(pendingClearedProjects);
+			pendingChangedTypes.clear();
+			pendingClearedProjects.clear();
+		}
+
+		for (IProject project : clearedProjects) {
+			clear(project);
+		}
+		if (!changedTypes.isEmpty()) {
+			// types of one project can be part of the type hierarchy of beans in other projects
+			for (AopReferenceMatchCache cache : caches.values()) {
+				cache.invalidate(changedTypes);
+			}
+		}
+	}
+
+	/**
+	 * Returns the cached result for the given aspect definition and bean with the given class; or <code>null</code> if
+	 * nothing has been cached.
+	 */
+	public MatchResult getResult(IAspectDefinition info, IBean bean, String className) {
+		return results.get(createKey(info, bean, className));
+	}
+
+	/**
+	 * Stores the matching methods for the given aspect definition and bean with the given class.
+	 * @param aspectMethod the advice method of the aspect definition
+	 * @param dependentTypes the fully-qualified names of the types the result depends on besides the types named in
+	 * the pointcut expression
+	 */
+	public void putMatches(IAspectDefinition info, IBean bean, String className, IMethod aspectMethod,
+			Set<IMethod> matches, Set<String> dependentTypes) {
+		Set<String> allDependentTypes = new HashSet<String>();
+		for (String dependentType : dependentTypes) {
+			allDependentTypes.add(toSourceName(dependentType));
+		}
+		allDependentTypes.addAll(getPointcutTypes(info.getPointcutExpression(), info.getAspectClassName()));
+		results.put(createKey(info, bean, className), new MatchResult(aspectMethod, matches, allDependentTypes));
+	}
+
+	/**
+	 * Returns the number of cached results.
+	 */
+	public int size() {
+		return results.size();
+	}
+
+	private void invalidate(Set<String> changedTypes) {
+		for (Iterator<MatchResult> iterator = results.values().iterator(); iterator.hasNext();) {
+			if (iterator.next().dependsOn(changedTypes)) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Returns the fully-qualified names of the types the given pointcut expression might refer to. Every prefix of a
+	 * qualified name is included, as it might as well be a named pointcut or a member type. Names that start with a
+	 * type name are included relative to the package of the given aspect class.
+	 */
+	static Set<String> getPointcutTypes(String pointcutExpression, String aspectClassName) {
+		Set<String> typeNames = new HashSet<String>();
+		if (pointcutExpression == null) {
+			return typeNames;
+		}
+		String aspectPackage = null;
+		if (aspectClassName != null && aspectClassName.lastIndexOf('.') > 0) {
+			aspectPackage = aspectClassName.substring(0, aspectClassName.lastIndexOf('.'));
+		}
+
+		Matcher matcher = IDENTIFIER.matcher(pointcutExpression);
+		while (matcher.find()) {
+			String identifier = matcher.group();
+			for (int end = identifier.indexOf('.'); end != -1; end = identifier.indexOf('.', end + 1)) {
+				addPointcutType(identifier.substring(0, end), aspectPackage, typeNames);
+			}
+			addPointcutType(identifier, aspectPackage, typeNames);
+		}
+		return typeNames;
+	}
+
+	private static void addPointcutType(String name, String aspectPackage, Set<String> typeNames) {
+		if (name.length() == 0 || name.endsWith(".")) {
+			return;
+		}
+		if (name.indexOf('.') > 0) {
+			typeNames.add(name);
+		}
+		// names starting with a package are not relative to the package of the aspect
+		if (aspectPackage != null && Character.isUpperCase(name.charAt(0))) {
+			typeNames.add(aspectPackage + "." + name);
+		}
+	}
+
+	/**
+	 * Returns the given binary type name in source notation, as used in pointcut expressions.
+	 */
+	private static String toSourceName(String typeName) {
+		return typeName.replace('$', '.');
+	}
+
+	/**
+	 * Returns the names of the given class, all its superclasses and all implemented interfaces.
+	 */
+	public static Set<String> getTypeHierarchy(Class<?> clazz) {
+		Set<String> typeNames = new LinkedHashSet<String>();
+		addTypeHierarchy(clazz, typeNames);
+		return typeNames;
+	}
+
+	private static void addTypeHierarchy(Class<?> clazz, Set<String> typeNames) {
+		if (clazz != null && typeNames.add(clazz.getName())) {
+			addTypeHierarchy(clazz.getSuperclass(), typeNames);
+			for (Class<?> interfaceClass : clazz.getInterfaces()) {
+				addTypeHierarchy(interfaceClass, typeNames);
+			}
+		}
+	}
+
+	private static String createKey(IAspectDefinition info, IBean bean, String className) {
+		StringBuilder key = new StringBuilder();
+		key.append(info.getClass().getName()).append('\0');
+		key.append(info.getResource() != null ? info.getResource().getFullPath().toString() : null).append('\0');
+		key.append(info.getAspectName()).append('\0');
+		key.append(info.getAspectClassName()).append('\0');
+		key.append(info.getType()).append('\0');
+		key.append(info.getAdviceMethodName()).append('\0');
+		key.append(Arrays.toString(info.getAdviceMethodParameterTypes())).append('\0');
+		key.append(Arrays.toString(info.getArgNames())).append('\0');
+		key.append(info.getReturning()).append('\0');
+		key.append(info.getThrowing()).append('\0');
+		key.append(info.isProxyTargetClass()).append('\0');
+		key.append(info.getPointcutExpression()).append('\0');
+		key.append(bean.getElementID()).append('\0');
+		key.append(Arrays.toString(bean.getAliases())).append('\0');
+		key.append(className);
+		return key.toString();
+	}
+
+	/**
+	 * The cached result of matching a single aspect definition against a single bean.
+	 */
+	public static class MatchResult {
+
+		private final IMethod aspectMethod;
+
+		private final Set<IMethod> matches;
+
+		private final Set<String> dependentTypes;
+
+		MatchResult(IMethod aspectMethod, Set<IMethod> matches, Set<String> dependentTypes) {
+			this.aspectMethod = aspectMethod;
+			this.matches = Collections.unmodifiableSet(new LinkedHashSet<IMethod>(matches));
+			this.dependentTypes = dependentTypes;
+		}
+
+		public IMethod getAspectMethod() {
+			return aspectMethod;
+		}
+
+		public Set<IMethod> getMatches() {
+			return matches;
+		}
+
+		boolean dependsOn(Set<String> changedTypes) {
+			for (String changedType : changedTypes) {
+				if (dependentTypes.contains(changedType)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Drops the results of projects whose classpath changed or that have a jar on their classpath whose content
+	 * changed.
+	 */
+	private static class ClasspathChangeListener implements IElementChangedListener {
+
+		public void elementChanged(ElementChangedEvent event) {
+			Set<IJavaProject> changedProjects = new HashSet<IJavaProject>();
+			for (IJavaElementDelta delta : event.getDelta().getAffectedChildren()) {
+				if (!(delta.getElement() instanceof IJavaProject)) {
+					continue;
+				}
+				if ((delta.getFlags() & CLASSPATH_CHANGED_FLAGS) != 0) {
+					changedProjects.add((IJavaProject) delta.getElement());
+					continue;
+				}
+				for (IJavaElementDelta rootDelta : delta.getAffectedChildren()) {
+					if (rootDelta.getElement() instanceof IPackageFragmentRoot
+							&& ((rootDelta.getFlags() & ROOT_CHANGED_FLAGS) != 0
+									|| (rootDelta.getKind() != IJavaElementDelta.CHANGED
+											&& ((IPackageFragmentRoot) rootDelta.getElement()).isArchive()))) {
+						changedProjects.add((IJavaProject) delta.getElement());
+						break;
+					}
+				}
+			}
+			if (changedProjects.isEmpty()) {
+				return;
+			}
+
+			// projects that depend on a changed project see its changes as well
+			for (IProject project : caches.keySet()) {
+				IJavaProject javaProject = JdtUtils.getJavaProject(project);
+				if (javaProject == null) {
+					continue;
+				}
+				for (IJavaProject changedProject : changedProjects) {
+					if (javaProject.equals(changedProject) || javaProject.isOnClasspath(changedProject)) {
+						recordClearedProject(project);
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Drops the results and compiled pointcuts of projects that are closed or deleted.
+	 */
+	private static class ProjectCloseListener implements IResourceChangeListener {
+
+		public void resourceChanged(IResourceChangeEvent event) {
+			if (event.getResource() instanceof IProject) {
+				IProject project = (IProject) event.getResource();
+				clear(project);
+				CompiledPointcutCache.clear(project);
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007 - 2013 Spring IDE Developers
+ * Copyright (c) 2007 - 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,12 +12,24 @@ package org.springframework.ide.eclipse.aop.core.internal.model.builder;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
@@ -66,6 +78,10 @@ import org.springframework.ide.eclipse.core.model.IModelElement;
 
 /**
  * Handles creation and modification of the {@link AopReferenceModel}.
+ * <p>
+ * The matching of the aspect definitions against the beans of a file is done concurrently, one task per aspect
+ * definition. Match results are reused from the {@link AopReferenceMatchCache} for all pairs of aspect definition and
+ * bean that are not affected by the changed types; only the remaining, affected pairs are matched.
  * @author Christian Dupuis
  * @author Torsten Juergeleit
  * @author Leo Dos Santos
@@ -77,6 +93,19 @@ public class AopReferenceModelBuilderJob extends Job {
 			"org.springframework.ide.eclipse.aop.core.internal.model.builder.show.progress", "false").equalsIgnoreCase(
 			"true");
 
+	private static final boolean PARALLEL_MATCHING = System.getProperty(
+			"org.springframework.ide.eclipse.aop.core.internal.model.builder.parallel.matching", "true")
+			.equalsIgnoreCase("true");
+
+	/** Maximum number of threads used to match aspect definitions against beans */
+	private static final int MAX_MATCHING_THREADS = 4;
+
+	private static final int MATCHING_THREADS = Math.min(Runtime.getRuntime().availableProcessors(),
+			MAX_MATCHING_THREADS);
+
+	/** Shared by all build jobs, which never run concurrently; idle threads time out */
+	private static ExecutorService matchingExecutor;
+
 	private static final String DEBUG_OPTION = Activator.PLUGIN_ID + "/builder/debug";
 
 	private static boolean DEBUG_BUILDER = SpringCore.isDebug(DEBUG_OPTION);
@@ -99,16 +128,18 @@ public class AopReferenceModelBuilderJob extends Job {
 
 	private AspectDefinitionBuilderHelper aspectDefinitionBuilder;
 
+	private AopReferenceMatchCache matchCache;
+
+	private CompiledPointcutCache pointcutCache;
+
 	/**
 	 * Constructor to create a {@link AopReferenceModelBuilderJob} instance.
 	 * @param affectedResources the set of resources that should be processed
 	 */
-	public AopReferenceModelBuilderJob(IProject project, Set<IResource> affectedResources,
-			Set<IResource> originalResources) {
+	public AopReferenceModelBuilderJob(IProject project, Set<IResource> affectedResources) {
 		super(Activator.getFormattedMessage("AopReferenceModelProjectBuilder.buildingAopReferenceModel"));
 		this.affectedResources = affectedResources;
 		this.project = project;
-		// this.originalResources = originalResources;
 		setPriority(Job.BUILD);
 		// make sure that only one Job at a time runs but without blocking the UI
 		setRule(new BlockingOnSelfSchedulingRule());
@@ -173,15 +204,17 @@ public class AopReferenceModelBuilderJob extends Job {
 	 * Builds AOP references for given {@link IBean} instances. Matches the given Aspect definition against the
 	 * {@link IBean}.
 	 */
-	private void buildAopReferencesForBean(final IBean bean, final IModelElement context, final IAspectDefinition info,
-			final IResource file, final IAopProject aopProject, IProgressMonitor monitor) {
+	private List<IAopReference> buildAopReferencesForBean(final IBean bean, final IModelElement context,
+			final IAspectDefinition info, final IResource file, final IAopProject aopProject,
+			final AspectDefinitionMatcher matcher) {
+		final List<IAopReference> references = new ArrayList<IAopReference>();
 		try {
 			AopLog.log(AopLog.BUILDER, Activator.getFormattedMessage(
 					"AopReferenceModelBuilder.processingBeanDefinition", bean, bean.getElementResource().getFullPath()));
 
 			// check if bean is abstract
 			if (bean.isAbstract()) {
-				return;
+				return references;
 			}
 
 			final String className = BeansModelUtils.getBeanClass(bean, context);
@@ -190,7 +223,7 @@ public class AopReferenceModelBuilderJob extends Job {
 					&& info.getResource() != null && info.getResource().equals(bean.getElementResource())) {
 				AopLog.log(AopLog.BUILDER_MESSAGES, Activator.getFormattedMessage(
 						"AopReferenceModelBuilder.skippingBeanDefinition", bean));
-				return;
+				return references;
 			}
 
 			final IType jdtTargetType = JdtUtils.getJavaType(file.getProject(), className);
@@ -201,7 +234,13 @@ public class AopReferenceModelBuilderJob extends Job {
 			if (jdtTargetType == null || bean.isFactory()) {
 				AopLog.log(AopLog.BUILDER_MESSAGES, Activator.getFormattedMessage(
 						"AopReferenceModelBuilder.skippingFactoryBeanDefinition", bean));
-				return;
+				return references;
+			}
+
+			// rule out beans the pointcut can't match before loading any class
+			if (info instanceof BeanAspectDefinition && !(info instanceof BeanIntroductionDefinition)
+					&& !matcher.couldMatch(className, bean, info, file.getProject())) {
+				return references;
 			}
 
 			// do in context of active weaving class loader
@@ -237,36 +276,29 @@ public class AopReferenceModelBuilderJob extends Job {
 								IAopReference ref = new AopReference(info.getType(), jdtAspectMember, JdtUtils
 										.getLineNumber(jdtAspectMember), jdtTargetType, JdtUtils
 										.getLineNumber(jdtTargetType), info, file, bean);
-								aopProject.addAopReference(ref);
+								references.add(ref);
 							}
 						}
 					}
 					else if (info instanceof BeanAspectDefinition) {
-						IMethod jdtAspectMethod = null;
-
-						if (info instanceof JavaAdvisorDefinition) {
-							jdtAspectMethod = JdtUtils.getMethod(jdtAspectType, info.getAdviceMethodName(), info
-									.getAdviceMethodParameterTypes());
-						}
-						else {
-							// validate the aspect definition
-							if (info.getAdviceMethod() == null) {
-								return;
-							}
-							jdtAspectMethod = JdtUtils.getMethod(jdtAspectType, info.getAdviceMethodName(), info
-									.getAdviceMethod().getParameterTypes());
-						}
+						IMethod jdtAspectMethod = getAspectMethod(jdtAspectType, info);
 
 						if (jdtAspectMethod != null) {
 							// long start = System.currentTimeMillis();
-							Set<IMethod> matchingMethods = aspectDefinitionMatcher.matches(targetClass, bean, info,
-									aopProject.getProject().getProject());
-							for (IMethod method : matchingMethods) {
-								IAopReference ref = new AopReference(info.getType(), jdtAspectMethod, JdtUtils
-										.getLineNumber(jdtAspectMethod), method, JdtUtils.getLineNumber(method), info,
-										file, bean);
-								aopProject.addAopReference(ref);
+							Set<IMethod> matchingMethods = matcher.matches(targetClass, bean, info, aopProject
+									.getProject().getProject());
+							addAopReferences(references, jdtAspectMethod, matchingMethods, info, file, bean);
+
+							Set<String> dependentTypes = AopReferenceMatchCache.getTypeHierarchy(targetClass);
+							if (info.getAspectClassName() != null) {
+								dependentTypes.add(info.getAspectClassName());
 							}
+							if (info.getAdviceMethod() != null) {
+								dependentTypes.addAll(AopReferenceMatchCache.getTypeHierarchy(info.getAdviceMethod()
+										.getDeclaringClass()));
+							}
+							matchCache.putMatches(info, bean, className, jdtAspectMethod, matchingMethods,
+									dependentTypes);
 							// System.out.println(String.format("--- matching on '%s' took '%s'", targetClass, (System
 							// .currentTimeMillis() - start)));
 						}
@@ -277,24 +309,165 @@ public class AopReferenceModelBuilderJob extends Job {
 		catch (Throwable t) {
 			markerJob.addThrowableHolder(new ThrowableHolder(t, file, bean, info));
 		}
+		return references;
+	}
+
+	/**
+	 * Returns the advice method of the given aspect definition or <code>null</code> if the aspect definition is not
+	 * valid.
+	 */
+	private IMethod getAspectMethod(IType jdtAspectType, IAspectDefinition info) {
+		if (info instanceof JavaAdvisorDefinition) {
+			return JdtUtils.getMethod(jdtAspectType, info.getAdviceMethodName(), info.getAdviceMethodParameterTypes());
+		}
+		// validate the aspect definition
+		if (info.getAdviceMethod() == null) {
+			return null;
+		}
+		return JdtUtils.getMethod(jdtAspectType, info.getAdviceMethodName(), info.getAdviceMethod()
+				.getParameterTypes());
+	}
+
+	private void addAopReferences(List<IAopReference> references, IMethod jdtAspectMethod,
+			Set<IMethod> matchingMethods, IAspectDefinition info, IResource file, IBean bean) {
+		for (IMethod method : matchingMethods) {
+			references.add(new AopReference(info.getType(), jdtAspectMethod, JdtUtils.getLineNumber(jdtAspectMethod),
+					method, JdtUtils.getLineNumber(method), info, file, bean));
+		}
 	}
 
 	private void buildAopReferencesForBeans(IModelElement config, IAspectDefinition info, IProgressMonitor monitor,
-			IResource file, IAopProject aopProject, Set<IBean> beans) {
+			IResource file, IAopProject aopProject, Set<IBean> beans, List<MatchTask> tasks) {
 
 		monitor.subTask(Activator.getFormattedMessage("AopReferenceModelBuilder.buildingAopReferences"));
 
 		for (IBean bean : beans) {
 			monitor.subTask(Activator.getFormattedMessage("AopReferenceModelBuilder.buildingAopReferencesForBean", bean
 					.getElementName(), bean.getElementResource().getFullPath()));
-			buildAopReferencesForBean(bean, config, info, file, aopProject, monitor);
+			MatchTask task = new MatchTask(bean, config, info, file, aopProject);
+			task.reuseCachedResult();
+			tasks.add(task);
 
 			// Make sure that inner beans are handled as well
-			buildAopReferencesForBeans(config, info, monitor, file, aopProject, BeansModelUtils.getInnerBeans(bean));
+			buildAopReferencesForBeans(config, info, monitor, file, aopProject, BeansModelUtils.getInnerBeans(bean),
+					tasks);
 		}
 	}
 
-	private void buildAopReferencesForBeansConfig(IBeansConfig config, IAspectDefinition info, IProgressMonitor monitor) {
+	/**
+	 * Matches the aspect definitions against the beans of the given tasks. The tasks of all aspect definitions sharing
+	 * a compiled pointcut are executed by a single thread, so that AspectJ pointcuts are never used concurrently.
+	 */
+	private void executeMatchTasks(List<MatchTask> allTasks, final IProgressMonitor monitor) {
+		// only the pairs of aspect definition and bean that are affected by changes need to be matched
+		List<MatchTask> tasks = new ArrayList<MatchTask>();
+		for (MatchTask task : allTasks) {
+			if (!task.done) {
+				tasks.add(task);
+			}
+		}
+		if (DEBUG_BUILDER) {
+			System.out.println(String.format("> matching %s of %s pairs of aspect definition and bean", tasks.size(),
+					allTasks.size()));
+		}
+
+		Map<String, List<MatchTask>> tasksByDefinition = new LinkedHashMap<String, List<MatchTask>>();
+		for (MatchTask task : tasks) {
+			String pointcutKey = CompiledPointcutCache.createKey(task.info);
+			List<MatchTask> definitionTasks = tasksByDefinition.get(pointcutKey);
+			if (definitionTasks == null) {
+				definitionTasks = new ArrayList<MatchTask>();
+				tasksByDefinition.put(pointcutKey, definitionTasks);
+			}
+			definitionTasks.add(task);
+		}
+
+		if (!PARALLEL_MATCHING || MATCHING_THREADS < 2 || tasksByDefinition.size() < 2) {
+			for (MatchTask task : tasks) {
+				if (monitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+				task.match(aspectDefinitionMatcher);
+			}
+			return;
+		}
+
+		ExecutorService executor = getMatchingExecutor();
+		final List<AspectDefinitionMatcher> matchers = new ArrayList<AspectDefinitionMatcher>();
+		final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		final AtomicBoolean stopped = new AtomicBoolean();
+		boolean interrupted = false;
+		try {
+			for (final List<MatchTask> definitionTasks : tasksByDefinition.values()) {
+				final AspectDefinitionMatcher matcher = new AspectDefinitionMatcher(pointcutCache);
+				matchers.add(matcher);
+				futures.add(executor.submit(new Callable<Void>() {
+					public Void call() {
+						for (MatchTask task : definitionTasks) {
+							if (stopped.get() || monitor.isCanceled()) {
+								break;
+							}
+							task.match(matcher);
+						}
+						return null;
+					}
+				}));
+			}
+		}
+		finally {
+			// all tasks need to be done before their matchers can be closed, even if one of them failed
+			for (Future<Void> future : futures) {
+				while (true) {
+					try {
+						future.get();
+						break;
+					}
+					catch (InterruptedException e) {
+						interrupted = true;
+						stopped.set(true);
+					}
+					catch (ExecutionException e) {
+						Activator.log(e.getCause());
+						break;
+					}
+				}
+			}
+			for (AspectDefinitionMatcher matcher : matchers) {
+				matcher.close();
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		}
+		if (monitor.isCanceled()) {
+			throw new OperationCanceledException();
+		}
+	}
+
+	private static synchronized ExecutorService getMatchingExecutor() {
+		if (matchingExecutor == null) {
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(MATCHING_THREADS, MATCHING_THREADS, 60L,
+					TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+						private final AtomicInteger count = new AtomicInteger();
+
+						public Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable, "Spring AOP Reference Model Matcher "
+									+ count.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			executor.allowCoreThreadTimeOut(true);
+			matchingExecutor = executor;
+		}
+		return matchingExecutor;
+	}
+
+	private void buildAopReferencesForBeansConfig(IBeansConfig config, IAspectDefinition info,
+			IProgressMonitor monitor, List<MatchTask> tasks) {
 
 		IResource file = config.getElementResource();
 		IJavaProject javaProject = JdtUtils.getJavaProject(file.getProject());
@@ -310,7 +483,7 @@ public class AopReferenceModelBuilderJob extends Job {
 				addBeansFromComponent(component, beans);
 			}
 	
-			buildAopReferencesForBeans(config, info, monitor, file, aopProject, beans);
+			buildAopReferencesForBeans(config, info, monitor, file, aopProject, beans, tasks);
 		}
 	}
 	
@@ -362,12 +535,21 @@ public class AopReferenceModelBuilderJob extends Job {
 				//
 				// start = System.currentTimeMillis();
 
+				List<MatchTask> tasks = new ArrayList<MatchTask>();
 				for (IAspectDefinition info : aspectInfos) {
 					// build model for config
-					buildAopReferencesForBeansConfig(config, info, monitor);
+					buildAopReferencesForBeansConfig(config, info, monitor, tasks);
 
 					// build model for config sets
-					buildAopReferencesFromBeansConfigSets(project, config, info, monitor);
+					buildAopReferencesFromBeansConfigSets(project, config, info, monitor, tasks);
+				}
+
+				// add the references in the order of the tasks to keep the model independent of the threads
+				executeMatchTasks(tasks, monitor);
+				for (MatchTask task : tasks) {
+					for (IAopReference reference : task.references) {
+						task.aopProject.addAopReference(reference);
+					}
 				}
 
 				// System.out.println(String.format("-- building aop model for file '%s' took '%s'", currentFile,
@@ -395,7 +577,7 @@ public class AopReferenceModelBuilderJob extends Job {
 	 * the config set.
 	 */
 	private void buildAopReferencesFromBeansConfigSets(IBeansProject project, IBeansConfig config,
-			IAspectDefinition info, IProgressMonitor monitor) {
+			IAspectDefinition info, IProgressMonitor monitor, List<MatchTask> tasks) {
 
 		Set<IBeansConfig> foundConfigs = new LinkedHashSet<IBeansConfig>();
 		for (IBeansConfigSet configSet : project.getConfigSets()) {
@@ -409,7 +591,7 @@ public class AopReferenceModelBuilderJob extends Job {
 			}
 		}
 		for (IBeansConfig bc : foundConfigs) {
-			buildAopReferencesForBeansConfig(bc, info, monitor);
+			buildAopReferencesForBeansConfig(bc, info, monitor, tasks);
 		}
 	}
 
@@ -435,11 +617,21 @@ public class AopReferenceModelBuilderJob extends Job {
 				affectedResources.size()));
 
 		markerJob = new MarkerModifyingJob();
-		aspectDefinitionMatcher = new AspectDefinitionMatcher();
 		aspectDefinitionCache = new HashMap<IFile, List<IAspectDefinition>>();
 		aspectDefinitionBuilder = new AspectDefinitionBuilderHelper();
-		classLoaderSupport = createWeavingClassLoaderSupport();
-		
+
+		// drop the cached match results that are affected by changed types
+		AopReferenceMatchCache.applyChanges();
+		matchCache = AopReferenceMatchCache.getCache(project);
+
+		// reuse the weaving class loader of the previous build together with the pointcuts created with it
+		pointcutCache = CompiledPointcutCache.getCache(project);
+		if (pointcutCache == null) {
+			pointcutCache = CompiledPointcutCache.createCache(project, createWeavingClassLoaderSupport());
+		}
+		classLoaderSupport = pointcutCache.getClassLoaderSupport();
+		aspectDefinitionMatcher = new AspectDefinitionMatcher(pointcutCache);
+
 		monitor.beginTask(Activator.getFormattedMessage("AopReferenceModelBuilder.startBuildingAopReferenceModel"),
 				affectedResources.size());
 
@@ -558,7 +750,7 @@ public class AopReferenceModelBuilderJob extends Job {
 			this.resources.add(resource);
 		}
 
-		public void addThrowableHolder(ThrowableHolder throwableHolder) {
+		public synchronized void addThrowableHolder(ThrowableHolder throwableHolder) {
 			throwables.add(throwableHolder);
 		}
 
@@ -650,6 +842,62 @@ public class AopReferenceModelBuilderJob extends Job {
 
 	}
 
+	/**
+	 * A single pair of aspect definition and bean to match.
+	 * @since 3.8.4
+	 */
+	private class MatchTask {
+
+		private final IBean bean;
+
+		private final IModelElement context;
+
+		private final IAspectDefinition info;
+
+		private final IResource file;
+
+		private final IAopProject aopProject;
+
+		private List<IAopReference> references = Collections.emptyList();
+
+		private boolean done = false;
+
+		public MatchTask(IBean bean, IModelElement context, IAspectDefinition info, IResource file,
+				IAopProject aopProject) {
+			this.bean = bean;
+			this.context = context;
+			this.info = info;
+			this.file = file;
+			this.aopProject = aopProject;
+		}
+
+		public void match(AspectDefinitionMatcher matcher) {
+			references = buildAopReferencesForBean(bean, context, info, file, aopProject, matcher);
+			done = true;
+		}
+
+		/**
+		 * Takes the references from the result of a previous build if neither the aspect nor the bean have been
+		 * affected by changes since.
+		 */
+		public void reuseCachedResult() {
+			if (!(info instanceof BeanAspectDefinition) || info instanceof BeanIntroductionDefinition
+					|| bean.isAbstract()) {
+				return;
+			}
+			String className = BeansModelUtils.getBeanClass(bean, context);
+			if (className == null) {
+				return;
+			}
+			AopReferenceMatchCache.MatchResult result = matchCache.getResult(info, bean, className);
+			if (result != null) {
+				references = new ArrayList<IAopReference>();
+				addAopReferences(references, result.getAspectMethod(), result.getMatches(), info, file, bean);
+				done = true;
+			}
+		}
+	}
+
 	/**
 	 * Holder to collect {@link Exception}s thrown during pointcut parsing and matching.
 	 * @since 2.0.4
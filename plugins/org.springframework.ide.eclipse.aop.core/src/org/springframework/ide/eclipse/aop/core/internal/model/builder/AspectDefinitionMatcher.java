@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,6 +20,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -51,14 +52,73 @@ import org.springframework.util.ReflectionUtils;
  * Uses Spring AOP's {@link AspectJExpressionPointcut} infrastructure to determine matches.
  * <p>
  * With Spring 2.5 this class supports the bean pointcut primitive as well.
+ * <p>
+ * Before any class is loaded {@link #couldMatch} can be used to rule out beans that obviously can't be matched by a
+ * pointcut expression; see {@link PointcutPreFilter}.
  * @author Christian Dupuis
  * @since 2.0
  */
 public class AspectDefinitionMatcher {
 
+	private static final boolean PRE_FILTER_ENABLED = System.getProperty(PointcutPreFilter.ENABLE_PROPERTY, "true")
+			.equals("true");
+
 	/** Internal cache to used with {@link AspectJExpressionPointcut} */
 	private Map<IAspectDefinition, Object> pointcutExpressionCache = new HashMap<IAspectDefinition, Object>();
 
+	/** Internal cache of the parsed pre-filters by pointcut expression */
+	private Map<String, PointcutPreFilter> preFilterCache = new HashMap<String, PointcutPreFilter>();
+
+	/** Optional cache of pointcuts that survive this matcher */
+	private final CompiledPointcutCache compiledPointcutCache;
+
+	/** The pointcuts taken from the {@link CompiledPointcutCache} that have been created by other matchers */
+	private Set<Object> reusedPointcuts = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+
+	public AspectDefinitionMatcher() {
+		this(null);
+	}
+
+	/**
+	 * Creates a matcher that reuses the pointcuts of the given cache and adds the pointcuts it creates to it. The
+	 * matching needs to happen with the class loader of the given cache being active.
+	 * @since 3.8.4
+	 */
+	public AspectDefinitionMatcher(CompiledPointcutCache compiledPointcutCache) {
+		this.compiledPointcutCache = compiledPointcutCache;
+	}
+
+	/**
+	 * Checks without loading any class if the given {@link IAspectDefinition} can possibly match any method of the
+	 * given bean class. Only if this method returns <code>true</code> the bean class needs to be loaded and passed to
+	 * {@link #matches(Class, IBean, IAspectDefinition, IProject)}.
+	 * @param className the name of the bean class
+	 * @param targetBean the target bean to check for a match
+	 * @param info the {@link IAspectDefinition}
+	 * @param project the project to resolve the bean class in
+	 * @return <code>false</code> if the aspect definition can't match the bean
+	 * @since 3.8.4
+	 */
+	public boolean couldMatch(String className, IBean targetBean, IAspectDefinition info, IProject project) {
+		String expression = info.getPointcutExpression();
+		if (!PRE_FILTER_ENABLED || expression == null || SpringCoreUtils.hasPlaceHolder(expression)) {
+			return true;
+		}
+
+		PointcutPreFilter preFilter = preFilterCache.get(expression);
+		if (preFilter == null) {
+			preFilter = PointcutPreFilter.parse(expression);
+			preFilterCache.put(expression, preFilter);
+		}
+
+		Set<String> beanNames = new HashSet<String>();
+		beanNames.add(targetBean.getElementName());
+		if (targetBean.getAliases() != null) {
+			beanNames.addAll(Arrays.asList(targetBean.getAliases()));
+		}
+		return preFilter.couldMatch(new PointcutPreFilter.Candidate(project, className, beanNames));
+	}
+
 	/**
 	 * Returns all matches on {@link Method} in form of the corresponding {@link IMethod}.
 	 * @param targetClass the target class to check for a match
@@ -102,21 +162,33 @@ public class AspectDefinitionMatcher {
 
 	public void close() {
 		for (Object pce : pointcutExpressionCache.values()) {
-			Field field = ReflectionUtils.findField(pce.getClass(), "shadowMatchCache");
-			field.setAccessible(true);
-			Map<?, ?> shadowMatchCache = (Map<?, ?>) ReflectionUtils.getField(field, pce);
-
-			try {
-				Class<?> resolvedTypeClass = pce.getClass().getClassLoader().loadClass(
-						"org.aspectj.weaver.ResolvedType");
-				Method resetPrimitivesMethod = resolvedTypeClass.getMethod("resetPrimitives");
-				resetPrimitivesMethod.invoke(resolvedTypeClass);
-			}
-			catch (Exception e) {
-			}
-			shadowMatchCache.clear();
+			clearShadowMatches(pce);
+		}
+		// pointcuts kept in the compiled pointcut cache must not hold on to the classes matched in this build either
+		for (Object pce : reusedPointcuts) {
+			clearShadowMatches(pce);
 		}
 		pointcutExpressionCache.clear();
+		reusedPointcuts.clear();
+		preFilterCache.clear();
+	}
+
+	private void clearShadowMatches(Object pce) {
+		Field field = ReflectionUtils.findField(pce.getClass(), "shadowMatchCache");
+		if (field == null) {
+			return;
+		}
+		field.setAccessible(true);
+		Map<?, ?> shadowMatchCache = (Map<?, ?>) ReflectionUtils.getField(field, pce);
+
+		try {
+			Class<?> resolvedTypeClass = pce.getClass().getClassLoader().loadClass("org.aspectj.weaver.ResolvedType");
+			Method resetPrimitivesMethod = resolvedTypeClass.getMethod("resetPrimitives");
+			resetPrimitivesMethod.invoke(resolvedTypeClass);
+		}
+		catch (Exception e) {
+		}
+		shadowMatchCache.clear();
 	}
 
 	/**
@@ -173,6 +245,25 @@ public class AspectDefinitionMatcher {
 		return true;
 	}
 
+	/**
+	 * Returns the {@link AspectJExpressionPointcut} for the given {@link IAspectDefinition}, preferably from the
+	 * {@link CompiledPointcutCache}.
+	 */
+	private Object getAspectJPointcutExpression(IAspectDefinition info) throws Throwable {
+		if (compiledPointcutCache == null) {
+			return createAspectJPointcutExpression(info);
+		}
+		Object pointcut = compiledPointcutCache.getPointcut(info);
+		if (pointcut == null) {
+			pointcut = createAspectJPointcutExpression(info);
+			compiledPointcutCache.putPointcut(info, pointcut);
+		}
+		else if (!pointcutExpressionCache.containsKey(info)) {
+			reusedPointcuts.add(pointcut);
+		}
+		return pointcut;
+	}
+
 	/**
 	 * Creates {@link AspectJExpressionPointcut} instances based on {@link IAspectDefinition}.
 	 */
@@ -259,7 +350,7 @@ public class AspectDefinitionMatcher {
 		}
 
 		final Set<IMethod> matchingMethods = new HashSet<IMethod>();
-		final Object aspectJExpressionPointcut = createAspectJPointcutExpression(info);
+		final Object aspectJExpressionPointcut = getAspectJPointcutExpression(info);
 
 		if (!((Boolean) ClassUtils.invokeMethod(aspectJExpressionPointcut, "matches", targetClass))) {
 			return matchingMethods;
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.aop.core.internal.model.builder;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IProject;
+import org.springframework.ide.eclipse.aop.core.model.IAspectDefinition;
+import org.springframework.ide.eclipse.core.java.IProjectClassLoaderSupport;
+import org.springframework.ide.eclipse.core.java.ProjectClassLoaderCache;
+
+/**
+ * Project scoped cache of the AspectJ pointcut objects created by the {@link AspectDefinitionMatcher}.
+ * <p>
+ * Pointcut objects are bound to the weaving classloader they have been created with. Therefore a cache keeps the
+ * {@link IProjectClassLoaderSupport} of the build that created it, and subsequent builds of the project reuse that
+ * classloader together with the pointcuts. A cache is dropped as soon as the {@link ProjectClassLoaderCache} drops any
+ * classloader or the project stops using its cached classloader, when Java types have been changed, as the classes
+ * loaded by the cached classloader would be stale, and when the project is closed or deleted.
+ * @since 3.8.4
+ */
+public class CompiledPointcutCache {
+
+	private static final Map<IProject, CompiledPointcutCache> caches = new ConcurrentHashMap<IProject, CompiledPointcutCache>();
+
+	private final IProjectClassLoaderSupport classLoaderSupport;
+
+	private final long generation;
+
+	private final long projectGeneration;
+
+	private final Map<String, Object> pointcuts = new ConcurrentHashMap<String, Object>();
+
+	private CompiledPointcutCache(IProjectClassLoaderSupport classLoaderSupport, long generation,
+			long projectGeneration) {
+		this.classLoaderSupport = classLoaderSupport;
+		this.generation = generation;
+		this.projectGeneration = projectGeneration;
+	}
+
+	/**
+	 * Returns the still valid cache of the given project; or <code>null</code> if there is none.
+	 */
+	public static CompiledPointcutCache getCache(IProject project) {
+		CompiledPointcutCache cache = caches.get(project);
+		if (cache != null
+				&& (cache.generation != ProjectClassLoaderCache.getGeneration() || cache.projectGeneration != ProjectClassLoaderCache
+						.getGeneration(project))) {
+			caches.remove(project);
+			return null;
+		}
+		return cache;
+	}
+
+	/**
+	 * Creates and registers a new cache for pointcuts created with the given classloader support.
+	 */
+	public static CompiledPointcutCache createCache(IProject project, IProjectClassLoaderSupport classLoaderSupport) {
+		CompiledPointcutCache cache = new CompiledPointcutCache(classLoaderSupport,
+				ProjectClassLoaderCache.getGeneration(), ProjectClassLoaderCache.getGeneration(project));
+		caches.put(project, cache);
+		return cache;
+	}
+
+	/**
+	 * Drops the cache of the given project.
+	 */
+	public static void clear(IProject project) {
+		caches.remove(project);
+	}
+
+	/**
+	 * Drops the caches of all projects; classes of one project can be loaded by the classloaders of other projects.
+	 */
+	public static void clearAll() {
+		caches.clear();
+	}
+
+	/**
+	 * Returns the classloader support the cached pointcuts have been created with.
+	 */
+	public IProjectClassLoaderSupport getClassLoaderSupport() {
+		return classLoaderSupport;
+	}
+
+	/**
+	 * Returns the cached pointcut for the given aspect definition; or <code>null</code>.
+	 */
+	public Object getPointcut(IAspectDefinition info) {
+		return pointcuts.get(createKey(info));
+	}
+
+	/**
+	 * Caches the pointcut created for the given aspect definition.
+	 */
+	public void putPointcut(IAspectDefinition info, Object pointcut) {
+		pointcuts.put(createKey(info), pointcut);
+	}
+
+	/**
+	 * Returns the number of cached pointcuts.
+	 */
+	public int size() {
+		return pointcuts.size();
+	}
+
+	/**
+	 * Returns a key made of all values of the given aspect definition a pointcut object is created from; unlike
+	 * {@link AopReferenceMatchCache} the location of the definition is not part of it.
+	 */
+	static String createKey(IAspectDefinition info) {
+		StringBuilder key = new StringBuilder();
+		key.append(info.getClass().getName()).append('\0');
+		key.append(info.getAspectClassName()).append('\0');
+		key.append(info.getType()).append('\0');
+		key.append(info.getAdviceMethodName()).append('\0');
+		key.append(Arrays.toString(info.getAdviceMethodParameterTypes())).append('\0');
+		key.append(Arrays.toString(info.getArgNames())).append('\0');
+		key.append(info.getReturning()).append('\0');
+		key.append(info.getThrowing()).append('\0');
+		key.append(info.getPointcutExpression());
+		return key.toString();
+	}
+
+}
@@ -0,0 +1,604 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.aop.core.internal.model.builder;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jdt.core.IAnnotation;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
+import org.springframework.ide.eclipse.core.SpringCore;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyEngine;
+
+/**
+ * Conservative pre-filter for AspectJ pointcut expressions that decides if an expression can possibly match any method
+ * of a bean class, without loading any class.
+ * <p>
+ * The decision is based on the type hierarchy read by the {@link TypeHierarchyEngine}, the annotations known to the
+ * Java model and the names of the bean. Only the primitives <code>within</code>, <code>execution</code>,
+ * <code>this</code>, <code>target</code>, <code>@within</code>, <code>@target</code>, <code>@annotation</code> and
+ * <code>bean</code> with plain type or name patterns are evaluated; all other primitives, named pointcut references and
+ * negations are assumed to match. So a <code>false</code> result is definite, while a <code>true</code> result still
+ * needs to be verified by the AspectJ weaver.
+ * @since 3.8.4
+ */
+public class PointcutPreFilter {
+
+	public static final String ENABLE_PROPERTY = "org.springframework.ide.eclipse.aop.core.enablePointcutPreFilter";
+
+	private static final Pattern TYPE_PATTERN = Pattern.compile("[\\w$.*]+\\+?");
+
+	private static final Pattern TYPE_NAME = Pattern.compile("[\\w$]+(\\.[\\w$]+)+");
+
+	private static final Pattern BEAN_NAME_PATTERN = Pattern.compile("[\\w$.*#/\\-]+");
+
+	private static final Pattern EXECUTION_HEAD = Pattern.compile("[\\w$.*+\\s\\[\\]]+");
+
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private static final String OBJECT_CLASS_NAME = "java.lang.Object";
+
+	/** Pre-filter that never rejects a class, used for expressions that can't be parsed */
+	private static final PointcutPreFilter ALWAYS = new PointcutPreFilter(null);
+
+	private final Node expression;
+
+	private PointcutPreFilter(Node expression) {
+		this.expression = expression;
+	}
+
+	/**
+	 * Parses the given pointcut expression; never returns <code>null</code>.
+	 */
+	public static PointcutPreFilter parse(String pointcutExpression) {
+		if (pointcutExpression == null) {
+			return ALWAYS;
+		}
+		try {
+			Parser parser = new Parser(pointcutExpression);
+			Node expression = parser.parseOr();
+			if (!parser.isAtEnd()) {
+				return ALWAYS;
+			}
+			return new PointcutPreFilter(expression);
+		}
+		catch (IllegalArgumentException e) {
+			return ALWAYS;
+		}
+	}
+
+	/**
+	 * Returns <code>false</code> if the pointcut expression can't match any method of the given candidate.
+	 */
+	public boolean couldMatch(Candidate candidate) {
+		return expression == null || expression.couldMatch(candidate);
+	}
+
+	/**
+	 * The bean class and bean names a pointcut expression is checked against. Type hierarchy and annotations are
+	 * resolved lazily and only once.
+	 */
+	public static class Candidate {
+
+		private final IProject project;
+
+		private final String className;
+
+		private final Set<String> beanNames;
+
+		private Set<String> binaryTypeNames;
+
+		private Set<String> typeNames;
+
+		private Set<String> typeAnnotations;
+
+		private Set<String> methodAnnotations;
+
+		private boolean hierarchyResolved = false;
+
+		private boolean annotationsResolved = false;
+
+		public Candidate(IProject project, String className, Set<String> beanNames) {
+			this.project = project;
+			this.className = className;
+			this.beanNames = beanNames;
+		}
+
+		/**
+		 * Creates a candidate whose type hierarchy and annotations are known already.
+		 * @param binaryTypeNames the binary names of the class, all its superclasses and interfaces
+		 * @param typeAnnotations the simple names of the annotations of the types of the hierarchy
+		 * @param methodAnnotations the simple names of the annotations of the methods of the types of the hierarchy
+		 */
+		public Candidate(String className, Set<String> binaryTypeNames, Set<String> typeAnnotations,
+				Set<String> methodAnnotations, Set<String> beanNames) {
+			this(null, className, beanNames);
+			this.binaryTypeNames = new HashSet<String>(binaryTypeNames);
+			this.binaryTypeNames.add(className);
+			this.typeAnnotations = typeAnnotations;
+			this.methodAnnotations = methodAnnotations;
+			this.annotationsResolved = true;
+		}
+
+		/**
+		 * Returns the names of the class, its enclosing types, all its superclasses and interfaces in source ('.') as
+		 * well as binary ('$') notation; <code>null</code> if the hierarchy can't be resolved completely.
+		 */
+		Set<String> getTypeNames() {
+			if (!hierarchyResolved) {
+				hierarchyResolved = true;
+				if (binaryTypeNames == null) {
+					binaryTypeNames = resolveBinaryTypeNames();
+				}
+				if (binaryTypeNames != null) {
+					typeNames = new HashSet<String>();
+					for (String binaryTypeName : binaryTypeNames) {
+						typeNames.add(binaryTypeName);
+						typeNames.add(binaryTypeName.replace('$', '.'));
+						// join points of member types are within their enclosing types as well
+						for (int i = binaryTypeName.indexOf('$'); i > 0; i = binaryTypeName.indexOf('$', i + 1)) {
+							typeNames.add(binaryTypeName.substring(0, i));
+						}
+					}
+				}
+			}
+			return typeNames;
+		}
+
+		/**
+		 * Returns the simple names of all annotations of the types of the hierarchy; <code>null</code> if unknown.
+		 */
+		Set<String> getTypeAnnotations() {
+			resolveAnnotations();
+			return typeAnnotations;
+		}
+
+		/**
+		 * Returns the simple names of all annotations of the methods of the types of the hierarchy; <code>null</code>
+		 * if unknown.
+		 */
+		Set<String> getMethodAnnotations() {
+			resolveAnnotations();
+			return methodAnnotations;
+		}
+
+		Set<String> getBeanNames() {
+			return beanNames;
+		}
+
+		private Set<String> resolveBinaryTypeNames() {
+			TypeHierarchyEngine engine = SpringCore.getTypeHierarchyEngine();
+			Set<String> binaryNames = new LinkedHashSet<String>();
+			List<String> queue = new LinkedList<String>();
+			queue.add(className);
+
+			while (!queue.isEmpty()) {
+				String typeName = queue.remove(0);
+				if (!binaryNames.add(typeName) || OBJECT_CLASS_NAME.equals(typeName)) {
+					continue;
+				}
+
+				String superclassName = engine.getSupertype(project, typeName);
+				String[] interfaceNames = engine.getInterfaces(project, typeName);
+				// every type but java.lang.Object has a superclass; if none is found the hierarchy is incomplete
+				if (superclassName == null) {
+					return null;
+				}
+				queue.add(superclassName);
+				if (interfaceNames != null) {
+					for (String interfaceName : interfaceNames) {
+						queue.add(interfaceName);
+					}
+				}
+			}
+			return binaryNames;
+		}
+
+		private void resolveAnnotations() {
+			if (annotationsResolved) {
+				return;
+			}
+			annotationsResolved = true;
+
+			if (getTypeNames() == null) {
+				return;
+			}
+
+			Set<String> foundTypeAnnotations = new HashSet<String>();
+			Set<String> foundMethodAnnotations = new HashSet<String>();
+			try {
+				for (String typeName : binaryTypeNames) {
+					IType type = JdtUtils.getJavaType(project, typeName);
+					if (type == null) {
+						return;
+					}
+					addAnnotationNames(type.getAnnotations(), foundTypeAnnotations);
+					for (IMethod method : type.getMethods()) {
+						addAnnotationNames(method.getAnnotations(), foundMethodAnnotations);
+					}
+				}
+			}
+			catch (JavaModelException e) {
+				return;
+			}
+
+			typeAnnotations = foundTypeAnnotations;
+			methodAnnotations = foundMethodAnnotations;
+		}
+
+		private static void addAnnotationNames(IAnnotation[] annotations, Set<String> names) {
+			for (IAnnotation annotation : annotations) {
+				names.add(getSimpleName(annotation.getElementName()));
+			}
+		}
+	}
+
+	private static String getSimpleName(String typeName) {
+		return typeName.substring(Math.max(typeName.lastIndexOf('.'), typeName.lastIndexOf('$')) + 1);
+	}
+
+	/**
+	 * Compiles the given AspectJ type pattern to a regular expression; returns <code>null</code> if the pattern is not
+	 * supported.
+	 */
+	private static Pattern compileTypePattern(String typePattern) {
+		if (!TYPE_PATTERN.matcher(typePattern).matches()) {
+			return null;
+		}
+		// a hierarchy is always checked completely, so subtype patterns are evaluated like plain type patterns
+		if (typePattern.endsWith("+")) {
+			typePattern = typePattern.substring(0, typePattern.length() - 1);
+		}
+		if (typePattern.startsWith(".") || typePattern.endsWith(".") || typePattern.contains("...")) {
+			return null;
+		}
+		return Pattern.compile(toRegex(typePattern));
+	}
+
+	/**
+	 * Returns <code>true</code> if any of the given type names matches the given compiled type pattern; or if the
+	 * pattern is not supported.
+	 * @param simpleNamePattern if the pattern is matched against the simple names of the types
+	 */
+	private static boolean couldMatchTypePattern(Pattern pattern, boolean simpleNamePattern, Set<String> typeNames) {
+		if (pattern == null || typeNames == null) {
+			return true;
+		}
+		for (String typeName : typeNames) {
+			if (pattern.matcher(simpleNamePattern ? getSimpleName(typeName) : typeName).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String toRegex(String typePattern) {
+		StringBuilder regex = new StringBuilder();
+		for (int i = 0; i < typePattern.length(); i++) {
+			char c = typePattern.charAt(i);
+			if (c == '.' && i + 1 < typePattern.length() && typePattern.charAt(i + 1) == '.') {
+				// '..' matches any sequence of packages
+				regex.append("\\.(?:.*\\.)?");
+				i++;
+			}
+			else if (c == '.') {
+				regex.append("\\.");
+			}
+			else if (c == '*') {
+				regex.append("[^.]*");
+			}
+			else if (c == '$') {
+				regex.append("\\$");
+			}
+			else {
+				regex.append(c);
+			}
+		}
+		return regex.toString();
+	}
+
+	/**
+	 * Returns the declaring type pattern of the given method signature pattern; <code>null</code> if there is none or
+	 * the signature is not supported.
+	 */
+	private static String getDeclaringTypePattern(String signature) {
+		int parametersStart = signature.indexOf('(');
+		if (parametersStart < 0) {
+			return null;
+		}
+		String head = signature.substring(0, parametersStart).trim();
+		if (!EXECUTION_HEAD.matcher(head).matches()) {
+			return null;
+		}
+		String[] tokens = WHITESPACE.split(head);
+		if (tokens.length < 2) {
+			return null;
+		}
+		String methodPattern = tokens[tokens.length - 1];
+		int declaringTypeEnd = methodPattern.lastIndexOf('.');
+		if (declaringTypeEnd < 0) {
+			// no declaring type pattern
+			return null;
+		}
+		return methodPattern.substring(0, declaringTypeEnd);
+	}
+
+	private static boolean couldMatchType(String typeName, Set<String> typeNames) {
+		// simple names might as well be bound advice parameters
+		if (typeNames == null || !TYPE_NAME.matcher(typeName).matches()) {
+			return true;
+		}
+		return typeNames.contains(typeName);
+	}
+
+	private static boolean couldMatchAnnotation(String annotationName, Set<String> annotationNames) {
+		// simple names might as well be bound advice parameters
+		if (annotationNames == null || !TYPE_NAME.matcher(annotationName).matches()) {
+			return true;
+		}
+		return annotationNames.contains(getSimpleName(annotationName));
+	}
+
+	/**
+	 * Compiles the given bean name pattern to a regular expression; returns <code>null</code> if the pattern is not
+	 * supported.
+	 */
+	private static Pattern compileBeanNamePattern(String namePattern) {
+		if (!BEAN_NAME_PATTERN.matcher(namePattern).matches()) {
+			return null;
+		}
+		return Pattern.compile(Pattern.quote(namePattern).replace("*", "\\E.*\\Q"));
+	}
+
+	private static boolean couldMatchBeanName(Pattern pattern, Set<String> beanNames) {
+		if (pattern == null || beanNames == null) {
+			return true;
+		}
+		for (String beanName : beanNames) {
+			if (beanName != null && pattern.matcher(beanName).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Node of a parsed pointcut expression.
+	 */
+	private static abstract class Node {
+
+		abstract boolean couldMatch(Candidate candidate);
+	}
+
+	private static class AndNode extends Node {
+
+		private final Node left;
+
+		private final Node right;
+
+		public AndNode(Node left, Node right) {
+			this.left = left;
+			this.right = right;
+		}
+
+		boolean couldMatch(Candidate candidate) {
+			return left.couldMatch(candidate) && right.couldMatch(candidate);
+		}
+	}
+
+	private static class OrNode extends Node {
+
+		private final Node left;
+
+		private final Node right;
+
+		public OrNode(Node left, Node right) {
+			this.left = left;
+			this.right = right;
+		}
+
+		boolean couldMatch(Candidate candidate) {
+			return left.couldMatch(candidate) || right.couldMatch(candidate);
+		}
+	}
+
+	/**
+	 * Negations, unsupported primitives and named pointcut references.
+	 */
+	private static class UnknownNode extends Node {
+
+		boolean couldMatch(Candidate candidate) {
+			return true;
+		}
+	}
+
+	private static class PrimitiveNode extends Node {
+
+		private final String designator;
+
+		private final String argument;
+
+		/** The compiled type or bean name pattern of the argument; <code>null</code> if not applicable or supported */
+		private final Pattern pattern;
+
+		private final boolean simpleNamePattern;
+
+		public PrimitiveNode(String designator, String argument) {
+			this.designator = designator;
+			this.argument = argument.trim();
+
+			String typePattern = null;
+			if ("within".equals(designator)) {
+				typePattern = this.argument;
+			}
+			else if ("execution".equals(designator)) {
+				typePattern = getDeclaringTypePattern(this.argument);
+			}
+
+			if (typePattern != null) {
+				this.pattern = compileTypePattern(typePattern);
+				this.simpleNamePattern = typePattern.indexOf('.') < 0;
+			}
+			else if ("bean".equals(designator)) {
+				this.pattern = compileBeanNamePattern(this.argument);
+				this.simpleNamePattern = false;
+			}
+			else {
+				this.pattern = null;
+				this.simpleNamePattern = false;
+			}
+		}
+
+		boolean couldMatch(Candidate candidate) {
+			if ("within".equals(designator) || "execution".equals(designator)) {
+				return couldMatchTypePattern(pattern, simpleNamePattern, candidate.getTypeNames());
+			}
+			else if ("this".equals(designator) || "target".equals(designator)) {
+				return couldMatchType(argument, candidate.getTypeNames());
+			}
+			else if ("@within".equals(designator) || "@target".equals(designator)) {
+				return couldMatchAnnotation(argument, candidate.getTypeAnnotations());
+			}
+			else if ("@annotation".equals(designator)) {
+				return couldMatchAnnotation(argument, candidate.getMethodAnnotations());
+			}
+			else if ("bean".equals(designator)) {
+				return couldMatchBeanName(pattern, candidate.getBeanNames());
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Recursive descent parser for the boolean structure of pointcut expressions; the arguments of the primitives are
+	 * kept as plain strings. Throws {@link IllegalArgumentException} on any syntax it does not understand.
+	 */
+	private static class Parser {
+
+		private final String expression;
+
+		private int position = 0;
+
+		public Parser(String expression) {
+			this.expression = expression;
+		}
+
+		public boolean isAtEnd() {
+			skipWhitespace();
+			return position >= expression.length();
+		}
+
+		public Node parseOr() {
+			Node node = parseAnd();
+			while (consumeOperator("||") || consumeKeyword("or")) {
+				node = new OrNode(node, parseAnd());
+			}
+			return node;
+		}
+
+		private Node parseAnd() {
+			Node node = parseUnary();
+			while (consumeOperator("&&") || consumeKeyword("and")) {
+				node = new AndNode(node, parseUnary());
+			}
+			return node;
+		}
+
+		private Node parseUnary() {
+			if (consumeOperator("!") || consumeKeyword("not")) {
+				parseUnary();
+				return new UnknownNode();
+			}
+			if (consumeOperator("(")) {
+				Node node = parseOr();
+				if (!consumeOperator(")")) {
+					throw new IllegalArgumentException(expression);
+				}
+				return node;
+			}
+			return parsePrimitive();
+		}
+
+		private Node parsePrimitive() {
+			skipWhitespace();
+			int start = position;
+			if (position < expression.length() && expression.charAt(position) == '@') {
+				position++;
+			}
+			while (position < expression.length()
+					&& (Character.isJavaIdentifierPart(expression.charAt(position)) || expression.charAt(position) == '.')) {
+				position++;
+			}
+			String designator = expression.substring(start, position);
+			if (designator.length() == 0 || !consumeOperator("(")) {
+				throw new IllegalArgumentException(expression);
+			}
+
+			int argumentStart = position;
+			int depth = 1;
+			while (position < expression.length() && depth > 0) {
+				char c = expression.charAt(position++);
+				if (c == '(') {
+					depth++;
+				}
+				else if (c == ')') {
+					depth--;
+				}
+			}
+			if (depth > 0) {
+				throw new IllegalArgumentException(expression);
+			}
+			String argument = expression.substring(argumentStart, position - 1);
+
+			if (designator.indexOf('.') >= 0) {
+				// reference to a named pointcut
+				return new UnknownNode();
+			}
+			return new PrimitiveNode(designator, argument);
+		}
+
+		private boolean consumeOperator(String operator) {
+			skipWhitespace();
+			if (expression.startsWith(operator, position)) {
+				position += operator.length();
+				return true;
+			}
+			return false;
+		}
+
+		private boolean consumeKeyword(String keyword) {
+			skipWhitespace();
+			int end = position + keyword.length();
+			if (expression.startsWith(keyword, position) && end < expression.length()
+					&& !Character.isJavaIdentifierPart(expression.charAt(end))
+					&& (position == 0 || !Character.isJavaIdentifierPart(expression.charAt(position - 1)))) {
+				position = end;
+				return true;
+			}
+			return false;
+		}
+
+		private void skipWhitespace() {
+			while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+				position++;
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2015 Spring IDE Developers
+ * Copyright (c) 2009, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,14 +17,23 @@ import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Resource;
 import javax.inject.Provider;
@@ -94,6 +103,34 @@ public class AutowireDependencyProvider implements IAutowireDependencyResolver {
 	
 	public static final String BEAN_TYPE = "BEAN_TYPE";
 
+	/** Maximum number of threads used to discover the injection metadata of the beans */
+	private static final int MAX_METADATA_THREADS = 4;
+
+	/** Minimum number of beans for which the injection metadata is discovered concurrently */
+	private static final int PARALLEL_METADATA_THRESHOLD = 32;
+
+	/** Orders problems by resource, line and message */
+	private static final Comparator<ValidationProblem> PROBLEM_COMPARATOR = new Comparator<ValidationProblem>() {
+
+		public int compare(ValidationProblem problem1, ValidationProblem problem2) {
+			String path1 = problem1.getResource() != null ? problem1.getResource().getFullPath().toString() : "";
+			String path2 = problem2.getResource() != null ? problem2.getResource().getFullPath().toString() : "";
+			int result = path1.compareTo(path2);
+			if (result == 0) {
+				result = Integer.valueOf(problem1.getLine()).compareTo(problem2.getLine());
+			}
+			if (result == 0) {
+				result = problem1.getMessage().compareTo(problem2.getMessage());
+			}
+			return result;
+		}
+	};
+
+	/** Worker threads shared by all providers to discover injection metadata concurrently */
+	private static ThreadPoolExecutor metadataExecutor;
+
+	private int parallelMetadataThreshold = PARALLEL_METADATA_THRESHOLD;
+
 	private Set<IBean> beans;
 
 	private IBeansModelElement context;
@@ -110,7 +147,7 @@ public class AutowireDependencyProvider implements IAutowireDependencyResolver {
 
 	private IInjectionMetadataProviderProblemReporter problemReporter = new AutowireProblemReporter();
 
-	private List<ValidationProblem> problems = new ArrayList<ValidationProblem>();
+	private List<ValidationProblem> problems = Collections.synchronizedList(new ArrayList<ValidationProblem>());
 
 	private Map<Class<?>, String> resolvableDependencies = new HashMap<Class<?>, String>();
 
@@ -118,6 +155,14 @@ public class AutowireDependencyProvider implements IAutowireDependencyResolver {
 	private Class<?> objectFactoryClass;
 	private Class<?> providerClass;
 
+	/** Lazily built index of the beans of the context by their names and aliases */
+	private Map<String, IBean> beansByName;
+
+	private Map<String, Set<String>> aliasesByBeanName;
+
+	/** Lazily built index of the names of the beans of the context by all types they are assignable to */
+	private Map<Class<?>, Set<String>> beanNamesByType;
+
 	public AutowireDependencyProvider(IBeansModelElement element, IBeansModelElement context) {
 		this.context = (context == null ? element : context);
 		this.element = element;
@@ -129,6 +174,14 @@ public class AutowireDependencyProvider implements IAutowireDependencyResolver {
 		return this.problems;
 	}
 
+	/**
+	 * Sets the minimum number of beans for which the injection metadata is discovered concurrently.
+	 * @since 3.8.4
+	 */
+	public void setParallelMetadataThreshold(int parallelMetadataThreshold) {
+		this.parallelMetadataThreshold = parallelMetadataThreshold;
+	}
+
 	public Map<IBean, Set<IBeanReference>> resolveAutowiredDependencies() {
 		final Map<IBean, Set<IBeanReference>> autowiredBeanReferences = new HashMap<IBean, Set<IBeanReference>>();
 
@@ -146,41 +199,27 @@ public class AutowireDependencyProvider implements IAutowireDependencyResolver {
 					fillResolvableDependencies();
 
 					Set<IBean> elementBeans = BeansModelUtils.getBeans(element);
-					for (IInjectionMetadataProvider provider : createInjectionMetadataProviders()) {
-						for (final IBean bean : elementBeans) {
-
-							List<InjectionMetadata> beanInjectionMetadata = null;
-							if (injectionMetadata.containsKey(bean)) {
-								beanInjectionMetadata = injectionMetadata.get(bean);
-							}
-							else {
-								beanInjectionMetadata = new ArrayList<InjectionMetadata>();
-								injectionMetadata.put(bean, beanInjectionMetadata);
-							}
-
-							String className = BeansModelUtils.getBeanClass(bean, context);
-							try {
-								if (className != null && !bean.isFactory()) {
-									Class<?> targetClass = ClassUtils.loadClass(className);
-									beanInjectionMetadata.add(provider.findAutowiringMetadata(targetClass));
-								}
-							}
-							catch (Throwable e) {
-							}
+					int problemCount = problems.size();
+					findInjectionMetadata(elementBeans, new ArrayList<IInjectionMetadataProvider>(
+							createInjectionMetadataProviders()));
+					sortProblems(problemCount);
+
+					// resolve in bean order to report the problems in the same order on every run
+					for (IBean bean : elementBeans) {
+						List<InjectionMetadata> beanInjectionMetadata = injectionMetadata.get(bean);
+						if (beanInjectionMetadata == null) {
+							continue;
 						}
-					}
-
-					for (Map.Entry<IBean, List<InjectionMetadata>> entry : injectionMetadata.entrySet()) {
 						Set<IBeanReference> autowiredReferences = new HashSet<IBeanReference>();
 
-						for (InjectionMetadata metadata : entry.getValue()) {
-							resolveDependencies(entry.getKey(), autowiredReferences, metadata.getInjectedFields());
-							resolveDependencies(entry.getKey(), autowiredReferences, metadata.getInjectedMethods());
-							resolveConstructorDependencies(entry.getKey(), autowiredReferences, metadata
+						for (InjectionMetadata metadata : beanInjectionMetadata) {
+							resolveDependencies(bean, autowiredReferences, metadata.getInjectedFields());
+							resolveDependencies(bean, autowiredReferences, metadata.getInjectedMethods());
+							resolveConstructorDependencies(bean, autowiredReferences, metadata
 									.getInjectedConstructors());
 						}
 						if (autowiredReferences.size() > 0) {
-							autowiredBeanReferences.put(entry.getKey(), autowiredReferences);
+							autowiredBeanReferences.put(bean, autowiredReferences);
 						}
 					}
 				}
@@ -284,6 +323,92 @@ public class AutowireDependencyProvider implements IAutowireDependencyResolver {
 		return autowiredBeanReferences;
 	}
 
+	/**
+	 * Discovers the injection metadata of the given beans using the given providers. The beans are independent of
+	 * each other, therefore larger numbers of beans are processed on a bounded pool of worker threads that share the
+	 * active project classloader.
+	 */
+	private void findInjectionMetadata(Set<IBean> elementBeans, final List<IInjectionMetadataProvider> providers)
+			throws InterruptedException {
+		int threads = Math.min(Runtime.getRuntime().availableProcessors(), MAX_METADATA_THREADS);
+		if (threads < 2 || elementBeans.size() < parallelMetadataThreshold) {
+			for (IBean bean : elementBeans) {
+				findInjectionMetadata(bean, providers);
+			}
+			return;
+		}
+
+		final ClassLoader projectClassLoader = Thread.currentThread().getContextClassLoader();
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(elementBeans.size());
+		for (final IBean bean : elementBeans) {
+			tasks.add(new Callable<Object>() {
+				public Object call() {
+					Thread thread = Thread.currentThread();
+					ClassLoader previousClassLoader = thread.getContextClassLoader();
+					thread.setContextClassLoader(projectClassLoader);
+					try {
+						findInjectionMetadata(bean, providers);
+					}
+					finally {
+						thread.setContextClassLoader(previousClassLoader);
+					}
+					return null;
+				}
+			});
+		}
+
+		getMetadataExecutor().invokeAll(tasks);
+	}
+
+	private static synchronized ExecutorService getMetadataExecutor() {
+		if (metadataExecutor == null) {
+			int threads = Math.min(Runtime.getRuntime().availableProcessors(), MAX_METADATA_THREADS);
+			metadataExecutor = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+						private final AtomicInteger count = new AtomicInteger();
+
+						public Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable, "Autowire metadata discovery " + count.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			metadataExecutor.allowCoreThreadTimeOut(true);
+		}
+		return metadataExecutor;
+	}
+
+	/**
+	 * Sorts the problems reported since the given index. Problems reported while discovering injection metadata
+	 * concurrently arrive in completion order and a problem of a class is reported by whichever bean of that class
+	 * is processed first.
+	 */
+	private void sortProblems(int fromIndex) {
+		synchronized (problems) {
+			Collections.sort(problems.subList(fromIndex, problems.size()), PROBLEM_COMPARATOR);
+		}
+	}
+
+	private void findInjectionMetadata(IBean bean, List<IInjectionMetadataProvider> providers) {
+		List<InjectionMetadata> beanInjectionMetadata = injectionMetadata.get(bean);
+		if (beanInjectionMetadata == null) {
+			beanInjectionMetadata = new ArrayList<InjectionMetadata>();
+			injectionMetadata.put(bean, beanInjectionMetadata);
+		}
+
+		String className = BeansModelUtils.getBeanClass(bean, context);
+		if (className != null && !bean.isFactory()) {
+			for (IInjectionMetadataProvider provider : providers) {
+				try {
+					Class<?> targetClass = ClassUtils.loadClass(className);
+					beanInjectionMetadata.add(provider.findAutowiringMetadata(targetClass));
+				}
+				catch (Throwable e) {
+				}
+			}
+		}
+	}
+
 	public void preloadClasses() {
 		try {
 			factoryBeanClass = ClassUtils.loadClass(FactoryBean.class.getName());
@@ -302,6 +427,9 @@ public class AutowireDependencyProvider implements IAutowireDependencyResolver {
 		} catch (Throwable e) {
 			// Ignore here as this can easily happen if project class path is not complete
 		}
+
+		// the type index depends on the classes of the active project classloader
+		resetBeanTypeIndex();
 	}
 
 	public boolean containsBean(String beanName) {
@@ -309,38 +437,15 @@ public class AutowireDependencyProvider implements IAutowireDependencyResolver {
 	}
 
 	public String[] getAliases(String beanName) {
-		Set<String> aliases = new HashSet<String>();
-		if (context instanceof IBeansConfig) {
-			for (IBeanAlias alias : ((IBeansConfig) context).getAliases()) {
-				if (beanName.equals(alias.getBeanName())) {
-					aliases.add(alias.getElementName());
-				}
-			}
-		}
-		else if (context instanceof IBeansConfigSet) {
-			for (IBeanAlias alias : ((IBeansConfigSet) context).getAliases()) {
-				if (beanName.equals(alias.getBeanName())) {
-					aliases.add(alias.getElementName());
-				}
-			}
+		Set<String> aliases = getAliasesByBeanName().get(beanName);
+		if (aliases == null) {
+			return new String[0];
 		}
 		return (String[]) aliases.toArray(new String[aliases.size()]);
 	}
 
 	public IBean getBean(String candidateName) {
-		for (IBean bean : beans) {
-			if (bean.getElementName().equals(candidateName)) {
-				return bean;
-			}
-			else {
-				for (String alias : getAliases(bean.getElementName())) {
-					if (alias.equals(candidateName)) {
-						return bean;
-					}
-				}
-			}
-		}
-		return null;
+		return getBeansByName().get(candidateName);
 	}
 	
 	public String[] getBeansForType(String requiredTypeName) {
@@ -361,44 +466,134 @@ public class AutowireDependencyProvider implements IAutowireDependencyResolver {
 	}
 
 	public String[] getBeansForType(Class<?> requiredType) {
-		Set<String> matchingBeans = new HashSet<String>();
-		
-		for (IBean bean : beans) {
-			String beanClassName = ValidationRuleUtils.getBeanClassName(bean, context);
-			if (beanClassName != null) {
-				try {
-					Class<?> beanClass = ClassUtils.loadClass(beanClassName);
-					if (requiredType.isAssignableFrom(beanClass)) {
-						matchingBeans.add(bean.getElementName());
-					}
-					else if (factoryBeanClass != null && factoryBeanClass.isAssignableFrom(beanClass)) {
-						if (isFactoryForType(beanClass, requiredType)) {
-							matchingBeans.add(bean.getElementName());
-						} 
-						else if (isExtensibleFactoryForType(bean, beanClass, requiredType)) {
-							matchingBeans.add(bean.getElementName());
+		Set<String> matchingBeans = getBeanNamesByType().get(requiredType);
+		if (matchingBeans == null) {
+			return new String[0];
+		}
+		return (String[]) matchingBeans.toArray(new String[matchingBeans.size()]);
+	}
+
+	private synchronized Map<String, IBean> getBeansByName() {
+		if (beansByName == null) {
+			Map<String, IBean> index = new HashMap<String, IBean>();
+			for (IBean bean : beans) {
+				if (!index.containsKey(bean.getElementName())) {
+					index.put(bean.getElementName(), bean);
+				}
+			}
+			for (Map.Entry<String, Set<String>> entry : getAliasesByBeanName().entrySet()) {
+				IBean bean = index.get(entry.getKey());
+				if (bean != null) {
+					for (String alias : entry.getValue()) {
+						if (!index.containsKey(alias)) {
+							index.put(alias, bean);
 						}
 					}
 				}
-				catch (ClassNotFoundException e) {
-					// Ignore here as this can easily happen if project class path is not complete
-				}
-				catch (NoClassDefFoundError e) {
-					// Ignore here as this can easily happen if project class path is not complete
+			}
+			beansByName = index;
+		}
+		return beansByName;
+	}
+
+	private synchronized Map<String, Set<String>> getAliasesByBeanName() {
+		if (aliasesByBeanName == null) {
+			Set<IBeanAlias> aliases = Collections.emptySet();
+			if (context instanceof IBeansConfig) {
+				aliases = ((IBeansConfig) context).getAliases();
+			}
+			else if (context instanceof IBeansConfigSet) {
+				aliases = ((IBeansConfigSet) context).getAliases();
+			}
+
+			Map<String, Set<String>> index = new HashMap<String, Set<String>>();
+			for (IBeanAlias alias : aliases) {
+				Set<String> beanAliases = index.get(alias.getBeanName());
+				if (beanAliases == null) {
+					beanAliases = new LinkedHashSet<String>();
+					index.put(alias.getBeanName(), beanAliases);
 				}
-				catch (Throwable e) {
-					BeansCorePlugin.log(e);
+				beanAliases.add(alias.getElementName());
+			}
+			aliasesByBeanName = index;
+		}
+		return aliasesByBeanName;
+	}
+
+	private synchronized void resetBeanTypeIndex() {
+		beanNamesByType = null;
+	}
+
+	/**
+	 * Returns the index of the bean names by all types the beans are assignable to. A factory bean is indexed with the
+	 * types of its own class and the object type it creates. The bean classes are loaded only once per index.
+	 */
+	private synchronized Map<Class<?>, Set<String>> getBeanNamesByType() {
+		if (beanNamesByType == null) {
+			Map<Class<?>, Set<String>> index = new HashMap<Class<?>, Set<String>>();
+			IFactoryBeanTypeResolver[] resolvers = FactoryBeanTypeResolverExtensions.getFactoryBeanTypeResolvers();
+
+			for (IBean bean : beans) {
+				String beanClassName = ValidationRuleUtils.getBeanClassName(bean, context);
+				if (beanClassName != null) {
+					try {
+						Class<?> beanClass = ClassUtils.loadClass(beanClassName);
+						addBeanTypes(index, beanClass, bean.getElementName());
+
+						if (factoryBeanClass != null && factoryBeanClass.isAssignableFrom(beanClass)) {
+							addBeanTypes(index, getFactoryObjectType(beanClass), bean.getElementName());
+							for (IFactoryBeanTypeResolver factoryTypeResolver : resolvers) {
+								addBeanTypes(index, factoryTypeResolver.resolveBeanTypeFromFactory(bean, beanClass),
+										bean.getElementName());
+							}
+						}
+					}
+					catch (ClassNotFoundException e) {
+						// Ignore here as this can easily happen if project class path is not complete
+					}
+					catch (NoClassDefFoundError e) {
+						// Ignore here as this can easily happen if project class path is not complete
+					}
+					catch (Throwable e) {
+						BeansCorePlugin.log(e);
+					}
 				}
 			}
+			beanNamesByType = index;
 		}
-		return (String[]) matchingBeans.toArray(new String[matchingBeans.size()]);
+		return beanNamesByType;
 	}
 
-	private boolean isFactoryForType(Class<?> beanClass, Class<?> requiredType) {
+	private static void addBeanTypes(Map<Class<?>, Set<String>> index, Class<?> type, String beanName) {
+		if (type == null) {
+			return;
+		}
+
+		Set<String> beanNames = index.get(type);
+		if (beanNames == null) {
+			beanNames = new LinkedHashSet<String>();
+			index.put(type, beanNames);
+		}
+		if (!beanNames.add(beanName)) {
+			// supertypes have already been added as well
+			return;
+		}
+
+		addBeanTypes(index, type.getSuperclass(), beanName);
+		for (Class<?> interfaceType : type.getInterfaces()) {
+			addBeanTypes(index, interfaceType, beanName);
+		}
+		if (type.isInterface()) {
+			// interfaces don't have a superclass but are assignable to Object
+			addBeanTypes(index, Object.class, beanName);
+		}
+	}
+
+	private Class<?> getFactoryObjectType(Class<?> beanClass) {
 		try {
 			Method factoryMethod = beanClass.getMethod("getObject", new Class[] {});
-			if (factoryMethod != null && requiredType.isAssignableFrom(factoryMethod.getReturnType())) {
-				return true;
+			if (factoryMethod != null) {
+				return factoryMethod.getReturnType();
 			}
 		}
 		catch (NoClassDefFoundError e) {
@@ -408,20 +603,7 @@ public class AutowireDependencyProvider implements IAutowireDependencyResolver {
 			BeansCorePlugin.log(e);
 		}
 
-		return false;
-	}
-
-	private boolean isExtensibleFactoryForType(IBean bean, Class<?> beanClass, Class<?> requiredType) {
-		IFactoryBeanTypeResolver[] resolvers = FactoryBeanTypeResolverExtensions.getFactoryBeanTypeResolvers();
-		
-		for (IFactoryBeanTypeResolver factoryTypeResolver : resolvers) {
-			Class<?> beanType = factoryTypeResolver.resolveBeanTypeFromFactory(bean, beanClass);
-			if (beanType != null && requiredType.isAssignableFrom(beanType)) {
-				return true;
-			}
-		}
-
-		return false;
+		return null;
 	}
 
 	public boolean isAutowireCandidate(String beanName, DependencyDescriptor descriptor)
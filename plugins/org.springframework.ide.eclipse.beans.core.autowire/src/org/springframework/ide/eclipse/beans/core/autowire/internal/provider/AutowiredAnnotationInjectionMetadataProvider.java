@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009 Spring IDE Developers
+ * Copyright (c) 2009, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -78,6 +79,9 @@ public class AutowiredAnnotationInjectionMetadataProvider implements IInjectionM
 
 	private final Map<Class<?>, InjectionMetadata> injectionMetadataCache = new ConcurrentHashMap<Class<?>, InjectionMetadata>();
 
+	/** Per class locks, so that the metadata of different classes can be discovered concurrently */
+	private final ConcurrentMap<Class<?>, Object> metadataLocks = new ConcurrentHashMap<Class<?>, Object>();
+
 	private IInjectionMetadataProviderProblemReporter problemReporter = new PassThroughProblemReporter();
 	
 	/**
@@ -158,7 +162,7 @@ public class AutowiredAnnotationInjectionMetadataProvider implements IInjectionM
 		// Quick check on the concurrent map first, with minimal locking.
 		InjectionMetadata metadata = this.injectionMetadataCache.get(clazz);
 		if (metadata == null) {
-			synchronized (this.injectionMetadataCache) {
+			synchronized (getMetadataLock(clazz)) {
 				metadata = this.injectionMetadataCache.get(clazz);
 				if (metadata == null) {
 					final InjectionMetadata newMetadata = new InjectionMetadata();
@@ -246,6 +250,18 @@ public class AutowiredAnnotationInjectionMetadataProvider implements IInjectionM
 		return metadata;
 	}
 
+	private Object getMetadataLock(Class<?> clazz) {
+		Object lock = this.metadataLocks.get(clazz);
+		if (lock == null) {
+			Object newLock = new Object();
+			lock = this.metadataLocks.putIfAbsent(clazz, newLock);
+			if (lock == null) {
+				lock = newLock;
+			}
+		}
+		return lock;
+	}
+
 	private Annotation findAutowiredAnnotation(AccessibleObject ao) {
 		for (Class<? extends Annotation> type : this.autowiredAnnotationTypes) {
 			Annotation annotation = ao.getAnnotation(type);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2013 Spring IDE Developers
+ * Copyright (c) 2009, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -24,6 +24,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.ws.Service;
 
@@ -107,6 +108,9 @@ public class CommonAnnnotationInjectionMetadataProvider implements IInjectionMet
 
 	private transient final Map<Class<?>, InjectionMetadata> injectionMetadataCache = new ConcurrentHashMap<Class<?>, InjectionMetadata>();
 
+	/** Per class locks, so that the metadata of different classes can be discovered concurrently */
+	private final ConcurrentMap<Class<?>, Object> metadataLocks = new ConcurrentHashMap<Class<?>, Object>();
+
 	public CommonAnnnotationInjectionMetadataProvider() {
 		ignoreResourceType("javax.xml.ws.WebServiceContext");
 	}
@@ -137,7 +141,7 @@ public class CommonAnnnotationInjectionMetadataProvider implements IInjectionMet
 		// Quick check on the concurrent map first, with minimal locking.
 		InjectionMetadata metadata = this.injectionMetadataCache.get(clazz);
 		if (metadata == null) {
-			synchronized (this.injectionMetadataCache) {
+			synchronized (getMetadataLock(clazz)) {
 				Class<? extends Annotation> annotationClass = null;
 
 				// Load the annotation classes in the same class loader context as the user clazz
@@ -255,6 +259,18 @@ public class CommonAnnnotationInjectionMetadataProvider implements IInjectionMet
 		return metadata;
 	}
 
+	private Object getMetadataLock(Class<?> clazz) {
+		Object lock = this.metadataLocks.get(clazz);
+		if (lock == null) {
+			Object newLock = new Object();
+			lock = this.metadataLocks.putIfAbsent(clazz, newLock);
+			if (lock == null) {
+				lock = newLock;
+			}
+		}
+		return lock;
+	}
+
 	/**
 	 * Class<?> representing generic injection information about an annotated field or setter method, supporting @Resource
 	 * and related annotations.
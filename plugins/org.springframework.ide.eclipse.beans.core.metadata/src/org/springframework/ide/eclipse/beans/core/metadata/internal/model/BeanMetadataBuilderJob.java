@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Spring IDE Developers
+ * Copyright (c) 2010, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -46,6 +46,9 @@ import org.springframework.ide.eclipse.core.model.ModelChangeEvent.Type;
 
 /**
  * {@link Job} implementation that handles loading and attaching {@link IBeanMetadata} for {@link IBeansConfig}.
+ * <p>
+ * The types the meta data of each bean is computed from are recorded in the {@link BeanMetadataDependencies},
+ * so that later builds only need to schedule the beans whose class or super types changed.
  * @author Christian Dupuis
  * @since 2.0.5
  */
@@ -128,6 +131,8 @@ public class BeanMetadataBuilderJob extends Job {
 
 			// Reading contributed IBeanMetadataProviders from the extension point
 			IBeanMetadataProvider[] providers = getMetadataProviders();
+			BeanMetadataDependencies dependencies = ((BeanMetadataModel) BeansMetadataPlugin.getMetadataModel())
+					.getDependencies();
 			Set<IBeansProject> projects = new LinkedHashSet<IBeansProject>();
 
 			for (Map.Entry<IBeansConfig, Set<IBean>> entry : affectedBeans.entrySet()) {
@@ -139,14 +144,21 @@ public class BeanMetadataBuilderJob extends Job {
 
 				monitor.subTask("Attaching Spring bean meta data to file [" + resource.getFullPath().toString() + "]");
 				attachMetadata(entry.getKey(), entry.getValue(), monitor, providers);
+				for (IBean bean : entry.getValue()) {
+					dependencies.record(bean);
+				}
 				monitor.worked(1);
 
 				if (BeanMetadataModel.DEBUG) {
-					System.out.println("Attaching meta data [" + resource.getFullPath().toString() + "] took "
-							+ (System.currentTimeMillis() - start) + "ms");
+					System.out.println("Attaching meta data to " + entry.getValue().size() + " beans ["
+							+ resource.getFullPath().toString() + "] took " + (System.currentTimeMillis() - start)
+							+ "ms");
 				}
 			}
 
+			// Append the changes to the backing store
+			((BeanMetadataModel) BeansMetadataPlugin.getMetadataModel()).flush();
+
 			// Notify that the model has changed.
 			for (IBeansProject project : projects) {
 				((BeansModel) BeansCorePlugin.getModel()).notifyListeners(project, Type.CHANGED);
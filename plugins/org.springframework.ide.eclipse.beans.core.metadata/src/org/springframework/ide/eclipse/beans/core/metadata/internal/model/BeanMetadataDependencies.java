@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.metadata.internal.model;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelUtils;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.core.SpringCore;
+import org.springframework.ide.eclipse.core.java.ITypeStructureCache;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
+import org.springframework.ide.eclipse.core.java.TypeStructureState;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyEngine;
+
+/**
+ * Keeps track of the types the {@link IBeanMetadata} of each bean has been computed from, i.e. the bean class and its
+ * super classes and interfaces. For types defined in Java source files the source file is recorded, for binary types
+ * the jar or class folder containing them.
+ * <p>
+ * The meta data of a bean only needs to be computed again if its bean definition points to another class, if one of
+ * these source files has structural changes or if the contents of one of these jars or class folders changed. The
+ * latter are tracked by listening to the Java model, see {@link #elementChanged(ElementChangedEvent)}.
+ * @since 3.8.4
+ */
+public class BeanMetadataDependencies implements IElementChangedListener {
+
+	/** The changes of source types that affect the meta data */
+	public static final int STRUCTURE_FLAGS = ITypeStructureCache.FLAG_ANNOTATION
+			| ITypeStructureCache.FLAG_ANNOTATION_VALUE;
+
+	/** The changes of package fragment roots that affect the binary types in them */
+	private static final int ROOT_FLAGS = IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED
+			| IJavaElementDelta.F_REMOVED_FROM_CLASSPATH;
+
+	/** The dependencies of the beans, keyed by the element id of their config and then by the bean's element id */
+	private final Map<String, Map<String, BeanDependencies>> dependencies = new ConcurrentHashMap<String, Map<String, BeanDependencies>>();
+
+	/**
+	 * Records the types the meta data of the given bean has just been computed from.
+	 */
+	public void record(IBean bean) {
+		String beanClass = BeansModelUtils.getBeanClass(bean, null);
+		Set<IResource> resources = new LinkedHashSet<IResource>();
+		Set<IPackageFragmentRoot> roots = new LinkedHashSet<IPackageFragmentRoot>();
+		if (beanClass != null) {
+			collectDependencies(bean.getElementResource().getProject(), beanClass, resources, roots,
+					new HashSet<String>());
+		}
+		getConfigDependencies(bean, true).put(bean.getElementID(),
+				new BeanDependencies(getFingerprint(bean, beanClass), resources, roots));
+	}
+
+	/**
+	 * Returns <code>true</code> if the recorded meta data of the given bean doesn't need to be computed again, i.e.
+	 * its bean class is still the same and none of the types it depends on changed.
+	 * @param structureState the structure state of the current build; might be <code>null</code>
+	 */
+	public boolean isUpToDate(IBean bean, TypeStructureState structureState) {
+		Map<String, BeanDependencies> configDependencies = getConfigDependencies(bean, false);
+		BeanDependencies beanDependencies = configDependencies != null ? configDependencies.get(bean.getElementID())
+				: null;
+		if (structureState == null || beanDependencies == null
+				|| !beanDependencies.fingerprint.equals(getFingerprint(bean, BeansModelUtils.getBeanClass(bean, null)))) {
+			return false;
+		}
+		for (IResource resource : beanDependencies.resources) {
+			if (structureState.hasStructuralChanges(resource, STRUCTURE_FLAGS)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Forgets the recorded dependencies of the beans of the given config that are not among its current beans anymore,
+	 * e.g. because they have been removed from the config file or renamed.
+	 */
+	public void retainBeans(IBeansConfig config, Set<IBean> beans) {
+		Map<String, BeanDependencies> configDependencies = dependencies.get(config.getElementID());
+		if (configDependencies != null) {
+			Set<String> elementIds = new HashSet<String>();
+			for (IBean bean : beans) {
+				elementIds.add(bean.getElementID());
+			}
+			configDependencies.keySet().retainAll(elementIds);
+		}
+	}
+
+	/**
+	 * Forgets the recorded dependencies of all beans of the given config.
+	 */
+	public void removeConfig(IBeansConfig config) {
+		dependencies.remove(config.getElementID());
+	}
+
+	/**
+	 * Forgets the recorded dependencies of all beans of the configs of the given project.
+	 */
+	public void removeProject(String projectName) {
+		Iterator<String> iterator = dependencies.keySet().iterator();
+		while (iterator.hasNext()) {
+			if (projectName.equals(BeanMetadataPersistence.getProjectName(iterator.next()))) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Forgets the recorded dependencies of all beans that depend on binary types of a jar or class folder that has
+	 * been changed or removed from the classpath, and those of all beans of projects that have been closed or removed.
+	 */
+	public void elementChanged(ElementChangedEvent event) {
+		Set<IJavaElement> changedRoots = new HashSet<IJavaElement>();
+		collectChangedRoots(event.getDelta(), changedRoots);
+		if (changedRoots.isEmpty()) {
+			return;
+		}
+		for (Map<String, BeanDependencies> configDependencies : dependencies.values()) {
+			Iterator<BeanDependencies> iterator = configDependencies.values().iterator();
+			while (iterator.hasNext()) {
+				if (!Collections.disjoint(iterator.next().roots, changedRoots)) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	private void collectChangedRoots(IJavaElementDelta delta, Set<IJavaElement> changedRoots) {
+		IJavaElement element = delta.getElement();
+		if (element instanceof IJavaProject && (delta.getKind() == IJavaElementDelta.REMOVED
+				|| (delta.getFlags() & IJavaElementDelta.F_CLOSED) != 0)) {
+			removeProject(element.getElementName());
+		}
+		else if (element instanceof IPackageFragmentRoot) {
+			// changes of class files in class folders are reported as children of the root
+			if (delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & ROOT_FLAGS) != 0
+					|| delta.getAffectedChildren().length > 0) {
+				changedRoots.add(element);
+			}
+		}
+		else if (element.getElementType() < IJavaElement.PACKAGE_FRAGMENT_ROOT) {
+			for (IJavaElementDelta child : delta.getAffectedChildren()) {
+				collectChangedRoots(child, changedRoots);
+			}
+		}
+	}
+
+	private Map<String, BeanDependencies> getConfigDependencies(IBean bean, boolean create) {
+		IBeansConfig config = BeansModelUtils.getConfig(bean);
+		String configId = config != null ? config.getElementID() : "";
+		Map<String, BeanDependencies> configDependencies = dependencies.get(configId);
+		if (configDependencies == null && create) {
+			synchronized (dependencies) {
+				configDependencies = dependencies.get(configId);
+				if (configDependencies == null) {
+					configDependencies = new ConcurrentHashMap<String, BeanDependencies>();
+					dependencies.put(configId, configDependencies);
+				}
+			}
+		}
+		return configDependencies;
+	}
+
+	private String getFingerprint(IBean bean, String beanClass) {
+		return bean.getClassName() + "|" + beanClass + "|" + bean.getParentName();
+	}
+
+	private void collectDependencies(IProject project, String className, Set<IResource> resources,
+			Set<IPackageFragmentRoot> roots, Set<String> visited) {
+		if (className == null || Object.class.getName().equals(className) || !visited.add(className)) {
+			return;
+		}
+		IType type = JdtUtils.getJavaType(project, className);
+		if (type == null) {
+			return;
+		}
+		if (type.isBinary()) {
+			IJavaElement root = type.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+			if (root == null) {
+				return;
+			}
+			roots.add((IPackageFragmentRoot) root);
+		}
+		else if (type.getResource() != null) {
+			resources.add(type.getResource());
+		}
+		else {
+			return;
+		}
+
+		TypeHierarchyEngine typeEngine = SpringCore.getTypeHierarchyEngine();
+		collectDependencies(project, typeEngine.getSupertype(project, className), resources, roots, visited);
+		String[] interfaces = typeEngine.getInterfaces(project, className);
+		if (interfaces != null) {
+			for (String interfaceName : interfaces) {
+				collectDependencies(project, interfaceName, resources, roots, visited);
+			}
+		}
+	}
+
+	private static class BeanDependencies {
+
+		private final String fingerprint;
+
+		private final Set<IResource> resources;
+
+		private final Set<IPackageFragmentRoot> roots;
+
+		public BeanDependencies(String fingerprint, Set<IResource> resources, Set<IPackageFragmentRoot> roots) {
+			this.fingerprint = fingerprint;
+			this.resources = resources;
+			this.roots = roots;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Spring IDE Developers
+ * Copyright (c) 2010, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,13 +10,12 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.core.metadata.internal.model;
 
-import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.JavaCore;
 import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
 import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
 import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadataModel;
@@ -28,6 +27,9 @@ import org.springframework.ide.eclipse.core.SpringCore;
 /**
  * {@link IBeanMetadataModel} implementation that saves and reloads its contents from a backing
  * store.
+ * <p>
+ * The contents are stored per project and the stored contents of a project are loaded when the
+ * model is asked about a bean of that project for the first time.
  * @author Christian Dupuis
  * @since 2.0.5
  */
@@ -37,113 +39,88 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 
 	public static final boolean DEBUG = SpringCore.isDebug(DEBUG_OPTION);
 
-	private final ReentrantReadWriteLock rwl = new ReentrantReadWriteLock();
+	/** The stores of the projects that have been loaded, keyed by project name */
+	private final Map<String, ProjectBeanMetadataStore> stores = new ConcurrentHashMap<String, ProjectBeanMetadataStore>();
 
-	private final Lock r = rwl.readLock();
-
-	private final Lock w = rwl.writeLock();
-
-	private Map<String, BeanMetadataHolder> beanMetadata = new ConcurrentHashMap<String, BeanMetadataHolder>();
-
-	private Map<String, BeanPropertyDataHolder> beanPropertyData = new ConcurrentHashMap<String, BeanPropertyDataHolder>();
+	private final BeanMetadataDependencies dependencies = new BeanMetadataDependencies();
 
 	public Set<IBeanMetadata> getBeanMetadata(IBean bean) {
-		try {
-			r.lock();
-			if (beanMetadata.containsKey(bean.getElementID())) {
-				return beanMetadata.get(bean.getElementID()).getBeanMetaData();
-			}
-			return Collections.emptySet();
-		}
-		finally {
-			r.unlock();
-		}
+		return getStore(bean).getBeanMetadata(bean.getElementID());
 	}
 
 	public void setBeanMetadata(IBean bean, Set<IBeanMetadata> bMetaData,
 			Set<IMethodMetadata> methodMetaData) {
-		try {
-			w.lock();
-			BeanMetadataHolder holder = new BeanMetadataHolder();
-			holder.setElemenetId(bean.getElementID());
-			holder.setBeanMetaData(bMetaData);
-			holder.setMethodMetaData(methodMetaData);
-			// safe time so we can purge very old entries after a while
-			holder.setLastModified(System.currentTimeMillis());
-			beanMetadata.put(bean.getElementID(), holder);
-		}
-		finally {
-			w.unlock();
-		}
+		BeanMetadataHolder holder = new BeanMetadataHolder();
+		holder.setElemenetId(bean.getElementID());
+		holder.setBeanMetaData(bMetaData);
+		holder.setMethodMetaData(methodMetaData);
+		// safe time so we can purge very old entries after a while
+		holder.setLastModified(System.currentTimeMillis());
+		getStore(bean).setBeanMetadata(holder);
 	}
 
 	public void clearBeanMetadata(IBean bean) {
-		try {
-			w.lock();
-			beanMetadata.remove(bean.getElementID());
-		}
-		finally {
-			w.unlock();
-		}
+		getStore(bean).clearBeanMetadata(bean.getElementID());
 	}
 
 	public Set<IBeanProperty> getBeanProperties(IBean bean) {
-		try {
-			r.lock();
-			if (beanPropertyData.containsKey(bean.getElementID())) {
-				return beanPropertyData.get(bean.getElementID()).getBeanProperties();
-			}
-			return Collections.emptySet();
-		}
-		finally {
-			r.unlock();
-		}
+		return getStore(bean).getBeanProperties(bean.getElementID());
 	}
 
 	public void setBeanProperties(IBean bean, Set<IBeanProperty> beanProperties) {
-		try {
-			w.lock();
-			BeanPropertyDataHolder holder = new BeanPropertyDataHolder();
-			holder.setElemenetId(bean.getElementID());
-			holder.setBeanProperties(beanProperties);
-			// safe time so we can purge very old entries after a while
-			holder.setLastModified(System.currentTimeMillis());
-			beanPropertyData.put(bean.getElementID(), holder);
-		}
-		finally {
-			w.unlock();
-		}
+		BeanPropertyDataHolder holder = new BeanPropertyDataHolder();
+		holder.setElemenetId(bean.getElementID());
+		holder.setBeanProperties(beanProperties);
+		// safe time so we can purge very old entries after a while
+		holder.setLastModified(System.currentTimeMillis());
+		getStore(bean).setBeanProperties(holder);
 	}
 
 	public void clearBeanProperties(IBean bean) {
-		try {
-			w.lock();
-			beanPropertyData.remove(bean.getElementID());
-		}
-		finally {
-			w.unlock();
-		}
+		getStore(bean).clearBeanProperties(bean.getElementID());
 	}
 
 	/**
-	 * Starts and loads the internal model.
+	 * Returns the source types the current meta data of the beans has been computed from.
+	 * @since 3.8.4
 	 */
-	public void start() {
+	public BeanMetadataDependencies getDependencies() {
+		return dependencies;
+	}
 
-		Map<String, BeanMetadataHolder> storedBeanMetadata = BeanMetadataPersistence.loadMetadata();
-		Map<String, BeanPropertyDataHolder> storedProperties = BeanMetadataPersistence
-				.loadProperties();
-		try {
-			w.lock();
-			beanMetadata = storedBeanMetadata;
-			beanPropertyData = storedProperties;
+	/**
+	 * Starts the internal model.
+	 * <p>
+	 * Migrates the contents stored by previous versions and deletes the stored contents of projects that don't
+	 * exist anymore. The stored contents of other projects are loaded on demand.
+	 */
+	public void start() {
+		Map<String, BeanMetadataHolder> legacyMetadata = BeanMetadataPersistence.loadLegacyMetadata();
+		Map<String, BeanPropertyDataHolder> legacyProperties = BeanMetadataPersistence.loadLegacyProperties();
+		if (legacyMetadata != null) {
+			for (BeanMetadataHolder holder : legacyMetadata.values()) {
+				getStore(holder.getElemenetId()).setBeanMetadata(holder);
+			}
 		}
-		catch (Exception e) {
-			beanMetadata = new ConcurrentHashMap<String, BeanMetadataHolder>();
-			beanPropertyData = new ConcurrentHashMap<String, BeanPropertyDataHolder>();
+		if (legacyProperties != null) {
+			for (BeanPropertyDataHolder holder : legacyProperties.values()) {
+				getStore(holder.getElemenetId()).setBeanProperties(holder);
+			}
 		}
-		finally {
-			w.unlock();
+		if (legacyMetadata != null || legacyProperties != null) {
+			flush();
+			BeanMetadataPersistence.deleteLegacyState();
+		}
+		BeanMetadataPersistence.deleteObsoleteProjectStates();
+		JavaCore.addElementChangedListener(dependencies, ElementChangedEvent.POST_CHANGE);
+	}
+
+	/**
+	 * Writes the changes of the internal model to its backing store.
+	 */
+	public void flush() {
+		for (ProjectBeanMetadataStore store : stores.values()) {
+			store.flush();
 		}
 	}
 
@@ -151,8 +128,33 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 	 * Stops and saves the internal model.
 	 */
 	public void stop() {
-		BeanMetadataPersistence.storeMetadata(beanMetadata);
-		BeanMetadataPersistence.storeProperties(beanPropertyData);
+		JavaCore.removeElementChangedListener(dependencies);
+		flush();
+	}
+
+	private ProjectBeanMetadataStore getStore(IBean bean) {
+		return getStore(bean.getElementID());
+	}
+
+	private ProjectBeanMetadataStore getStore(String elementId) {
+		String projectName = BeanMetadataPersistence.getProjectName(elementId);
+		ProjectBeanMetadataStore store = stores.get(projectName);
+		if (store == null) {
+			synchronized (stores) {
+				store = stores.get(projectName);
+				if (store == null) {
+					long start = System.currentTimeMillis();
+					store = new ProjectBeanMetadataStore(BeanMetadataPersistence.getProjectStateFile(projectName));
+					store.load();
+					stores.put(projectName, store);
+					if (DEBUG) {
+						System.out.println("Loading meta data of project [" + projectName + "] took "
+								+ (System.currentTimeMillis() - start) + "ms");
+					}
+				}
+			}
+		}
+		return store;
 	}
 
 }
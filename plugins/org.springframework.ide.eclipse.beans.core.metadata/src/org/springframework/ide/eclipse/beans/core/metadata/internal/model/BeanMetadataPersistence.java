@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2013 Spring IDE Developers
+ * Copyright (c) 2010, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,96 +10,139 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.core.metadata.internal.model;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
 import org.springframework.ide.eclipse.beans.core.metadata.BeansMetadataPlugin;
 import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
+import org.springframework.ide.eclipse.core.model.IModelElement;
 
 /**
- * Stores and loads the {@link IBeanMetadata}s from the persisted file.
+ * Stores and loads the {@link IBeanMetadata}s from the persisted files.
+ * <p>
+ * The meta data of each project is stored in a separate file (see {@link ProjectBeanMetadataStore}). The file is a
+ * sequence of records, each of which is prefixed by its type and length. Strings are written only once per file into
+ * a string table; all other records refer to strings by their index in that table, even the strings within the
+ * serialized {@link BeanMetadataHolder}s and {@link BeanPropertyDataHolder}s.
  * @author Christian Dupuis
  * @author Martin Lippert
  * @since 2.0.5
  */
 public class BeanMetadataPersistence {
 
+	/** Marks a file as a bean meta data store */
+	static final int MAGIC = 0x53424d44;
+
+	/** Files of another version are discarded and rebuilt */
+	static final int VERSION = 1;
+
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
 	private static final String STATE_FILE_NAME = ".state";
 
 	private static final String METADATA_FOLDER_NAME = "/metadata/";
 
 	private static final String BEANPROPERTIES_FOLDER_NAME = "/properties/";
 
-	public static void storeMetadata(Map<String, BeanMetadataHolder> metaData) {
-		File file = BeansMetadataPlugin.getDefault().getStateLocation().append(METADATA_FOLDER_NAME + STATE_FILE_NAME)
-				.toFile();
-		store(metaData, file);
-	}
+	private static final String PROJECTS_FOLDER_NAME = "/projects/";
 
-	public static void storeProperties(Map<String, BeanPropertyDataHolder> properties) {
-		File file = BeansMetadataPlugin.getDefault().getStateLocation()
-				.append(BEANPROPERTIES_FOLDER_NAME + STATE_FILE_NAME).toFile();
-		store(properties, file);
-	}
+	private static final String PROJECT_FILE_EXTENSION = ".metadata";
 
-	private static void store(Object obj, File file) {
-		ObjectOutputStream out = null;
+	/**
+	 * Returns the file storing the meta data of the project with the given name.
+	 */
+	public static File getProjectStateFile(String projectName) {
+		return getProjectsFolder().append(encode(projectName) + PROJECT_FILE_EXTENSION).toFile();
+	}
 
-		try {
-			if (!file.exists()) {
-				file.getParentFile().mkdirs();
-				file.createNewFile();
-			}
-			out = new ObjectOutputStream(new FileOutputStream(file));
-			out.writeObject(obj);
+	/**
+	 * Returns the name of the project that contains the model element with the given id, i.e. the name of the
+	 * second segment of the id, or the empty string if the id doesn't have such a segment.
+	 */
+	public static String getProjectName(String elementId) {
+		int start = elementId.indexOf(IModelElement.ID_DELIMITER);
+		if (start < 0) {
+			return "";
 		}
-		catch (IOException e) {
-			BeansMetadataPlugin.getDefault().getLog().log(new Status(IStatus.ERROR, BeansMetadataPlugin.PLUGIN_ID,
-					"Exception saving meta data model for class " + obj.getClass(), e));
+		int end = elementId.indexOf(IModelElement.ID_DELIMITER, start + 1);
+		String segment = elementId.substring(start + 1, end < 0 ? elementId.length() : end);
+		return segment.substring(segment.indexOf(IModelElement.ID_SEPARATOR) + 1);
+	}
+
+	/**
+	 * Deletes the stored meta data of all projects that no longer exist in the workspace.
+	 */
+	public static void deleteObsoleteProjectStates() {
+		File[] files = getProjectsFolder().toFile().listFiles();
+		if (files == null) {
+			return;
 		}
-		finally {
-			try {
-				if (out != null)
-					out.close();
-			}
-			catch (IOException e) {
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		for (File file : files) {
+			String fileName = file.getName();
+			if (fileName.endsWith(PROJECT_FILE_EXTENSION)) {
+				String projectName = decode(fileName.substring(0, fileName.length() - PROJECT_FILE_EXTENSION.length()));
+				if (projectName.length() > 0 && root.getWorkspace().validateName(projectName, IResource.PROJECT).isOK()
+						&& !root.getProject(projectName).exists()) {
+					file.delete();
+				}
 			}
 		}
 	}
 
+	/**
+	 * Loads the meta data that was stored for all projects in a single file by previous versions.
+	 * @return the meta data; or <code>null</code> if there is no such file
+	 */
 	@SuppressWarnings("unchecked")
-	public static Map<String, BeanMetadataHolder> loadMetadata() {
-		File f = BeansMetadataPlugin.getDefault().getStateLocation().append(METADATA_FOLDER_NAME + STATE_FILE_NAME)
-				.toFile();
-		Map<String, BeanMetadataHolder> metaData = load(f, Map.class);
-		if (metaData != null && metaData.size() > 0) {
-			return metaData;
-		}
-		// create new empty model
-		return new ConcurrentHashMap<String, BeanMetadataHolder>();
+	public static Map<String, BeanMetadataHolder> loadLegacyMetadata() {
+		return load(getLegacyFile(METADATA_FOLDER_NAME), Map.class);
 	}
 
+	/**
+	 * Loads the properties that were stored for all projects in a single file by previous versions.
+	 * @return the properties; or <code>null</code> if there is no such file
+	 */
 	@SuppressWarnings("unchecked")
-	public static Map<String, BeanPropertyDataHolder> loadProperties() {
-		File f = BeansMetadataPlugin.getDefault().getStateLocation().append(BEANPROPERTIES_FOLDER_NAME + STATE_FILE_NAME)
-				.toFile();
-		Map<String, BeanPropertyDataHolder> metaData = load(f, Map.class);
-		if (metaData != null && metaData.size() > 0) {
-			return metaData;
-		}
-		// create new empty model
-		return new ConcurrentHashMap<String, BeanPropertyDataHolder>();
+	public static Map<String, BeanPropertyDataHolder> loadLegacyProperties() {
+		return load(getLegacyFile(BEANPROPERTIES_FOLDER_NAME), Map.class);
 	}
 
-	public static <T> T load(File file, Class<T> clazz) {
+	/**
+	 * Deletes the files written by previous versions, once their contents have been migrated.
+	 */
+	public static void deleteLegacyState() {
+		getLegacyFile(METADATA_FOLDER_NAME).delete();
+		getLegacyFile(BEANPROPERTIES_FOLDER_NAME).delete();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T load(File file, Class<T> clazz) {
 		ObjectInputStream in = null;
 
 		try {
@@ -109,8 +152,7 @@ public class BeanMetadataPersistence {
 			}
 		}
 		catch (Exception e) {
-			BeansMetadataPlugin.getDefault().getLog().log(new Status(IStatus.ERROR, BeansMetadataPlugin.PLUGIN_ID,
-					"Exception restoring meta data model for class " + clazz, e));
+			log("Exception restoring meta data model for class " + clazz, e);
 		}
 		finally {
 			try {
@@ -123,4 +165,192 @@ public class BeanMetadataPersistence {
 		return null;
 	}
 
+	private static File getLegacyFile(String folderName) {
+		return BeansMetadataPlugin.getDefault().getStateLocation().append(folderName + STATE_FILE_NAME).toFile();
+	}
+
+	private static IPath getProjectsFolder() {
+		return BeansMetadataPlugin.getDefault().getStateLocation().append(new Path(PROJECTS_FOLDER_NAME));
+	}
+
+	private static String encode(String projectName) {
+		try {
+			return URLEncoder.encode(projectName, "UTF-8");
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String decode(String fileName) {
+		try {
+			return URLDecoder.decode(fileName, "UTF-8");
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+		catch (IllegalArgumentException e) {
+			return "";
+		}
+	}
+
+	static void log(String message, Throwable e) {
+		BeansMetadataPlugin.getDefault().getLog().log(
+				new Status(IStatus.ERROR, BeansMetadataPlugin.PLUGIN_ID, message, e));
+	}
+
+	/**
+	 * Serializes the given object into a record payload that starts with the index of the given key in the string
+	 * table. Strings within the object are replaced by their index in the string table.
+	 */
+	static byte[] serialize(String key, Object object, StringTable strings) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+		DataOutputStream data = new DataOutputStream(bytes);
+		data.writeInt(strings.getIndex(key));
+		ObjectOutputStream out = new StringTableObjectOutputStream(data, strings);
+		out.writeObject(object);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Reads the object of a payload written by {@link #serialize(String, Object, StringTable)}. The key of the
+	 * payload can be read with {@link #readKey(byte[], StringTable)}.
+	 */
+	static Object deserialize(byte[] payload, StringTable strings) throws IOException, ClassNotFoundException {
+		InputStream bytes = new ByteArrayInputStream(payload, 4, payload.length - 4);
+		ObjectInputStream in = new StringTableObjectInputStream(bytes, strings);
+		try {
+			return in.readObject();
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Returns the key a payload starts with.
+	 */
+	static String readKey(byte[] payload, StringTable strings) throws IOException {
+		return strings.getString(new DataInputStream(new ByteArrayInputStream(payload)).readInt());
+	}
+
+	/**
+	 * Creates a payload that only consists of the index of the given key in the string table.
+	 */
+	static byte[] keyPayload(String key, StringTable strings) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(4);
+		new DataOutputStream(bytes).writeInt(strings.getIndex(key));
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * The strings of a store file, indexed in the order they have been written.
+	 */
+	static class StringTable {
+
+		private final List<String> strings = new ArrayList<String>();
+
+		private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+		private final List<String> unwritten = new ArrayList<String>();
+
+		/**
+		 * Returns the index of the given string, adding the string to the table if needed. Added strings must be
+		 * written to the file (see {@link #takeUnwritten()}) before any record referring to them.
+		 */
+		public int getIndex(String string) {
+			Integer index = indexes.get(string);
+			if (index == null) {
+				index = strings.size();
+				strings.add(string);
+				indexes.put(string, index);
+				unwritten.add(string);
+			}
+			return index;
+		}
+
+		/**
+		 * Adds a string read from the file.
+		 */
+		public void add(String string) {
+			if (!indexes.containsKey(string)) {
+				indexes.put(string, strings.size());
+			}
+			strings.add(string);
+		}
+
+		public String getString(int index) throws IOException {
+			if (index < 0 || index >= strings.size()) {
+				throw new IOException("Invalid string index " + index);
+			}
+			return strings.get(index);
+		}
+
+		/**
+		 * Returns the strings that have been added since the last call, in the order of their indexes.
+		 */
+		public List<String> takeUnwritten() {
+			List<String> result = new ArrayList<String>(unwritten);
+			unwritten.clear();
+			return result;
+		}
+
+		public int size() {
+			return strings.size();
+		}
+	}
+
+	/**
+	 * Replacement of a string within serialized objects.
+	 */
+	private static class StringReference implements Serializable {
+
+		private static final long serialVersionUID = 5981537946209468401L;
+
+		private final int index;
+
+		public StringReference(int index) {
+			this.index = index;
+		}
+	}
+
+	private static class StringTableObjectOutputStream extends ObjectOutputStream {
+
+		private final StringTable strings;
+
+		public StringTableObjectOutputStream(OutputStream out, StringTable strings) throws IOException {
+			super(out);
+			this.strings = strings;
+			enableReplaceObject(true);
+		}
+
+		@Override
+		protected Object replaceObject(Object obj) throws IOException {
+			if (obj instanceof String) {
+				return new StringReference(strings.getIndex((String) obj));
+			}
+			return obj;
+		}
+	}
+
+	private static class StringTableObjectInputStream extends ObjectInputStream {
+
+		private final StringTable strings;
+
+		public StringTableObjectInputStream(InputStream in, StringTable strings) throws IOException {
+			super(in);
+			this.strings = strings;
+			enableResolveObject(true);
+		}
+
+		@Override
+		protected Object resolveObject(Object obj) throws IOException {
+			if (obj instanceof StringReference) {
+				return strings.getString(((StringReference) obj).index);
+			}
+			return obj;
+		}
+	}
+
 }
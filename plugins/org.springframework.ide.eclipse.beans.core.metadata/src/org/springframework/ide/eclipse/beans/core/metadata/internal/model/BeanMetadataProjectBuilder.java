@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2013 Spring IDE Developers
+ * Copyright (c) 2010, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@ package org.springframework.ide.eclipse.beans.core.metadata.internal.model;
 
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
@@ -33,7 +34,6 @@ import org.springframework.ide.eclipse.beans.core.model.IBean;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
 import org.springframework.ide.eclipse.beans.core.model.IBeansImport;
 import org.springframework.ide.eclipse.beans.core.model.IImportedBeansConfig;
-import org.springframework.ide.eclipse.core.java.ITypeStructureCache;
 import org.springframework.ide.eclipse.core.java.JdtUtils;
 import org.springframework.ide.eclipse.core.java.TypeStructureState;
 import org.springframework.ide.eclipse.core.project.IProjectBuilder;
@@ -43,6 +43,10 @@ import org.springframework.ide.eclipse.core.project.IProjectContributorStateAwar
 /**
  * {@link IProjectBuilder} that triggers the creation and lifecycle of {@link IBeanMetadata} stored in the
  * {@link IBeanMetadataModel}.
+ * <p>
+ * On incremental builds only the beans whose bean class or super types have structural changes are scheduled for
+ * re-processing; a changed configuration file doesn't affect the beans whose {@link BeanMetadataDependencies} are
+ * still up to date.
  * @author Christian Dupuis
  * @since 2.0.5
  */
@@ -59,10 +63,12 @@ public class BeanMetadataProjectBuilder implements IProjectBuilder, IProjectCont
 	 */
 	public void build(Set<IResource> affectedResources, int kind, IProgressMonitor monitor) throws CoreException {
 		monitor.subTask("Resolving Spring Meta Data");
-		if (affectedResources.size() > 0) {
+		if (affectedResources.size() > 0 && affectedBeans.size() > 0) {
 			Job job = new BeanMetadataBuilderJob(affectedBeans);
 			job.schedule();
 		}
+		// the job owns the collected beans now, the next build starts from scratch
+		affectedBeans = new HashMap<IBeansConfig, Set<IBean>>();
 		monitor.done();
 	}
 
@@ -76,6 +82,7 @@ public class BeanMetadataProjectBuilder implements IProjectBuilder, IProjectCont
 				BeansMetadataPlugin.getMetadataModel().clearBeanMetadata(bean);
 				BeansMetadataPlugin.getMetadataModel().clearBeanProperties(bean);
 			}
+			getDependencies().removeConfig(beansConfig);
 			// Notify that the model has changed.
 			// ((BeansModel) BeansCorePlugin.getModel()).notifyListeners(beansConfig, Type.CHANGED);
 		}
@@ -95,8 +102,7 @@ public class BeanMetadataProjectBuilder implements IProjectBuilder, IProjectCont
 			BeansTypeHierachyState hierachyState = context.get(BeansTypeHierachyState.class);
 
 			if (structureState == null
-					|| structureState.hasStructuralChanges(resource, ITypeStructureCache.FLAG_ANNOTATION
-							| ITypeStructureCache.FLAG_ANNOTATION_VALUE)) {
+					|| structureState.hasStructuralChanges(resource, BeanMetadataDependencies.STRUCTURE_FLAGS)) {
 				for (IBean bean : hierachyState.getBeansByContainingTypes(resource)) {
 					IBeansConfig beansConfig = BeansModelUtils.getConfig(bean);
 					resources.add(beansConfig.getElementResource());
@@ -119,25 +125,47 @@ public class BeanMetadataProjectBuilder implements IProjectBuilder, IProjectCont
 			for (IBeansImport beansImport : beansConfig.getImports()) {
 				for (IImportedBeansConfig importedBeansConfig : beansImport.getImportedBeansConfigs()) {
 					resources.add(importedBeansConfig.getElementResource());
-					addBeans(importedBeansConfig);
+					addBeans(importedBeansConfig, kind);
 				}
 			}
 			resources.add(beansConfig.getElementResource());
-			addBeans(beansConfig);
+			addBeans(beansConfig, kind);
 		}
 		return resources;
 	}
 
-	private void addBeans(IBeansConfig beansConfig) {
+	/**
+	 * Adds the beans of the given config that need re-processing, i.e. all beans on full builds and otherwise only
+	 * those whose meta data isn't up to date. The dependencies of beans that are gone from the config are dropped.
+	 */
+	private void addBeans(IBeansConfig beansConfig, int kind) {
+		Set<IBean> beans = BeansModelUtils.getBeans(beansConfig);
+		BeanMetadataDependencies dependencies = getDependencies();
+		dependencies.retainBeans(beansConfig, beans);
+		if (kind != IncrementalProjectBuilder.FULL_BUILD) {
+			TypeStructureState structureState = context.get(TypeStructureState.class);
+			Iterator<IBean> iterator = beans.iterator();
+			while (iterator.hasNext()) {
+				if (dependencies.isUpToDate(iterator.next(), structureState)) {
+					iterator.remove();
+				}
+			}
+		}
+		if (beans.isEmpty()) {
+			return;
+		}
 		if (affectedBeans.containsKey(beansConfig)) {
-			affectedBeans.get(beansConfig).addAll(BeansModelUtils.getBeans(beansConfig));
+			affectedBeans.get(beansConfig).addAll(beans);
 		}
 		else {
-			Set<IBean> beans = BeansModelUtils.getBeans(beansConfig);
 			affectedBeans.put(beansConfig, beans);
 		}
 	}
 
+	private BeanMetadataDependencies getDependencies() {
+		return ((BeanMetadataModel) BeansMetadataPlugin.getMetadataModel()).getDependencies();
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
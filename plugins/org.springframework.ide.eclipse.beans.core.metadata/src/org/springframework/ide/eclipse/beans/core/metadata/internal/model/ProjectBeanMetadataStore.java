@@ -0,0 +1,385 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.metadata.internal.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.ide.eclipse.beans.core.metadata.internal.model.BeanMetadataPersistence.StringTable;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
+import org.springframework.ide.eclipse.beans.core.model.IBeanProperty;
+
+/**
+ * The {@link IBeanMetadata} and {@link IBeanProperty}s of the beans of a single project, backed by a file.
+ * <p>
+ * Changes are appended to the file on {@link #flush()}; only the latest record of a bean counts. Once the file
+ * contains considerably more records than beans, it is compacted, i.e. rewritten with the current records only.
+ * Records that can't be read (e.g. because the classes of the stored meta data changed) are skipped, so that only the
+ * meta data of the affected beans needs to be built again.
+ * @since 3.8.4
+ */
+public class ProjectBeanMetadataStore {
+
+	private static final byte STRING_RECORD = 1;
+
+	private static final byte METADATA_RECORD = 2;
+
+	private static final byte PROPERTIES_RECORD = 3;
+
+	private static final byte REMOVE_METADATA_RECORD = 4;
+
+	private static final byte REMOVE_PROPERTIES_RECORD = 5;
+
+	/** Number of superseded records that is tolerated in any case before compacting the file */
+	private static final int MIN_OBSOLETE_RECORDS = 256;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final ReentrantReadWriteLock rwl = new ReentrantReadWriteLock();
+
+	private final Lock r = rwl.readLock();
+
+	private final Lock w = rwl.writeLock();
+
+	private final File file;
+
+	private final Map<String, BeanMetadataHolder> beanMetadata = new HashMap<String, BeanMetadataHolder>();
+
+	private final Map<String, BeanPropertyDataHolder> beanPropertyData = new HashMap<String, BeanPropertyDataHolder>();
+
+	private final Set<String> changedMetadata = new LinkedHashSet<String>();
+
+	private final Set<String> changedProperties = new LinkedHashSet<String>();
+
+	private StringTable strings = new StringTable();
+
+	/** Number of meta data and property records in the file */
+	private int records = 0;
+
+	/** Set if the file can't be appended to, e.g. because it is truncated */
+	private boolean compactionRequired = false;
+
+	public ProjectBeanMetadataStore(File file) {
+		this.file = file;
+	}
+
+	public Set<IBeanMetadata> getBeanMetadata(String elementId) {
+		try {
+			r.lock();
+			BeanMetadataHolder holder = beanMetadata.get(elementId);
+			if (holder != null) {
+				return holder.getBeanMetaData();
+			}
+			return Collections.emptySet();
+		}
+		finally {
+			r.unlock();
+		}
+	}
+
+	public void setBeanMetadata(BeanMetadataHolder holder) {
+		try {
+			w.lock();
+			beanMetadata.put(holder.getElemenetId(), holder);
+			changedMetadata.add(holder.getElemenetId());
+		}
+		finally {
+			w.unlock();
+		}
+	}
+
+	public void clearBeanMetadata(String elementId) {
+		try {
+			w.lock();
+			if (beanMetadata.remove(elementId) != null) {
+				changedMetadata.add(elementId);
+			}
+		}
+		finally {
+			w.unlock();
+		}
+	}
+
+	public Set<IBeanProperty> getBeanProperties(String elementId) {
+		try {
+			r.lock();
+			BeanPropertyDataHolder holder = beanPropertyData.get(elementId);
+			if (holder != null) {
+				return holder.getBeanProperties();
+			}
+			return Collections.emptySet();
+		}
+		finally {
+			r.unlock();
+		}
+	}
+
+	public void setBeanProperties(BeanPropertyDataHolder holder) {
+		try {
+			w.lock();
+			beanPropertyData.put(holder.getElemenetId(), holder);
+			changedProperties.add(holder.getElemenetId());
+		}
+		finally {
+			w.unlock();
+		}
+	}
+
+	public void clearBeanProperties(String elementId) {
+		try {
+			w.lock();
+			if (beanPropertyData.remove(elementId) != null) {
+				changedProperties.add(elementId);
+			}
+		}
+		finally {
+			w.unlock();
+		}
+	}
+
+	/**
+	 * Reads the contents of the backing file.
+	 */
+	public void load() {
+		try {
+			w.lock();
+			if (file.exists()) {
+				DataInputStream in = null;
+				try {
+					in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+					readRecords(in);
+				}
+				catch (IOException e) {
+					BeanMetadataPersistence.log("Exception restoring meta data from " + file, e);
+					compactionRequired = true;
+				}
+				finally {
+					close(in);
+				}
+			}
+		}
+		finally {
+			w.unlock();
+		}
+	}
+
+	/**
+	 * Writes all changes since the last flush to the backing file.
+	 */
+	public void flush() {
+		try {
+			w.lock();
+			int changes = changedMetadata.size() + changedProperties.size();
+			if (changes == 0 && !compactionRequired) {
+				return;
+			}
+			int beans = beanMetadata.size() + beanPropertyData.size();
+			try {
+				if (beans == 0) {
+					file.delete();
+					changedMetadata.clear();
+					changedProperties.clear();
+					reset();
+				}
+				else if (compactionRequired || !file.exists()
+						|| records + changes - beans > Math.max(MIN_OBSOLETE_RECORDS, beans)) {
+					compact();
+				}
+				else {
+					append();
+				}
+			}
+			catch (IOException e) {
+				BeanMetadataPersistence.log("Exception saving meta data to " + file, e);
+				// the string table might refer to strings that haven't been written
+				compactionRequired = true;
+			}
+		}
+		finally {
+			w.unlock();
+		}
+	}
+
+	private void readRecords(DataInputStream in) throws IOException {
+		if (in.readInt() != BeanMetadataPersistence.MAGIC || in.readInt() != BeanMetadataPersistence.VERSION) {
+			// written by an incompatible version; the meta data gets rebuilt
+			compactionRequired = true;
+			return;
+		}
+		try {
+			int type;
+			while ((type = in.read()) >= 0) {
+				int length = in.readInt();
+				if (length < 0) {
+					throw new IOException("Invalid record length " + length);
+				}
+				byte[] payload = new byte[length];
+				in.readFully(payload);
+				readRecord(type, payload);
+			}
+		}
+		catch (EOFException e) {
+			// the last record is incomplete
+			compactionRequired = true;
+		}
+	}
+
+	private void readRecord(int type, byte[] payload) throws IOException {
+		if (type == STRING_RECORD) {
+			strings.add(new String(payload, BeanMetadataPersistence.UTF8));
+			return;
+		}
+		records++;
+		String elementId = BeanMetadataPersistence.readKey(payload, strings);
+		if (type == METADATA_RECORD) {
+			BeanMetadataHolder holder = (BeanMetadataHolder) readHolder(payload);
+			if (holder != null) {
+				beanMetadata.put(elementId, holder);
+			}
+			else {
+				beanMetadata.remove(elementId);
+			}
+		}
+		else if (type == PROPERTIES_RECORD) {
+			BeanPropertyDataHolder holder = (BeanPropertyDataHolder) readHolder(payload);
+			if (holder != null) {
+				beanPropertyData.put(elementId, holder);
+			}
+			else {
+				beanPropertyData.remove(elementId);
+			}
+		}
+		else if (type == REMOVE_METADATA_RECORD) {
+			beanMetadata.remove(elementId);
+		}
+		else if (type == REMOVE_PROPERTIES_RECORD) {
+			beanPropertyData.remove(elementId);
+		}
+	}
+
+	/**
+	 * Returns the holder stored in the given payload, or <code>null</code> if it can't be read anymore.
+	 */
+	private Object readHolder(byte[] payload) {
+		try {
+			return BeanMetadataPersistence.deserialize(payload, strings);
+		}
+		catch (Exception e) {
+			if (BeanMetadataModel.DEBUG) {
+				System.out.println("Skipping meta data record in " + file + ": " + e);
+			}
+			return null;
+		}
+	}
+
+	private void append() throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true),
+				BUFFER_SIZE));
+		try {
+			writeChanges(out);
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	private void compact() throws IOException {
+		File tempFile = new File(file.getPath() + ".tmp");
+		tempFile.getParentFile().mkdirs();
+		reset();
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile),
+				BUFFER_SIZE));
+		try {
+			out.writeInt(BeanMetadataPersistence.MAGIC);
+			out.writeInt(BeanMetadataPersistence.VERSION);
+			changedMetadata.addAll(beanMetadata.keySet());
+			changedProperties.addAll(beanPropertyData.keySet());
+			writeChanges(out);
+		}
+		finally {
+			out.close();
+		}
+		if (file.exists() && !file.delete()) {
+			throw new IOException("Can't replace " + file);
+		}
+		if (!tempFile.renameTo(file)) {
+			throw new IOException("Can't rename " + tempFile + " to " + file);
+		}
+		compactionRequired = false;
+	}
+
+	private void reset() {
+		strings = new StringTable();
+		records = 0;
+		compactionRequired = false;
+	}
+
+	private void writeChanges(DataOutputStream out) throws IOException {
+		for (String elementId : changedMetadata) {
+			BeanMetadataHolder holder = beanMetadata.get(elementId);
+			if (holder != null) {
+				writeRecord(out, METADATA_RECORD, BeanMetadataPersistence.serialize(elementId, holder, strings));
+			}
+			else {
+				writeRecord(out, REMOVE_METADATA_RECORD, BeanMetadataPersistence.keyPayload(elementId, strings));
+			}
+		}
+		for (String elementId : changedProperties) {
+			BeanPropertyDataHolder holder = beanPropertyData.get(elementId);
+			if (holder != null) {
+				writeRecord(out, PROPERTIES_RECORD, BeanMetadataPersistence.serialize(elementId, holder, strings));
+			}
+			else {
+				writeRecord(out, REMOVE_PROPERTIES_RECORD, BeanMetadataPersistence.keyPayload(elementId, strings));
+			}
+		}
+		changedMetadata.clear();
+		changedProperties.clear();
+	}
+
+	private void writeRecord(DataOutputStream out, byte type, byte[] payload) throws IOException {
+		// strings must precede the records referring to them
+		for (String string : strings.takeUnwritten()) {
+			byte[] bytes = string.getBytes(BeanMetadataPersistence.UTF8);
+			out.writeByte(STRING_RECORD);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+		out.writeByte(type);
+		out.writeInt(payload.length);
+		out.write(payload);
+		records++;
+	}
+
+	private void close(DataInputStream in) {
+		try {
+			if (in != null)
+				in.close();
+		}
+		catch (IOException e) {
+		}
+	}
+
+}
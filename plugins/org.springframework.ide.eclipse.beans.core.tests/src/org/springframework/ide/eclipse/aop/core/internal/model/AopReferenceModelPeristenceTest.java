@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.aop.core.internal.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.aop.core.model.IAopProject;
+import org.springframework.ide.eclipse.aop.core.model.IAopReference;
+import org.springframework.ide.eclipse.aop.core.model.IAopReference.ADVICE_TYPE;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * @since 3.8.4
+ */
+public class AopReferenceModelPeristenceTest {
+
+	private static final String CONFIG_FILE = "src/org/springframework/beans/factory/annotation/testConcurrentInjectionMetadata-context.xml";
+
+	private IProject project;
+
+	private IJavaProject javaProject;
+
+	private File file;
+
+	private AopReferenceModelPeristence persistence;
+
+	@Before
+	public void setUp() throws Exception {
+		project = StsTestUtil.createPredefinedProject("autowire", "org.springframework.ide.eclipse.beans.core.tests");
+		javaProject = JavaCore.create(project);
+		file = File.createTempFile("aop-model", ".state");
+		persistence = new AopReferenceModelPeristence(new AopReferenceModel());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		file.delete();
+		project.delete(true, null);
+	}
+
+	@Test
+	public void testRoundtrip() throws Exception {
+		IAopProject aopProject = createAopProject();
+		persistence.saveProjectState(aopProject, file);
+
+		IAopProject loaded = persistence.loadProjectState(javaProject, file);
+		Set<IAopReference> references = loaded.getAllReferences();
+		assertEquals(2, references.size());
+		for (IAopReference reference : references) {
+			IAopReference expected = find(aopProject, reference.getTargetBeanId());
+			assertEquals(expected.getAdviceType(), reference.getAdviceType());
+			assertEquals(expected.getSource(), reference.getSource());
+			assertEquals(expected.getSourceStartLine(), reference.getSourceStartLine());
+			assertEquals(expected.getTarget(), reference.getTarget());
+			assertEquals(expected.getTargetStartLine(), reference.getTargetStartLine());
+			assertEquals(expected.getResource(), reference.getResource());
+			assertEquals(expected.getTargetBeanResource(), reference.getTargetBeanResource());
+			assertEquals(expected.getTargetBeanStartline(), reference.getTargetBeanStartline());
+			assertEquals(expected.getDefinition().getAspectName(), reference.getDefinition().getAspectName());
+			assertEquals(expected.getDefinition().getPointcutExpression(), reference.getDefinition()
+					.getPointcutExpression());
+			assertEquals(expected.getDefinition().getType(), reference.getDefinition().getType());
+		}
+	}
+
+	@Test
+	public void testTruncatedFile() throws Exception {
+		persistence.saveProjectState(createAopProject(), file);
+
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(raf.length() - 3);
+		}
+		finally {
+			raf.close();
+		}
+
+		assertNull(persistence.loadProjectState(javaProject, file));
+	}
+
+	@Test
+	public void testVersionMismatch() throws Exception {
+		persistence.saveProjectState(createAopProject(), file);
+
+		// the version follows the magic number
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.seek(4);
+			int version = raf.readInt();
+			raf.seek(4);
+			raf.writeInt(version + 1);
+		}
+		finally {
+			raf.close();
+		}
+
+		assertNull(persistence.loadProjectState(javaProject, file));
+	}
+
+	@Test
+	public void testMissingFile() throws Exception {
+		file.delete();
+		assertNull(persistence.loadProjectState(javaProject, file));
+	}
+
+	private IAopProject createAopProject() throws Exception {
+		IType type = javaProject.findType("test.beans.TestBean");
+		IFile config = project.getFile(CONFIG_FILE);
+
+		BeanAspectDefinition definition = new BeanAspectDefinition();
+		definition.setAspectName("loggingAspect");
+		definition.setAspectClassName("test.beans.TestBean");
+		definition.setAdviceMethodName("getAge");
+		definition.setType(ADVICE_TYPE.BEFORE);
+		definition.setPointcutExpression("execution(* test.beans.TestBean.*(..))");
+		definition.setResource(config);
+
+		IAopProject aopProject = new AopProject(javaProject);
+		aopProject.addAopReference(new AopReference(ADVICE_TYPE.BEFORE, type.getMethod("getAge", new String[0]), 183,
+				type.getMethod("getName", new String[0]), 164, definition, config, "bean01", config, 5));
+		aopProject.addAopReference(new AopReference(ADVICE_TYPE.BEFORE, type.getMethod("getAge", new String[0]), 183,
+				type.getMethod("setName", new String[] { "QString;" }), 168, definition, config, "bean02", config, 6));
+		return aopProject;
+	}
+
+	private static IAopReference find(IAopProject aopProject, String beanId) {
+		for (IAopReference reference : aopProject.getAllReferences()) {
+			if (reference.getTargetBeanId().equals(beanId)) {
+				return reference;
+			}
+		}
+		return null;
+	}
+
+}
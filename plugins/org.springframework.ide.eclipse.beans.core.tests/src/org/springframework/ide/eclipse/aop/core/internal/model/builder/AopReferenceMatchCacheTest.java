@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.aop.core.internal.model.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.ide.eclipse.aop.core.internal.model.BeanAspectDefinition;
+import org.springframework.ide.eclipse.aop.core.model.IAopReference;
+import org.springframework.ide.eclipse.beans.core.internal.model.Bean;
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * @since 3.8.4
+ */
+public class AopReferenceMatchCacheTest {
+
+	private static final String TARGET_CLASS = "org.test.service.ServiceImpl";
+
+	private static final String ASPECT_CLASS = "org.test.aspects.LoggingAspect";
+
+	private IProject project;
+
+	private AopReferenceMatchCache cache;
+
+	@Before
+	public void createProject() throws Exception {
+		project = StsTestUtil.createPredefinedProject("autowire", "org.springframework.ide.eclipse.beans.core.tests");
+		AopReferenceMatchCache.startListening();
+		AopReferenceMatchCache.applyChanges();
+		cache = AopReferenceMatchCache.getCache(project);
+	}
+
+	@After
+	public void deleteProject() throws Exception {
+		AopReferenceMatchCache.clear(project);
+		project.delete(true, null);
+	}
+
+	@Test
+	public void testResultsAreKeyedByValues() throws Exception {
+		put("execution(* org.test.service.Service.*(..))");
+
+		assertNotNull(cache.getResult(definition("execution(* org.test.service.Service.*(..))"), bean("service"),
+				TARGET_CLASS));
+		assertNull(cache.getResult(definition("execution(* org.test.service.Other.*(..))"), bean("service"),
+				TARGET_CLASS));
+		assertNull(cache.getResult(definition("execution(* org.test.service.Service.*(..))"), bean("other"),
+				TARGET_CLASS));
+	}
+
+	@Test
+	public void testChangedHierarchyTypeDropsResult() throws Exception {
+		put("execution(* *(..))");
+
+		changeTypes("org.test.service.Unrelated");
+		assertNotNull(getResult("execution(* *(..))"));
+
+		// member types are recorded in binary notation by the builder
+		changeTypes("org.test.service.Base$Inner");
+		assertNull(getResult("execution(* *(..))"));
+	}
+
+	@Test
+	public void testChangedAspectClassDropsResult() throws Exception {
+		put("execution(* *(..))");
+
+		changeTypes(ASPECT_CLASS);
+		assertNull(getResult("execution(* *(..))"));
+	}
+
+	@Test
+	public void testPointcutTypesByFullyQualifiedName() throws Exception {
+		String expression = "execution(* org.test.service.Service.*(..)) && args(org.test.dto.Order)";
+		put(expression);
+
+		// same simple names in other packages don't affect the result
+		changeTypes("org.other.Service", "org.other.Order");
+		assertNotNull(getResult(expression));
+
+		changeTypes("org.test.dto.Order");
+		assertNull(getResult(expression));
+	}
+
+	@Test
+	public void testUnqualifiedPointcutTypesResolvedAgainstAspectPackage() throws Exception {
+		put("@annotation(Loggable)");
+
+		changeTypes("org.other.Loggable");
+		assertNotNull(getResult("@annotation(Loggable)"));
+
+		changeTypes("org.test.aspects.Loggable");
+		assertNull(getResult("@annotation(Loggable)"));
+	}
+
+	@Test
+	public void testNamedPointcutReference() throws Exception {
+		put("org.test.aspects.Pointcuts.serviceMethods()");
+
+		changeTypes("org.test.aspects.Pointcuts");
+		assertNull(getResult("org.test.aspects.Pointcuts.serviceMethods()"));
+	}
+
+	@Test
+	public void testClasspathChangeDropsResults() throws Exception {
+		put("execution(* *(..))");
+		assertEquals(1, cache.size());
+
+		IJavaProject javaProject = JavaCore.create(project);
+		List<IClasspathEntry> entries = new ArrayList<IClasspathEntry>(Arrays.asList(javaProject.getRawClasspath()));
+		entries.remove(entries.size() - 1);
+		javaProject.setRawClasspath(entries.toArray(new IClasspathEntry[entries.size()]), null);
+
+		AopReferenceMatchCache.applyChanges();
+		assertEquals(0, AopReferenceMatchCache.getCache(project).size());
+	}
+
+	@Test
+	public void testJarContentChangeDropsResults() throws Exception {
+		put("execution(* *(..))");
+		assertEquals(1, cache.size());
+
+		project.getFile("lib/org.springframework.core_3.1.4.RELEASE.jar").touch(null);
+
+		AopReferenceMatchCache.applyChanges();
+		assertEquals(0, AopReferenceMatchCache.getCache(project).size());
+	}
+
+	private void put(String expression) {
+		cache.putMatches(definition(expression), bean("service"), TARGET_CLASS, null, Collections.<IMethod> emptySet(),
+				new HashSet<String>(Arrays.asList(TARGET_CLASS, "org.test.service.Base$Inner")));
+	}
+
+	private AopReferenceMatchCache.MatchResult getResult(String expression) {
+		return AopReferenceMatchCache.getCache(project).getResult(definition(expression), bean("service"),
+				TARGET_CLASS);
+	}
+
+	private static void changeTypes(String... typeNames) {
+		AopReferenceMatchCache.recordChangedTypes(new HashSet<String>(Arrays.asList(typeNames)));
+		AopReferenceMatchCache.applyChanges();
+	}
+
+	private static BeanAspectDefinition definition(String expression) {
+		BeanAspectDefinition definition = new BeanAspectDefinition();
+		definition.setAspectName("loggingAspect");
+		definition.setAspectClassName(ASPECT_CLASS);
+		definition.setAdviceMethodName("log");
+		definition.setType(IAopReference.ADVICE_TYPE.BEFORE);
+		definition.setPointcutExpression(expression);
+		return definition;
+	}
+
+	private static IBean bean(String name) {
+		return new Bean(null, name, null, new RootBeanDefinition(TARGET_CLASS));
+	}
+
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.aop.core.internal.model.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.ide.eclipse.aop.core.internal.model.BeanAspectDefinition;
+import org.springframework.ide.eclipse.beans.core.internal.model.Bean;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * @since 3.8.4
+ */
+public class CompiledPointcutCacheTest {
+
+	private IProject project;
+
+	private IProject sharedJarsProject;
+
+	@Before
+	public void createProjects() throws Exception {
+		project = StsTestUtil.createPredefinedProject("autowire", "org.springframework.ide.eclipse.beans.core.tests");
+
+		// a second project with exactly the same jars
+		sharedJarsProject = ResourcesPlugin.getWorkspace().getRoot().getProject("autowire-shared-jars");
+		sharedJarsProject.create(null);
+		sharedJarsProject.open(null);
+		IProjectDescription description = sharedJarsProject.getDescription();
+		description.setNatureIds(new String[] { JavaCore.NATURE_ID });
+		sharedJarsProject.setDescription(description, null);
+
+		List<IClasspathEntry> entries = new ArrayList<IClasspathEntry>();
+		for (IClasspathEntry entry : JavaCore.create(project).getRawClasspath()) {
+			if (entry.getEntryKind() == IClasspathEntry.CPE_LIBRARY
+					|| entry.getEntryKind() == IClasspathEntry.CPE_CONTAINER) {
+				entries.add(entry);
+			}
+		}
+		IJavaProject javaProject = JavaCore.create(sharedJarsProject);
+		javaProject.setRawClasspath(entries.toArray(new IClasspathEntry[entries.size()]), sharedJarsProject
+				.getFullPath().append("bin"), null);
+
+		AopReferenceMatchCache.startListening();
+	}
+
+	@After
+	public void deleteProjects() throws Exception {
+		CompiledPointcutCache.clear(project);
+		CompiledPointcutCache.clear(sharedJarsProject);
+		project.delete(true, null);
+		sharedJarsProject.delete(true, null);
+	}
+
+	@Test
+	public void testChangedProjectSharingJars() throws Exception {
+		ClassLoader classLoader = JdtUtils.getClassLoader(project, null);
+		ClassLoader sharedJarsClassLoader = JdtUtils.getClassLoader(sharedJarsProject, null);
+		assertSame(classLoader.getParent(), sharedJarsClassLoader.getParent());
+
+		CompiledPointcutCache.createCache(project, null);
+		CompiledPointcutCache.createCache(sharedJarsProject, null);
+
+		// what the classloader cache does on classpath and output folder changes of a single project
+		JdtUtils.removeClassLoaderEntryFromCache(sharedJarsProject);
+
+		// the jar classloader stays cached for the other project, but the changed project needs a new classloader
+		assertNull(CompiledPointcutCache.getCache(sharedJarsProject));
+		assertNotNull(CompiledPointcutCache.getCache(project));
+	}
+
+	@Test
+	public void testClosedProjectIsDropped() throws Exception {
+		CompiledPointcutCache.createCache(project, null);
+		AopReferenceMatchCache.getCache(project).putMatches(definition(), bean(), "org.test.service.ServiceImpl",
+				null, Collections.<IMethod> emptySet(), new HashSet<String>());
+
+		project.close(null);
+
+		assertNull(CompiledPointcutCache.getCache(project));
+		assertEquals(0, AopReferenceMatchCache.getCache(project).size());
+	}
+
+	private static BeanAspectDefinition definition() {
+		BeanAspectDefinition definition = new BeanAspectDefinition();
+		definition.setAspectClassName("org.test.aspects.LoggingAspect");
+		definition.setAdviceMethodName("log");
+		definition.setPointcutExpression("execution(* *(..))");
+		return definition;
+	}
+
+	private static Bean bean() {
+		return new Bean(null, "service", null, new RootBeanDefinition("org.test.service.ServiceImpl"));
+	}
+
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.aop.core.internal.model.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Checks the {@link PointcutPreFilter} against a table of pointcut expressions together with the result AspectJ
+ * produces for them. Wherever AspectJ matches, the filter must answer "could match"; it may only reject candidates
+ * AspectJ doesn't match.
+ * @since 3.8.4
+ */
+public class PointcutPreFilterTest {
+
+	/** <code>OrderServiceImpl extends AbstractService implements OrderService</code> */
+	private static final PointcutPreFilter.Candidate SERVICE = new PointcutPreFilter.Candidate(
+			"com.example.service.OrderServiceImpl",
+			set("com.example.service.AbstractService", "com.example.service.OrderService", "java.lang.Object"),
+			set("Service"), set("Transactional"), set("orderService", "orders"));
+
+	/** Member type <code>Outer.Inner</code> */
+	private static final PointcutPreFilter.Candidate INNER = new PointcutPreFilter.Candidate(
+			"com.example.service.Outer$Inner", set("java.lang.Object"), set(), set(), set("inner"));
+
+	private static final boolean MATCH = true;
+
+	private static final boolean NO_MATCH = false;
+
+	/** Expression, candidate, AspectJ result and the expected answer of the filter */
+	private static final Object[][] EXPRESSIONS = {
+			// execution
+			{ "execution(* com.example.service.OrderServiceImpl.*(..))", SERVICE, MATCH, true },
+			{ "execution(* com.example.service.OrderService.*(..))", SERVICE, MATCH, true },
+			{ "execution(* com.example.service.AbstractService.*(..))", SERVICE, MATCH, true },
+			{ "execution(* com.example.service.*.*(..))", SERVICE, MATCH, true },
+			{ "execution(* com.example..*.*(..))", SERVICE, MATCH, true },
+			{ "execution(* com.example..*(..))", SERVICE, MATCH, true },
+			{ "execution(public * *(..))", SERVICE, MATCH, true },
+			{ "execution(* *Service*.*(..))", SERVICE, MATCH, true },
+			{ "execution(java.lang.String com.example.service.OrderService.find*(java.lang.String, ..))", SERVICE,
+					MATCH, true },
+			{ "execution(* com.example.service.Outer.Inner.*(..))", INNER, MATCH, true },
+			{ "execution(* com.other.*.*(..))", SERVICE, NO_MATCH, false },
+			{ "execution(* com.example.service.Unrelated.*(..))", SERVICE, NO_MATCH, false },
+			// within
+			{ "within(com.example.service.OrderServiceImpl)", SERVICE, MATCH, true },
+			{ "within(com.example.service.*)", SERVICE, MATCH, true },
+			{ "within(com.example..*)", SERVICE, MATCH, true },
+			{ "within(OrderServiceImpl)", SERVICE, MATCH, true },
+			{ "within(com.example.service.Outer)", INNER, MATCH, true },
+			{ "within(com.example.service.Outer.Inner)", INNER, MATCH, true },
+			{ "within(com.other..*)", SERVICE, NO_MATCH, false },
+			// subtype patterns
+			{ "within(com.example.service.OrderService+)", SERVICE, MATCH, true },
+			{ "within(com.example.service.AbstractService+)", SERVICE, MATCH, true },
+			{ "execution(* com.example.service.OrderService+.*(..))", SERVICE, MATCH, true },
+			{ "execution(* com.example..*Service+.*(..))", SERVICE, MATCH, true },
+			{ "within(com.example.service.Unrelated+)", SERVICE, NO_MATCH, false },
+			// this, target and annotations
+			{ "this(com.example.service.OrderService)", SERVICE, MATCH, true },
+			{ "target(com.example.service.AbstractService)", SERVICE, MATCH, true },
+			{ "target(service)", SERVICE, MATCH, true },
+			{ "@within(org.springframework.stereotype.Service)", SERVICE, MATCH, true },
+			{ "@target(org.springframework.stereotype.Service)", SERVICE, MATCH, true },
+			{ "@annotation(org.springframework.transaction.annotation.Transactional)", SERVICE, MATCH, true },
+			{ "@annotation(transactional)", SERVICE, MATCH, true },
+			{ "args(java.lang.String)", SERVICE, MATCH, true },
+			{ "this(com.other.Repository)", SERVICE, NO_MATCH, false },
+			{ "@within(com.other.Marker)", SERVICE, NO_MATCH, false },
+			{ "@annotation(com.other.Audited)", SERVICE, NO_MATCH, false },
+			// bean
+			{ "bean(orderService)", SERVICE, MATCH, true },
+			{ "bean(order*)", SERVICE, MATCH, true },
+			{ "bean(*Service)", SERVICE, MATCH, true },
+			{ "bean(orders)", SERVICE, MATCH, true },
+			{ "bean(otherService)", SERVICE, NO_MATCH, false },
+			// negation
+			{ "!within(com.other..*)", SERVICE, MATCH, true },
+			{ "!bean(otherService)", SERVICE, MATCH, true },
+			{ "not bean(otherService)", SERVICE, MATCH, true },
+			{ "within(com.example..*) && !execution(* com.example.service.OrderService.*(..))", SERVICE, NO_MATCH,
+					true },
+			// combinations
+			{ "execution(* com.other.*.*(..)) || bean(orderService)", SERVICE, MATCH, true },
+			{ "within(com.example..*) && execution(* *(..))", SERVICE, MATCH, true },
+			{ "within(com.example..*) and bean(orderService)", SERVICE, MATCH, true },
+			{ "(within(com.other..*) || within(com.example..*)) && bean(order*)", SERVICE, MATCH, true },
+			{ "within(com.example..*) && bean(otherService)", SERVICE, NO_MATCH, false },
+			// named pointcuts
+			{ "com.example.aspects.Pointcuts.serviceOperation()", SERVICE, MATCH, true },
+			{ "com.example.aspects.Pointcuts.serviceOperation() && within(com.example..*)", SERVICE, MATCH, true },
+			{ "com.example.aspects.Pointcuts.otherOperation()", SERVICE, NO_MATCH, true },
+			// unparseable input
+			{ "execution(* *(..)", SERVICE, MATCH, true },
+			{ "within(", SERVICE, NO_MATCH, true },
+			{ "within(com.other..*) &&", SERVICE, NO_MATCH, true },
+			{ "", SERVICE, NO_MATCH, true }, };
+
+	@Test
+	public void testNoFalseNegatives() {
+		for (Object[] row : EXPRESSIONS) {
+			if ((Boolean) row[2]) {
+				assertTrue((String) row[0], couldMatch(row));
+			}
+		}
+	}
+
+	@Test
+	public void testExpectedResults() {
+		for (Object[] row : EXPRESSIONS) {
+			assertEquals((String) row[0], row[3], couldMatch(row));
+		}
+	}
+
+	private static boolean couldMatch(Object[] row) {
+		return PointcutPreFilter.parse((String) row[0]).couldMatch((PointcutPreFilter.Candidate) row[1]);
+	}
+
+	private static Set<String> set(String... values) {
+		return new HashSet<String>(Arrays.asList(values));
+	}
+
+}
@@ -11,11 +11,15 @@
 package org.springframework.ide.eclipse.beans.core.autowire;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -38,6 +42,7 @@ import org.springframework.ide.eclipse.beans.core.model.IBeanReference;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
 import org.springframework.ide.eclipse.beans.core.model.IBeansProject;
 import org.springframework.ide.eclipse.core.SpringCore;
+import org.springframework.ide.eclipse.core.model.validation.ValidationProblem;
 import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
 
 /**
@@ -722,6 +727,77 @@ public class AutowireDependencyProviderTest {
 		}
 	}
 
+	@Test
+	public void testConcurrentInjectionMetadata() throws Exception {
+		BeansConfig config = new BeansConfig(beansProject, "src/org/springframework/beans/factory/annotation/testConcurrentInjectionMetadata-context.xml", IBeansConfig.Type.MANUAL);
+
+		AutowireDependencyProvider provider = new AutowireDependencyProvider(config, config);
+		provider.setParallelMetadataThreshold(1);
+		Map<IBean, Set<IBeanReference>> references = provider.resolveAutowiredDependencies();
+
+		// every fourth bean is a ResourceInjectionBean with a field and a method injection of testBean
+		assertEquals(10, references.size());
+		for (int i = 1; i <= 40; i += 4) {
+			IBean bean = BeansModelUtils.getBean(String.format("bean%02d", i), config);
+			Set<IBeanReference> refs = references.get(bean);
+			assertEquals(2, refs.size());
+			for (IBeanReference ref : refs) {
+				assertEquals("testBean", ref.getBeanName());
+			}
+		}
+
+		List<String> problems = describe(provider.getValidationProblems());
+		assertTrue(contains(problems, "@Autowired annotation is not supported on static fields"));
+		assertTrue(contains(problems, "@Autowired annotation requires at least one argument"));
+		assertTrue(contains(problems, "Unsatisfied 'required' dependency"));
+	}
 
+	@Test
+	public void testConcurrentInjectionMetadataMatchesSequential() throws Exception {
+		BeansConfig config = new BeansConfig(beansProject, "src/org/springframework/beans/factory/annotation/testConcurrentInjectionMetadata-context.xml", IBeansConfig.Type.MANUAL);
+
+		AutowireDependencyProvider sequentialProvider = new AutowireDependencyProvider(config, config);
+		sequentialProvider.setParallelMetadataThreshold(Integer.MAX_VALUE);
+		Map<String, Set<String>> sequentialReferences = describe(sequentialProvider.resolveAutowiredDependencies());
+		List<String> sequentialProblems = describe(sequentialProvider.getValidationProblems());
+		assertFalse(sequentialProblems.isEmpty());
+
+		// problems have to be reported in the same order, independent of the completion order of the workers
+		for (int i = 0; i < 5; i++) {
+			AutowireDependencyProvider parallelProvider = new AutowireDependencyProvider(config, config);
+			parallelProvider.setParallelMetadataThreshold(1);
+			assertEquals(sequentialReferences, describe(parallelProvider.resolveAutowiredDependencies()));
+			assertEquals(sequentialProblems, describe(parallelProvider.getValidationProblems()));
+		}
+	}
+
+	private static Map<String, Set<String>> describe(Map<IBean, Set<IBeanReference>> references) {
+		Map<String, Set<String>> description = new HashMap<String, Set<String>>();
+		for (Map.Entry<IBean, Set<IBeanReference>> entry : references.entrySet()) {
+			Set<String> refs = new HashSet<String>();
+			for (IBeanReference ref : entry.getValue()) {
+				refs.add(ref.getBeanName() + ":" + ref.getElementSourceLocation().getStartLine());
+			}
+			description.put(entry.getKey().getElementName(), refs);
+		}
+		return description;
+	}
+
+	private static List<String> describe(List<ValidationProblem> problems) {
+		List<String> description = new ArrayList<String>();
+		for (ValidationProblem problem : problems) {
+			description.add(problem.getResource().getFullPath() + ":" + problem.getLine() + ":" + problem.getMessage());
+		}
+		return description;
+	}
+
+	private static boolean contains(List<String> problems, String message) {
+		for (String problem : problems) {
+			if (problem.contains(message)) {
+				return true;
+			}
+		}
+		return false;
+	}
 
 }
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.internal.model.namespaces;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URL;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @since 3.8.4
+ */
+public class TargetNamespaceScannerTest {
+
+	private File jar;
+
+	@Before
+	public void setUp() throws Exception {
+		TargetNamespaceScanner.clearCache();
+		jar = File.createTempFile("schemas", ".jar");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		TargetNamespaceScanner.clearCache();
+		jar.delete();
+	}
+
+	@Test
+	public void testTargetNamespace() throws Exception {
+		writeJar("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+				+ "<!DOCTYPE xsd:schema PUBLIC \"-//W3C//DTD XMLSCHEMA 200102//EN\" \"XMLSchema.dtd\">\n"
+				+ "<xsd:schema xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\" targetNamespace=\"http://www.example.org/schema/test\">\n"
+				+ "<xsd:element name=\"test\"/>\n" + "</xsd:schema>");
+		assertEquals("http://www.example.org/schema/test", TargetNamespaceScanner.getTargetNamespace(getXsdUrl()));
+	}
+
+	@Test
+	public void testNoTargetNamespace() throws Exception {
+		writeJar("<schema/>");
+		assertEquals("", TargetNamespaceScanner.getTargetNamespace(getXsdUrl()));
+	}
+
+	@Test
+	public void testCachedUntilJarChanges() throws Exception {
+		writeJar("<schema targetNamespace=\"http://www.example.org/schema/first\"/>");
+		long lastModified = jar.lastModified();
+		assertEquals("http://www.example.org/schema/first", TargetNamespaceScanner.getTargetNamespace(getXsdUrl()));
+
+		writeJar("<schema targetNamespace=\"http://www.example.org/schema/other\"/>");
+		jar.setLastModified(lastModified);
+		assertEquals("http://www.example.org/schema/first", TargetNamespaceScanner.getTargetNamespace(getXsdUrl()));
+
+		jar.setLastModified(lastModified + 10000);
+		assertEquals("http://www.example.org/schema/other", TargetNamespaceScanner.getTargetNamespace(getXsdUrl()));
+	}
+
+	private void writeJar(String xsd) throws Exception {
+		JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+		try {
+			out.putNextEntry(new ZipEntry("test/schema.xsd"));
+			out.write(xsd.getBytes("UTF-8"));
+			out.closeEntry();
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	private URL getXsdUrl() throws Exception {
+		return new URL("jar:" + jar.toURI().toURL() + "!/test/schema.xsd");
+	}
+
+}
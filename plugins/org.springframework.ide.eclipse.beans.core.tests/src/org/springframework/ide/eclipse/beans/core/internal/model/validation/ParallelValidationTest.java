@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.internal.model.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.beans.core.tests.BeansCoreTestCase;
+import org.springframework.ide.eclipse.core.SpringCore;
+import org.springframework.ide.eclipse.core.internal.model.validation.ValidationRuleDefinition;
+import org.springframework.ide.eclipse.core.internal.model.validation.ValidationRuleDefinitionFactory;
+import org.springframework.ide.eclipse.core.model.validation.IValidationRule;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * Tests that validating the configs of a project in parallel creates the same markers, in the same order, as
+ * validating them one after the other.
+ * @since 3.8.4
+ */
+public class ParallelValidationTest extends BeansCoreTestCase {
+
+	private static final String VALIDATOR_ID = "org.springframework.ide.eclipse.beans.core.beansvalidator";
+
+	private IProject project;
+
+	@Before
+	public void setUp() throws Exception {
+		project = createPredefinedProject("validation");
+		StsTestUtil.waitForResource(project.findMember("src/bean-class-rule-tests.xml"));
+	}
+
+	@After
+	public void resetPreference() throws Exception {
+		InstanceScope.INSTANCE.getNode(SpringCore.PLUGIN_ID).remove(SpringCore.USE_PARALLEL_VALIDATION);
+	}
+
+	@Test
+	public void testDisabledByDefault() throws Exception {
+		assertFalse(SpringCore.getDefault().getPluginPreferences().getBoolean(SpringCore.USE_PARALLEL_VALIDATION));
+	}
+
+	@Test
+	public void testSameMarkersAsSequentialValidation() throws Exception {
+		Map<String, List<String>> sequentialMarkers = buildAndGetMarkers(false);
+		Map<String, List<String>> parallelMarkers = buildAndGetMarkers(true);
+
+		assertTrue(sequentialMarkers.size() > 1);
+		assertEquals(sequentialMarkers, parallelMarkers);
+	}
+
+	@Test
+	public void testRepeatedParallelValidation() throws Exception {
+		Map<String, List<String>> firstMarkers = buildAndGetMarkers(true);
+		for (int i = 0; i < 5; i++) {
+			assertEquals(firstMarkers, buildAndGetMarkers(true));
+		}
+	}
+
+	@Test
+	public void testWorkersGetTheirOwnRules() throws Exception {
+		Set<ValidationRuleDefinition> ruleDefinitions = ValidationRuleDefinitionFactory.getRuleDefinitions(VALIDATOR_ID);
+		assertFalse(ruleDefinitions.isEmpty());
+
+		for (ValidationRuleDefinition ruleDefinition : ruleDefinitions) {
+			IValidationRule sharedRule = ruleDefinition.getRule();
+			IValidationRule firstRule = ruleDefinition.createRule();
+			IValidationRule secondRule = ruleDefinition.createRule();
+
+			assertNotSame(sharedRule, firstRule);
+			assertNotSame(firstRule, secondRule);
+			assertSame(sharedRule.getClass(), firstRule.getClass());
+			assertSame(sharedRule, ruleDefinition.getRule());
+		}
+	}
+
+	/**
+	 * Returns the messages of the validation markers per resource, in the order the markers have been created.
+	 */
+	private Map<String, List<String>> buildAndGetMarkers(boolean parallel) throws Exception {
+		InstanceScope.INSTANCE.getNode(SpringCore.PLUGIN_ID).putBoolean(SpringCore.USE_PARALLEL_VALIDATION, parallel);
+		project.build(IncrementalProjectBuilder.FULL_BUILD, null);
+
+		IMarker[] markers = project.findMarkers(SpringCore.MARKER_ID, true, IResource.DEPTH_INFINITE);
+		Arrays.sort(markers, new Comparator<IMarker>() {
+			public int compare(IMarker marker1, IMarker marker2) {
+				return Long.valueOf(marker1.getId()).compareTo(marker2.getId());
+			}
+		});
+
+		Map<String, List<String>> result = new TreeMap<String, List<String>>();
+		for (IMarker marker : markers) {
+			String path = marker.getResource().getFullPath().toString();
+			List<String> messages = result.get(path);
+			if (messages == null) {
+				messages = new ArrayList<String>();
+				result.put(path, messages);
+			}
+			messages.add(marker.getAttribute(IMarker.LINE_NUMBER, -1) + ": "
+					+ marker.getAttribute(IMarker.SEVERITY, -1) + " " + marker.getAttribute(IMarker.MESSAGE, ""));
+		}
+		return result;
+	}
+
+}
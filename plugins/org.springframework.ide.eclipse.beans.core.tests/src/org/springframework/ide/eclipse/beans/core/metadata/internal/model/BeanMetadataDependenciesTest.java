@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.metadata.internal.model;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansConfig;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModel;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelUtils;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansProject;
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.core.java.TypeStructureState;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * @since 3.8.4
+ */
+public class BeanMetadataDependenciesTest {
+
+	private IProject project;
+
+	private BeansConfig config;
+
+	@Before
+	public void createProject() throws Exception {
+		project = StsTestUtil.createPredefinedProject("beans-config-tests", "org.springframework.ide.eclipse.beans.core.tests");
+		BeansProject beansProject = new BeansProject(new BeansModel(), project);
+		config = new BeansConfig(beansProject, "metadata-dependencies-config.xml", IBeansConfig.Type.MANUAL);
+	}
+
+	@After
+	public void deleteProject() throws Exception {
+		project.delete(true, null);
+	}
+
+	@Test
+	public void testUnchangedBeanIsUpToDate() throws Exception {
+		IBean simpleBean = BeansModelUtils.getBean("simpleBean", config);
+		IBean subBean = BeansModelUtils.getBean("subBean", config);
+
+		BeanMetadataDependencies dependencies = new BeanMetadataDependencies();
+		assertFalse(dependencies.isUpToDate(simpleBean, new ChangedResourcesState()));
+
+		dependencies.record(simpleBean);
+		dependencies.record(subBean);
+		assertTrue(dependencies.isUpToDate(simpleBean, new ChangedResourcesState()));
+		assertTrue(dependencies.isUpToDate(subBean, new ChangedResourcesState()));
+	}
+
+	@Test
+	public void testChangedSupertype() throws Exception {
+		IBean simpleBean = BeansModelUtils.getBean("simpleBean", config);
+		IBean subBean = BeansModelUtils.getBean("subBean", config);
+
+		BeanMetadataDependencies dependencies = new BeanMetadataDependencies();
+		dependencies.record(simpleBean);
+		dependencies.record(subBean);
+
+		TypeStructureState structureState = new ChangedResourcesState(
+				project.getFile("src/org/test/metadata/BaseBeanClass.java"));
+		assertTrue(dependencies.isUpToDate(simpleBean, structureState));
+		assertFalse(dependencies.isUpToDate(subBean, structureState));
+	}
+
+	@Test
+	public void testRemovedBeansAreForgotten() throws Exception {
+		IBean simpleBean = BeansModelUtils.getBean("simpleBean", config);
+		IBean subBean = BeansModelUtils.getBean("subBean", config);
+
+		BeanMetadataDependencies dependencies = new BeanMetadataDependencies();
+		dependencies.record(simpleBean);
+		dependencies.record(subBean);
+
+		dependencies.retainBeans(config, Collections.singleton(simpleBean));
+		assertTrue(dependencies.isUpToDate(simpleBean, new ChangedResourcesState()));
+		assertFalse(dependencies.isUpToDate(subBean, new ChangedResourcesState()));
+	}
+
+	@Test
+	public void testRemovedConfigIsForgotten() throws Exception {
+		IBean simpleBean = BeansModelUtils.getBean("simpleBean", config);
+
+		BeanMetadataDependencies dependencies = new BeanMetadataDependencies();
+		dependencies.record(simpleBean);
+
+		dependencies.removeConfig(config);
+		assertFalse(dependencies.isUpToDate(simpleBean, new ChangedResourcesState()));
+	}
+
+	@Test
+	public void testClosedProjectIsForgotten() throws Exception {
+		IBean simpleBean = BeansModelUtils.getBean("simpleBean", config);
+
+		BeanMetadataDependencies dependencies = new BeanMetadataDependencies();
+		dependencies.record(simpleBean);
+
+		dependencies.removeProject("other-project");
+		assertTrue(dependencies.isUpToDate(simpleBean, new ChangedResourcesState()));
+
+		JavaCore.addElementChangedListener(dependencies, ElementChangedEvent.POST_CHANGE);
+		try {
+			project.close(null);
+		}
+		finally {
+			JavaCore.removeElementChangedListener(dependencies);
+		}
+		assertFalse(dependencies.isUpToDate(simpleBean, new ChangedResourcesState()));
+	}
+
+	/**
+	 * {@link TypeStructureState} that reports structural changes for the given resources only.
+	 */
+	private static class ChangedResourcesState extends TypeStructureState {
+
+		private final IResource[] changedResources;
+
+		public ChangedResourcesState(IResource... changedResources) {
+			this.changedResources = changedResources;
+		}
+
+		@Override
+		public boolean hasStructuralChanges(IResource resource, int flags) {
+			for (IResource changedResource : changedResources) {
+				if (changedResource.equals(resource)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.metadata.internal.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.ide.eclipse.beans.core.internal.model.Bean;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.metadata.core.StereotypeAnnotationMetadata;
+
+/**
+ * @since 3.8.4
+ */
+public class ProjectBeanMetadataStoreTest {
+
+	private File file;
+
+	@Before
+	public void setUp() throws Exception {
+		file = File.createTempFile("beans", ".metadata");
+		file.delete();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		file.delete();
+		new File(file.getPath() + ".tmp").delete();
+	}
+
+	@Test
+	public void testRoundtrip() throws Exception {
+		ProjectBeanMetadataStore store = new ProjectBeanMetadataStore(file);
+		store.setBeanMetadata(holder("first", "value1"));
+		store.setBeanMetadata(holder("second", "value2"));
+		store.setBeanMetadata(holder("third", "value3"));
+		store.clearBeanMetadata(bean("third").getElementID());
+		store.flush();
+		assertTrue(file.exists());
+
+		ProjectBeanMetadataStore loaded = load();
+		assertEquals(metadata("first", "value1"), loaded.getBeanMetadata(bean("first").getElementID()));
+		assertEquals(metadata("second", "value2"), loaded.getBeanMetadata(bean("second").getElementID()));
+		assertTrue(loaded.getBeanMetadata(bean("third").getElementID()).isEmpty());
+	}
+
+	@Test
+	public void testAppendAfterLoad() throws Exception {
+		ProjectBeanMetadataStore store = new ProjectBeanMetadataStore(file);
+		store.setBeanMetadata(holder("first", "value1"));
+		store.flush();
+		byte[] written = Files.readAllBytes(file.toPath());
+
+		ProjectBeanMetadataStore loaded = load();
+		loaded.setBeanMetadata(holder("second", "value2"));
+		loaded.clearBeanMetadata(bean("first").getElementID());
+		loaded.flush();
+
+		// the changes are appended, the existing records stay untouched
+		byte[] appended = Files.readAllBytes(file.toPath());
+		assertTrue(appended.length > written.length);
+		assertArrayEquals(written, Arrays.copyOf(appended, written.length));
+
+		ProjectBeanMetadataStore reloaded = load();
+		assertTrue(reloaded.getBeanMetadata(bean("first").getElementID()).isEmpty());
+		assertEquals(metadata("second", "value2"), reloaded.getBeanMetadata(bean("second").getElementID()));
+	}
+
+	@Test
+	public void testTruncatedLastRecord() throws Exception {
+		ProjectBeanMetadataStore store = new ProjectBeanMetadataStore(file);
+		store.setBeanMetadata(holder("first", "value1"));
+		store.flush();
+		store.setBeanMetadata(holder("second", "value2"));
+		store.flush();
+		truncate(3);
+
+		// only the incomplete record is lost
+		ProjectBeanMetadataStore loaded = load();
+		assertEquals(metadata("first", "value1"), loaded.getBeanMetadata(bean("first").getElementID()));
+		assertTrue(loaded.getBeanMetadata(bean("second").getElementID()).isEmpty());
+
+		// the next flush doesn't append to the broken record but rewrites the file
+		loaded.setBeanMetadata(holder("third", "value3"));
+		loaded.flush();
+
+		ProjectBeanMetadataStore reloaded = load();
+		assertEquals(metadata("first", "value1"), reloaded.getBeanMetadata(bean("first").getElementID()));
+		assertEquals(metadata("third", "value3"), reloaded.getBeanMetadata(bean("third").getElementID()));
+	}
+
+	@Test
+	public void testVersionMismatch() throws Exception {
+		ProjectBeanMetadataStore store = new ProjectBeanMetadataStore(file);
+		store.setBeanMetadata(holder("first", "value1"));
+		store.flush();
+
+		// the version follows the magic number
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.seek(4);
+			int version = raf.readInt();
+			raf.seek(4);
+			raf.writeInt(version + 1);
+		}
+		finally {
+			raf.close();
+		}
+
+		ProjectBeanMetadataStore loaded = load();
+		assertTrue(loaded.getBeanMetadata(bean("first").getElementID()).isEmpty());
+
+		// the incompatible file is replaced instead of appended to
+		loaded.setBeanMetadata(holder("second", "value2"));
+		loaded.flush();
+
+		ProjectBeanMetadataStore reloaded = load();
+		assertTrue(reloaded.getBeanMetadata(bean("first").getElementID()).isEmpty());
+		assertEquals(metadata("second", "value2"), reloaded.getBeanMetadata(bean("second").getElementID()));
+	}
+
+	@Test
+	public void testCompaction() throws Exception {
+		ProjectBeanMetadataStore store = new ProjectBeanMetadataStore(file);
+		long maxLength = 0;
+		long previousLength = 0;
+		int compactions = 0;
+		for (int i = 0; i < 300; i++) {
+			store.setBeanMetadata(holder("first", "value" + i));
+			store.flush();
+			if (file.length() < previousLength) {
+				compactions++;
+			}
+			previousLength = file.length();
+			maxLength = Math.max(maxLength, file.length());
+		}
+
+		// superseded records are tolerated up to a threshold, then the file is rewritten once
+		assertEquals(1, compactions);
+		assertTrue(file.length() < maxLength);
+
+		ProjectBeanMetadataStore loaded = load();
+		assertEquals(metadata("first", "value299"), loaded.getBeanMetadata(bean("first").getElementID()));
+	}
+
+	private ProjectBeanMetadataStore load() {
+		ProjectBeanMetadataStore store = new ProjectBeanMetadataStore(file);
+		store.load();
+		return store;
+	}
+
+	private void truncate(int bytes) throws Exception {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(raf.length() - bytes);
+		}
+		finally {
+			raf.close();
+		}
+	}
+
+	private static IBean bean(String name) {
+		return new Bean(null, name, null, new RootBeanDefinition("org.test.spring.SimpleBeanClass"));
+	}
+
+	private static Set<IBeanMetadata> metadata(String beanName, String value) {
+		Set<IBeanMetadata> metadata = new HashSet<IBeanMetadata>();
+		metadata.add(new StereotypeAnnotationMetadata(bean(beanName), "handle", value, null));
+		return metadata;
+	}
+
+	private static BeanMetadataHolder holder(String beanName, String value) {
+		BeanMetadataHolder holder = new BeanMetadataHolder();
+		holder.setElemenetId(bean(beanName).getElementID());
+		holder.setBeanMetaData(metadata(beanName, value));
+		return holder;
+	}
+
+}
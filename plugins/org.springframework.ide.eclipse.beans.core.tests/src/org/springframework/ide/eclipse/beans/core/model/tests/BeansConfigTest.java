@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2014 Spring IDE Developers
+ * Copyright (c) 2013, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,11 +11,20 @@
 package org.springframework.ide.eclipse.beans.core.model.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.preferences.InstanceScope;
@@ -25,8 +34,13 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeansConfig;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeansModel;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelSnapshot;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelSnapshot.BeanRecord;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelSnapshot.ConfigSnapshot;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelSnapshot.ElementRecord;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelUtils;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeansProject;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansTypeHierarchyIndex;
 import org.springframework.ide.eclipse.beans.core.model.IBean;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
 import org.springframework.ide.eclipse.beans.core.model.IBeansModel;
@@ -140,6 +154,163 @@ public class BeansConfigTest {
 		assertEquals(0, getProfiles(configClassBean).size());
 	}
 
+	@Test
+	public void testReloadOfUnchangedConfigKeepsModel() throws Exception {
+		BeansConfig config = new BeansConfig(beansProject, "basic-bean-config.xml", IBeansConfig.Type.MANUAL);
+		IBean bean = BeansModelUtils.getBean("simpleBean", config);
+		assertNotNull(bean);
+
+		// touch without content changes
+		IFile file = project.getFile("basic-bean-config.xml");
+		file.touch(null);
+		config.reload();
+		assertSame(bean, BeansModelUtils.getBean("simpleBean", config));
+
+		// change the contents
+		file.setContents(new ByteArrayInputStream(("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+				+ "<beans xmlns=\"http://www.springframework.org/schema/beans\"\n"
+				+ "	xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n"
+				+ "	xsi:schemaLocation=\"http://www.springframework.org/schema/beans http://www.springframework.org/schema/beans/spring-beans.xsd\">\n"
+				+ "	<bean id=\"simpleBean\" class=\"org.test.spring.SimpleBeanClass\" />\n"
+				+ "	<bean id=\"anotherBean\" class=\"org.test.spring.SimpleBeanClass\" />\n"
+				+ "</beans>\n").getBytes("UTF-8")), true, false, null);
+		config.reload();
+		assertNotSame(bean, BeansModelUtils.getBean("simpleBean", config));
+		assertEquals(2, BeansModelUtils.getBeans(config).size());
+	}
+
+	@Test
+	public void testModelSnapshotRoundtrip() throws Exception {
+		beansProject.addConfig("basic-bean-config.xml", IBeansConfig.Type.MANUAL);
+		IBeansConfig config = beansProject.getConfig("basic-bean-config.xml");
+		IBean bean = BeansModelUtils.getBean("simpleBean", config);
+		assertNotNull(bean);
+
+		File snapshotFile = File.createTempFile("beans", ".snapshot");
+		try {
+			BeansModelSnapshot.create(beansProject, null).write(snapshotFile);
+			BeansModelSnapshot snapshot = BeansModelSnapshot.read(snapshotFile);
+			assertEquals(1, snapshot.size());
+
+			ConfigSnapshot configSnapshot = snapshot.getConfigSnapshot(config);
+			assertNotNull(configSnapshot);
+			assertTrue(configSnapshot.getBeanNames().contains("simpleBean"));
+			assertTrue(configSnapshot.getBeanClasses().contains("org.test.spring.SimpleBeanClass"));
+			assertFalse(configSnapshot.getBeanNames().contains("anotherBean"));
+
+			BeanRecord beanRecord = configSnapshot.getBean("simpleBean");
+			assertNotNull(beanRecord);
+			assertEquals("org.test.spring.SimpleBeanClass", beanRecord.getClassName());
+			assertEquals(project.getFile("basic-bean-config.xml").getFullPath().toString(),
+					beanRecord.getResourcePath());
+			assertEquals(bean.getElementStartLine(), beanRecord.getStartLine());
+			assertEquals(bean.getElementEndLine(), beanRecord.getEndLine());
+
+			assertEquals(config.getElementChildren().length, configSnapshot.getChildren().size());
+			ElementRecord childRecord = configSnapshot.getChildren().get(0);
+			assertEquals(ElementRecord.BEAN, childRecord.getKind());
+			assertEquals("simpleBean", childRecord.getName());
+
+			// the snapshot is invalidated by a change of the config file
+			project.getFile("basic-bean-config.xml").touch(null);
+			assertNull(snapshot.getConfigSnapshot(config));
+		}
+		finally {
+			snapshotFile.delete();
+		}
+	}
+
+	@Test
+	public void testModelSnapshotTruncated() throws Exception {
+		beansProject.addConfig("basic-bean-config.xml", IBeansConfig.Type.MANUAL);
+		IBeansConfig config = beansProject.getConfig("basic-bean-config.xml");
+		assertNotNull(BeansModelUtils.getBean("simpleBean", config));
+
+		File snapshotFile = File.createTempFile("beans", ".snapshot");
+		try {
+			BeansModelSnapshot.create(beansProject, null).write(snapshotFile);
+			RandomAccessFile raf = new RandomAccessFile(snapshotFile, "rw");
+			try {
+				raf.setLength(raf.length() - 3);
+			}
+			finally {
+				raf.close();
+			}
+
+			BeansModelSnapshot snapshot = BeansModelSnapshot.read(snapshotFile);
+			assertEquals(0, snapshot.size());
+			assertNull(snapshot.getConfigSnapshot(config));
+		}
+		finally {
+			snapshotFile.delete();
+		}
+	}
+
+	@Test
+	public void testModelSnapshotVersionMismatch() throws Exception {
+		beansProject.addConfig("basic-bean-config.xml", IBeansConfig.Type.MANUAL);
+		IBeansConfig config = beansProject.getConfig("basic-bean-config.xml");
+		assertNotNull(BeansModelUtils.getBean("simpleBean", config));
+
+		File snapshotFile = File.createTempFile("beans", ".snapshot");
+		try {
+			BeansModelSnapshot.create(beansProject, null).write(snapshotFile);
+
+			// the version follows the magic number
+			RandomAccessFile raf = new RandomAccessFile(snapshotFile, "rw");
+			try {
+				raf.seek(4);
+				int version = raf.readInt();
+				raf.seek(4);
+				raf.writeInt(version + 1);
+			}
+			finally {
+				raf.close();
+			}
+
+			BeansModelSnapshot snapshot = BeansModelSnapshot.read(snapshotFile);
+			assertEquals(0, snapshot.size());
+			assertNull(snapshot.getConfigSnapshot(config));
+		}
+		finally {
+			snapshotFile.delete();
+		}
+	}
+
+	@Test
+	public void testHasElementChildren() throws Exception {
+		beansProject.addConfig("basic-bean-config.xml", IBeansConfig.Type.MANUAL);
+		BeansConfig config = (BeansConfig) beansProject.getConfig("basic-bean-config.xml");
+		assertTrue(config.hasElementChildren());
+		assertTrue(config.isInitialized());
+	}
+
+	@Test
+	public void testBeanClassIndexFollowsConfigChanges() throws Exception {
+		beansProject.addConfig("basic-bean-config.xml", IBeansConfig.Type.MANUAL);
+		IBeansConfig config = beansProject.getConfig("basic-bean-config.xml");
+
+		BeansTypeHierarchyIndex index = new BeansTypeHierarchyIndex();
+		try {
+			assertTrue(index.getConfigsByBeanClass(beansProject, "org.test.spring.SimpleBeanClass").contains(config));
+			assertTrue(index.getConfigsByBeanClass(beansProject, "java.lang.Object").isEmpty());
+
+			project.getFile("basic-bean-config.xml").setContents(new ByteArrayInputStream(("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+					+ "<beans xmlns=\"http://www.springframework.org/schema/beans\"\n"
+					+ "	xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n"
+					+ "	xsi:schemaLocation=\"http://www.springframework.org/schema/beans http://www.springframework.org/schema/beans/spring-beans.xsd\">\n"
+					+ "	<bean id=\"simpleBean\" class=\"java.lang.Object\" />\n"
+					+ "</beans>\n").getBytes("UTF-8")), true, false, null);
+			((BeansConfig) config).reload();
+
+			assertTrue(index.getConfigsByBeanClass(beansProject, "org.test.spring.SimpleBeanClass").isEmpty());
+			assertTrue(index.getConfigsByBeanClass(beansProject, "java.lang.Object").contains(config));
+		}
+		finally {
+			index.clear();
+		}
+	}
+
 	protected Set<String> getProfiles(IModelElement element) {
 		Set<String> profiles = new HashSet<String>();
 		while (element != null) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2014 Spring IDE Developers
+ * Copyright (c) 2005, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,9 +16,15 @@ import org.junit.runners.Suite.SuiteClasses;
 import org.springframework.ide.core.classreading.tests.JdtAnnotationMetadataTest;
 import org.springframework.ide.core.classreading.tests.JdtBasedAnnotationMetadataTest;
 import org.springframework.ide.core.classreading.tests.JdtClassMetadataTest;
+import org.springframework.ide.eclipse.aop.core.internal.model.AopReferenceModelPeristenceTest;
+import org.springframework.ide.eclipse.aop.core.internal.model.builder.AopReferenceMatchCacheTest;
+import org.springframework.ide.eclipse.aop.core.internal.model.builder.CompiledPointcutCacheTest;
+import org.springframework.ide.eclipse.aop.core.internal.model.builder.PointcutPreFilterTest;
 import org.springframework.ide.eclipse.beans.core.autowire.AutowireDependencyProviderTest;
 import org.springframework.ide.eclipse.beans.core.autowire.CommonAnnotationInjectionMetadataProviderTests;
+import org.springframework.ide.eclipse.beans.core.internal.model.namespaces.TargetNamespaceScannerTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.resources.tests.ResourceChangeEventHandlerTest;
+import org.springframework.ide.eclipse.beans.core.internal.model.validation.ParallelValidationTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.BeanClassRuleTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.BeanConstructorArgumentRuleTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.BeanConstructorArgumentRulesAutowireTest;
@@ -30,6 +36,8 @@ import org.springframework.ide.eclipse.beans.core.internal.model.validation.rule
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.BeanReferenceRuleWithConfigSetTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.NamespaceElementsRuleTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.RequiredPropertyRuleTest;
+import org.springframework.ide.eclipse.beans.core.metadata.internal.model.BeanMetadataDependenciesTest;
+import org.springframework.ide.eclipse.beans.core.metadata.internal.model.ProjectBeanMetadataStoreTest;
 import org.springframework.ide.eclipse.beans.core.model.tests.BeansProjectAutoConfigTest;
 import org.springframework.ide.eclipse.beans.core.model.tests.BeansProjectDescriptionWriterTest;
 import org.springframework.ide.eclipse.beans.core.model.tests.BeansConfigFactoryTest;
@@ -40,7 +48,9 @@ import org.springframework.ide.eclipse.beans.core.model.tests.BeansProjectTest;
 import org.springframework.ide.eclipse.beans.ui.refactoring.tests.BeansJavaConfigRenameTypeRefactoringParticipantTest;
 import org.springframework.ide.eclipse.core.java.IntrospectorTest;
 import org.springframework.ide.eclipse.core.java.JdtUtilsTest;
+import org.springframework.ide.eclipse.core.java.TypeHierarchyElementCacheTest;
 import org.springframework.ide.eclipse.core.java.TypeHierarchyEngineTest;
+import org.springframework.ide.eclipse.core.java.TypeHierarchyJarIndexTest;
 
 /**
  * Test suite for <code>beans.core</code> plugin.
@@ -64,6 +74,8 @@ import org.springframework.ide.eclipse.core.java.TypeHierarchyEngineTest;
 	BeanReferenceRuleWithConfigSetTest.class,
 	BeanReferenceRuleWithConfigSetAndProfileTest.class,
 	NamespaceElementsRuleTest.class,
+	ParallelValidationTest.class,
+	TargetNamespaceScannerTest.class,
 	IntrospectorTest.class,
 	JdtUtilsTest.class,
 	AutowireDependencyProviderTest.class,
@@ -80,7 +92,15 @@ import org.springframework.ide.eclipse.core.java.TypeHierarchyEngineTest;
 	BeansJavaConfigRenameTypeRefactoringParticipantTest.class,
 	ResourceChangeEventHandlerTest.class,
 	TypeHierarchyEngineTest.class,
-	BeansModelUtilsTest.class
+	TypeHierarchyElementCacheTest.class,
+	TypeHierarchyJarIndexTest.class,
+	BeansModelUtilsTest.class,
+	ProjectBeanMetadataStoreTest.class,
+	BeanMetadataDependenciesTest.class,
+	AopReferenceMatchCacheTest.class,
+	PointcutPreFilterTest.class,
+	CompiledPointcutCacheTest.class,
+	AopReferenceModelPeristenceTest.class
 })
 public class AllBeansCoreTests {
 	// goofy junit4, no class body needed
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import static org.junit.Assert.assertNotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyElement;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyElementCache;
+
+/**
+ * Compares lookups in the {@link TypeHierarchyElementCache} with the previous cache, a
+ * {@link ConcurrentHashMap} keyed by the boxed hash code of the type name, on a classpath of
+ * 200k types. Also reports the retained heap of both caches.
+ * <p>
+ * The results depend on the machine, so this class is not part of the test suite and is run
+ * on demand.
+ *
+ * @since 3.8.4
+ */
+public class TypeHierarchyElementCacheBenchmark {
+
+	private static final int TYPES = 200000;
+
+	private static final int ROUNDS = 10;
+
+	@Test
+	public void testLookupThroughputAndFootprint() throws Exception {
+		char[][] names = new char[TYPES][];
+		TypeHierarchyElement[] elements = new TypeHierarchyElement[TYPES];
+		for (int i = 0; i < TYPES; i++) {
+			names[i] = ("org/pkg" + (i % 500) + "/Type" + i).toCharArray();
+			elements[i] = new TypeHierarchyElement(names[i], "java/lang/Object".toCharArray(), null);
+		}
+
+		// lookups with fresh arrays, like reading the names from class files
+		char[][] lookups = new char[TYPES][];
+		for (int i = 0; i < TYPES; i++) {
+			lookups[i] = names[i].clone();
+		}
+
+		long before = usedMemory();
+		TypeHierarchyElementCache cache = new TypeHierarchyElementCache();
+		for (int i = 0; i < TYPES; i++) {
+			cache.put(names[i], elements[i]);
+		}
+		long cacheFootprint = usedMemory() - before;
+
+		before = usedMemory();
+		Map<Integer, TypeHierarchyElement> map = new ConcurrentHashMap<Integer, TypeHierarchyElement>();
+		for (int i = 0; i < TYPES; i++) {
+			map.put(hash(names[i]), elements[i]);
+		}
+		long mapFootprint = usedMemory() - before;
+
+		long cacheTime = 0;
+		long mapTime = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < TYPES; i++) {
+				assertNotNull(cache.get(lookups[i]));
+			}
+			cacheTime += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int i = 0; i < TYPES; i++) {
+				assertNotNull(map.get(hash(lookups[i])));
+			}
+			mapTime += System.nanoTime() - start;
+		}
+
+		System.out.println("TypeHierarchyElementCacheBenchmark: " + TYPES + " types x " + ROUNDS + " rounds");
+		System.out.println("  open addressing cache: " + (cacheTime / 1000000) + " ms, " + (cacheFootprint / 1024) + " KB");
+		System.out.println("  hash keyed map:        " + (mapTime / 1000000) + " ms, " + (mapFootprint / 1024) + " KB");
+	}
+
+	private static long usedMemory() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static int hash(char[] characters) {
+		int h = 0;
+		for (int i = 0; i < characters.length; i++) {
+			h = 31 * h + characters[i];
+		}
+		return h;
+	}
+
+}
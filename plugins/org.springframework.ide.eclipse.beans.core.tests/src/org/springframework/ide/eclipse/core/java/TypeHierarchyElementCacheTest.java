@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Pivotal Software, Inc. and others.
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0
+ * (http://www.eclipse.org/legal/epl-v10.html), and the Eclipse Distribution
+ * License v1.0 (http://www.eclipse.org/org/documents/edl-v10.html).
+ *
+ * Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyElement;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyElementCache;
+
+/**
+ * @since 3.8.4
+ */
+public class TypeHierarchyElementCacheTest {
+
+	@Test
+	public void testTypesWithSameHashCodeDontOverwriteEachOther() throws Exception {
+		// "Aa" and "BB" have the same hash code
+		assertEquals("org/Aa".hashCode(), "org/BB".hashCode());
+
+		TypeHierarchyElementCache cache = new TypeHierarchyElementCache();
+		TypeHierarchyElement elementAa = element("org/Aa", "java/lang/Object");
+		TypeHierarchyElement elementBB = element("org/BB", "org/Aa");
+
+		cache.put("org/Aa".toCharArray(), elementAa);
+		cache.put("org/BB".toCharArray(), elementBB);
+
+		assertSame(elementAa, cache.get("org/Aa".toCharArray()));
+		assertSame(elementBB, cache.get("org/BB".toCharArray()));
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testUnknownType() throws Exception {
+		TypeHierarchyElementCache cache = new TypeHierarchyElementCache();
+		cache.put("org/Aa".toCharArray(), element("org/Aa", "java/lang/Object"));
+		assertNull(cache.get("org/BB".toCharArray()));
+		assertNull(cache.get("org/A".toCharArray()));
+	}
+
+	@Test
+	public void testReplaceElement() throws Exception {
+		TypeHierarchyElementCache cache = new TypeHierarchyElementCache();
+		TypeHierarchyElement first = element("org/Aa", "java/lang/Object");
+		TypeHierarchyElement second = element("org/Aa", "org/SimpleClass");
+
+		cache.put("org/Aa".toCharArray(), first);
+		cache.put("org/Aa".toCharArray(), second);
+
+		assertSame(second, cache.get("org/Aa".toCharArray()));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testManyTypes() throws Exception {
+		TypeHierarchyElementCache cache = new TypeHierarchyElementCache();
+		for (int i = 0; i < 200000; i++) {
+			String name = "org/pkg" + (i % 100) + "/Type" + i;
+			cache.put(name.toCharArray(), element(name, "java/lang/Object"));
+		}
+
+		assertEquals(200000, cache.size());
+		for (int i = 0; i < 200000; i++) {
+			String name = "org/pkg" + (i % 100) + "/Type" + i;
+			assertEquals(name, new String(cache.get(name.toCharArray()).className));
+		}
+	}
+
+	@Test
+	public void testRemoveAll() throws Exception {
+		TypeHierarchyElementCache cache = new TypeHierarchyElementCache();
+		List<char[]> removed = new ArrayList<char[]>();
+		for (int i = 0; i < 1000; i++) {
+			String name = "org/Type" + i;
+			cache.put(name.toCharArray(), element(name, "java/lang/Object"));
+			if (i % 3 == 0) {
+				removed.add(name.toCharArray());
+			}
+		}
+		removed.add("org/Unknown".toCharArray());
+
+		cache.removeAll(removed);
+
+		assertEquals(666, cache.size());
+		for (int i = 0; i < 1000; i++) {
+			String name = "org/Type" + i;
+			if (i % 3 == 0) {
+				assertNull(cache.get(name.toCharArray()));
+			}
+			else {
+				assertEquals(name, new String(cache.get(name.toCharArray()).className));
+			}
+		}
+	}
+
+	@Test
+	public void testKeyedByElementName() throws Exception {
+		TypeHierarchyElementCache cache = new TypeHierarchyElementCache();
+		TypeHierarchyElement element = element("org/Aa", "java/lang/Object");
+		cache.put("org/Aa".toCharArray(), element);
+
+		assertSame(element, cache.get(element.className));
+		assertSame(element, cache.get("org/Aa".toCharArray()));
+	}
+
+	@Test
+	public void testLookupsDuringRemovals() throws Exception {
+		final TypeHierarchyElementCache cache = new TypeHierarchyElementCache();
+
+		// colliding names share a probe sequence, so removals shift the entries that stay
+		final String[] names = new String[64];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = "org/" + ((i & 1) == 0 ? "Aa" : "BB") + "/Type" + (i / 2);
+			cache.put(names[i].toCharArray(), element(names[i], "java/lang/Object"));
+		}
+
+		final AtomicBoolean done = new AtomicBoolean();
+		final AtomicInteger misses = new AtomicInteger();
+		Thread reader = new Thread() {
+			public void run() {
+				while (!done.get()) {
+					// odd names are never removed
+					for (int i = 1; i < names.length; i += 2) {
+						if (cache.get(names[i].toCharArray()) == null) {
+							misses.incrementAndGet();
+						}
+					}
+				}
+			}
+		};
+		reader.start();
+
+		for (int round = 0; round < 20000; round++) {
+			for (int i = 0; i < names.length; i += 2) {
+				cache.remove(names[i].toCharArray());
+			}
+			for (int i = 0; i < names.length; i += 2) {
+				cache.put(names[i].toCharArray(), element(names[i], "java/lang/Object"));
+			}
+		}
+		done.set(true);
+		reader.join();
+
+		assertEquals(0, misses.get());
+	}
+
+	private TypeHierarchyElement element(String className, String superclassName) {
+		return new TypeHierarchyElement(className.toCharArray(), superclassName.toCharArray(), null);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2014 Spring IDE Developers
+ * Copyright (c) 2013, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,9 +12,12 @@ package org.springframework.ide.eclipse.core.java;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -282,6 +285,54 @@ public class TypeHierarchyEngineTest {
 		assertEquals(1, caches[0].classAccessed("org/ClassA")); // this one is accessed for the first time
 	}
 	
+	@Test
+	public void testRepeatedQueriesUseMemoizedSupertypes() throws Exception {
+		IType type = javaProject.findType("org.sub.ClassABCD");
+		
+		for (int i = 0; i < 3; i++) {
+			assertTrue(engine.doesExtend(type, "org.sub.ClassB"));
+			assertTrue(engine.doesExtend(type, "org.ClassA"));
+			assertTrue(engine.doesExtend(type, "java.lang.Object"));
+			assertFalse(engine.doesExtend(type, "org.SimpleClass"));
+			assertFalse(engine.doesExtend(type, "org.InterfaceA"));
+
+			assertTrue(engine.doesImplement(type, "org.InterfaceA"));
+			assertTrue(engine.doesImplement(type, "org.InterfaceD"));
+			assertTrue(engine.doesImplement(type, "org.sub.InterfaceAB"));
+			assertTrue(engine.doesImplement(type, "org.sub.InterfaceCD"));
+			assertFalse(engine.doesImplement(type, "org.sub.ClassB"));
+			assertFalse(engine.doesImplement(type, "org.SimpleInterface"));
+			assertFalse(engine.doesImplement(type, "org.springframework.beans.factory.FactoryBean"));
+		}
+	}
+	
+	@Test
+	public void testClearCacheForChangedTypes() throws Exception {
+		AccessLoggingTypeHierarchyElementCacheFactory cacheFactory = new AccessLoggingTypeHierarchyElementCacheFactory();
+		engine.setTypeHierarchyElementCacheFactory(cacheFactory);
+		
+		IType type = javaProject.findType("org.sub.ClassABCD");
+		assertTrue(engine.doesImplement(type, "org.InterfaceA"));
+		assertTrue(engine.doesImplement(type, "org.InterfaceA"));
+		assertTrue(engine.doesExtend(javaProject.findType("org.Subclass"), "org.SimpleClass"));
+		
+		TypeHierarchyElementCache cache = cacheFactory.getCaches()[0];
+		assertNotNull(cache.get("org/sub/ClassABCD".toCharArray()));
+		assertNotNull(cache.get("org/sub/ClassB".toCharArray()));
+		assertNotNull(cache.get("org/Subclass".toCharArray()));
+		
+		engine.clearCache(Collections.singleton("org.ClassA"), Collections.<String>emptySet());
+		
+		assertNull(cache.get("org/ClassA".toCharArray()));
+		assertNull(cache.get("org/sub/ClassB".toCharArray()));
+		assertNull(cache.get("org/sub/ClassABCD".toCharArray()));
+		assertNotNull(cache.get("org/Subclass".toCharArray()));
+		assertNotNull(cache.get("org/sub/InterfaceAB".toCharArray()));
+		
+		assertTrue(engine.doesImplement(type, "org.InterfaceA"));
+		assertTrue(engine.doesExtend(type, "org.ClassA"));
+	}
+	
 	private static class AccessLoggingClassReaderFactory implements TypeHierarchyClassReaderFactory {
 		
 		private TypeHierarchyClassReaderFactory readerFactory;
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyElement;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyJarIndex;
+
+/**
+ * @since 3.8.4
+ */
+public class TypeHierarchyJarIndexTest {
+
+	private File jar;
+
+	private File indexFile;
+
+	@Before
+	public void setUp() throws Exception {
+		jar = File.createTempFile("classes", ".jar");
+		indexFile = File.createTempFile("classes", ".idx");
+		writeJar("java/util/ArrayList");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		jar.delete();
+		indexFile.delete();
+		new File(indexFile.getPath() + ".tmp").delete();
+	}
+
+	@Test
+	public void testRoundtrip() throws Exception {
+		assertNotNull(TypeHierarchyJarIndex.build(jar, indexFile));
+
+		TypeHierarchyJarIndex index = TypeHierarchyJarIndex.load(jar, indexFile);
+		assertNotNull(index);
+
+		TypeHierarchyElement element = index.getTypeHierarchyElement("java/util/ArrayList".toCharArray());
+		assertNotNull(element);
+		assertEquals("java/util/AbstractList", new String(element.superclassName));
+		boolean implementsList = false;
+		for (char[] interfaceName : element.interfaces) {
+			implementsList |= "java/util/List".equals(new String(interfaceName));
+		}
+		assertTrue(implementsList);
+
+		assertNull(index.getTypeHierarchyElement("java/util/LinkedList".toCharArray()));
+	}
+
+	@Test
+	public void testModifiedJar() throws Exception {
+		TypeHierarchyJarIndex.build(jar, indexFile);
+		assertTrue(jar.setLastModified(jar.lastModified() + 10000));
+
+		assertNull(TypeHierarchyJarIndex.load(jar, indexFile));
+	}
+
+	@Test
+	public void testResizedJar() throws Exception {
+		TypeHierarchyJarIndex.build(jar, indexFile);
+		long lastModified = jar.lastModified();
+		writeJar("java/util/ArrayList", "java/util/LinkedList");
+		assertTrue(jar.setLastModified(lastModified));
+
+		assertNull(TypeHierarchyJarIndex.load(jar, indexFile));
+	}
+
+	@Test
+	public void testTruncatedIndexFile() throws Exception {
+		TypeHierarchyJarIndex.build(jar, indexFile);
+		RandomAccessFile file = new RandomAccessFile(indexFile, "rw");
+		try {
+			file.setLength(file.length() - 3);
+		}
+		finally {
+			file.close();
+		}
+
+		assertNull(TypeHierarchyJarIndex.load(jar, indexFile));
+	}
+
+	@Test
+	public void testTruncatedHeader() throws Exception {
+		TypeHierarchyJarIndex.build(jar, indexFile);
+		RandomAccessFile file = new RandomAccessFile(indexFile, "rw");
+		try {
+			file.setLength(10);
+		}
+		finally {
+			file.close();
+		}
+
+		assertNull(TypeHierarchyJarIndex.load(jar, indexFile));
+	}
+
+	@Test
+	public void testVersionMismatch() throws Exception {
+		TypeHierarchyJarIndex.build(jar, indexFile);
+
+		// the version follows the magic number
+		RandomAccessFile file = new RandomAccessFile(indexFile, "rw");
+		try {
+			file.seek(4);
+			int version = file.readInt();
+			file.seek(4);
+			file.writeInt(version + 1);
+		}
+		finally {
+			file.close();
+		}
+
+		assertNull(TypeHierarchyJarIndex.load(jar, indexFile));
+	}
+
+	private void writeJar(String... classNames) throws Exception {
+		JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+		try {
+			for (String className : classNames) {
+				out.putNextEntry(new JarEntry(className + ".class"));
+				InputStream in = Object.class.getResourceAsStream("/" + className + ".class");
+				try {
+					byte[] buffer = new byte[8192];
+					for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+						out.write(buffer, 0, read);
+					}
+				}
+				finally {
+					in.close();
+				}
+				out.closeEntry();
+			}
+		}
+		finally {
+			out.close();
+		}
+	}
+
+}
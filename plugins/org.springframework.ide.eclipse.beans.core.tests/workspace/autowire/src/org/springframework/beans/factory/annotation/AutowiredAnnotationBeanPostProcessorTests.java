@@ -592,4 +592,26 @@ public final class AutowiredAnnotationBeanPostProcessorTests {
 
 	}
 
+	public static class StaticFieldInjectionBean {
+
+		@Autowired
+		private static TestBean testBean;
+
+	}
+
+	public static class NoArgumentMethodInjectionBean {
+
+		@Autowired
+		public void initialize() {
+		}
+
+	}
+
+	public static class MissingDependencyInjectionBean {
+
+		@Autowired
+		private IndexedTestBean indexedTestBean;
+
+	}
+
 }
@@ -0,0 +1,4 @@
+package org.test.metadata;
+
+public class SubBeanClass extends BaseBeanClass {
+}
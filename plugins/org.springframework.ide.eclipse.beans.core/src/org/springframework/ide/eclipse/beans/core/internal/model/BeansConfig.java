@@ -12,7 +12,12 @@ package org.springframework.ide.eclipse.beans.core.internal.model;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -81,9 +86,11 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.EncodedResource;
 import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternUtils;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.MethodMetadata;
 import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelSnapshot.ConfigSnapshot;
 import org.springframework.ide.eclipse.beans.core.internal.model.namespaces.DelegatingNamespaceHandlerResolver;
 import org.springframework.ide.eclipse.beans.core.internal.model.namespaces.DocumentAccessor;
 import org.springframework.ide.eclipse.beans.core.internal.model.namespaces.XmlCatalogDelegatingEntityResolver;
@@ -96,6 +103,7 @@ import org.springframework.ide.eclipse.beans.core.model.IBeansConfigEventListene
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfigSet;
 import org.springframework.ide.eclipse.beans.core.model.IBeansImport;
 import org.springframework.ide.eclipse.beans.core.model.IBeansProject;
+import org.springframework.ide.eclipse.beans.core.model.IImportedBeansConfig;
 import org.springframework.ide.eclipse.beans.core.model.IReloadableBeansConfig;
 import org.springframework.ide.eclipse.beans.core.model.process.IBeansConfigPostProcessor;
 import org.springframework.ide.eclipse.beans.core.namespaces.IModelElementProvider;
@@ -118,6 +126,7 @@ import org.springframework.ide.eclipse.core.model.IResourceModelElement;
 import org.springframework.ide.eclipse.core.model.ISourceModelElement;
 import org.springframework.ide.eclipse.core.model.validation.ValidationProblem;
 import org.springframework.ide.eclipse.core.model.xml.XmlSourceLocation;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 import org.w3c.dom.Document;
@@ -179,6 +188,12 @@ public class BeansConfig extends AbstractBeansConfig implements IBeansConfig, IL
 
 	private BeanRegistrationContextTracker beanRegistrationTracker = new BeanRegistrationContextTracker();
 
+	/** Digest of the contents of the config file and its imported resources the current model has been read from */
+	private volatile byte[] contentDigest;
+
+	/** The project classloader the current model has been read with; a different one indicates classpath changes */
+	private volatile WeakReference<ClassLoader> contentClassLoader;
+
 	/**
 	 * Creates a new {@link BeansConfig}.
 	 */
@@ -211,17 +226,113 @@ public class BeansConfig extends AbstractBeansConfig implements IBeansConfig, IL
 		return isModelPopulated;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * As long as this config is not populated the bean classes are taken from a still valid
+	 * {@link BeansModelSnapshot} of the previous session, if available.
+	 */
+	@Override
+	public Set<String> getBeanClasses() {
+		ConfigSnapshot snapshot = getValidSnapshot();
+		if (snapshot != null) {
+			return snapshot.getBeanClasses();
+		}
+		return super.getBeanClasses();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isBeanClass(String className) {
+		if (className != null) {
+			ConfigSnapshot snapshot = getValidSnapshot();
+			if (snapshot != null) {
+				return snapshot.getBeanClasses().contains(className);
+			}
+		}
+		return super.isBeanClass(className);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasBean(String name) {
+		if (name != null) {
+			ConfigSnapshot snapshot = getValidSnapshot();
+			if (snapshot != null) {
+				return snapshot.getBeanNames().contains(name);
+			}
+		}
+		return super.hasBean(name);
+	}
+
+	/**
+	 * Returns <code>true</code> if this config has any imports, aliases, components or beans.
+	 * <p>
+	 * As long as this config is not populated the answer is taken from a still valid {@link BeansModelSnapshot} of
+	 * the previous session, if available.
+	 * @since 3.8.4
+	 */
+	public boolean hasElementChildren() {
+		ConfigSnapshot snapshot = getValidSnapshot();
+		if (snapshot != null) {
+			return !snapshot.getChildren().isEmpty();
+		}
+		return getElementChildren().length > 0;
+	}
+
+	/**
+	 * Returns the snapshot of this config taken at the end of the previous session if the model of this config has
+	 * not been populated yet and the snapshot is still valid; <code>null</code> otherwise.
+	 */
+	private ConfigSnapshot getValidSnapshot() {
+		if (isModelPopulated || isArchived || file == null) {
+			return null;
+		}
+		BeansModel model = BeansModelUtils.getParentOfClass(this, BeansModel.class);
+		IBeansProject project = BeansModelUtils.getParentOfClass(this, IBeansProject.class);
+		if (model == null || project == null) {
+			return null;
+		}
+		return model.getSnapshot(project.getProject()).getConfigSnapshot(this);
+	}
+
 	/**
 	 * Sets internal list of {@link IBean}s to <code>null</code>. Any further access to the data of this instance of
 	 * {@link IBeansConfig} leads to reloading of the corresponding beans config file.
+	 * <p>
+	 * If neither the contents of the config file and its imports nor the project's classpath changed since the model
+	 * has been read, the current model is kept and no reload takes place.
 	 */
 	public void reload() {
+		if (file != null) {
+			if (isContentUnchanged()) {
+				modificationTimestamp = file.getModificationStamp();
+				if (DEBUG) {
+					System.out.println(String.format("> skipped reloading of unchanged %s", file.getFullPath()
+							.toString()));
+				}
+				return;
+			}
+			resetModel();
+		}
+	}
+
+	/**
+	 * Unconditionally resets the model of this config.
+	 */
+	private void resetModel() {
 		if (file != null) {
 			try {
 				w.lock();
 				// System.out.println(String.format("++- resetting config '%s'", file.getFullPath().toString()));
 				isModelPopulated = false;
 				modificationTimestamp = IResource.NULL_STAMP;
+				contentDigest = null;
+				contentClassLoader = null;
 				defaults = null;
 				imports.clear();
 				aliases.clear();
@@ -534,6 +645,16 @@ public class BeansConfig extends AbstractBeansConfig implements IBeansConfig, IL
 				});
 				this.children = allChildren.toArray(new IModelElement[allChildren.size()]);
 
+				// Remember what the model has been read from; a concurrent modification of the file invalidates it
+				if (file != null && file.exists() && modificationTimestamp == file.getModificationStamp()) {
+					contentDigest = computeContentDigest();
+					contentClassLoader = new WeakReference<ClassLoader>(projectIncludingClassloader);
+				}
+				else {
+					contentDigest = null;
+					contentClassLoader = null;
+				}
+
 				this.isModelPopulated = true;
 				w.unlock();
 
@@ -569,6 +690,150 @@ public class BeansConfig extends AbstractBeansConfig implements IBeansConfig, IL
 		}
 	}
 
+	/**
+	 * Returns <code>true</code> if the current model has been read from the same contents of the config file and its
+	 * imports and with the same project classloader as they are now.
+	 * <p>
+	 * Configs that use annotation scanning depend on the project's classes as well and configs with problems might
+	 * depend on external state (e.g. a timeout), those always need to be reloaded. Imports with location patterns
+	 * (e.g. <code>classpath*:</code> or wildcards) are resolved again, as they might match new files by now.
+	 */
+	private boolean isContentUnchanged() {
+		try {
+			r.lock();
+			byte[] digest = contentDigest;
+			WeakReference<ClassLoader> classLoaderReference = contentClassLoader;
+			if (!isModelPopulated || digest == null || classLoaderReference == null || !problems.isEmpty()) {
+				return false;
+			}
+
+			ClassLoader classLoader = classLoaderReference.get();
+			if (classLoader == null || classLoader != getProjectRelatedClassLoader() || doesAnnotationScanning()) {
+				return false;
+			}
+			return Arrays.equals(digest, computeContentDigest()) && isImportResolutionUnchanged(classLoader);
+		}
+		finally {
+			r.unlock();
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if all imports with location patterns still resolve to as many resources as they did
+	 * when the model has been read. Removed or renamed resources are already covered by the content digest.
+	 */
+	private boolean isImportResolutionUnchanged(ClassLoader classLoader) {
+		if (imports.isEmpty() || !(getElementParent() instanceof IBeansProject)
+				|| !((IBeansProject) getElementParent()).isImportsEnabled()) {
+			return true;
+		}
+		ResourcePatternResolver resolver = new EclipsePathMatchingResourcePatternResolver(file.getProject(), classLoader);
+		for (IBeansImport beansImport : imports) {
+			if (!isImportResolutionUnchanged(beansImport, resource, resolver)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isImportResolutionUnchanged(IBeansImport beansImport, Resource importingResource,
+			ResourcePatternResolver resolver) {
+		String location = beansImport.getElementName();
+		if (location != null && isLocationPattern(location)) {
+			try {
+				if (!ResourcePatternUtils.isUrl(location)) {
+					if (importingResource == null) {
+						// the base of relative locations in imported configs isn't known anymore
+						return false;
+					}
+					location = StringUtils.applyRelativePath(importingResource.getURL().toString(), location);
+				}
+				if (resolver.getResources(location).length != beansImport.getImportedBeansConfigs().size()) {
+					return false;
+				}
+			}
+			catch (IOException e) {
+				return false;
+			}
+		}
+		for (IImportedBeansConfig importedConfig : beansImport.getImportedBeansConfigs()) {
+			for (IBeansImport nestedImport : importedConfig.getImports()) {
+				if (!isImportResolutionUnchanged(nestedImport, null, resolver)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static boolean isLocationPattern(String location) {
+		return location.startsWith(ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX)
+				|| new AntPathMatcher().isPattern(location);
+	}
+
+	/**
+	 * Computes a digest of the contents of the config file and all resources imported by it. Returns
+	 * <code>null</code> if the digest can't be computed.
+	 */
+	private byte[] computeContentDigest() {
+		if (isArchived || file == null || !file.exists()) {
+			return null;
+		}
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			updateContentDigest(digest, file);
+			Set<IResource> digestedResources = new HashSet<IResource>();
+			digestedResources.add(file);
+			for (IBeansImport beansImport : imports) {
+				updateContentDigest(digest, beansImport, digestedResources);
+			}
+			return digest.digest();
+		}
+		catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+		catch (CoreException e) {
+			return null;
+		}
+		catch (IOException e) {
+			return null;
+		}
+	}
+
+	private void updateContentDigest(MessageDigest digest, IBeansImport beansImport, Set<IResource> digestedResources)
+			throws CoreException, IOException {
+		for (IImportedBeansConfig importedConfig : beansImport.getImportedBeansConfigs()) {
+			IResource importedResource = importedConfig.getElementResource();
+			if (importedResource != null && digestedResources.add(importedResource)) {
+				if (importedResource instanceof IFile && !importedConfig.isElementArchived()) {
+					updateContentDigest(digest, (IFile) importedResource);
+				}
+				else {
+					// archives are only tracked by their modification stamp
+					digest.update(importedResource.getFullPath().toString().getBytes("UTF-8"));
+					digest.update(Long.toString(importedResource.getModificationStamp()).getBytes("UTF-8"));
+				}
+				for (IBeansImport nestedImport : importedConfig.getImports()) {
+					updateContentDigest(digest, nestedImport, digestedResources);
+				}
+			}
+		}
+	}
+
+	private void updateContentDigest(MessageDigest digest, IFile file) throws CoreException, IOException {
+		InputStream contents = file.getContents(true);
+		try {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = contents.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		finally {
+			contents.close();
+		}
+	}
+
 	public ClassLoader getProjectRelatedClassLoader() {
 		if (file != null && file.exists()) {
 			return JdtUtils.getClassLoader(file.getProject(), BeansCorePlugin.getClassLoader());
@@ -742,7 +1007,7 @@ public class BeansConfig extends AbstractBeansConfig implements IBeansConfig, IL
 					externalPostProcessors.remove(postProcessor);
 				}
 			}
-			reload();
+			resetModel();
 		}
 		finally {
 			w.unlock();
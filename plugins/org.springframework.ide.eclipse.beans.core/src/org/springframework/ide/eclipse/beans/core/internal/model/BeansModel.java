@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 Spring IDE Developers
+ * Copyright (c) 2004, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -44,6 +44,7 @@ import org.springframework.ide.eclipse.beans.core.internal.model.resources.IBean
 import org.springframework.ide.eclipse.beans.core.internal.model.update.BeansModelUpdater;
 import org.springframework.ide.eclipse.beans.core.model.IBean;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfigEventListener;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfigSet;
 import org.springframework.ide.eclipse.beans.core.model.IBeansModel;
 import org.springframework.ide.eclipse.beans.core.model.IBeansProject;
@@ -52,6 +53,7 @@ import org.springframework.ide.eclipse.beans.core.model.IReloadableBeansConfig;
 import org.springframework.ide.eclipse.core.SpringCore;
 import org.springframework.ide.eclipse.core.SpringCoreUtils;
 import org.springframework.ide.eclipse.core.io.ExternalFile;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyResourceChangeListener;
 import org.springframework.ide.eclipse.core.model.AbstractModel;
 import org.springframework.ide.eclipse.core.model.IModelElement;
 import org.springframework.ide.eclipse.core.model.IModelElementVisitor;
@@ -91,6 +93,13 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 
 	private IFacetedProjectListener facetedProjectListener;
 
+	private final BeansTypeHierarchyIndex typeHierarchyIndex = new BeansTypeHierarchyIndex();
+
+	/**
+	 * The lazily read snapshots of the previous session
+	 */
+	private final Map<IProject, BeansModelSnapshot> snapshots = new ConcurrentHashMap<IProject, BeansModelSnapshot>();
+
 	public BeansModel() {
 		super(null, IBeansModel.ELEMENT_NAME);
 		projects = new ConcurrentHashMap<IProject, IBeansProject>();
@@ -139,16 +148,16 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 		if (DEBUG) {
 			System.out.println("Beans Model startup");
 		}
+		// Create the projects without holding the model lock, readers see an empty model until they are published
+		Map<IProject, IBeansProject> startedProjects = new ConcurrentHashMap<IProject, IBeansProject>();
 		try {
-			w.lock();
-			projects.clear();
 			for (IProject project : SpringCoreUtils.getSpringProjects()) {
 				BeansProject beansProject = new BeansProject(BeansModel.this, project);
-				addProject(beansProject);
+				startedProjects.put(project, beansProject);
 			}
 			
 			// Eagerly populate the internal structure of the beans projects
-			for (IBeansProject beanProject : projects.values()) {
+			for (IBeansProject beanProject : startedProjects.values()) {
 				beanProject.accept(new IModelElementVisitor() {
 					public boolean visit(IModelElement element, IProgressMonitor monitor) {
 						return element instanceof IBeansProject;
@@ -157,11 +166,17 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 			}
 
 			// Check for update actions
-			BeansModelUpdater.updateModel(projects.values());
+			BeansModelUpdater.updateModel(startedProjects.values());
 		}
 		finally {
-			modelPopulated = true;
-			w.unlock();
+			try {
+				w.lock();
+				projects = startedProjects;
+				modelPopulated = true;
+			}
+			finally {
+				w.unlock();
+			}
 		}
 
 		// Add a ResourceChangeListener to the Eclipse Workspace
@@ -173,6 +188,7 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 		FacetedProjectFramework.addListener(facetedProjectListener, IFacetedProjectEvent.Type.POST_INSTALL,
 				IFacetedProjectEvent.Type.POST_UNINSTALL);
 
+		TypeHierarchyResourceChangeListener.addTypeHierarchyChangeListener(typeHierarchyIndex);
 	}
 
 	public void addProject(IBeansProject project) {
@@ -192,16 +208,55 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 		FacetedProjectFramework.removeListener(facetedProjectListener);
 		facetedProjectListener = null;
 
+		TypeHierarchyResourceChangeListener.removeTypeHierarchyChangeListener(typeHierarchyIndex);
+		typeHierarchyIndex.clear();
+
 		try {
 			w.lock();
+			// Save the snapshots for the next session
+			saveSnapshots();
+
 			// Remove all projects
 			projects.clear();
+			snapshots.clear();
 		}
 		finally {
 			w.unlock();
 		}
 	}
 
+	/**
+	 * Returns the reverse type hierarchy index for the bean classes of this model.
+	 * @since 3.8.4
+	 */
+	public BeansTypeHierarchyIndex getTypeHierarchyIndex() {
+		return typeHierarchyIndex;
+	}
+
+	/**
+	 * Returns the snapshot of the given project taken at the end of the previous session; never <code>null</code>.
+	 * @since 3.8.4
+	 */
+	public BeansModelSnapshot getSnapshot(IProject project) {
+		BeansModelSnapshot snapshot = snapshots.get(project);
+		if (snapshot == null) {
+			snapshot = BeansModelSnapshot.read(BeansModelSnapshot.getSnapshotFile(project));
+			snapshots.put(project, snapshot);
+		}
+		return snapshot;
+	}
+
+	private void saveSnapshots() {
+		for (IBeansProject project : projects.values()) {
+			BeansModelSnapshot previous = snapshots.get(project.getProject());
+			if (previous == null) {
+				previous = BeansModelSnapshot.read(BeansModelSnapshot.getSnapshotFile(project.getProject()));
+			}
+			BeansModelSnapshot.create(project, previous).write(
+					BeansModelSnapshot.getSnapshotFile(project.getProject()));
+		}
+	}
+
 	public IBeansProject getProject(IProject project) {
 		try {
 			r.lock();
@@ -337,21 +392,14 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 
 	/**
 	 * Returns a list of all configs from this model which contain a bean with given bean class.
+	 * <p>
+	 * The configs are looked up in the {@link BeansTypeHierarchyIndex} which is kept up-to-date via
+	 * {@link IBeansConfigEventListener} events, instead of asking every config.
 	 */
 	public Set<IBeansConfig> getConfigs(String className) {
 		Set<IBeansConfig> configs = new LinkedHashSet<IBeansConfig>();
-		try {
-			r.lock();
-			for (IBeansProject project : projects.values()) {
-				for (IBeansConfig config : project.getConfigs()) {
-					if (config.isBeanClass(className)) {
-						configs.add(config);
-					}
-				}
-			}
-		}
-		finally {
-			r.unlock();
+		for (IBeansProject project : getProjects()) {
+			configs.addAll(typeHierarchyIndex.getConfigsByBeanClass(project, className));
 		}
 		return configs;
 	}
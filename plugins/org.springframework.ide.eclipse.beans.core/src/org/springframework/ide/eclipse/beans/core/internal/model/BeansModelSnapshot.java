@@ -0,0 +1,698 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.internal.model;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.beans.core.model.IBeanAlias;
+import org.springframework.ide.eclipse.beans.core.model.IBeansComponent;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansImport;
+import org.springframework.ide.eclipse.beans.core.model.IBeansProject;
+import org.springframework.ide.eclipse.beans.core.model.IImportedBeansConfig;
+import org.springframework.ide.eclipse.core.model.IModelElement;
+import org.springframework.ide.eclipse.core.model.ISourceModelElement;
+
+/**
+ * Snapshot of the XML {@link IBeansConfig}s of a single project, written on shutdown and read lazily on the first
+ * query after a restart.
+ * <p>
+ * For every config the snapshot holds a lightweight record of each bean (name, aliases, class and source location),
+ * a record of each import, alias, component and bean of the config itself, and the bean classes. This allows answering
+ * bean class and bean name queries and populating the tree of the config's children without parsing the config. The
+ * {@link IBean}s of a config are still read from the config, as they wrap the complete bean definitions.
+ * <p>
+ * The snapshot file is memory-mapped. Only a table of the config names is read when the snapshot is opened; the
+ * entry of a config is decoded on the first query for that config.
+ * <p>
+ * Every config entry records the modification stamps of the config file and all its imported files. An entry is only
+ * used as long as all these stamps are unchanged. Configs using annotation scanning, configs with problems, external
+ * and archived configs are never part of a snapshot.
+ * @since 3.8.4
+ */
+public class BeansModelSnapshot {
+
+	private static final int MAGIC = 0x5342534e;
+
+	private static final int VERSION = 2;
+
+	private static final String SNAPSHOT_FOLDER_NAME = "snapshot";
+
+	private static final String SNAPSHOT_FILE_EXTENSION = ".snapshot";
+
+	/** Suffix of a snapshot that could not replace the current one as that is still mapped */
+	private static final String NEXT_SNAPSHOT_SUFFIX = ".next";
+
+	/** Snapshot without any entries */
+	public static final BeansModelSnapshot EMPTY = new BeansModelSnapshot(null,
+			Collections.<String, int[]> emptyMap(), Collections.<String, ConfigSnapshot> emptyMap());
+
+	/** The mapped snapshot file; <code>null</code> for snapshots created in this session */
+	private final ByteBuffer buffer;
+
+	/** Position and length of the not yet decoded config entries in the buffer */
+	private final Map<String, int[]> entries;
+
+	private final Map<String, ConfigSnapshot> configSnapshots;
+
+	private BeansModelSnapshot(ByteBuffer buffer, Map<String, int[]> entries, Map<String, ConfigSnapshot> configSnapshots) {
+		this.buffer = buffer;
+		this.entries = entries;
+		this.configSnapshots = configSnapshots;
+	}
+
+	/**
+	 * Returns the snapshot of the given config if it is still valid; <code>null</code> otherwise.
+	 */
+	public ConfigSnapshot getConfigSnapshot(IBeansConfig config) {
+		ConfigSnapshot snapshot = getConfigSnapshot(config.getElementName());
+		if (snapshot != null && snapshot.isValid()) {
+			return snapshot;
+		}
+		return null;
+	}
+
+	private ConfigSnapshot getConfigSnapshot(String configName) {
+		ConfigSnapshot snapshot = configSnapshots.get(configName);
+		if (snapshot == null && entries.containsKey(configName)) {
+			synchronized (this) {
+				snapshot = configSnapshots.get(configName);
+				int[] entry = entries.get(configName);
+				if (snapshot == null && entry != null) {
+					snapshot = decode(configName, entry[0], entry[1]);
+					if (snapshot != null) {
+						configSnapshots.put(configName, snapshot);
+					}
+					entries.remove(configName);
+				}
+			}
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Returns the number of config entries of this snapshot.
+	 */
+	public synchronized int size() {
+		return configSnapshots.size() + entries.size();
+	}
+
+	/**
+	 * Creates a snapshot of the already populated configs of the given project. Still valid entries of the given
+	 * previous snapshot are carried over for configs that have not been populated in the meantime.
+	 */
+	public static BeansModelSnapshot create(IBeansProject project, BeansModelSnapshot previous) {
+		Map<String, ConfigSnapshot> configSnapshots = new LinkedHashMap<String, ConfigSnapshot>();
+		for (IBeansConfig config : project.getConfigs()) {
+			if (!(config instanceof BeansConfig) || config.isElementArchived() || config.isExternal()) {
+				continue;
+			}
+
+			if (((BeansConfig) config).isInitialized()) {
+				if (!config.doesAnnotationScanning() && ((BeansConfig) config).getProblems().isEmpty()) {
+					ConfigSnapshot snapshot = createConfigSnapshot(config);
+					if (snapshot != null) {
+						configSnapshots.put(config.getElementName(), snapshot);
+					}
+				}
+			}
+			else if (previous != null) {
+				ConfigSnapshot snapshot = previous.getConfigSnapshot(config);
+				if (snapshot != null) {
+					configSnapshots.put(config.getElementName(), snapshot);
+				}
+			}
+		}
+		return new BeansModelSnapshot(null, Collections.<String, int[]> emptyMap(), configSnapshots);
+	}
+
+	private static ConfigSnapshot createConfigSnapshot(IBeansConfig config) {
+		Map<String, long[]> stamps = new LinkedHashMap<String, long[]>();
+		if (!addStamps(config.getElementResource(), stamps)) {
+			return null;
+		}
+		for (IBeansImport beansImport : config.getImports()) {
+			if (!addImportStamps(beansImport, stamps)) {
+				return null;
+			}
+		}
+
+		List<ElementRecord> children = new ArrayList<ElementRecord>();
+		for (IModelElement child : config.getElementChildren()) {
+			if (child instanceof ISourceModelElement) {
+				children.add(new ElementRecord(getElementKind(child), child.getElementName(),
+						((ISourceModelElement) child).getElementStartLine(),
+						((ISourceModelElement) child).getElementEndLine()));
+			}
+		}
+
+		List<BeanRecord> beans = new ArrayList<BeanRecord>();
+		for (IBean bean : config.getBeans()) {
+			IResource resource = bean.getElementResource();
+			String[] aliases = bean.getAliases();
+			beans.add(new BeanRecord(bean.getElementName(), aliases != null ? aliases : new String[0],
+					bean.getClassName(), resource != null ? resource.getFullPath().toString() : null,
+					bean.getElementStartLine(), bean.getElementEndLine()));
+		}
+		return new ConfigSnapshot(stamps, children, beans, new LinkedHashSet<String>(config.getBeanClasses()));
+	}
+
+	private static int getElementKind(IModelElement element) {
+		if (element instanceof IBeansImport) {
+			return ElementRecord.IMPORT;
+		}
+		else if (element instanceof IBeanAlias) {
+			return ElementRecord.ALIAS;
+		}
+		else if (element instanceof IBeansComponent) {
+			return ElementRecord.COMPONENT;
+		}
+		return ElementRecord.BEAN;
+	}
+
+	private static boolean addImportStamps(IBeansImport beansImport, Map<String, long[]> stamps) {
+		for (IImportedBeansConfig importedConfig : beansImport.getImportedBeansConfigs()) {
+			if (importedConfig.isElementArchived() || !addStamps(importedConfig.getElementResource(), stamps)) {
+				return false;
+			}
+			for (IBeansImport nestedImport : importedConfig.getImports()) {
+				if (!addImportStamps(nestedImport, stamps)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static boolean addStamps(IResource resource, Map<String, long[]> stamps) {
+		if (!(resource instanceof IFile) || !resource.exists()) {
+			return false;
+		}
+		stamps.put(resource.getFullPath().toString(), new long[] { resource.getModificationStamp(),
+				resource.getLocalTimeStamp() });
+		return true;
+	}
+
+	/**
+	 * Returns the snapshot file for the given project.
+	 */
+	public static File getSnapshotFile(IProject project) {
+		return BeansCorePlugin.getDefault().getStateLocation().append(SNAPSHOT_FOLDER_NAME)
+				.append(project.getName() + SNAPSHOT_FILE_EXTENSION).toFile();
+	}
+
+	/**
+	 * Opens the snapshot stored in the given file. Returns {@link #EMPTY} if the file does not exist or can't be
+	 * read.
+	 * <p>
+	 * Only the table of the config entries is read; the entries are decoded from the mapped file when they are used.
+	 */
+	public static BeansModelSnapshot read(File file) {
+		promoteNextSnapshot(file);
+		if (!file.exists()) {
+			return EMPTY;
+		}
+
+		RandomAccessFile randomAccessFile = null;
+		try {
+			randomAccessFile = new RandomAccessFile(file, "r");
+			FileChannel channel = randomAccessFile.getChannel();
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			DataInputStream in = new DataInputStream(new BufferInputStream(buffer, 0, buffer.capacity()));
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				return EMPTY;
+			}
+
+			int configCount = in.readInt();
+			Map<String, int[]> entries = new HashMap<String, int[]>(configCount * 2);
+			for (int i = 0; i < configCount; i++) {
+				String configName = in.readUTF();
+				int position = in.readInt();
+				int length = in.readInt();
+				if (position < 0 || length < 0 || position > buffer.capacity() - length) {
+					throw new IOException("Truncated snapshot");
+				}
+				entries.put(configName, new int[] { position, length });
+			}
+			return new BeansModelSnapshot(buffer, entries, new ConcurrentHashMap<String, ConfigSnapshot>());
+		}
+		catch (IOException e) {
+			BeansCorePlugin.log(new Status(IStatus.WARNING, BeansCorePlugin.PLUGIN_ID, String.format(
+					"Error reading beans model snapshot '%s'", file), e));
+			return EMPTY;
+		}
+		finally {
+			try {
+				if (randomAccessFile != null) {
+					// the mapping stays valid after closing the file
+					randomAccessFile.close();
+				}
+			}
+			catch (IOException e) {
+			}
+		}
+	}
+
+	/**
+	 * Replaces the given snapshot file with a snapshot that could not be moved into place when it was written.
+	 */
+	private static void promoteNextSnapshot(File file) {
+		File nextFile = new File(file.getPath() + NEXT_SNAPSHOT_SUFFIX);
+		if (nextFile.exists() && (!file.exists() || file.delete())) {
+			nextFile.renameTo(file);
+		}
+	}
+
+	private ConfigSnapshot decode(String configName, int position, int length) {
+		try {
+			DataInputStream in = new DataInputStream(new BufferInputStream(buffer, position, length));
+
+			int stampCount = in.readInt();
+			Map<String, long[]> stamps = new LinkedHashMap<String, long[]>(stampCount * 2);
+			for (int i = 0; i < stampCount; i++) {
+				stamps.put(in.readUTF(), new long[] { in.readLong(), in.readLong() });
+			}
+
+			int childCount = in.readInt();
+			List<ElementRecord> children = new ArrayList<ElementRecord>(childCount);
+			for (int i = 0; i < childCount; i++) {
+				children.add(new ElementRecord(in.readInt(), in.readUTF(), in.readInt(), in.readInt()));
+			}
+
+			int beanCount = in.readInt();
+			List<BeanRecord> beans = new ArrayList<BeanRecord>(beanCount);
+			for (int i = 0; i < beanCount; i++) {
+				String name = in.readUTF();
+				String[] aliases = new String[in.readInt()];
+				for (int j = 0; j < aliases.length; j++) {
+					aliases[j] = in.readUTF();
+				}
+				beans.add(new BeanRecord(name, aliases, readNullableString(in), readNullableString(in), in.readInt(),
+						in.readInt()));
+			}
+
+			int classCount = in.readInt();
+			Set<String> beanClasses = new LinkedHashSet<String>(classCount * 2);
+			for (int i = 0; i < classCount; i++) {
+				beanClasses.add(in.readUTF());
+			}
+			return new ConfigSnapshot(stamps, children, beans, beanClasses);
+		}
+		catch (IOException e) {
+			BeansCorePlugin.log(new Status(IStatus.WARNING, BeansCorePlugin.PLUGIN_ID, String.format(
+					"Error reading snapshot of beans config '%s'", configName), e));
+			return null;
+		}
+	}
+
+	/**
+	 * Writes this snapshot to the given file. An empty snapshot deletes the file.
+	 * <p>
+	 * The snapshot is written to a temporary file first that replaces the given file once it is complete, so that
+	 * the previous snapshot stays intact if writing fails. If the previous snapshot can't be replaced as it is still
+	 * mapped, the new snapshot replaces it the next time it is read.
+	 */
+	public void write(File file) {
+		Map<String, ConfigSnapshot> snapshots = new LinkedHashMap<String, ConfigSnapshot>(configSnapshots);
+		for (String configName : new ArrayList<String>(entries.keySet())) {
+			ConfigSnapshot snapshot = getConfigSnapshot(configName);
+			if (snapshot != null) {
+				snapshots.put(configName, snapshot);
+			}
+		}
+
+		File nextFile = new File(file.getPath() + NEXT_SNAPSHOT_SUFFIX);
+		nextFile.delete();
+		if (snapshots.isEmpty()) {
+			file.delete();
+			return;
+		}
+
+		File tempFile = new File(file.getPath() + ".tmp");
+		DataOutputStream out = null;
+		try {
+			// encode the entries first, the table in front of them holds their positions
+			List<byte[]> encodedEntries = new ArrayList<byte[]>(snapshots.size());
+			ByteArrayOutputStream table = new ByteArrayOutputStream();
+			DataOutputStream tableOut = new DataOutputStream(table);
+			for (Map.Entry<String, ConfigSnapshot> entry : snapshots.entrySet()) {
+				encodedEntries.add(encode(entry.getValue()));
+				tableOut.writeUTF(entry.getKey());
+				tableOut.writeInt(0);
+				tableOut.writeInt(0);
+			}
+
+			tempFile.getParentFile().mkdirs();
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(snapshots.size());
+
+			int position = 12 + table.size();
+			int index = 0;
+			for (String configName : snapshots.keySet()) {
+				byte[] encodedEntry = encodedEntries.get(index++);
+				out.writeUTF(configName);
+				out.writeInt(position);
+				out.writeInt(encodedEntry.length);
+				position += encodedEntry.length;
+			}
+			for (byte[] encodedEntry : encodedEntries) {
+				out.write(encodedEntry);
+			}
+			out.close();
+			out = null;
+
+			if (file.exists() && !file.delete()) {
+				if (!tempFile.renameTo(nextFile)) {
+					throw new IOException("Can't rename " + tempFile + " to " + nextFile);
+				}
+			}
+			else if (!tempFile.renameTo(file)) {
+				throw new IOException("Can't rename " + tempFile + " to " + file);
+			}
+		}
+		catch (IOException e) {
+			BeansCorePlugin.log(new Status(IStatus.WARNING, BeansCorePlugin.PLUGIN_ID, String.format(
+					"Error writing beans model snapshot '%s'", file), e));
+		}
+		finally {
+			try {
+				if (out != null) {
+					out.close();
+				}
+			}
+			catch (IOException e) {
+			}
+			tempFile.delete();
+		}
+	}
+
+	private static byte[] encode(ConfigSnapshot snapshot) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		out.writeInt(snapshot.stamps.size());
+		for (Map.Entry<String, long[]> stamp : snapshot.stamps.entrySet()) {
+			out.writeUTF(stamp.getKey());
+			out.writeLong(stamp.getValue()[0]);
+			out.writeLong(stamp.getValue()[1]);
+		}
+
+		out.writeInt(snapshot.children.size());
+		for (ElementRecord child : snapshot.children) {
+			out.writeInt(child.getKind());
+			out.writeUTF(child.getName());
+			out.writeInt(child.getStartLine());
+			out.writeInt(child.getEndLine());
+		}
+
+		out.writeInt(snapshot.beans.size());
+		for (BeanRecord bean : snapshot.beans) {
+			out.writeUTF(bean.getName());
+			out.writeInt(bean.aliases.length);
+			for (String alias : bean.aliases) {
+				out.writeUTF(alias);
+			}
+			writeNullableString(out, bean.getClassName());
+			writeNullableString(out, bean.getResourcePath());
+			out.writeInt(bean.getStartLine());
+			out.writeInt(bean.getEndLine());
+		}
+
+		out.writeInt(snapshot.beanClasses.size());
+		for (String beanClass : snapshot.beanClasses) {
+			out.writeUTF(beanClass);
+		}
+
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private static String readNullableString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static void writeNullableString(DataOutputStream out, String string) throws IOException {
+		out.writeBoolean(string != null);
+		if (string != null) {
+			out.writeUTF(string);
+		}
+	}
+
+	/**
+	 * The snapshot of a single config.
+	 */
+	public static class ConfigSnapshot {
+
+		private final Map<String, long[]> stamps;
+
+		private final List<ElementRecord> children;
+
+		private final List<BeanRecord> beans;
+
+		private final Set<String> beanClasses;
+
+		private final Set<String> beanNames;
+
+		ConfigSnapshot(Map<String, long[]> stamps, List<ElementRecord> children, List<BeanRecord> beans,
+				Set<String> beanClasses) {
+			this.stamps = stamps;
+			this.children = Collections.unmodifiableList(children);
+			this.beans = Collections.unmodifiableList(beans);
+			this.beanClasses = Collections.unmodifiableSet(beanClasses);
+
+			Set<String> beanNames = new LinkedHashSet<String>(beans.size() * 2);
+			for (BeanRecord bean : beans) {
+				beanNames.add(bean.getName());
+			}
+			this.beanNames = Collections.unmodifiableSet(beanNames);
+		}
+
+		/**
+		 * Returns <code>true</code> if none of the files this snapshot has been created from changed since.
+		 */
+		public boolean isValid() {
+			for (Map.Entry<String, long[]> stamp : stamps.entrySet()) {
+				IFile file = ResourcesPlugin.getWorkspace().getRoot().getFile(new Path(stamp.getKey()));
+				if (!file.exists() || file.getModificationStamp() != stamp.getValue()[0]
+						|| file.getLocalTimeStamp() != stamp.getValue()[1]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Returns the imports, aliases, components and beans of the config itself, ordered by their start line.
+		 */
+		public List<ElementRecord> getChildren() {
+			return children;
+		}
+
+		/**
+		 * Returns the beans of the config and its imports.
+		 */
+		public List<BeanRecord> getBeans() {
+			return beans;
+		}
+
+		/**
+		 * Returns the bean with the given name from the config or its imports; <code>null</code> if there is none.
+		 */
+		public BeanRecord getBean(String name) {
+			for (BeanRecord bean : beans) {
+				if (bean.getName().equals(name)) {
+					return bean;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Returns the names of the bean classes (without inner class names) of the config and its imports.
+		 */
+		public Set<String> getBeanClasses() {
+			return beanClasses;
+		}
+
+		/**
+		 * Returns the names of the beans of the config and its imports.
+		 */
+		public Set<String> getBeanNames() {
+			return beanNames;
+		}
+	}
+
+	/**
+	 * Record of a direct child of a config.
+	 */
+	public static class ElementRecord {
+
+		public static final int IMPORT = 1;
+
+		public static final int ALIAS = 2;
+
+		public static final int COMPONENT = 3;
+
+		public static final int BEAN = 4;
+
+		private final int kind;
+
+		private final String name;
+
+		private final int startLine;
+
+		private final int endLine;
+
+		ElementRecord(int kind, String name, int startLine, int endLine) {
+			this.kind = kind;
+			this.name = name;
+			this.startLine = startLine;
+			this.endLine = endLine;
+		}
+
+		/**
+		 * Returns one of {@link #IMPORT}, {@link #ALIAS}, {@link #COMPONENT} or {@link #BEAN}.
+		 */
+		public int getKind() {
+			return kind;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getStartLine() {
+			return startLine;
+		}
+
+		public int getEndLine() {
+			return endLine;
+		}
+	}
+
+	/**
+	 * Record of a bean of a config or its imports.
+	 */
+	public static class BeanRecord {
+
+		private final String name;
+
+		private final String[] aliases;
+
+		private final String className;
+
+		private final String resourcePath;
+
+		private final int startLine;
+
+		private final int endLine;
+
+		BeanRecord(String name, String[] aliases, String className, String resourcePath, int startLine, int endLine) {
+			this.name = name;
+			this.aliases = aliases;
+			this.className = className;
+			this.resourcePath = resourcePath;
+			this.startLine = startLine;
+			this.endLine = endLine;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String[] getAliases() {
+			return aliases.clone();
+		}
+
+		/**
+		 * Returns the bean class name; <code>null</code> for beans without a class, e.g. child beans.
+		 */
+		public String getClassName() {
+			return className;
+		}
+
+		/**
+		 * Returns the workspace path of the file that defines the bean.
+		 */
+		public String getResourcePath() {
+			return resourcePath;
+		}
+
+		public int getStartLine() {
+			return startLine;
+		}
+
+		public int getEndLine() {
+			return endLine;
+		}
+	}
+
+	/**
+	 * {@link InputStream} on a region of the mapped snapshot file.
+	 */
+	private static class BufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		public BufferInputStream(ByteBuffer buffer, int position, int length) {
+			this.buffer = buffer.duplicate();
+			this.buffer.position(position);
+			this.buffer.limit(position + length);
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			length = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, length);
+			return length;
+		}
+	}
+
+}
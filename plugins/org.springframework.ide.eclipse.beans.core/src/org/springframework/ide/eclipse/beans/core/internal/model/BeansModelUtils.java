@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2014 Spring IDE Developers
+ * Copyright (c) 2005, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -838,14 +838,22 @@ public abstract class BeansModelUtils {
 	 * @since 2.2.1
 	 */
 	public static boolean isBeanClass(IType type) {
+		String className = type.getFullyQualifiedName();
+		BeansTypeHierarchyIndex typeHierarchyIndex = getTypeHierarchyIndex();
 		for (IBeansProject project : BeansCorePlugin.getModel().getProjects()) {
+			// the (cheap) index lookup first, the classpath check only for projects using the class
+			if (typeHierarchyIndex != null) {
+				if (typeHierarchyIndex.getConfigsByBeanClass(project, className).isEmpty()) {
+					continue;
+				}
+			}
+			else if (!project.isBeanClass(className)) {
+				continue;
+			}
+
 			IJavaProject javaProject = JdtUtils.getJavaProject(project.getProject());
 			if (javaProject != null && javaProject.isOnClasspath(type)) {
-				for (IBeansConfig config : project.getConfigs()) {
-					if (config.isBeanClass(type.getFullyQualifiedName())) {
-						return true;
-					}
-				}
+				return true;
 			}
 		}
 		return false;
@@ -1310,6 +1318,8 @@ public abstract class BeansModelUtils {
 							changedTypeIsInterface[i] = types[i].isInterface();
 						}
 						
+						BeansTypeHierarchyIndex typeHierarchyIndex = getTypeHierarchyIndex();
+
 						for (IBeansProject project : projects) {
 							if (project != null) {
 
@@ -1318,6 +1328,14 @@ public abstract class BeansModelUtils {
 									continue;
 								}
 								
+								// one index lookup per changed type instead of checking all bean classes
+								if (typeHierarchyIndex != null) {
+									for (String changedTypeName : changedTypeNames) {
+										files.addAll(typeHierarchyIndex.getConfigsBySupertype(project, changedTypeName, typeEngine));
+									}
+									continue;
+								}
+
 								Set<IBeansConfig> configs = project.getConfigs();
 								for (IBeansConfig config : configs) {
 									boolean configAdded = false;
@@ -1352,6 +1370,14 @@ public abstract class BeansModelUtils {
 		return files;
 	}
 
+	private static BeansTypeHierarchyIndex getTypeHierarchyIndex() {
+		IBeansModel model = BeansCorePlugin.getModel();
+		if (model instanceof BeansModel) {
+			return ((BeansModel) model).getTypeHierarchyIndex();
+		}
+		return null;
+	}
+
 	protected static Set<IBeansConfig> getConfigsByContainingTypesJDT(IResource resource, IProgressMonitor monitor) {
 		Set<IBeansConfig> files = new LinkedHashSet<IBeansConfig>();
 
@@ -0,0 +1,362 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Pivotal Software, Inc. and others.
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0
+ * (http://www.eclipse.org/legal/epl-v10.html), and the Eclipse Distribution
+ * License v1.0 (http://www.eclipse.org/org/documents/edl-v10.html).
+ *
+ * Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.internal.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IProject;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfigEventListener;
+import org.springframework.ide.eclipse.beans.core.model.IBeansProject;
+import org.springframework.ide.eclipse.beans.core.model.process.IBeansConfigPostProcessor;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyChangeListener;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyEngine;
+
+/**
+ * Incrementally maintained reverse type hierarchy index for the bean classes of all
+ * {@link IBeansConfig}s. For every project it maps a type to all bean classes that are subtypes of
+ * that type (including the type itself) and every bean class to the configs that declare it.
+ * <p>
+ * Configs are indexed on first access and re-indexed after they got reset or re-read (reported via
+ * {@link IBeansConfigEventListener}). Supertype information is calculated lazily on the first
+ * supertype query using the {@link TypeHierarchyEngine} and invalidated for changed types and all
+ * their known subtypes on {@link TypeHierarchyChangeListener} events.
+ * @since 3.8.4
+ */
+public class BeansTypeHierarchyIndex implements TypeHierarchyChangeListener, IBeansConfigEventListener {
+
+	private final Map<IProject, ProjectIndex> projectIndexes = new ConcurrentHashMap<IProject, ProjectIndex>();
+
+	/**
+	 * Returns all configs of the given project that contain a bean class that is the given type or a
+	 * subtype of it.
+	 */
+	public Set<IBeansConfig> getConfigsBySupertype(IBeansProject project, String typeName, TypeHierarchyEngine typeEngine) {
+		return getProjectIndex(project.getProject()).getConfigsBySupertype(project, typeName, typeEngine);
+	}
+
+	/**
+	 * Returns all configs of the given project that contain a bean with the given class.
+	 */
+	public Set<IBeansConfig> getConfigsByBeanClass(IBeansProject project, String className) {
+		return getProjectIndex(project.getProject()).getConfigsByBeanClass(project, className);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void typesChanged(IProject project, Set<String> changedTypeNames) {
+		// changed types in one project might be part of the type hierarchy in other projects too
+		for (ProjectIndex index : projectIndexes.values()) {
+			index.invalidateTypes(changedTypeNames);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void projectChanged(IProject project) {
+		ProjectIndex removedIndex = projectIndexes.remove(project);
+		if (removedIndex != null) {
+			removedIndex.dispose();
+		}
+		for (ProjectIndex index : projectIndexes.values()) {
+			index.invalidateAllTypes();
+		}
+	}
+
+	/**
+	 * Releases all indexes and unregisters from the indexed configs.
+	 */
+	public void clear() {
+		for (ProjectIndex index : projectIndexes.values()) {
+			index.dispose();
+		}
+		projectIndexes.clear();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void onReadStart(IBeansConfig config) {
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void onReadEnd(IBeansConfig config) {
+		markConfigStale(config);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void onReset(IBeansConfig config) {
+		markConfigStale(config);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void onPostProcessorDetected(IBeansConfig config, IBeansConfigPostProcessor configPostProcessor) {
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void onPostProcessorRemoved(IBeansConfig config, IBeansConfigPostProcessor configPostProcessor) {
+	}
+
+	private void markConfigStale(IBeansConfig config) {
+		// called while the config holds its write lock, therefore this must not block on the index
+		for (ProjectIndex index : projectIndexes.values()) {
+			index.markConfigStale(config);
+		}
+	}
+
+	private ProjectIndex getProjectIndex(IProject project) {
+		ProjectIndex index = projectIndexes.get(project);
+		if (index == null) {
+			synchronized (projectIndexes) {
+				index = projectIndexes.get(project);
+				if (index == null) {
+					index = new ProjectIndex();
+					projectIndexes.put(project, index);
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * The index data for the configs of a single project.
+	 */
+	private class ProjectIndex {
+
+		private Set<IBeansConfig> indexedConfigSet = null;
+
+		private final Map<IBeansConfig, Set<String>> beanClassesByConfig = new HashMap<IBeansConfig, Set<String>>();
+
+		private final Map<String, Set<IBeansConfig>> configsByBeanClass = new HashMap<String, Set<IBeansConfig>>();
+
+		private final Map<String, Set<String>> supertypesByBeanClass = new HashMap<String, Set<String>>();
+
+		private final Map<String, Set<String>> beanClassesBySupertype = new HashMap<String, Set<String>>();
+
+		private final Set<String> staleBeanClasses = new HashSet<String>();
+
+		private final Set<IBeansConfig> staleConfigs = Collections.newSetFromMap(new ConcurrentHashMap<IBeansConfig, Boolean>());
+
+		public synchronized Set<IBeansConfig> getConfigsByBeanClass(IBeansProject project, String className) {
+			refreshConfigs(project);
+
+			Set<IBeansConfig> configs = configsByBeanClass.get(className);
+			if (configs == null) {
+				return Collections.emptySet();
+			}
+			return new LinkedHashSet<IBeansConfig>(configs);
+		}
+
+		public synchronized Set<IBeansConfig> getConfigsBySupertype(IBeansProject project, String typeName, TypeHierarchyEngine typeEngine) {
+			refreshConfigs(project);
+			refreshSupertypes(project, typeEngine);
+
+			Set<String> beanClasses = beanClassesBySupertype.get(typeName);
+			if (beanClasses == null) {
+				return Collections.emptySet();
+			}
+
+			Set<IBeansConfig> result = new LinkedHashSet<IBeansConfig>();
+			for (String beanClass : beanClasses) {
+				Set<IBeansConfig> configs = configsByBeanClass.get(beanClass);
+				if (configs != null) {
+					result.addAll(configs);
+				}
+			}
+			return result;
+		}
+
+		public void markConfigStale(IBeansConfig config) {
+			staleConfigs.add(config);
+		}
+
+		public synchronized void invalidateTypes(Set<String> changedTypeNames) {
+			for (String typeName : changedTypeNames) {
+				invalidateType(typeName);
+			}
+
+			// member types of changed types
+			for (String supertype : new ArrayList<String>(beanClassesBySupertype.keySet())) {
+				int index = supertype.indexOf('$');
+				if (index > 0 && changedTypeNames.contains(supertype.substring(0, index))) {
+					invalidateType(supertype);
+				}
+			}
+		}
+
+		public synchronized void invalidateAllTypes() {
+			staleBeanClasses.addAll(configsByBeanClass.keySet());
+		}
+
+		public synchronized void dispose() {
+			for (IBeansConfig config : beanClassesByConfig.keySet()) {
+				config.unregisterEventListener(BeansTypeHierarchyIndex.this);
+			}
+			beanClassesByConfig.clear();
+			configsByBeanClass.clear();
+			supertypesByBeanClass.clear();
+			beanClassesBySupertype.clear();
+			staleBeanClasses.clear();
+			staleConfigs.clear();
+			indexedConfigSet = null;
+		}
+
+		private void invalidateType(String typeName) {
+			Set<String> subtypes = beanClassesBySupertype.get(typeName);
+			if (subtypes != null) {
+				staleBeanClasses.addAll(subtypes);
+			}
+			if (configsByBeanClass.containsKey(typeName)) {
+				staleBeanClasses.add(typeName);
+			}
+		}
+
+		private void refreshConfigs(IBeansProject project) {
+			Set<IBeansConfig> configs = project.getConfigs();
+
+			// the config set of a project is replaced on every change, so identity is sufficient here
+			if (configs != indexedConfigSet) {
+				for (IBeansConfig config : new ArrayList<IBeansConfig>(beanClassesByConfig.keySet())) {
+					if (!configs.contains(config)) {
+						config.unregisterEventListener(BeansTypeHierarchyIndex.this);
+						removeConfig(config);
+					}
+				}
+				for (IBeansConfig config : configs) {
+					if (!beanClassesByConfig.containsKey(config)) {
+						config.registerEventListener(BeansTypeHierarchyIndex.this);
+						indexConfig(config);
+					}
+				}
+				indexedConfigSet = configs;
+			}
+
+			if (!staleConfigs.isEmpty()) {
+				for (IBeansConfig config : new ArrayList<IBeansConfig>(staleConfigs)) {
+					staleConfigs.remove(config);
+					if (beanClassesByConfig.containsKey(config)) {
+						indexConfig(config);
+					}
+				}
+			}
+		}
+
+		private void refreshSupertypes(IBeansProject project, TypeHierarchyEngine typeEngine) {
+			if (!staleBeanClasses.isEmpty()) {
+				for (String beanClass : staleBeanClasses) {
+					indexSupertypes(project.getProject(), beanClass, typeEngine);
+				}
+				staleBeanClasses.clear();
+			}
+		}
+
+		private void indexConfig(IBeansConfig config) {
+			removeConfig(config);
+
+			Set<String> beanClasses = config.getBeanClasses();
+			beanClassesByConfig.put(config, beanClasses);
+			for (String beanClass : beanClasses) {
+				Set<IBeansConfig> beanClassConfigs = configsByBeanClass.get(beanClass);
+				if (beanClassConfigs == null) {
+					beanClassConfigs = new LinkedHashSet<IBeansConfig>();
+					configsByBeanClass.put(beanClass, beanClassConfigs);
+					staleBeanClasses.add(beanClass);
+				}
+				beanClassConfigs.add(config);
+			}
+		}
+
+		private void removeConfig(IBeansConfig config) {
+			Set<String> beanClasses = beanClassesByConfig.remove(config);
+			if (beanClasses != null) {
+				for (String beanClass : beanClasses) {
+					Set<IBeansConfig> beanClassConfigs = configsByBeanClass.get(beanClass);
+					if (beanClassConfigs != null) {
+						beanClassConfigs.remove(config);
+						if (beanClassConfigs.isEmpty()) {
+							configsByBeanClass.remove(beanClass);
+							removeSupertypes(beanClass);
+							staleBeanClasses.remove(beanClass);
+						}
+					}
+				}
+			}
+		}
+
+		private void indexSupertypes(IProject project, String beanClass, TypeHierarchyEngine typeEngine) {
+			removeSupertypes(beanClass);
+
+			Set<String> supertypes = new HashSet<String>();
+			ArrayDeque<String> typesToAnalyze = new ArrayDeque<String>();
+			typesToAnalyze.add(beanClass);
+
+			while (!typesToAnalyze.isEmpty()) {
+				String type = typesToAnalyze.pop();
+				if (supertypes.add(type)) {
+					String superclass = typeEngine.getSupertype(project, type);
+					if (superclass != null) {
+						typesToAnalyze.add(superclass);
+					}
+					String[] interfaces = typeEngine.getInterfaces(project, type);
+					if (interfaces != null) {
+						for (String interfaceName : interfaces) {
+							typesToAnalyze.add(interfaceName);
+						}
+					}
+				}
+			}
+
+			supertypesByBeanClass.put(beanClass, supertypes);
+			for (String supertype : supertypes) {
+				Set<String> beanClasses = beanClassesBySupertype.get(supertype);
+				if (beanClasses == null) {
+					beanClasses = new HashSet<String>();
+					beanClassesBySupertype.put(supertype, beanClasses);
+				}
+				beanClasses.add(beanClass);
+			}
+		}
+
+		private void removeSupertypes(String beanClass) {
+			Set<String> supertypes = supertypesByBeanClass.remove(beanClass);
+			if (supertypes != null) {
+				for (String supertype : supertypes) {
+					Set<String> beanClasses = beanClassesBySupertype.get(supertype);
+					if (beanClasses != null) {
+						beanClasses.remove(beanClass);
+						if (beanClasses.isEmpty()) {
+							beanClassesBySupertype.remove(supertype);
+						}
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Spring IDE Developers
+ * Copyright (c) 2010, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,9 +10,6 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.core.internal.model.namespaces;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.eclipse.core.resources.IProject;
 import org.eclipse.jdt.core.ElementChangedEvent;
 import org.eclipse.jdt.core.IElementChangedListener;
@@ -21,82 +18,55 @@ import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
 import org.springframework.ide.eclipse.beans.core.model.INamespaceDefinitionResolver;
 import org.springframework.ide.eclipse.core.java.JdtUtils;
+import org.springframework.ide.eclipse.core.java.LruCache;
 
 /**
+ * Cache for the {@link INamespaceDefinitionResolver} of projects.
+ * <p>
+ * The number of cached resolvers is limited by an estimate of the memory they use; the least recently used resolvers
+ * are evicted first.
  * @author Christian Dupuis
  */
 public class ProjectClasspathNamespaceDefinitionResolverCache {
 
-	private static final int CACHE_SIZE = 12;
-
-	private static List<ResolvlerCacheEntry> RESOLVER_CACHE = new ArrayList<ResolvlerCacheEntry>(CACHE_SIZE);
+	/** Estimated memory of a resolver, i.e. its namespace definitions and schema locations */
+	private static final long ESTIMATED_RESOLVER_SIZE = 512 * 1024;
 
-	private static INamespaceDefinitionResolver addResolverToCache(IProject project) {
-		synchronized (RESOLVER_CACHE) {
-			int nEntries = RESOLVER_CACHE.size();
-			if (nEntries >= CACHE_SIZE) {
-				// find obsolete entries or remove entry that was least recently accessed
-				ResolvlerCacheEntry oldest = null;
-				List<ResolvlerCacheEntry> obsoleteClassLoaders = new ArrayList<ResolvlerCacheEntry>(CACHE_SIZE);
-				for (int i = 0; i < nEntries; i++) {
-					ResolvlerCacheEntry entry = RESOLVER_CACHE.get(i);
-					IProject curr = entry.getProject();
-					if (!curr.exists() || !curr.isAccessible() || !curr.isOpen()) {
-						obsoleteClassLoaders.add(entry);
-					}
-					else {
-						if (oldest == null || entry.getLastAccess() < oldest.getLastAccess()) {
-							oldest = entry;
-						}
-					}
-				}
-				if (!obsoleteClassLoaders.isEmpty()) {
-					for (int i = 0; i < obsoleteClassLoaders.size(); i++) {
-						removeResolverEntryFromCache(obsoleteClassLoaders.get(i));
-					}
+	private static final LruCache<IProject, ResolvlerCacheEntry> RESOLVER_CACHE = new LruCache<IProject, ResolvlerCacheEntry>(
+			"Namespace resolvers", LruCache.budgetOfMaxMemory(0.02, 12 * ESTIMATED_RESOLVER_SIZE),
+			new LruCache.Weigher<IProject, ResolvlerCacheEntry>() {
+				public long weigh(IProject project, ResolvlerCacheEntry entry) {
+					return ESTIMATED_RESOLVER_SIZE;
 				}
-				else if (oldest != null) {
-					removeResolverEntryFromCache(oldest);
+			}, new LruCache.RemovalListener<IProject, ResolvlerCacheEntry>() {
+				public void removed(IProject project, ResolvlerCacheEntry entry, boolean evicted) {
+					entry.dispose();
 				}
-			}
-			ResolvlerCacheEntry newEntry = new ResolvlerCacheEntry(project);
-			RESOLVER_CACHE.add(newEntry);
-			return newEntry.getResolver();
-		}
-	}
-
-	private static INamespaceDefinitionResolver findResolverInCache(IProject project) {
-		synchronized (RESOLVER_CACHE) {
-			for (int i = RESOLVER_CACHE.size() - 1; i >= 0; i--) {
-				ResolvlerCacheEntry entry = RESOLVER_CACHE.get(i);
-				IProject curr = entry.getProject();
-				if (!curr.exists() || !curr.isAccessible() || !curr.isOpen()) {
-					removeResolverEntryFromCache(entry);
-				}
-				else {
-					if (entry.matches(project)) {
-						entry.markAsAccessed();
-						return entry.getResolver();
-					}
-				}
-			}
-		}
-		return null;
-	}
+			});
 
 	private static void removeResolverEntryFromCache(ResolvlerCacheEntry entry) {
-		synchronized (RESOLVER_CACHE) {
-			entry.dispose();
-			RESOLVER_CACHE.remove(entry);
-		}
+		RESOLVER_CACHE.remove(entry.getProject(), entry);
 	}
 
 	public synchronized static INamespaceDefinitionResolver getResolver(IProject project) {
-		INamespaceDefinitionResolver resolver = findResolverInCache(project);
-		if (resolver == null) {
-			resolver = addResolverToCache(project);
+		ResolvlerCacheEntry entry = RESOLVER_CACHE.get(project);
+		if (entry != null && (!project.exists() || !project.isAccessible() || !project.isOpen())) {
+			removeResolverEntryFromCache(entry);
+			entry = null;
+		}
+		if (entry == null) {
+			entry = new ResolvlerCacheEntry(project);
+			RESOLVER_CACHE.put(project, entry);
 		}
-		return resolver;
+		return entry.getResolver();
+	}
+
+	/**
+	 * Returns hit, miss and eviction statistics of the cache.
+	 * @since 3.8.4
+	 */
+	public static String getStatistics() {
+		return RESOLVER_CACHE.getStatistics();
 	}
 
 	/**
@@ -104,8 +74,6 @@ public class ProjectClasspathNamespaceDefinitionResolverCache {
 	 */
 	private static class ResolvlerCacheEntry implements IElementChangedListener {
 
-		private long lastAccess;
-
 		private IProject project;
 		
 		private ProjectClasspathNamespaceDefinitionResolver resolver;
@@ -113,14 +81,12 @@ public class ProjectClasspathNamespaceDefinitionResolverCache {
 		public ResolvlerCacheEntry(IProject project) {
 			this.project = project;
 			this.resolver = new ProjectClasspathNamespaceDefinitionResolver(project);
-			markAsAccessed();
 			JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE);
 		}
 
 		public void dispose() {
 			JavaCore.removeElementChangedListener(this);
 			resolver.dispose();
-			resolver = null;
 		}
 
 		public void elementChanged(ElementChangedEvent event) {
@@ -141,22 +107,10 @@ public class ProjectClasspathNamespaceDefinitionResolverCache {
 			return resolver;
 		}
 		
-		public long getLastAccess() {
-			return lastAccess;
-		}
-
 		public IProject getProject() {
 			return this.project;
 		}
 
-		public void markAsAccessed() {
-			lastAccess = System.currentTimeMillis();
-		}
-
-		public boolean matches(IProject project) {
-			return this.project.equals(project);
-		}
-
 	}
 
 }
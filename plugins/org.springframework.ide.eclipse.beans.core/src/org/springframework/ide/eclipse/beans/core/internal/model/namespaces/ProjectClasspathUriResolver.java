@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2014 Spring IDE Developers
+ * Copyright (c) 2011, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,8 +11,6 @@
 package org.springframework.ide.eclipse.beans.core.internal.model.namespaces;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
@@ -21,8 +19,6 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.resources.IProject;
 import org.springframework.core.io.support.PropertiesLoaderUtils;
-import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
-import org.springframework.ide.eclipse.beans.core.ProjectAwareUrlStreamHandlerService;
 import org.springframework.ide.eclipse.beans.core.namespaces.NamespaceUtils;
 import org.springframework.ide.eclipse.core.java.JdtUtils;
 import org.springframework.util.CollectionUtils;
@@ -108,7 +104,8 @@ public class ProjectClasspathUriResolver {
 					typeUri.put(key, resolvedPath);
 
 					// collect base information to later extract the default uri
-					String namespaceUri = getTargetNamespace(resolvedPath);
+					String namespaceUri = getTargetNamespace(resolvedPath,
+							classLoader);
 
 					if (namespaceDefinitionRegistry.containsKey(namespaceUri)) {
 						namespaceDefinitionRegistry.get(namespaceUri)
@@ -145,24 +142,17 @@ public class ProjectClasspathUriResolver {
 
 	/**
 	 * Returns the target namespace URI of the XSD identified by the given
-	 * <code>resolvedPath</code>.
+	 * <code>resolvedPath</code>. The XSD is read from the URL the project's
+	 * classloader resolves it to, so that the {@link TargetNamespaceScanner}
+	 * can reuse the namespace found for the same jar by other projects.
 	 */
-	private String getTargetNamespace(String resolvedPath) {
+	private String getTargetNamespace(String resolvedPath,
+			ClassLoader classLoader) {
 		if (resolvedPath == null) {
 			return null;
 		}
-
-		try {
-			URL url = new URI(
-					ProjectAwareUrlStreamHandlerService.createProjectAwareUrl(
-							project.getName(), resolvedPath)).toURL();
-			return TargetNamespaceScanner.getTargetNamespace(url);
-		} catch (IOException e) {
-			BeansCorePlugin.log(e);
-		} catch (URISyntaxException e) {
-			BeansCorePlugin.log(e);
-		}
-		return null;
+		return TargetNamespaceScanner.getTargetNamespace(classLoader
+				.getResource(resolvedPath));
 	}
 
 	/**
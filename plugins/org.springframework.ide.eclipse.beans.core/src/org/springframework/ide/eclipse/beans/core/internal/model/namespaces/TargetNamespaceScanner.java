@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2014 Spring IDE Developers
+ * Copyright (c) 2011, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,25 +10,38 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.core.internal.model.namespaces;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.URLConnection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
-import org.springframework.ide.eclipse.core.SpringCoreUtils;
-import org.w3c.dom.Document;
-import org.xml.sax.SAXException;
 
 /**
  * Scanner to quickly identify the namespace that is declared inside an XSD.
+ * <p>
+ * The XSD is only parsed up to its root element. The target namespaces of XSDs that are located in a jar file or
+ * directory are cached, keyed by the URL of the XSD, and reused as long as the modification time and size of the jar
+ * (or XSD) file are unchanged. As the same jars are usually on the classpath of many projects, setting up the
+ * namespace resolvers for another project (or again after a classpath change) doesn't read the XSDs again.
  * @author Martin Lippert
  * @since 2.8.0
  */
 public class TargetNamespaceScanner {
 
+	private static final String JAR_URL_SEPARATOR = "!/";
+
+	private static final Map<String, CachedNamespace> cache = new ConcurrentHashMap<String, CachedNamespace>();
+
 	/**
 	 * Returns the target namespace URI of the XSD identified by the given
 	 * <code>url</code>.
@@ -38,33 +51,133 @@ public class TargetNamespaceScanner {
 			return null;
 		}
 
+		String key = url.toExternalForm();
+		File file = getFile(url);
+		long lastModified = file != null ? file.lastModified() : 0;
+		long length = file != null ? file.length() : 0;
+		if (file != null) {
+			CachedNamespace cached = cache.get(key);
+			if (cached != null && cached.lastModified == lastModified && cached.length == length) {
+				return cached.namespace;
+			}
+		}
+
+		String namespace = readTargetNamespace(url);
+		if (file != null) {
+			if (namespace != null) {
+				cache.put(key, new CachedNamespace(namespace, lastModified, length));
+			}
+			else {
+				cache.remove(key);
+			}
+		}
+		return namespace;
+	}
+
+	/**
+	 * Removes all cached target namespaces.
+	 */
+	public static void clearCache() {
+		cache.clear();
+	}
+
+	private static String readTargetNamespace(URL url) {
 		ClassLoader ccl = Thread.currentThread().getContextClassLoader();
+		InputStream stream = null;
+		XMLStreamReader reader = null;
 		try {
 			Thread.currentThread().setContextClassLoader(TargetNamespaceScanner.class.getClassLoader());
-			
-			DocumentBuilderFactory factory = SpringCoreUtils.getDocumentBuilderFactory();
-			factory.setValidating(false);
-			
-			factory.setFeature("http://xml.org/sax/features/validation", false);
-			factory.setFeature("http://apache.org/xml/features/validation/dynamic", false);
-			factory.setFeature("http://apache.org/xml/features/validation/schema", false);
-			factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-			
-			DocumentBuilder docBuilder = factory.newDocumentBuilder();
-			Document doc = docBuilder.parse(url.openStream());
-			
-			return doc.getDocumentElement().getAttribute("targetNamespace");
-		} catch (SAXException e) {
-			BeansCorePlugin.log(e);
-		} catch (IOException e) {
+
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+			factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+			factory.setProperty(XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
+
+			URLConnection connection = url.openConnection();
+			// don't keep jar files open (and locked) in the jar url connection cache
+			connection.setUseCaches(false);
+			stream = connection.getInputStream();
+			reader = factory.createXMLStreamReader(stream);
+			while (reader.hasNext()) {
+				if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+					String namespace = reader.getAttributeValue(null, "targetNamespace");
+					// same as for DOM, a missing attribute is an empty namespace
+					return namespace != null ? namespace : "";
+				}
+			}
+		}
+		catch (XMLStreamException e) {
 			BeansCorePlugin.log(e);
-		} catch (ParserConfigurationException e) {
+		}
+		catch (IOException e) {
 			BeansCorePlugin.log(e);
 		}
 		finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				}
+				catch (XMLStreamException e) {
+				}
+			}
+			if (stream != null) {
+				try {
+					stream.close();
+				}
+				catch (IOException e) {
+				}
+			}
 			Thread.currentThread().setContextClassLoader(ccl);
 		}
 		return null;
 	}
 
+	/**
+	 * Returns the file that determines whether the content of the given URL has changed, i.e. the jar file for
+	 * <code>jar:</code> URLs or the file itself for <code>file:</code> URLs; <code>null</code> for other URLs, which are
+	 * not cached.
+	 */
+	private static File getFile(URL url) {
+		try {
+			String protocol = url.getProtocol();
+			if ("jar".equals(protocol)) {
+				String path = url.getPath();
+				int separator = path.indexOf(JAR_URL_SEPARATOR);
+				if (separator < 0) {
+					return null;
+				}
+				URL jarUrl = new URL(path.substring(0, separator));
+				return "file".equals(jarUrl.getProtocol()) ? new File(jarUrl.toURI()) : null;
+			}
+			else if ("file".equals(protocol)) {
+				return new File(url.toURI());
+			}
+		}
+		catch (IOException e) {
+			// not cacheable
+		}
+		catch (URISyntaxException e) {
+			// not cacheable
+		}
+		catch (IllegalArgumentException e) {
+			// not cacheable
+		}
+		return null;
+	}
+
+	private static class CachedNamespace {
+
+		private final String namespace;
+
+		private final long lastModified;
+
+		private final long length;
+
+		public CachedNamespace(String namespace, long lastModified, long length) {
+			this.namespace = namespace;
+			this.lastModified = lastModified;
+			this.length = length;
+		}
+	}
+
 }
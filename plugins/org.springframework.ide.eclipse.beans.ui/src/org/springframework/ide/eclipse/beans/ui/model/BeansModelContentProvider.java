@@ -24,6 +24,7 @@ import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.swt.widgets.Control;
 import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeanClassReferences;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansConfig;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelUtils;
 import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
 import org.springframework.ide.eclipse.beans.core.model.IBean;
@@ -104,6 +105,10 @@ public class BeansModelContentProvider implements ITreeContentProvider, ITreePat
 				return DEFAULT_NAMESPACE_CONTENT_PROVIDER.hasChildren(element);
 			}
 		}
+		else if (element instanceof BeansConfig) {
+			// avoid parsing configs that are not populated yet
+			return ((BeansConfig) element).hasElementChildren();
+		}
 		else if (element instanceof IModelElement) {
 			return ((IModelElement) element).getElementChildren().length > 0;
 		}
@@ -28,6 +28,8 @@ import org.junit.runners.Suite.SuiteClasses;
 	SpringPropertiesEditorTests.class,
 	TypeUtilTests.class,
 	FuzzyMapTests.class,
+	ConfigMetadataCacheTest.class,
+	SpringPropertiesIndexManagerTest.class,
 	TypeParserTest.class,
 
 	YamlASTTests.class,
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Pivotal, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Pivotal, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.boot.properties.editor.test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
+import org.springframework.boot.configurationmetadata.ParsedConfigurationMetadata;
+import org.springframework.ide.eclipse.boot.properties.editor.ConfigMetadataCache;
+
+public class ConfigMetadataCacheTest extends TestCase {
+
+	private static final String PROPERTIES_JSON =
+			"{\"groups\":[{\"name\":\"foo\",\"type\":\"demo.FooProperties\"}]," +
+			"\"properties\":[{\"name\":\"foo.bar\",\"type\":\"java.lang.String\",\"sourceType\":\"demo.FooProperties\"}]}";
+
+	private static final String HINTS_JSON =
+			"{\"hints\":[{\"name\":\"foo.bar\",\"values\":[{\"value\":\"a\"},{\"value\":\"b\"}]}]}";
+
+	public void testReuseUnlessStampsChanged() throws Exception {
+		ConfigMetadataCache cache = new ConfigMetadataCache();
+		AtomicInteger reads = new AtomicInteger();
+		ConfigMetadataCache.MetadataReader reader = () -> {
+			reads.incrementAndGet();
+			return Collections.singletonList(parse(PROPERTIES_JSON));
+		};
+
+		List<ParsedConfigurationMetadata> first = cache.get("jar:/some.jar", 1, 100, reader);
+		assertEquals(1, reads.get());
+		assertSame(first, cache.get("jar:/some.jar", 1, 100, reader));
+		assertEquals(1, reads.get());
+
+		cache.get("jar:/some.jar", 2, 100, reader);
+		assertEquals(2, reads.get());
+		cache.get("jar:/some.jar", 2, 101, reader);
+		assertEquals(3, reads.get());
+		cache.get("jar:/other.jar", 2, 101, reader);
+		assertEquals(4, reads.get());
+		assertEquals(2, cache.size());
+	}
+
+	public void testFailedReadIsNotCached() throws Exception {
+		ConfigMetadataCache cache = new ConfigMetadataCache();
+		AtomicInteger reads = new AtomicInteger();
+		ConfigMetadataCache.MetadataReader reader = () -> {
+			reads.incrementAndGet();
+			throw new IllegalStateException("Expected failure while reading metadata (test)");
+		};
+
+		assertTrue(cache.get("jar:/broken.jar", 1, 1, reader).isEmpty());
+		assertTrue(cache.get("jar:/broken.jar", 1, 1, reader).isEmpty());
+		assertEquals(2, reads.get());
+		assertEquals(0, cache.size());
+	}
+
+	public void testPartiallyReadFileIsNotCached() throws Exception {
+		ConfigMetadataCache cache = new ConfigMetadataCache();
+		AtomicInteger reads = new AtomicInteger();
+		ConfigMetadataCache.MetadataReader reader = () -> {
+			reads.incrementAndGet();
+			List<ParsedConfigurationMetadata> metadata = new ArrayList<>();
+			metadata.add(parse(PROPERTIES_JSON));
+			metadata.add(parse("{\"properties\":["));
+			return metadata;
+		};
+
+		assertTrue(cache.get("jar:/partial.jar", 1, 1, reader).isEmpty());
+		assertEquals(0, cache.size());
+		cache.get("jar:/partial.jar", 1, 1, reader);
+		assertEquals(2, reads.get());
+	}
+
+	public void testBoundedByPropertyCount() throws Exception {
+		//Each entry weighs two: the entry itself and its single property.
+		ConfigMetadataCache cache = new ConfigMetadataCache(6);
+		ConfigMetadataCache.MetadataReader reader = () -> Collections.singletonList(parse(PROPERTIES_JSON));
+		for (int i = 0; i < 10; i++) {
+			cache.get("jar:/some-"+i+".jar", 1, 1, reader);
+		}
+		assertTrue(cache.size() <= 3);
+
+		AtomicInteger reads = new AtomicInteger();
+		cache.get("jar:/some-9.jar", 1, 1, () -> {
+			reads.incrementAndGet();
+			return Collections.emptyList();
+		});
+		assertEquals(0, reads.get());
+	}
+
+	public void testParsedMetadataSharedByRepositories() throws Exception {
+		ParsedConfigurationMetadata properties = parse(PROPERTIES_JSON);
+		ParsedConfigurationMetadata hints = parse(HINTS_JSON);
+
+		ConfigurationMetadataRepository withHints = ConfigurationMetadataRepositoryJsonBuilder.create()
+				.withParsedMetadata(properties)
+				.withParsedMetadata(hints)
+				.build();
+		ConfigurationMetadataRepository withoutHints = ConfigurationMetadataRepositoryJsonBuilder.create()
+				.withParsedMetadata(properties)
+				.build();
+
+		ConfigurationMetadataProperty hinted = withHints.getAllProperties().get("foo.bar");
+		ConfigurationMetadataProperty plain = withoutHints.getAllProperties().get("foo.bar");
+		assertEquals(2, hinted.getValueHints().size());
+		//Hints of one repository must not leak into the shared parsed metadata.
+		assertEquals(0, plain.getValueHints().size());
+		assertNotSame(hinted, plain);
+		assertSame(plain, withoutHints.getAllGroups().get("foo").getSources().get("demo.FooProperties").getProperties().get("foo.bar"));
+	}
+
+	private ParsedConfigurationMetadata parse(String json) throws Exception {
+		return ConfigurationMetadataRepositoryJsonBuilder.create().parse("test", new ByteArrayInputStream(json.getBytes("UTF-8")));
+	}
+
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Pivotal, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Pivotal, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.boot.properties.editor.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.springframework.ide.eclipse.boot.properties.editor.FuzzyMap;
+import org.springframework.ide.eclipse.boot.properties.editor.test.FuzzyMapTests.TestMap;
+
+/**
+ * Times the indexed {@link FuzzyMap#find(String)} against matching every key sequentially,
+ * using the default test data blown up to roughly the size of the metadata of a project
+ * with Spring Cloud on its classpath.
+ * <p>
+ * The patterns searched for are what gets typed one keystroke at a time when entering property
+ * names, in full as well as abbreviated (first letter of each segment).
+ * <p>
+ * This is not part of {@link AllPropertiesFileEditorTests}, run it on demand. That both produce
+ * the same matches is checked by {@link FuzzyMapTests}.
+ */
+public class FuzzyMapBenchmark extends SpringPropertiesEditorTestHarness {
+
+	private static final String[] NAMESPACES = {
+			"",
+			"spring.cloud.config.",
+			"spring.cloud.consul.",
+			"spring.cloud.stream.",
+			"spring.cloud.bus.",
+			"spring.cloud.zookeeper.",
+			"spring.cloud.gateway.",
+			"spring.cloud.loadbalancer.",
+			"spring.cloud.netflix.",
+			"spring.cloud.vault.",
+			"spring.cloud.kubernetes.",
+			"spring.cloud.sleuth.",
+			"spring.cloud.aws.",
+			"spring.cloud.gcp.",
+			"spring.cloud.task.",
+			"spring.cloud.dataflow.",
+			"spring.cloud.function.",
+			"spring.cloud.security.",
+			"eureka.",
+			"hystrix.",
+			"ribbon.",
+			"zuul.",
+	};
+
+	private static final int ROUNDS = 5;
+
+	public void testIndexedFindAgainstSequentialScan() throws Exception {
+		defaultTestData();
+		TestMap map = new TestMap();
+		TreeMap<String, String> sorted = new TreeMap<>();
+		for (String namespace : NAMESPACES) {
+			for (String id : datas.keySet()) {
+				String key = namespace + id;
+				if (map.get(key)==null) {
+					map.add(key);
+					sorted.put(key, key);
+				}
+			}
+		}
+		assertTrue(map.size()>8000);
+
+		List<String> patterns = new ArrayList<>();
+		for (String id : datas.keySet()) {
+			FuzzyMapTests.addTypedPatterns(patterns, id);
+			FuzzyMapTests.addTypedPatterns(patterns, FuzzyMapTests.abbreviate(id));
+		}
+
+		long scanTime = 0;
+		long indexTime = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			for (String pattern : patterns) {
+				FuzzyMapTests.sequentialFind(sorted, pattern);
+			}
+			scanTime += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (String pattern : patterns) {
+				map.find(pattern);
+			}
+			indexTime += System.nanoTime() - start;
+		}
+		System.out.println("FuzzyMapBenchmark: "+map.size()+" keys, "+patterns.size()+" patterns x "+ROUNDS+" rounds");
+		System.out.println("  sequential scan: "+(scanTime / 1000000)+" ms");
+		System.out.println("  indexed find:    "+(indexTime / 1000000)+" ms");
+	}
+
+}
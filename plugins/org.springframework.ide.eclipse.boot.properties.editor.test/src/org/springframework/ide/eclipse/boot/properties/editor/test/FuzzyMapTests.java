@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015 Pivotal, Inc.
+ * Copyright (c) 2015, 2016 Pivotal, Inc.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,9 +10,12 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.boot.properties.editor.test;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map.Entry;
+import java.util.TreeMap;
 
 import junit.framework.TestCase;
 
@@ -22,6 +25,37 @@ import org.springframework.ide.eclipse.editor.support.util.FuzzyMatcher;
 
 public class FuzzyMapTests extends TestCase {
 
+	private static final String[] PROPERTY_NAMES = {
+			"server.port",
+			"server.address",
+			"server.context-path",
+			"server.ssl.key-store",
+			"server.ssl.key-store-password",
+			"spring.application.name",
+			"spring.profiles.active",
+			"spring.datasource.url",
+			"spring.datasource.username",
+			"spring.datasource.password",
+			"spring.jpa.show-sql",
+			"spring.jpa.hibernate.ddl-auto",
+			"logging.level",
+			"logging.file",
+			"management.port",
+			"management.security.enabled",
+			"endpoints.health.sensitive",
+			"enabled",
+			"uri",
+			"pp"
+	};
+
+	private static final String[] NAMESPACES = {
+			"",
+			"spring.cloud.config.",
+			"spring.cloud.stream.",
+			"eureka.",
+			"zuul."
+	};
+
 	public void testMatches() {
 		assertMatch(true, "", "");
 		assertMatch(true, "", "abc");
@@ -65,7 +99,29 @@ public class FuzzyMapTests extends TestCase {
 		);
 	}
 
-	public class TestMap extends FuzzyMap<String> {
+	public void testFindAfterAdd() {
+		TestMap map = new TestMap("server.port", "spring.application.name");
+		assertEquals(1, map.find("sport").size());
+
+		//Adding entries after a search must be reflected by subsequent searches
+		map.add("spring.profiles");
+		map.add("xsport");
+		List<Match<String>> found = map.find("sp");
+		assertEquals(4, found.size());
+		//Sorted alphabetically
+		assertEquals("server.port", found.get(0).data);
+		assertEquals("spring.application.name", found.get(1).data);
+		assertEquals("spring.profiles", found.get(2).data);
+		assertEquals("xsport", found.get(3).data);
+
+		assertEquals(0, map.find("spox").size());
+		assertEquals(1, map.find("x").size());
+		assertEquals(0, map.find("q").size());
+		//Repeated characters must occur repeatedly
+		assertEquals(2, map.find("pp").size());
+	}
+
+	public static class TestMap extends FuzzyMap<String> {
 		public TestMap(String... entries) {
 			for (String e : entries) {
 				add(e);
@@ -76,6 +132,31 @@ public class FuzzyMapTests extends TestCase {
 		}
 	}
 
+	public void testIndexedFindMatchesSequentialScan() {
+		TestMap map = new TestMap();
+		TreeMap<String, String> sorted = new TreeMap<>();
+		for (String namespace : NAMESPACES) {
+			for (String name : PROPERTY_NAMES) {
+				String key = namespace + name;
+				map.add(key);
+				sorted.put(key, key);
+			}
+		}
+
+		List<String> patterns = new ArrayList<>();
+		for (String name : PROPERTY_NAMES) {
+			addTypedPatterns(patterns, name);
+			addTypedPatterns(patterns, abbreviate(name));
+		}
+		patterns.add("scc");
+		patterns.add("xyz");
+		patterns.add("..");
+
+		for (String pattern : patterns) {
+			assertSameMatches(pattern, sequentialFind(sorted, pattern), map.find(pattern));
+		}
+	}
+
 	public void testCommonPrefix() {
 		String[] entries = {
 				"a",
@@ -166,4 +247,48 @@ public class FuzzyMapTests extends TestCase {
 		assertEquals(expect, actual);
 	}
 
+	/**
+	 * Adds the given text as it is typed, one keystroke at a time.
+	 */
+	static void addTypedPatterns(List<String> patterns, String typed) {
+		for (int i = 1; i <= typed.length(); i++) {
+			patterns.add(typed.substring(0, i));
+		}
+	}
+
+	/**
+	 * Abbreviates a property name to the first letter of each segment.
+	 */
+	static String abbreviate(String id) {
+		StringBuilder abbreviation = new StringBuilder();
+		for (String segment : id.split("\\.")) {
+			if (segment.length()>0) {
+				abbreviation.append(segment.charAt(0));
+			}
+		}
+		return abbreviation.toString();
+	}
+
+	/**
+	 * Matches every key without any index, the way {@link FuzzyMap#find(String)} did before it had one.
+	 */
+	static List<Match<String>> sequentialFind(TreeMap<String, String> entries, String pattern) {
+		List<Match<String>> matches = new ArrayList<>();
+		for (Entry<String, String> e : entries.entrySet()) {
+			double score = FuzzyMatcher.matchScore(pattern, e.getKey());
+			if (score!=0.0) {
+				matches.add(new Match<String>(pattern, score, e.getValue()));
+			}
+		}
+		return matches;
+	}
+
+	private static void assertSameMatches(String pattern, List<Match<String>> expected, List<Match<String>> actual) {
+		assertEquals("Number of matches for '"+pattern+"'", expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(pattern, expected.get(i).data, actual.get(i).data);
+			assertEquals(pattern, expected.get(i).score, actual.get(i).score, 0.0);
+		}
+	}
+
 }
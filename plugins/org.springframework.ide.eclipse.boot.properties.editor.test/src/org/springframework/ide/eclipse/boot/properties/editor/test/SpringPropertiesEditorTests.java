@@ -28,6 +28,7 @@ import org.springframework.ide.eclipse.boot.properties.editor.reconciling.Spring
 import org.springframework.ide.eclipse.boot.properties.editor.test.ApplicationYamlEditorTestHarness.YamlEditor;
 import org.springframework.ide.eclipse.boot.properties.editor.util.AptUtils;
 import org.springframework.ide.eclipse.boot.util.JavaProjectUtil;
+import org.springframework.ide.eclipse.editor.support.reconcile.IReconcileEngine;
 import org.springframework.ide.eclipse.editor.support.reconcile.ReconcileProblem;
 
 import com.google.common.collect.ImmutableList;
@@ -264,6 +265,36 @@ public class SpringPropertiesEditorTests extends SpringPropertiesEditorTestHarne
 
 	}
 
+	public void testReconcileAfterEdits() throws Exception {
+		defaultTestData();
+		MockEditor editor = newEditor(
+				"server.port=8080\n" +
+				"server.port.extracrap=8080\n" +
+				"logging.level.com.acme=INFO\n" +
+				"logging.snuggem=what?\n" +
+				"bogus.no.good=true\n"
+		);
+		IReconcileEngine engine = createReconcileEngine();
+		assertSameProblemsAsFullReconcile(engine, editor);
+
+		//Edit a value, moving all problems after it
+		editor.document.replace(editor.startOf("8080"), 4, "not-a-port");
+		assertSameProblemsAsFullReconcile(engine, editor);
+		assertProblem(editor, "not-a-port");
+
+		//Remove a line with a problem
+		editor.document.replace(editor.startOf("logging.snuggem"), "logging.snuggem=what?\n".length(), "");
+		assertSameProblemsAsFullReconcile(engine, editor);
+
+		//Introduce a duplicate of an unchanged property
+		editor.document.replace(editor.document.getLength(), 0, "server.port=8080\n");
+		assertSameProblemsAsFullReconcile(engine, editor);
+
+		//Empty lines moving everything around
+		editor.document.replace(0, 0, "\n\n");
+		assertSameProblemsAsFullReconcile(engine, editor);
+	}
+
 	public void testReconcilePojoArray() throws Exception {
 		IProject p = createPredefinedMavenProject("demo-list-of-pojo");
 		IJavaProject jp = JavaCore.create(p);
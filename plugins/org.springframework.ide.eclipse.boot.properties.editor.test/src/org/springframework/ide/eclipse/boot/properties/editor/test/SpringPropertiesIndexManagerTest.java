@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Pivotal, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Pivotal, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.boot.properties.editor.test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.boot.properties.editor.FuzzyMap;
+import org.springframework.ide.eclipse.boot.properties.editor.SpringPropertiesEditorPlugin;
+import org.springframework.ide.eclipse.boot.properties.editor.metadata.PropertyInfo;
+import org.springframework.ide.eclipse.boot.properties.editor.metadata.ValueProviderRegistry;
+import org.springframework.ide.eclipse.boot.properties.editor.util.SpringPropertiesIndexManager;
+import org.springframework.ide.eclipse.boot.test.BootProjectTestHarness;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+public class SpringPropertiesIndexManagerTest {
+
+	private static final long BUILD_TIMEOUT = 60;
+
+	private IJavaProject project;
+	private SpringPropertiesIndexManager manager;
+	private final Semaphore builtIndexes = new Semaphore(0);
+
+	@Before
+	public void setup() throws Exception {
+		StsTestUtil.deleteAllProjects();
+		project = JavaCore.create(BootProjectTestHarness.createPredefinedMavenProject("demo",
+				"org.springframework.ide.eclipse.boot.properties.editor.test"));
+		manager = new SpringPropertiesIndexManager(ValueProviderRegistry.getDefault());
+		manager.addListener((m) -> builtIndexes.release());
+	}
+
+	@After
+	public void teardown() throws Exception {
+		SpringPropertiesEditorPlugin.getClasspathListeners().removeListener(manager);
+	}
+
+	@Test
+	public void testPlaceholderThenBuiltIndexThenRebuild() throws Exception {
+		FuzzyMap<PropertyInfo> placeholder = manager.get(project);
+		assertTrue(placeholder.isEmpty());
+
+		assertTrue("Index not built", builtIndexes.tryAcquire(BUILD_TIMEOUT, TimeUnit.SECONDS));
+		FuzzyMap<PropertyInfo> built = manager.get(project);
+		assertNotSame(placeholder, built);
+		assertFalse(built.isEmpty());
+		assertNotNull(built.get("server.port"));
+
+		manager.classpathChanged(project);
+		assertTrue("Index not rebuilt", builtIndexes.tryAcquire(BUILD_TIMEOUT, TimeUnit.SECONDS));
+		FuzzyMap<PropertyInfo> rebuilt = manager.get(project);
+		assertNotSame(built, rebuilt);
+		assertNotNull(rebuilt.get("server.port"));
+	}
+
+}
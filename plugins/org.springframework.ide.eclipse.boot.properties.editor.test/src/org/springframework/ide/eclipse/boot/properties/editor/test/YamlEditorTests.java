@@ -19,6 +19,9 @@ import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
 import org.springframework.ide.eclipse.boot.properties.editor.metadata.CachingValueProvider;
 import org.springframework.ide.eclipse.boot.properties.editor.metadata.PropertyInfo;
+import org.springframework.ide.eclipse.boot.properties.editor.reconciling.ReconcileProblemCache;
+import org.springframework.ide.eclipse.boot.properties.editor.yaml.reconcile.ApplicationYamlReconcileEngine;
+import org.springframework.ide.eclipse.editor.support.reconcile.IReconcileEngine;
 import org.springframework.ide.eclipse.editor.support.reconcile.ReconcileProblem;
 import org.springframework.ide.eclipse.editor.support.util.StringUtil;
 
@@ -237,6 +240,71 @@ public class YamlEditorTests extends ApplicationYamlEditorTestHarness {
 		);
 	}
 
+	public void testReconcileAfterEdits() throws Exception {
+		defaultTestData();
+		YamlEditor editor = new YamlEditor(
+				"server:\n" +
+				"  port: \n" +
+				"    extracrap: 8080\n" +
+				"logging:\n"+
+				"  level:\n" +
+				"    com.acme: INFO\n" +
+				"  snuggem: what?\n" +
+				"bogus:\n" +
+				"  no: \n" +
+				"    good: true\n" +
+				"---\n" +
+				"spring:\n" +
+				"  profiles: other\n" +
+				"server:\n" +
+				"  port: bad\n"
+		);
+		IReconcileEngine engine = createReconcileEngine();
+		assertSameProblemsAsFullReconcile(engine, editor);
+
+		//Edit nested under a top-level key, moving all problems after it
+		editor.document.replace(editor.startOf("com.acme"), 0, "org.");
+		assertSameProblemsAsFullReconcile(engine, editor);
+
+		//Indenting a key changes its meaning, though its own text doesn't change
+		editor.document.replace(editor.startOf("bogus:"), 0, "  ");
+		assertSameProblemsAsFullReconcile(engine, editor);
+
+		//Duplicate of an unchanged top-level key
+		editor.document.replace(editor.startOf("---"), 0, "server:\n  port: 8888\n");
+		assertSameProblemsAsFullReconcile(engine, editor);
+
+		//Fix a problem in the second document
+		editor.document.replace(editor.startOf("bad"), 3, "9999");
+		assertSameProblemsAsFullReconcile(engine, editor);
+	}
+
+	public void testReconcileOnlyChecksEditedEntries() throws Exception {
+		defaultTestData();
+		YamlEditor editor = new YamlEditor(
+				"server:\n" +
+				"  port: bad\n" +
+				"logging:\n"+
+				"  level:\n" +
+				"    com.acme: INFO\n" +
+				"bogus: true\n"
+		);
+		ApplicationYamlReconcileEngine engine = createReconcileEngine();
+		ReconcileProblemCache cache = engine.getProblemCache();
+
+		assertSameProblemsAsFullReconcile(engine, editor);
+		assertEquals(3, cache.getCheckedEntryCount());
+
+		//Nothing changed, so nothing is checked again
+		reconcile(engine, editor);
+		assertEquals(3, cache.getCheckedEntryCount());
+
+		//Only the edited entry is checked again
+		editor.document.replace(editor.startOf("bad"), 3, "8888");
+		assertSameProblemsAsFullReconcile(engine, editor);
+		assertEquals(4, cache.getCheckedEntryCount());
+	}
+
 	public void test_STS_4140_StringArrayReconciling() throws Exception {
 		defaultTestData();
 
@@ -674,12 +674,31 @@ public abstract class YamlOrPropertyEditorTestHarness extends TestCase {
 	}
 
 	public List<ReconcileProblem> reconcile(MockEditor editor) {
-		IReconcileEngine reconciler = createReconcileEngine();
+		return reconcile(createReconcileEngine(), editor);
+	}
+
+	/**
+	 * Reconcile with the given engine. Unlike {@link #reconcile(MockEditor)} this allows
+	 * reusing an engine across edits of the document, like a real editor does.
+	 */
+	public List<ReconcileProblem> reconcile(IReconcileEngine reconciler, MockEditor editor) {
 		MockProblemCollector problems=new MockProblemCollector(ignoredTypes);
 		reconciler.reconcile(editor.document, problems, new NullProgressMonitor());
 		return problems.getAllProblems();
 	}
 
+	/**
+	 * Reconcile with the given (reused) engine and check that it finds the same problems
+	 * as a freshly created engine.
+	 */
+	public void assertSameProblemsAsFullReconcile(IReconcileEngine reconciler, MockEditor editor) throws BadLocationException {
+		List<ReconcileProblem> expected = reconcile(editor);
+		List<ReconcileProblem> actual = reconcile(reconciler, editor);
+		Collections.sort(expected, PROBLEM_COMPARATOR);
+		Collections.sort(actual, PROBLEM_COMPARATOR);
+		assertEquals(problemSumary(editor, expected), problemSumary(editor, actual));
+	}
+
 	public void ignoreProblem(ProblemType type) {
 		ignoredTypes.add(type);
 	}
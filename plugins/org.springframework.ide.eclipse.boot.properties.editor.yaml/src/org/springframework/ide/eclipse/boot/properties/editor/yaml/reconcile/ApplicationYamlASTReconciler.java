@@ -21,8 +21,11 @@ import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
 import org.springframework.ide.eclipse.boot.properties.editor.metadata.PropertyInfo;
 import org.springframework.ide.eclipse.boot.properties.editor.quickfix.ReplaceDeprecatedPropertyQuickfix;
+import org.springframework.ide.eclipse.boot.properties.editor.reconciling.ReconcileProblemCache;
 import org.springframework.ide.eclipse.boot.properties.editor.reconciling.SpringPropertiesProblemType;
 import org.springframework.ide.eclipse.boot.properties.editor.reconciling.SpringPropertyProblem;
 import org.springframework.ide.eclipse.boot.properties.editor.util.Type;
@@ -52,14 +55,29 @@ import org.yaml.snakeyaml.nodes.SequenceNode;
  */
 public class ApplicationYamlASTReconciler implements YamlASTReconciler {
 
-	private final IProblemCollector problems;
+	private IProblemCollector problems;
 	private final TypeUtil typeUtil;
 	private final IndexNavigator nav;
 
+	private final IDocument doc;
+	private final ReconcileProblemCache problemCache;
+
 	public ApplicationYamlASTReconciler(IProblemCollector problems, IndexNavigator nav, TypeUtil typeUtil) {
+		this(problems, nav, typeUtil, null, null);
+	}
+
+	/**
+	 * Create a reconciler which reuses the problems found for the top-level keys of a document
+	 * during previous reconciles, unless the text of the key, including everything nested under it,
+	 * has been edited since. The problemCache must have been {@link ReconcileProblemCache#beginReconcile}
+	 * for the current index and typeUtil already.
+	 */
+	public ApplicationYamlASTReconciler(IProblemCollector problems, IndexNavigator nav, TypeUtil typeUtil, IDocument doc, ReconcileProblemCache problemCache) {
 		this.problems = problems;
 		this.typeUtil = typeUtil;
 		this.nav = nav;
+		this.doc = doc;
+		this.problemCache = problemCache;
 	}
 
 	@Override
@@ -73,9 +91,12 @@ public class ApplicationYamlASTReconciler implements YamlASTReconciler {
 			mon.beginTask("Reconcile", nodes.size());
 			try {
 				for (Node node : nodes) {
-					reconcile(node, nav);
+					reconcileDocument(node, nav);
 					mon.worked(1);
 				}
+				if (problemCache!=null) {
+					problemCache.endReconcile();
+				}
 			} finally {
 				mon.done();
 			}
@@ -101,6 +122,45 @@ public class ApplicationYamlASTReconciler implements YamlASTReconciler {
 		}
 	}
 
+	/**
+	 * Reconcile the root node of a yaml document. Same as {@link #reconcile(Node, IndexNavigator)}
+	 * but problems of the top-level keys are taken from the problemCache when possible.
+	 */
+	private void reconcileDocument(Node node, IndexNavigator nav) {
+		if (problemCache!=null && node.getNodeId()==NodeId.mapping) {
+			checkForDuplicateKeys((MappingNode)node);
+			for (NodeTuple entry : ((MappingNode)node).getValue()) {
+				reconcileCached(entry, nav);
+			}
+		} else {
+			reconcile(node, nav);
+		}
+	}
+
+	private void reconcileCached(NodeTuple entry, IndexNavigator nav) {
+		int start = entry.getKeyNode().getStartMark().getIndex();
+		int end = entry.getValueNode().getEndMark().getIndex();
+		String text;
+		try {
+			//Indentation of the key is part of the identity, as it determines how the nested lines are parsed.
+			text = entry.getKeyNode().getStartMark().getColumn() + ":" + doc.get(start, end-start);
+		} catch (BadLocationException e) {
+			reconcile(entry, nav);
+			return;
+		}
+		if (!problemCache.replay(text, start, problems)) {
+			IProblemCollector collector = problems;
+			ReconcileProblemCache.Recorder recorder = problemCache.record(text, start, collector);
+			problems = recorder;
+			try {
+				reconcile(entry, nav);
+				recorder.done();
+			} finally {
+				problems = collector;
+			}
+		}
+	}
+
 	private void checkForDuplicateKeys(MappingNode node) {
 		Set<String> duplicateKeys = new HashSet<>();
 		Set<String> seenKeys = new HashSet<>();
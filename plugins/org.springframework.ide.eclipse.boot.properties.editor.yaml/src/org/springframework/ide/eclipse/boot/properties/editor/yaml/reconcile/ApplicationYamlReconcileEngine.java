@@ -15,8 +15,10 @@ import static org.springframework.ide.eclipse.boot.properties.editor.reconciling
 import org.eclipse.jface.text.IDocument;
 import org.springframework.ide.eclipse.boot.properties.editor.FuzzyMap;
 import org.springframework.ide.eclipse.boot.properties.editor.metadata.PropertyInfo;
+import org.springframework.ide.eclipse.boot.properties.editor.reconciling.ReconcileProblemCache;
 import org.springframework.ide.eclipse.boot.properties.editor.reconciling.SpringPropertyProblem;
 import org.springframework.ide.eclipse.boot.properties.editor.util.SpringPropertyIndexProvider;
+import org.springframework.ide.eclipse.boot.properties.editor.util.TypeUtil;
 import org.springframework.ide.eclipse.boot.properties.editor.util.TypeUtilProvider;
 import org.springframework.ide.eclipse.editor.support.reconcile.IProblemCollector;
 import org.springframework.ide.eclipse.editor.support.reconcile.ReconcileProblem;
@@ -29,6 +31,12 @@ public class ApplicationYamlReconcileEngine extends YamlReconcileEngine {
 	private SpringPropertyIndexProvider indexProvider;
 	private TypeUtilProvider typeUtilProvider;
 
+	/**
+	 * Problems of the top-level keys checked during previous reconciles. Only keys of which the
+	 * text has been edited since are checked again.
+	 */
+	private final ReconcileProblemCache problemCache = new ReconcileProblemCache();
+
 	public ApplicationYamlReconcileEngine(YamlASTProvider astProvider, SpringPropertyIndexProvider indexProvider, TypeUtilProvider typeUtilProvider) {
 		super(astProvider);
 		this.indexProvider = indexProvider;
@@ -39,11 +47,17 @@ public class ApplicationYamlReconcileEngine extends YamlReconcileEngine {
 		FuzzyMap<PropertyInfo> index = indexProvider.getIndex(doc);
 		if (index!=null && !index.isEmpty()) {
 			IndexNavigator nav = IndexNavigator.with(index);
-			return new ApplicationYamlASTReconciler(problemCollector, nav, typeUtilProvider.getTypeUtil(doc));
+			TypeUtil typeUtil = typeUtilProvider.getTypeUtil(doc);
+			problemCache.beginReconcile(index, typeUtil);
+			return new ApplicationYamlASTReconciler(problemCollector, nav, typeUtil, doc, problemCache);
 		}
 		return null;
 	}
 
+	public ReconcileProblemCache getProblemCache() {
+		return problemCache;
+	}
+
 	@Override
 	protected ReconcileProblem syntaxError(String msg, int offset, int len) {
 		return SpringPropertyProblem.problem(YAML_SYNTAX_ERROR, msg, offset, len);
@@ -89,6 +89,40 @@ public final class ConfigurationMetadataRepositoryJsonBuilder {
 		return this;
 	}
 
+	/**
+	 * Parse the specified {@link InputStream} json document using the default charset,
+	 * without adding it to this builder. The result can be added to any number of
+	 * builders with {@link #withParsedMetadata(ParsedConfigurationMetadata)}, so a
+	 * document that is part of many repositories only has to be parsed once.
+	 * <p>
+	 * Leaves the stream open when done.
+	 * @param origin optional information object to help identify where the inputstream came from
+	 * @param inputStream the source input stream
+	 * @return the parsed document
+	 * @throws IOException in case of I/O errors
+	 */
+	public ParsedConfigurationMetadata parse(Object origin, InputStream inputStream)
+			throws IOException {
+		if (inputStream == null) {
+			throw new IllegalArgumentException("InputStream must not be null.");
+		}
+		return new ParsedConfigurationMetadata(origin,
+				parseRaw(origin, inputStream, this.defaultCharset));
+	}
+
+	/**
+	 * Add the content of a json document parsed before with
+	 * {@link #parse(Object, InputStream)}. If this metadata repository holds items that
+	 * were loaded previously, these are ignored.
+	 * @param metadata the parsed document
+	 * @return this builder
+	 */
+	public ConfigurationMetadataRepositoryJsonBuilder withParsedMetadata(
+			ParsedConfigurationMetadata metadata) {
+		this.rawDatas.add(metadata.createRawMetadata());
+		return this;
+	}
+
 	/**
 	 * Build a {@link ConfigurationMetadataRepository} with the current state of this
 	 * builder.
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Pivotal, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Pivotal, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.boot.configurationmetadata;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parsed content of a single json metadata document. Unlike the content added with
+ * {@link ConfigurationMetadataRepositoryJsonBuilder#withJsonResource(Object, java.io.InputStream)},
+ * it can be added to any number of builders: every builder works on a copy of the parsed
+ * sources and properties, as building a repository modifies them.
+ *
+ * @see ConfigurationMetadataRepositoryJsonBuilder#parse(Object, java.io.InputStream)
+ * @see ConfigurationMetadataRepositoryJsonBuilder#withParsedMetadata(ParsedConfigurationMetadata)
+ */
+public final class ParsedConfigurationMetadata {
+
+	private final Object origin;
+
+	private final RawConfigurationMetadata metadata;
+
+	ParsedConfigurationMetadata(Object origin, RawConfigurationMetadata metadata) {
+		this.origin = origin;
+		this.metadata = metadata;
+	}
+
+	/**
+	 * @return the number of properties of the document
+	 */
+	public int getPropertyCount() {
+		return this.metadata.getItems().size();
+	}
+
+	RawConfigurationMetadata createRawMetadata() {
+		List<ConfigurationMetadataSource> sources = new ArrayList<ConfigurationMetadataSource>(
+				this.metadata.getSources().size());
+		for (ConfigurationMetadataSource source : this.metadata.getSources()) {
+			sources.add(copy(source));
+		}
+		List<ConfigurationMetadataItem> items = new ArrayList<ConfigurationMetadataItem>(
+				this.metadata.getItems().size());
+		for (ConfigurationMetadataItem item : this.metadata.getItems()) {
+			items.add(copy(item));
+		}
+		//Hints are not modified when building a repository.
+		return new RawConfigurationMetadata(this.origin, sources, items, this.metadata.getHints());
+	}
+
+	private static ConfigurationMetadataSource copy(ConfigurationMetadataSource source) {
+		ConfigurationMetadataSource copy = new ConfigurationMetadataSource();
+		copy.setGroupId(source.getGroupId());
+		copy.setType(source.getType());
+		copy.setDescription(source.getDescription());
+		copy.setShortDescription(source.getShortDescription());
+		copy.setSourceType(source.getSourceType());
+		copy.setSourceMethod(source.getSourceMethod());
+		return copy;
+	}
+
+	private static ConfigurationMetadataItem copy(ConfigurationMetadataItem item) {
+		ConfigurationMetadataItem copy = new ConfigurationMetadataItem();
+		copy.setId(item.getId());
+		copy.setName(item.getName());
+		copy.setType(item.getType());
+		copy.setDescription(item.getDescription());
+		copy.setShortDescription(item.getShortDescription());
+		copy.setDefaultValue(item.getDefaultValue());
+		copy.setDeprecation(item.getDeprecation());
+		copy.setSourceType(item.getSourceType());
+		copy.setSourceMethod(item.getSourceMethod());
+		Hints hints = item.getHints();
+		copy.getHints().getKeyHints().addAll(hints.getKeyHints());
+		copy.getHints().getKeyProviders().addAll(hints.getKeyProviders());
+		copy.getHints().getValueHints().addAll(hints.getValueHints());
+		copy.getHints().getValueProviders().addAll(hints.getValueProviders());
+		return copy;
+	}
+
+	@Override
+	public String toString() {
+		return "ParsedConfigurationMetadata("+this.origin+")";
+	}
+
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Pivotal, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Pivotal, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.boot.properties.editor;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.boot.configurationmetadata.ParsedConfigurationMetadata;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+
+/**
+ * Workspace wide cache of the parsed config metadata of the jars and metadata files on
+ * the classpath of projects. An entry is reused as long as the stamps (e.g. modification
+ * time and size) of the file it was read from are unchanged. So assembling the metadata
+ * repository of a project after a classpath change only reads files that have changed or
+ * were not on any classpath before.
+ * <p>
+ * Entries are also kept for files without any metadata, most jars on a classpath, to
+ * avoid opening these again.
+ * <p>
+ * The cache is bounded by the number of properties it holds (each entry counts as at least
+ * one), so files that are no longer on any classpath are eventually evicted.
+ */
+public class ConfigMetadataCache {
+
+	/**
+	 * Default bound of the cache, roughly the number of properties of a hundred boot projects
+	 * with different dependencies.
+	 */
+	public static final long DEFAULT_MAX_WEIGHT = 100000;
+
+	private static final ConfigMetadataCache DEFAULT = new ConfigMetadataCache();
+
+	/**
+	 * Reads the metadata of a file when there is no valid cache entry. A reader must throw
+	 * an exception rather than return the metadata it could read when some part of the file
+	 * can't be read, as the returned metadata is cached.
+	 */
+	public interface MetadataReader {
+		List<ParsedConfigurationMetadata> read() throws Exception;
+	}
+
+	private final Cache<String, Entry> entries;
+
+	public ConfigMetadataCache() {
+		this(DEFAULT_MAX_WEIGHT);
+	}
+
+	/**
+	 * @param maxWeight Maximum number of properties held by the cache.
+	 */
+	public ConfigMetadataCache(long maxWeight) {
+		entries = CacheBuilder.newBuilder()
+				.maximumWeight(maxWeight)
+				.weigher((Weigher<String, Entry>) (key, entry) -> entry.weight())
+				.build();
+	}
+
+	public static ConfigMetadataCache getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Get the metadata for the given file from the cache, or read it with the given reader
+	 * when the file has not been read before or its stamps changed. If the reader fails,
+	 * the error is logged and no metadata is returned (nor cached).
+	 *
+	 * @param key Uniquely identifies the file.
+	 */
+	public List<ParsedConfigurationMetadata> get(String key, long stamp, long size, MetadataReader reader) {
+		Entry entry = entries.getIfPresent(key);
+		if (entry!=null && entry.stamp==stamp && entry.size==size) {
+			return entry.metadata;
+		}
+		try {
+			List<ParsedConfigurationMetadata> metadata = Collections.unmodifiableList(reader.read());
+			entries.put(key, new Entry(stamp, size, metadata));
+			return metadata;
+		} catch (Exception e) {
+			entries.invalidate(key);
+			SpringPropertiesEditorPlugin.log(e);
+			return Collections.emptyList();
+		}
+	}
+
+	public void clear() {
+		entries.invalidateAll();
+	}
+
+	public int size() {
+		return (int) entries.size();
+	}
+
+	private static class Entry {
+		final long stamp;
+		final long size;
+		final List<ParsedConfigurationMetadata> metadata;
+
+		Entry(long stamp, long size, List<ParsedConfigurationMetadata> metadata) {
+			this.stamp = stamp;
+			this.size = size;
+			this.metadata = metadata;
+		}
+
+		int weight() {
+			int weight = 1;
+			for (ParsedConfigurationMetadata md : metadata) {
+				weight += md.getPropertyCount();
+			}
+			return weight;
+		}
+	}
+
+}
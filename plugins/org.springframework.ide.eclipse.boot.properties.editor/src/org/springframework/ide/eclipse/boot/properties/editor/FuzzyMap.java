@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014 Pivotal, Inc.
+ * Copyright (c) 2014, 2016 Pivotal, Inc.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,11 +11,15 @@
 package org.springframework.ide.eclipse.boot.properties.editor;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
 import org.springframework.ide.eclipse.editor.support.util.FuzzyMatcher;
@@ -28,6 +32,12 @@ import org.springframework.ide.eclipse.editor.support.util.StringUtil;
  * <p>
  * The collection can then be searched for items who's key matches
  * simple 'fuzzy' patterns.
+ * <p>
+ * Searches are answered from an index of the keys which is (re)built lazily on the first
+ * search after the map has been modified. The index only narrows down the set of keys
+ * that can possibly match a pattern, the score of each remaining key is still computed by
+ * {@link FuzzyMatcher}. So searching through the index yields exactly the same matches,
+ * in the same order, as matching every key.
  */
 public abstract class FuzzyMap<E> implements Iterable<E> {
 
@@ -69,6 +79,11 @@ public abstract class FuzzyMap<E> implements Iterable<E> {
 
 	private TreeMap<String,E> entries = new TreeMap<String, E>();
 
+	/**
+	 * Index over the current entries, null if it needs to be rebuilt.
+	 */
+	private KeyIndex<E> index = null;
+
 	protected abstract String getKey(E entry);
 
 	public void add(E value) {
@@ -77,6 +92,9 @@ public abstract class FuzzyMap<E> implements Iterable<E> {
 		E existing = entries.get(key);
 		if (existing==null) {
 			entries.put(getKey(value), value);
+			synchronized (this) {
+				index = null;
+			}
 		} else {
 			SpringPropertiesEditorPlugin.warning(FuzzyMap.class.getName()+": Multiple entries for key "+key+" some entries discarded");
 		}
@@ -100,19 +118,111 @@ public abstract class FuzzyMap<E> implements Iterable<E> {
 			}
 			return matches;
 		} else {
-			//TODO: optimize somehow with a smarter index? (right now searches all map entries sequentially)
+			KeyIndex<E> index = getIndex();
 			ArrayList<Match<E>> matches = new ArrayList<Match<E>>();
-			for (Entry<String, E> e : entries.entrySet()) {
-				String key = e.getKey();
-				double score = FuzzyMatcher.matchScore(pattern, key);
+			BitSet candidates = index.getCandidates(pattern);
+			//Candidates are visited in ascending order, which is the order of the keys in the TreeMap.
+			for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i+1)) {
+				double score = FuzzyMatcher.matchScore(pattern, index.keys[i]);
 				if (score!=0.0) {
-					matches.add(new Match<E>(pattern, score, e.getValue()));
+					matches.add(new Match<E>(pattern, score, index.values.get(i)));
 				}
 			}
 			return matches;
 		}
 	}
 
+	private synchronized KeyIndex<E> getIndex() {
+		if (index==null) {
+			index = new KeyIndex<E>(entries);
+		}
+		return index;
+	}
+
+	/**
+	 * Index over the keys of the map. Keys are numbered in their lexicographic order.
+	 * <p>
+	 * For every character there is a posting list of the keys containing that character.
+	 * For each pair of consecutive characters in a pattern, a key can only match if the
+	 * first character occurs somewhere before the last occurrence of the second one. Posting
+	 * lists for such (ordered) character pairs are computed from the character posting lists on
+	 * first use and kept for subsequent searches, typically the next keystrokes.
+	 */
+	private static class KeyIndex<E> {
+
+		private final String[] keys;
+		private final List<E> values;
+		private final Map<Character, BitSet> charPostings = new HashMap<Character, BitSet>();
+		private final Map<String, BitSet> pairPostings = new ConcurrentHashMap<String, BitSet>();
+
+		KeyIndex(TreeMap<String, E> entries) {
+			keys = new String[entries.size()];
+			values = new ArrayList<E>(entries.size());
+			int i = 0;
+			for (Entry<String, E> e : entries.entrySet()) {
+				String key = e.getKey();
+				keys[i] = key;
+				values.add(e.getValue());
+				for (int j = 0; j < key.length(); j++) {
+					Character c = key.charAt(j);
+					BitSet posting = charPostings.get(c);
+					if (posting==null) {
+						posting = new BitSet(keys.length);
+						charPostings.put(c, posting);
+					}
+					posting.set(i);
+				}
+				i++;
+			}
+		}
+
+		/**
+		 * Returns the keys that may match the pattern. The returned BitSet
+		 * is a copy that can be modified by the caller.
+		 */
+		BitSet getCandidates(String pattern) {
+			if (pattern.length()==1) {
+				BitSet posting = charPostings.get(pattern.charAt(0));
+				return posting==null ? new BitSet() : (BitSet) posting.clone();
+			}
+			BitSet candidates = null;
+			for (int i = 1; i < pattern.length(); i++) {
+				BitSet posting = getPairPosting(pattern.charAt(i-1), pattern.charAt(i));
+				if (candidates==null) {
+					candidates = (BitSet) posting.clone();
+				} else {
+					candidates.and(posting);
+				}
+				if (candidates.isEmpty()) {
+					break;
+				}
+			}
+			return candidates;
+		}
+
+		private BitSet getPairPosting(char first, char second) {
+			String pair = new String(new char[] { first, second });
+			BitSet posting = pairPostings.get(pair);
+			if (posting==null) {
+				posting = new BitSet(keys.length);
+				BitSet firstPosting = charPostings.get(first);
+				BitSet secondPosting = charPostings.get(second);
+				if (firstPosting!=null && secondPosting!=null) {
+					BitSet both = (BitSet) firstPosting.clone();
+					both.and(secondPosting);
+					for (int i = both.nextSetBit(0); i >= 0; i = both.nextSetBit(i+1)) {
+						String key = keys[i];
+						if (key.indexOf(first) < key.lastIndexOf(second)) {
+							posting.set(i);
+						}
+					}
+				}
+				pairPostings.put(pair, posting);
+			}
+			return posting;
+		}
+	}
+
 	/**
 	 * Searches the index for the longest string which is both
 	 *  - a prefix of propertyName
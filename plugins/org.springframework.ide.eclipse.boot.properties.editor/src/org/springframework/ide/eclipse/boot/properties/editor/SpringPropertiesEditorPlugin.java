@@ -17,6 +17,7 @@ import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
 import org.springframework.ide.eclipse.boot.properties.editor.metadata.ValueProviderRegistry;
+import org.springframework.ide.eclipse.boot.properties.editor.reconciling.ReconcileProblemCache;
 import org.springframework.ide.eclipse.boot.properties.editor.util.ClasspathListener;
 import org.springframework.ide.eclipse.boot.properties.editor.util.ClasspathListenerManager;
 import org.springframework.ide.eclipse.boot.properties.editor.util.ListenerManager;
@@ -46,6 +47,7 @@ public class SpringPropertiesEditorPlugin extends AbstractUIPlugin {
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
+		ReconcileProblemCache.startListening();
 	}
 
 	/*
@@ -53,6 +55,7 @@ public class SpringPropertiesEditorPlugin extends AbstractUIPlugin {
 	 * @see org.eclipse.ui.plugin.AbstractUIPlugin#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext context) throws Exception {
+		ReconcileProblemCache.stopListening();
 		plugin = null;
 		super.stop(context);
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015 Pivotal, Inc.
+ * Copyright (c) 2015, 2016 Pivotal, Inc.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -31,7 +31,7 @@ public class SpringPropertyIndex extends FuzzyMap<PropertyInfo> {
 			try {
 				StsConfigMetadataRepositoryJsonLoader loader = new StsConfigMetadataRepositoryJsonLoader();
 				ConfigurationMetadataRepository metadata = loader.load(jp);
-				//^^^ Should be done in bg? It seems fast enough for now.
+				//^^^ Not on the UI thread: SpringPropertiesIndexManager builds indexes in background jobs.
 
 				Collection<ConfigurationMetadataProperty> allEntries = metadata.getAllProperties().values();
 				for (ConfigurationMetadataProperty item : allEntries) {
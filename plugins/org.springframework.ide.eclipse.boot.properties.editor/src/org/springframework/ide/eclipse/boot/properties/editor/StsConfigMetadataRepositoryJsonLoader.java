@@ -15,6 +15,8 @@ import static org.springframework.ide.eclipse.boot.properties.editor.SpringPrope
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
 
@@ -30,11 +32,16 @@ import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.JavaCore;
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
+import org.springframework.boot.configurationmetadata.ParsedConfigurationMetadata;
 import org.springframework.ide.eclipse.boot.util.FileUtil;
 
 /**
  * Load a {@link ConfigMetadataRepository} from the content of an eclipse
  * projects classpath.
+ * <p>
+ * The parsed metadata of each jar and metadata file is taken from a {@link ConfigMetadataCache}
+ * shared by all projects, so only files that changed since they have been read last are read
+ * again.
  *
  * @author Kris De Volder
  */
@@ -62,6 +69,16 @@ public class StsConfigMetadataRepositoryJsonLoader {
 
 	private ConfigurationMetadataRepositoryJsonBuilder builder = ConfigurationMetadataRepositoryJsonBuilder.create();
 
+	private final ConfigMetadataCache cache;
+
+	public StsConfigMetadataRepositoryJsonLoader() {
+		this(ConfigMetadataCache.getDefault());
+	}
+
+	public StsConfigMetadataRepositoryJsonLoader(ConfigMetadataCache cache) {
+		this.cache = cache;
+	}
+
 	/**
 	 * Load the {@link ConfigMetadataRepository} with the metadata of the current
 	 * classpath using the {@link #DEFAULT_LOCATION_PATTERN}. If the same config
@@ -124,26 +141,44 @@ public class StsConfigMetadataRepositoryJsonLoader {
 
 	private void loadFromJsonFile(IFile mdf) {
 		if (mdf.exists()) {
-			InputStream is = null;
-			try {
-				is = mdf.getContents(true);
-				loadFromInputStream(mdf, is);
-			} catch (Exception e) {
-				SpringPropertiesEditorPlugin.log(e);
-			} finally {
-				if (is!=null) {
-					try {
-						is.close();
-					} catch (IOException e) {
-						//ignore
-					}
+			//Contents are read from the file system, also when the workspace is out of sync.
+			IPath location = mdf.getLocation();
+			File file = location==null ? null : location.toFile();
+			long stamp = file==null ? mdf.getModificationStamp() : file.lastModified();
+			long size = file==null ? -1 : file.length();
+			List<ParsedConfigurationMetadata> metadata = cache.get("file:"+mdf.getFullPath(), stamp, size,
+					() -> parseJsonFile(mdf));
+			addAll(metadata);
+		}
+	}
+
+	private List<ParsedConfigurationMetadata> parseJsonFile(IFile mdf) throws Exception {
+		List<ParsedConfigurationMetadata> metadata = new ArrayList<>(1);
+		InputStream is = null;
+		try {
+			is = mdf.getContents(true);
+			metadata.add(builder.parse(mdf, is));
+		} finally {
+			if (is!=null) {
+				try {
+					is.close();
+				} catch (IOException e) {
+					//ignore
 				}
 			}
 		}
+		return metadata;
 	}
 
 	private void loadFromJar(File f) {
+		List<ParsedConfigurationMetadata> metadata = cache.get("jar:"+f.getAbsolutePath(),
+				f.lastModified(), f.length(), () -> parseJar(f));
+		addAll(metadata);
+	}
+
+	private List<ParsedConfigurationMetadata> parseJar(File f) throws Exception {
 		debug("load from jar: "+f);
+		List<ParsedConfigurationMetadata> metadata = new ArrayList<>(JAR_META_DATA_LOCATIONS.length);
 		JarFile jarFile = null;
 		try {
 			jarFile = new JarFile(f);
@@ -151,11 +186,9 @@ public class StsConfigMetadataRepositoryJsonLoader {
 			for (String loc : JAR_META_DATA_LOCATIONS) {
 				ZipEntry e = jarFile.getEntry(loc);
 				if (e!=null) {
-					loadFrom(jarFile, e);
+					parseFrom(jarFile, e, metadata);
 				}
 			}
-		} catch (Throwable e) {
-			SpringPropertiesEditorPlugin.log(e);
 		} finally {
 			if (jarFile!=null) {
 				try {
@@ -164,16 +197,19 @@ public class StsConfigMetadataRepositoryJsonLoader {
 				}
 			}
 		}
+		return metadata;
 	}
 
 
-	private void loadFrom(JarFile jarFile, ZipEntry ze) {
+	/**
+	 * Parse a metadata file in a jar. Failures are not handled here, so that the metadata of
+	 * a jar with an unreadable entry is not cached as if the jar had been read completely.
+	 */
+	private void parseFrom(JarFile jarFile, ZipEntry ze, List<ParsedConfigurationMetadata> metadata) throws Exception {
 		InputStream is = null;
 		try {
 			is = jarFile.getInputStream(ze);
-			loadFromInputStream(jarFile.getName()+"["+ze.getName()+"]", is);
-		} catch (Throwable e) {
-			SpringPropertiesEditorPlugin.log(e);
+			metadata.add(builder.parse(jarFile.getName()+"["+ze.getName()+"]", is));
 		} finally {
 			if (is!=null) {
 				try {
@@ -184,8 +220,10 @@ public class StsConfigMetadataRepositoryJsonLoader {
 		}
 	}
 
-	private void loadFromInputStream(Object origin, InputStream is) throws IOException {
-		builder.withJsonResource(origin, is);
+	private void addAll(List<ParsedConfigurationMetadata> metadata) {
+		for (ParsedConfigurationMetadata md : metadata) {
+			builder.withParsedMetadata(md);
+		}
 	}
 
 	/// Debug utils
@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Pivotal, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Pivotal, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.boot.properties.editor.reconciling;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.springframework.ide.eclipse.boot.properties.editor.FuzzyMap;
+import org.springframework.ide.eclipse.boot.properties.editor.metadata.PropertyInfo;
+import org.springframework.ide.eclipse.boot.properties.editor.util.TypeUtil;
+import org.springframework.ide.eclipse.editor.support.reconcile.IProblemCollector;
+import org.springframework.ide.eclipse.editor.support.reconcile.ReconcileProblem;
+
+/**
+ * Remembers the problems a reconcile engine found for the entries of a document (e.g. a
+ * property with its value or a top-level key of a yaml document with everything nested
+ * under it). Entries are identified by their text, so the problems of an entry can be
+ * reused on the next reconcile, at whatever offset the entry has moved to, as long as the
+ * user didn't edit the entry itself.
+ * <p>
+ * Problems of an entry also depend on the property index and on the Java types referred to
+ * by the property metadata. Therefore the cache is cleared when the engine reconciles with
+ * another index (e.g. after a classpath change) or for another Java project, and whenever
+ * the Java model changed. Java model changes are only tracked between
+ * {@link #startListening()} and {@link #stopListening()}, i.e. while the plugin is active.
+ * <p>
+ * Only entries seen during the last reconcile are kept. An instance is meant to be used by a
+ * single reconcile engine, which only runs one reconcile at a time.
+ */
+public class ReconcileProblemCache {
+
+	private static volatile long javaModelGeneration = 0;
+	private static IElementChangedListener javaModelListener;
+
+	private Map<String, List<SpringPropertyProblem>> entries = new HashMap<>();
+	private Map<String, List<SpringPropertyProblem>> seen = new HashMap<>();
+
+	private FuzzyMap<PropertyInfo> index;
+	private IJavaProject javaProject;
+	private long generation = -1;
+	private int checkedEntryCount = 0;
+
+	/**
+	 * Must be called at the start of each reconcile, with the index and type util
+	 * that are used to check the entries. Type utils are created per reconcile, so
+	 * only the Java project they resolve types in is compared.
+	 */
+	public void beginReconcile(FuzzyMap<PropertyInfo> index, TypeUtil typeUtil) {
+		long currentGeneration = javaModelGeneration;
+		IJavaProject javaProject = typeUtil!=null ? typeUtil.getJavaProject() : null;
+		if (this.index!=index || !Objects.equals(this.javaProject, javaProject) || this.generation!=currentGeneration) {
+			entries.clear();
+			this.index = index;
+			this.javaProject = javaProject;
+			this.generation = currentGeneration;
+		}
+		seen = new HashMap<>();
+	}
+
+	/**
+	 * Must be called when a reconcile completed, drops the entries which were not part of the document anymore.
+	 */
+	public void endReconcile() {
+		entries = seen;
+		seen = new HashMap<>();
+	}
+
+	public void clear() {
+		entries.clear();
+		seen.clear();
+	}
+
+	/**
+	 * Passes the problems remembered for an entry with the given text on to the collector,
+	 * moved to the given start offset of the entry.
+	 *
+	 * @return true if problems of the entry were known, false if the entry must be checked.
+	 */
+	public boolean replay(String text, int start, IProblemCollector problems) {
+		List<SpringPropertyProblem> known = entries.get(text);
+		if (known==null) {
+			known = seen.get(text);
+		}
+		if (known!=null) {
+			seen.put(text, known);
+			for (SpringPropertyProblem p : known) {
+				problems.accept(p.copyAt(p.getOffset()+start));
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Create a collector that passes problems on to the given collector while remembering them
+	 * for an entry with the given text and start offset. The problems are only remembered
+	 * when the returned {@link Recorder} is {@link Recorder#done()}, so an entry of which the
+	 * check failed half-way is checked again next time.
+	 */
+	public Recorder record(String text, int start, IProblemCollector problems) {
+		checkedEntryCount++;
+		return new Recorder(text, start, problems);
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return the number of entries that had to be checked because no problems were known for them.
+	 */
+	public int getCheckedEntryCount() {
+		return checkedEntryCount;
+	}
+
+	public class Recorder implements IProblemCollector {
+
+		private final String text;
+		private final int start;
+		private final IProblemCollector problems;
+		private List<SpringPropertyProblem> recorded = new ArrayList<>();
+
+		private Recorder(String text, int start, IProblemCollector problems) {
+			this.text = text;
+			this.start = start;
+			this.problems = problems;
+		}
+
+		@Override
+		public void beginCollecting() {
+			//The delegate is collecting already
+		}
+
+		@Override
+		public void endCollecting() {
+			//The delegate is collecting already
+		}
+
+		@Override
+		public void accept(ReconcileProblem problem) {
+			if (recorded!=null) {
+				if (problem instanceof SpringPropertyProblem) {
+					SpringPropertyProblem p = (SpringPropertyProblem) problem;
+					recorded.add(p.copyAt(p.getOffset()-start));
+				} else {
+					//Don't know how to move this problem, so can't reuse the entry's problems
+					recorded = null;
+				}
+			}
+			problems.accept(problem);
+		}
+
+		public void done() {
+			if (recorded!=null) {
+				seen.put(text, recorded);
+			}
+		}
+	}
+
+	public static synchronized void startListening() {
+		if (javaModelListener==null) {
+			javaModelListener = new IElementChangedListener() {
+				@Override
+				public void elementChanged(ElementChangedEvent event) {
+					javaModelGeneration++;
+				}
+			};
+			JavaCore.addElementChangedListener(javaModelListener, ElementChangedEvent.POST_CHANGE);
+		}
+	}
+
+	public static synchronized void stopListening() {
+		if (javaModelListener!=null) {
+			JavaCore.removeElementChangedListener(javaModelListener);
+			javaModelListener = null;
+		}
+	}
+
+}
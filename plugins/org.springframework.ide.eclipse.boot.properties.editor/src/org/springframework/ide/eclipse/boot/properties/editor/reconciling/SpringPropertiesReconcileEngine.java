@@ -76,6 +76,12 @@ public class SpringPropertiesReconcileEngine implements IReconcileEngine {
 	private TypeUtil typeUtil;
 	private final DelimitedListReconciler commaListReconciler = new DelimitedListReconciler(COMMA, this::reconcileType);
 
+	/**
+	 * Problems of the properties checked during previous reconciles. Only properties which
+	 * have been edited since are checked again.
+	 */
+	private final ReconcileProblemCache problemCache = new ReconcileProblemCache();
+
 	public SpringPropertiesReconcileEngine(Provider<FuzzyMap<PropertyInfo>> provider, TypeUtil typeUtil) {
 		this.fIndexProvider = provider;
 		this.typeUtil = typeUtil;
@@ -91,6 +97,7 @@ public class SpringPropertiesReconcileEngine implements IReconcileEngine {
 		}
 		problemCollector.beginCollecting();
 		try {
+			problemCache.beginReconcile(index, typeUtil);
 			DuplicateNameChecker duplicateNameChecker = new DuplicateNameChecker(problemCollector);
 			ITypedRegion[] regions = TextUtilities.computePartitioning(doc, IPropertiesFilePartitions.PROPERTIES_FILE_PARTITIONING, 0, doc.getLength(), true);
 			if (regions!=null && regions.length>0) {
@@ -109,33 +116,20 @@ public class SpringPropertiesReconcileEngine implements IReconcileEngine {
 								}
 							}
 							duplicateNameChecker.check(fullName);
-							PropertyInfo validProperty = SpringPropertiesCompletionEngine.findLongestValidProperty(index, fullName.toString());
-							if (validProperty!=null) {
-								//TODO: Remove last remnants of 'IRegion trimmedRegion' here and replace
-								// it all with just passing around 'fullName' DocumentRegion. This may require changes
-								// in PropertyNavigator (probably these changes are also for the better making it simpler as well)
-								IRegion trimmedRegion = fullName.asRegion();
-								if (validProperty.isDeprecated()) {
-									problemCollector.accept(problemDeprecated(fullName, validProperty));
-								}
-								int offset = validProperty.getId().length() + trimmedRegion.getOffset();
-								PropertyNavigator navigator = new PropertyNavigator(doc, problemCollector, typeUtil, trimmedRegion);
-								Type valueType = navigator.navigate(offset, TypeParser.parse(validProperty.getType()));
-								if (valueType!=null) {
-									reconcileType(doc, valueType, regions, i, problemCollector);
-								}
-							} else { //validProperty==null
-								//The name is invalid, with no 'prefix' of the name being a valid property name.
-								PropertyInfo similarEntry = index.findLongestCommonPrefixEntry(fullName.toString());
-								CharSequence validPrefix = commonPrefix(similarEntry.getId(), fullName);
-								problemCollector.accept(problemUnkownProperty(fullName, similarEntry, validPrefix));
-							} //end: validProperty==null
+							String entryText = getEntryText(doc, regions, i);
+							int entryStart = Math.max(0, r.getOffset()-1);
+							if (!problemCache.replay(entryText, entryStart, problemCollector)) {
+								ReconcileProblemCache.Recorder recorder = problemCache.record(entryText, entryStart, problemCollector);
+								reconcileEntry(doc, index, fullName, regions, i, recorder);
+								recorder.done();
+							}
 						}
 					} catch (Exception e) {
 						SpringPropertiesEditorPlugin.log(e);
 					}
 				} //end: for regions
 			}
+			problemCache.endReconcile();
 		} catch (Throwable e2) {
 			SpringPropertiesEditorPlugin.log(e2);
 		} finally {
@@ -143,6 +137,51 @@ public class SpringPropertiesReconcileEngine implements IReconcileEngine {
 		}
 	}
 
+	/**
+	 * Check a single property, i.e. its name and the value assigned to it. The problems found
+	 * only depend on the text of the entry (see {@link #getEntryText(IDocument, ITypedRegion[], int)}),
+	 * so they can be reused as long as the entry isn't edited.
+	 */
+	private void reconcileEntry(IDocument doc, FuzzyMap<PropertyInfo> index, DocumentRegion fullName, ITypedRegion[] regions, int i, IProblemCollector problems) throws Exception {
+		PropertyInfo validProperty = SpringPropertiesCompletionEngine.findLongestValidProperty(index, fullName.toString());
+		if (validProperty!=null) {
+			//TODO: Remove last remnants of 'IRegion trimmedRegion' here and replace
+			// it all with just passing around 'fullName' DocumentRegion. This may require changes
+			// in PropertyNavigator (probably these changes are also for the better making it simpler as well)
+			IRegion trimmedRegion = fullName.asRegion();
+			if (validProperty.isDeprecated()) {
+				problems.accept(problemDeprecated(fullName, validProperty));
+			}
+			int offset = validProperty.getId().length() + trimmedRegion.getOffset();
+			PropertyNavigator navigator = new PropertyNavigator(doc, problems, typeUtil, trimmedRegion);
+			Type valueType = navigator.navigate(offset, TypeParser.parse(validProperty.getType()));
+			if (valueType!=null) {
+				reconcileType(doc, valueType, regions, i, problems);
+			}
+		} else { //validProperty==null
+			//The name is invalid, with no 'prefix' of the name being a valid property name.
+			PropertyInfo similarEntry = index.findLongestCommonPrefixEntry(fullName.toString());
+			CharSequence validPrefix = commonPrefix(similarEntry.getId(), fullName);
+			problems.accept(problemUnkownProperty(fullName, similarEntry, validPrefix));
+		} //end: validProperty==null
+	}
+
+	/**
+	 * Get the text of the property starting with the name in regions[i], including the value
+	 * assigned to it. The character before and after are included as well, as these
+	 * can be underlined instead of an empty region.
+	 */
+	private String getEntryText(IDocument doc, ITypedRegion[] regions, int i) throws BadLocationException {
+		IRegion r = regions[i];
+		int end = r.getOffset()+r.getLength();
+		if (i+1<regions.length && IPropertiesFilePartitions.PROPERTY_VALUE.equals(regions[i+1].getType())) {
+			end = regions[i+1].getOffset()+regions[i+1].getLength();
+		}
+		int start = Math.max(0, r.getOffset()-1);
+		end = Math.min(doc.getLength(), end+1);
+		return doc.get(start, end-start);
+	}
+
 	protected SpringPropertyProblem problemDeprecated(DocumentRegion trimmedRegion, PropertyInfo property) {
 		SpringPropertyProblem p = problem(PROP_DEPRECATED,
 				TypeUtil.deprecatedPropertyMessage(
@@ -131,6 +131,17 @@ public class SpringPropertyProblem implements ReconcileProblem, FixableProblem {
 		return new SpringPropertyProblem(problemType, message , offset, len);
 	}
 
+	/**
+	 * Create a copy of this problem, moved to another offset.
+	 */
+	public SpringPropertyProblem copyAt(int offset) {
+		SpringPropertyProblem copy = new SpringPropertyProblem(type, msg, offset, length);
+		copy.propertyName = propertyName;
+		copy.metadata = metadata;
+		copy.problemFixer = problemFixer;
+		return copy;
+	}
+
 	public List<ICompletionProposal> getQuickfixes(QuickfixContext context) {
 		List<ICompletionProposal> proposals = new ArrayList<ICompletionProposal>(2);
 
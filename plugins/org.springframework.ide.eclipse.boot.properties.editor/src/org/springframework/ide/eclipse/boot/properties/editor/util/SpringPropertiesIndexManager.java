@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014 Pivotal, Inc.
+ * Copyright (c) 2014, 2016 Pivotal, Inc.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,7 +11,9 @@
 package org.springframework.ide.eclipse.boot.properties.editor.util;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
@@ -23,6 +25,10 @@ import org.eclipse.core.resources.IResourceDeltaVisitor;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
 import org.springframework.ide.eclipse.boot.properties.editor.FuzzyMap;
@@ -37,6 +43,11 @@ import org.springframework.ide.eclipse.boot.properties.editor.metadata.ValueProv
  * file all make use of a per-project index of spring properties metadata extracted
  * from project's classpath. This Index manager is responsible for keeping at most
  * one index per-project and to keep the index up-to-date.
+ * <p>
+ * Indexes are built in background jobs, so callers of {@link #get(IJavaProject)} (content
+ * assist and reconciling) never wait for the metadata to be loaded. While an index is being
+ * (re)built, callers get the previous index of the project, or an empty index if there is none yet.
+ * Listeners are notified each time a newly built index becomes available.
  *
  * @author Kris De Volder
  */
@@ -44,10 +55,20 @@ public class SpringPropertiesIndexManager extends ListenerManager<Listener<Sprin
 
 	//TODO: More precise cache flushing?
 	// right now, any detected change that may affect the cached metadata results.
-	// in clearing the entire cache.
-	// Probably this is okay, since reading the data is pretty fast.
+	// in rebuilding all the indexes.
+	// This is okay, since rebuilding an index only re-reads metadata from jars and
+	// output folders that actually changed (see ConfigMetadataCache).
 
+	/**
+	 * Latest built index per project. May be stale while a new one is being built.
+	 */
 	private Map<String, SpringPropertyIndex> indexes = null;
+
+	/**
+	 * Jobs building the indexes that will replace the ones in 'indexes'.
+	 */
+	private final Map<String, IndexBuildJob> buildJobs = new HashMap<>();
+
 	final private ValueProviderRegistry valueProviders;
 
 	public SpringPropertiesIndexManager(ValueProviderRegistry valueProviders) {
@@ -56,6 +77,11 @@ public class SpringPropertiesIndexManager extends ListenerManager<Listener<Sprin
 		ResourcesPlugin.getWorkspace().addResourceChangeListener(new LiveMetadataListener(), IResourceChangeEvent.POST_CHANGE);
 	}
 
+	/**
+	 * Get the index for the given project. This never blocks on loading metadata; if the
+	 * index is not built yet, an empty index is returned and the index is built in the
+	 * background.
+	 */
 	public synchronized FuzzyMap<PropertyInfo> get(IJavaProject jp) {
 		String key = jp.getElementName();
 		if (indexes==null) {
@@ -63,8 +89,10 @@ public class SpringPropertiesIndexManager extends ListenerManager<Listener<Sprin
 		}
 		SpringPropertyIndex index = indexes.get(key);
 		if (index==null) {
-			index = new SpringPropertyIndex(valueProviders, jp);
+			//Until the index is built, callers get an empty one.
+			index = new SpringPropertyIndex(valueProviders, null);
 			indexes.put(key, index);
+			scheduleBuild(jp);
 		}
 		return index;
 	}
@@ -74,11 +102,94 @@ public class SpringPropertiesIndexManager extends ListenerManager<Listener<Sprin
 		clear();
 	}
 
+	/**
+	 * Rebuild all known indexes in the background. The current indexes remain in use
+	 * until their replacement has been built.
+	 */
 	private void clear() {
 		if (indexes!=null) {
-			indexes.clear();
-			for (Listener<SpringPropertiesIndexManager> l : getListeners()) {
-				l.changed(this);
+			Set<String> projectNames = new HashSet<>(indexes.keySet());
+			for (String projectName : projectNames) {
+				IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(projectName);
+				if (project.isAccessible()) {
+					scheduleBuild(JavaCore.create(project));
+				} else {
+					indexes.remove(projectName);
+				}
+			}
+		}
+	}
+
+	private void scheduleBuild(IJavaProject jp) {
+		String key = jp.getElementName();
+		IndexBuildJob oldJob = buildJobs.get(key);
+		if (oldJob!=null) {
+			//The result of a running build may be outdated, it will be discarded.
+			oldJob.cancel();
+		}
+		IndexBuildJob job = new IndexBuildJob(jp);
+		buildJobs.put(key, job);
+		job.schedule();
+	}
+
+	/**
+	 * Called when a background build of an index has finished, also when it was canceled or
+	 * failed.
+	 *
+	 * @param index The newly built index, or null if none was built. The current index of
+	 *      the project is kept then.
+	 */
+	private void indexBuilt(IndexBuildJob job, SpringPropertyIndex index) {
+		String key = job.project.getElementName();
+		synchronized (this) {
+			if (buildJobs.get(key)!=job) {
+				//Superseded by a later build.
+				return;
+			}
+			buildJobs.remove(key);
+			if (index==null) {
+				return;
+			}
+			if (indexes==null) {
+				indexes = new HashMap<>();
+			}
+			indexes.put(key, index);
+		}
+		for (Listener<SpringPropertiesIndexManager> l : getListeners()) {
+			l.changed(this);
+		}
+	}
+
+	private class IndexBuildJob extends Job {
+
+		private final IJavaProject project;
+
+		public IndexBuildJob(IJavaProject project) {
+			super("Build Spring properties index for "+project.getElementName());
+			this.project = project;
+			setPriority(Job.SHORT);
+			setSystem(true);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			SpringPropertyIndex index = null;
+			try {
+				if (monitor.isCanceled()) {
+					return Status.CANCEL_STATUS;
+				}
+				SpringPropertyIndex built = new SpringPropertyIndex(valueProviders, project);
+				if (monitor.isCanceled()) {
+					return Status.CANCEL_STATUS;
+				}
+				index = built;
+				return Status.OK_STATUS;
+			} catch (Exception e) {
+				SpringPropertiesEditorPlugin.log(e);
+				return Status.OK_STATUS;
+			} finally {
+				//Also on failure, so that the job is no longer registered as the build of the project.
+				indexBuilt(this, index);
 			}
 		}
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2014 Spring IDE Developers
+ * Copyright (c) 2005, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -74,6 +74,9 @@ public class SpringCore extends Plugin {
 	/** Temporally setting to enable or disable the use of XBean's non-locking classloader infrastructure */
 	public static final String USE_NON_LOCKING_CLASSLOADER = PLUGIN_ID + ".useNonLockingClassLoader";
 
+	/** Setting to enable or disable the parallel validation of independent resources */
+	public static final String USE_PARALLEL_VALIDATION = PLUGIN_ID + ".useParallelValidation";
+
 	/** The shared instance */
 	private static SpringCore plugin;
 
@@ -121,6 +124,8 @@ public class SpringCore extends Plugin {
 		plugin.getPluginPreferences().setDefault(USE_CHANGE_DETECTION_IN_JAVA_FILES, true);
 		// non.locking classloader is not enabled by default
 		plugin.getPluginPreferences().setDefault(USE_NON_LOCKING_CLASSLOADER, false);
+		// parallel validation is not enabled by default
+		plugin.getPluginPreferences().setDefault(USE_PARALLEL_VALIDATION, false);
 	}
 
 	@Override
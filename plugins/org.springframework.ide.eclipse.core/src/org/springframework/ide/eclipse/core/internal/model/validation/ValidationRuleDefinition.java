@@ -71,6 +71,8 @@ public class ValidationRuleDefinition extends PersistablePreferenceObjectSupport
 
 	private IValidationRule rule;
 
+	private IConfigurationElement element;
+
 	private String validatorId;
 
 	private Map<String, String> propertyValues;
@@ -118,6 +120,38 @@ public class ValidationRuleDefinition extends PersistablePreferenceObjectSupport
 
 	public IValidationRule getRule() {
 		if (propertyValues.size() > 0 && !rulePropertiesInitialized) {
+			configure(rule);
+			rulePropertiesInitialized = true;
+		}
+		return rule;
+	}
+
+	/**
+	 * Returns a new instance of the rule, configured like {@link #getRule()}. Used to give each worker of a
+	 * parallel validation its own rule instances, as rules may keep state while validating an element.
+	 * <p>
+	 * Returns the shared rule if this definition has not been created from an extension.
+	 * @since 3.8.4
+	 */
+	public IValidationRule createRule() {
+		if (element != null) {
+			try {
+				Object executable = element.createExecutableExtension(CLASS_ATTRIBUTE);
+				if (executable instanceof IValidationRule) {
+					IValidationRule newRule = (IValidationRule) executable;
+					configure(newRule);
+					return newRule;
+				}
+			}
+			catch (CoreException e) {
+				SpringCore.log(e);
+			}
+		}
+		return getRule();
+	}
+
+	private void configure(IValidationRule rule) {
+		if (propertyValues.size() > 0) {
 			BeanWrapper wrapper = new BeanWrapperImpl(rule);
 			for (Map.Entry<String, String> entry : propertyValues.entrySet()) {
 				try {
@@ -127,9 +161,7 @@ public class ValidationRuleDefinition extends PersistablePreferenceObjectSupport
 					SpringCore.log(e);
 				}
 			}
-			rulePropertiesInitialized = true;
 		}
-		return rule;
 	}
 
 	public String getValidatorId() {
@@ -141,6 +173,7 @@ public class ValidationRuleDefinition extends PersistablePreferenceObjectSupport
 		if (executable instanceof IValidationRule) {
 			rule = (IValidationRule) executable;
 		}
+		this.element = element;
 		id = element.getContributor().getName() + "." + element.getAttribute(ID_ATTRIBUTE) + "-" + validatorId;
 		name = element.getAttribute(NAME_ATTRIBUTE);
 		description = element.getAttribute(DESCRIPTION_ATTRIBUTE);
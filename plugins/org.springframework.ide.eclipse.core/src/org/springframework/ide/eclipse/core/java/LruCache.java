@@ -0,0 +1,284 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe cache that evicts the least recently used entries once the estimated memory of all entries exceeds a
+ * budget. Lookup, insertion and eviction take constant time.
+ * <p>
+ * The memory of an entry is estimated by a {@link Weigher} when the entry is added. Entries that are evicted or
+ * removed are passed to the {@link RemovalListener}, which is called outside of the lock of the cache, so that it
+ * can dispose the entry (e.g. unregister listeners).
+ * @since 3.8.4
+ */
+public class LruCache<K, V> {
+
+	/**
+	 * Estimates the memory retained by a cache entry, in bytes.
+	 */
+	public interface Weigher<K, V> {
+		long weigh(K key, V value);
+	}
+
+	/**
+	 * Called for each entry that is evicted, removed or replaced.
+	 */
+	public interface RemovalListener<K, V> {
+		void removed(K key, V value, boolean evicted);
+	}
+
+	/**
+	 * Selects the entries to remove with {@link LruCache#removeAll(EntryFilter)}.
+	 */
+	public interface EntryFilter<K, V> {
+		boolean matches(K key, V value);
+	}
+
+	private final String name;
+
+	private final long budget;
+
+	private final Weigher<K, V> weigher;
+
+	private final RemovalListener<K, V> removalListener;
+
+	/** Access ordered, i.e. the first entry is the least recently used one */
+	private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true);
+
+	private long weight = 0;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Creates a new cache.
+	 * @param name the name of the cache as shown in the statistics
+	 * @param budget the estimated memory in bytes all entries together may use
+	 * @param weigher estimates the memory of an entry
+	 * @param removalListener notified about removed entries; may be <code>null</code>
+	 */
+	public LruCache(String name, long budget, Weigher<K, V> weigher, RemovalListener<K, V> removalListener) {
+		this.name = name;
+		this.budget = budget;
+		this.weigher = weigher;
+		this.removalListener = removalListener;
+	}
+
+	/**
+	 * Returns a budget that is the given fraction of the maximum heap size, but at least the given minimum.
+	 */
+	public static long budgetOfMaxMemory(double fraction, long minimum) {
+		return Math.max(minimum, (long) (Runtime.getRuntime().maxMemory() * fraction));
+	}
+
+	/**
+	 * Returns the cached value for the given key and marks it as most recently used; or <code>null</code> if there is
+	 * none.
+	 */
+	public V get(K key) {
+		Entry<V> entry;
+		synchronized (entries) {
+			entry = entries.get(key);
+		}
+		if (entry != null) {
+			hits.incrementAndGet();
+			return entry.value;
+		}
+		misses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Adds the given entry, replacing any entry with the same key, and evicts the least recently used entries that no
+	 * longer fit into the budget. The added entry itself is never evicted by this call.
+	 */
+	public void put(K key, V value) {
+		List<K> removedKeys = new ArrayList<K>();
+		List<Entry<V>> removed = new ArrayList<Entry<V>>();
+		Entry<V> replaced;
+		long entryWeight = Math.max(0, weigher.weigh(key, value));
+		synchronized (entries) {
+			replaced = entries.put(key, new Entry<V>(value, entryWeight));
+			if (replaced != null) {
+				weight -= replaced.weight;
+			}
+			weight += entryWeight;
+
+			Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+			while (weight > budget && entries.size() > 1 && iterator.hasNext()) {
+				Map.Entry<K, Entry<V>> eldest = iterator.next();
+				if (eldest.getKey().equals(key)) {
+					continue;
+				}
+				iterator.remove();
+				weight -= eldest.getValue().weight;
+				removedKeys.add(eldest.getKey());
+				removed.add(eldest.getValue());
+			}
+		}
+		evictions.addAndGet(removed.size());
+		if (replaced != null && replaced.value != value) {
+			notifyRemoved(key, replaced, false);
+		}
+		for (int i = 0; i < removed.size(); i++) {
+			notifyRemoved(removedKeys.get(i), removed.get(i), true);
+		}
+	}
+
+	/**
+	 * Removes the entry with the given key.
+	 * @return the removed value, or <code>null</code>
+	 */
+	public V remove(K key) {
+		Entry<V> entry;
+		synchronized (entries) {
+			entry = entries.remove(key);
+			if (entry != null) {
+				weight -= entry.weight;
+			}
+		}
+		if (entry != null) {
+			notifyRemoved(key, entry, false);
+			return entry.value;
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the given entry, but only if the given key is still mapped to the given value.
+	 */
+	public boolean remove(K key, V value) {
+		Entry<V> entry;
+		synchronized (entries) {
+			entry = entries.get(key);
+			if (entry == null || entry.value != value) {
+				return false;
+			}
+			entries.remove(key);
+			weight -= entry.weight;
+		}
+		notifyRemoved(key, entry, false);
+		return true;
+	}
+
+	/**
+	 * Removes all entries accepted by the given filter.
+	 * @return the number of removed entries
+	 */
+	public int removeAll(EntryFilter<K, V> filter) {
+		List<K> removedKeys = new ArrayList<K>();
+		List<Entry<V>> removed = new ArrayList<Entry<V>>();
+		synchronized (entries) {
+			Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<K, Entry<V>> entry = iterator.next();
+				if (filter.matches(entry.getKey(), entry.getValue().value)) {
+					iterator.remove();
+					weight -= entry.getValue().weight;
+					removedKeys.add(entry.getKey());
+					removed.add(entry.getValue());
+				}
+			}
+		}
+		for (int i = 0; i < removed.size(); i++) {
+			notifyRemoved(removedKeys.get(i), removed.get(i), false);
+		}
+		return removed.size();
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public void clear() {
+		removeAll(new EntryFilter<K, V>() {
+			public boolean matches(K key, V value) {
+				return true;
+			}
+		});
+	}
+
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Returns the estimated memory of all entries in bytes.
+	 */
+	public long getWeight() {
+		synchronized (entries) {
+			return weight;
+		}
+	}
+
+	public long getBudget() {
+		return budget;
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	/**
+	 * Returns a one line summary of the statistics of this cache.
+	 */
+	public String getStatistics() {
+		long hitCount = hits.get();
+		long missCount = misses.get();
+		long requests = hitCount + missCount;
+		return String.format("%s: %d entries, %d/%d KB, %d hits, %d misses (%.1f%% hit rate), %d evictions", name,
+				size(), getWeight() / 1024, budget / 1024, hitCount, missCount, requests == 0 ? 0.0
+						: hitCount * 100.0 / requests, evictions.get());
+	}
+
+	@Override
+	public String toString() {
+		return getStatistics();
+	}
+
+	private void notifyRemoved(K key, Entry<V> entry, boolean evicted) {
+		if (removalListener != null) {
+			removalListener.removed(key, entry.value, evicted);
+		}
+	}
+
+	private static class Entry<V> {
+
+		private final V value;
+
+		private final long weight;
+
+		public Entry(V value, long weight) {
+			this.value = value;
+			this.weight = weight;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2015 Spring IDE Developers
+ * Copyright (c) 2009, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,11 +16,15 @@ import java.net.URI;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.xbean.classloader.NonLockingJarFileClassLoader;
 import org.eclipse.core.resources.IFolder;
@@ -49,6 +53,11 @@ import org.springframework.ide.eclipse.core.SpringCore;
 
 /**
  * Internal cache of classpath urls and corresponding classloaders.
+ * <p>
+ * Classloaders for the jars on a project's classpath are cached by the resolved jars, so projects with identical
+ * libraries share one jar classloader. Each project gets its own classloader for its source and output folders on top
+ * of that. The number of cached classloaders is limited by an estimate of the memory they retain, mostly proportional
+ * to the number of jars on their classpath.
  * @author Christian Dupuis
  * @author Martin Lippert
  * @since 2.2.5
@@ -57,8 +66,35 @@ import org.springframework.ide.eclipse.core.SpringCore;
 public class ProjectClassLoaderCache {
 
 	private static final String FILE_SCHEME = "file";
-	private static final int CACHE_SIZE = 12;
-	private static final List<ClassLoaderCacheEntry> CLASSLOADER_CACHE = new ArrayList<ClassLoaderCacheEntry>(CACHE_SIZE);
+
+	/** Estimated memory of a classloader without any classpath entries */
+	private static final long ESTIMATED_CLASSLOADER_SIZE = 256 * 1024;
+
+	/** Estimated memory retained per classpath entry, e.g. the index of an opened jar and loaded classes */
+	private static final long ESTIMATED_CLASSPATH_ENTRY_SIZE = 32 * 1024;
+
+	private static final LruCache<ClassLoaderKey, ClassLoaderCacheEntry> CLASSLOADER_CACHE = new LruCache<ClassLoaderKey, ClassLoaderCacheEntry>(
+			"Project classloaders", LruCache.budgetOfMaxMemory(0.1, 32 * 1024 * 1024),
+			new LruCache.Weigher<ClassLoaderKey, ClassLoaderCacheEntry>() {
+				public long weigh(ClassLoaderKey key, ClassLoaderCacheEntry entry) {
+					return ESTIMATED_CLASSLOADER_SIZE + key.size() * ESTIMATED_CLASSPATH_ENTRY_SIZE;
+				}
+			}, new LruCache.RemovalListener<ClassLoaderKey, ClassLoaderCacheEntry>() {
+				public void removed(ClassLoaderKey key, ClassLoaderCacheEntry entry, boolean evicted) {
+					if (DEBUG_CLASSLOADER) {
+						System.out.println(String.format("> %s classloader for '%s' : %s", evicted ? "evicting"
+								: "removing", entry.getProjects(), CLASSLOADER_CACHE.getStatistics()));
+					}
+					for (IProject project : entry.getProjects()) {
+						PROJECT_CLASSPATHS.remove(new ProjectKey(project, key.getParentClassLoader()), key);
+					}
+					entry.dispose();
+					GENERATION.incrementAndGet();
+				}
+			});
+
+	/** The jars of the cached classloader for a project and parent classloader */
+	private static final Map<ProjectKey, ClassLoaderKey> PROJECT_CLASSPATHS = new ConcurrentHashMap<ProjectKey, ClassLoaderKey>();
 
 	private static final String DEBUG_OPTION = SpringCore.PLUGIN_ID + "/java/classloader/debug";
 	private static final boolean DEBUG_CLASSLOADER = SpringCore.isDebug(DEBUG_OPTION);
@@ -67,39 +103,14 @@ public class ProjectClassLoaderCache {
 	private static IPropertyChangeListener propertyChangeListener = null;
 	private static IResourceChangeListener resourceChangeListener = null;
 
-	private static ClassLoader addClassLoaderToCache(IProject project, List<URL> urls, ClassLoader parentClassLoader) {
-		synchronized (CLASSLOADER_CACHE) {
-			int nEntries = CLASSLOADER_CACHE.size();
-			if (nEntries >= CACHE_SIZE) {
-				// find obsolete entries or remove entry that was least recently accessed
-				ClassLoaderCacheEntry oldest = null;
-				List<ClassLoaderCacheEntry> obsoleteClassLoaders = new ArrayList<ClassLoaderCacheEntry>(CACHE_SIZE);
-				for (int i = 0; i < nEntries; i++) {
-					ClassLoaderCacheEntry entry = (ClassLoaderCacheEntry) CLASSLOADER_CACHE.get(i);
-					IProject curr = entry.getProject();
-					if (!curr.exists() || !curr.isAccessible() || !curr.isOpen()) {
-						obsoleteClassLoaders.add(entry);
-					}
-					else {
-						if (oldest == null || entry.getLastAccess() < oldest.getLastAccess()) {
-							oldest = entry;
-						}
-					}
-				}
-				if (!obsoleteClassLoaders.isEmpty()) {
-					for (int i = 0; i < obsoleteClassLoaders.size(); i++) {
-						removeClassLoaderEntryFromCache((ClassLoaderCacheEntry) obsoleteClassLoaders.get(i));
-					}
-				}
-				else if (oldest != null) {
-					removeClassLoaderEntryFromCache(oldest);
-				}
-			}
-			ClassLoaderCacheEntry newEntry = new ClassLoaderCacheEntry(project, urls, parentClassLoader);
-			CLASSLOADER_CACHE.add(newEntry);
-			return newEntry.getClassLoader();
-		}
-	}
+	/** Incremented whenever a cached classloader is dropped */
+	private static final AtomicLong GENERATION = new AtomicLong();
+
+	/** Incremented whenever a project stops using a cached classloader that stays cached for other projects */
+	private static final AtomicLong PROJECT_GENERATION = new AtomicLong();
+
+	/** The value of {@link #PROJECT_GENERATION} when a project last stopped using a cached classloader */
+	private static final Map<IProject, Long> PROJECT_GENERATIONS = new ConcurrentHashMap<IProject, Long>();
 
 	/**
 	 * Add {@link URL}s to the given set of <code>paths</code>.
@@ -209,29 +220,6 @@ public class ProjectClassLoaderCache {
 		}
 	}
 
-	private static ClassLoader findClassLoaderInCache(IProject project, ClassLoader parentClassLoader) {
-		synchronized (CLASSLOADER_CACHE) {
-			for (int i = CLASSLOADER_CACHE.size() - 1; i >= 0; i--) {
-				ClassLoaderCacheEntry entry = (ClassLoaderCacheEntry) CLASSLOADER_CACHE.get(i);
-				IProject curr = entry.getProject();
-				if (curr == null || !curr.exists() || !curr.isAccessible() || !curr.isOpen()) {
-					removeClassLoaderEntryFromCache(entry);
-					if (DEBUG_CLASSLOADER) {
-						System.out.println(String.format("> removing classloader for '%s' : total %s",
-								entry.getProject(), CLASSLOADER_CACHE.size()));
-					}
-				}
-				else {
-					if (entry.matches(project, parentClassLoader)) {
-						entry.markAsAccessed();
-						return entry.getClassLoader();
-					}
-				}
-			}
-		}
-		return null;
-	}
-
 	/**
 	 * Iterates all class path entries of the given <code>project</code> and all depending projects.
 	 * <p>
@@ -269,15 +257,28 @@ public class ProjectClassLoaderCache {
 	 * Removes the given {@link ClassLoaderCacheEntry} from the internal cache.
 	 * @param entry the entry to remove
 	 */
-	private static void removeClassLoaderEntryFromCache(ClassLoaderCacheEntry entry) {
-		synchronized (CLASSLOADER_CACHE) {
-			if (DEBUG_CLASSLOADER) {
-				System.out.println(String.format("> removing classloader for '%s' : total %s", entry.getProject()
-						.getName(), CLASSLOADER_CACHE.size()));
-			}
-			entry.dispose();
-			CLASSLOADER_CACHE.remove(entry);
-		}
+	private static void removeEntryFromCache(ClassLoaderCacheEntry entry) {
+		CLASSLOADER_CACHE.remove(entry.getKey(), entry);
+	}
+
+	/**
+	 * Returns the current generation of the cache. The generation changes whenever a cached classloader is dropped,
+	 * so anything derived from classes loaded by a cached classloader is only valid as long as the generation does not
+	 * change.
+	 * @since 3.8.4
+	 */
+	public static long getGeneration() {
+		return GENERATION.get();
+	}
+
+	/**
+	 * Returns the current generation of the given project. It changes whenever the project stops using a cached
+	 * classloader, even if that classloader stays cached for other projects with the same jars.
+	 * @since 3.8.4
+	 */
+	public static long getGeneration(IProject project) {
+		Long generation = PROJECT_GENERATIONS.get(project);
+		return generation != null ? generation.longValue() : 0;
 	}
 
 	public static boolean shouldFilter(String name) {
@@ -328,159 +329,269 @@ public class ProjectClassLoaderCache {
 			registerListenersIfRequired();
 		}
 
-		ClassLoader classLoader = findClassLoaderInCache(project, parentClassLoader);
-		if (classLoader == null) {
-			List<URL> urls = getClassPathUrls(project, parentClassLoader);
-			classLoader = addClassLoaderToCache(project, urls, parentClassLoader);
-			if (DEBUG_CLASSLOADER) {
-				System.out.println(String.format("> creating new classloader for '%s' with parent '%s' : total %s",
-						project.getName(), parentClassLoader, CLASSLOADER_CACHE.size()));
+		ProjectKey projectKey = new ProjectKey(project, parentClassLoader);
+		ClassLoaderKey key = PROJECT_CLASSPATHS.get(projectKey);
+		ClassLoaderCacheEntry entry = key != null ? CLASSLOADER_CACHE.get(key) : null;
+		URL[] directories = entry != null ? entry.getDirectories(project) : null;
+		if (directories == null) {
+			Set<URL> jars = new LinkedHashSet<URL>();
+			List<URL> dirs = new ArrayList<URL>();
+			for (URL url : getClassPathUrls(project, parentClassLoader)) {
+				if (shouldLoadFromParent(url)) {
+					jars.add(url);
+				}
+				else {
+					dirs.add(url);
+				}
+			}
+			key = new ClassLoaderKey(new ArrayList<URL>(jars), parentClassLoader);
+			directories = dirs.toArray(new URL[dirs.size()]);
+			synchronized (PROJECT_CLASSPATHS) {
+				entry = CLASSLOADER_CACHE.get(key);
+				if (entry == null) {
+					entry = new ClassLoaderCacheEntry(key);
+					CLASSLOADER_CACHE.put(key, entry);
+					if (DEBUG_CLASSLOADER) {
+						System.out.println(String.format("> creating new classloader for '%s' with parent '%s' : %s",
+								project.getName(), parentClassLoader, CLASSLOADER_CACHE.getStatistics()));
+					}
+				}
+				else if (DEBUG_CLASSLOADER) {
+					System.out.println(String.format("> sharing classloader of '%s' with '%s' : %s",
+							entry.getProjects(), project.getName(), CLASSLOADER_CACHE.getStatistics()));
+				}
+				entry.addProject(project, directories);
+				PROJECT_CLASSPATHS.put(projectKey, key);
 			}
 		}
-		return classLoader;
+		// the entry might have been removed concurrently, but its classloader stays usable
+		return entry.getClassLoader(project, directories);
 	}
 	
 	/**
-	 * Removes any cached {@link ClassLoaderCacheEntry} for the given {@link IProject}.
+	 * Removes the given {@link IProject} from the cached {@link ClassLoaderCacheEntry}s. Entries shared with other
+	 * projects stay cached for these, entries no longer used by any project are removed.
 	 * @param project the project to remove {@link ClassLoaderCacheEntry} for
 	 */
-	protected static void removeClassLoaderEntryFromCache(IProject project) {
-		synchronized (CLASSLOADER_CACHE) {
-			if (DEBUG_CLASSLOADER) {
-				System.out.println(String.format("> removing classloader for '%s' : total %s", project.getName(),
-						CLASSLOADER_CACHE.size()));
-			}
-			for (ClassLoaderCacheEntry entry : new ArrayList<ClassLoaderCacheEntry>(CLASSLOADER_CACHE)) {
-				if (project.equals(entry.getProject())) {
-					entry.dispose();
-					CLASSLOADER_CACHE.remove(entry);
+	protected static void removeClassLoaderEntryFromCache(final IProject project) {
+		synchronized (PROJECT_CLASSPATHS) {
+			CLASSLOADER_CACHE.removeAll(new LruCache.EntryFilter<ClassLoaderKey, ClassLoaderCacheEntry>() {
+				public boolean matches(ClassLoaderKey key, ClassLoaderCacheEntry entry) {
+					if (entry.removeProject(project)) {
+						PROJECT_CLASSPATHS.remove(new ProjectKey(project, key.getParentClassLoader()), key);
+						PROJECT_GENERATIONS.put(project, PROJECT_GENERATION.incrementAndGet());
+					}
+					return entry.getProjects().isEmpty();
 				}
-			}
+			});
 		}
 	}
-	
+
 	/**
-	 * Internal cache entry
+	 * Returns hit, miss and eviction statistics of the classloader cache.
+	 * @since 3.8.4
 	 */
-	static class ClassLoaderCacheEntry implements IElementChangedListener {
+	public static String getStatistics() {
+		return CLASSLOADER_CACHE.getStatistics();
+	}
 
-		private URL[] directories;
+	/**
+	 * Key of a cached classloader: the resolved jars and the parent classloader.
+	 */
+	static class ClassLoaderKey {
 
-		private ClassLoader jarClassLoader;
+		private final List<URL> urls;
 
-		private long lastAccess;
+		/** String form of the urls, as {@link URL#equals(Object)} may resolve host names */
+		private final List<String> locations;
 
-		private ClassLoader parentClassLoader;
+		private final ClassLoader parentClassLoader;
 
-		private IProject project;
+		private final int hashCode;
 
-		private URL[] urls;
+		public ClassLoaderKey(List<URL> urls, ClassLoader parentClassLoader) {
+			this.urls = Collections.unmodifiableList(new ArrayList<URL>(urls));
+			this.locations = new ArrayList<String>(urls.size());
+			for (URL url : urls) {
+				locations.add(url.toExternalForm());
+			}
+			this.parentClassLoader = parentClassLoader;
+			this.hashCode = 31 * locations.hashCode() + (parentClassLoader != null ? parentClassLoader.hashCode() : 0);
+		}
 
-		public ClassLoaderCacheEntry(IProject project, List<URL> urls, ClassLoader parentClassLoader) {
+		public List<URL> getUrls() {
+			return urls;
+		}
+
+		public ClassLoader getParentClassLoader() {
+			return parentClassLoader;
+		}
+
+		public int size() {
+			return urls.size();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof ClassLoaderKey)) {
+				return false;
+			}
+			ClassLoaderKey other = (ClassLoaderKey) obj;
+			return hashCode == other.hashCode && parentClassLoader == other.parentClassLoader
+					&& locations.equals(other.locations);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+	/**
+	 * Key of the jars used for a project and parent classloader.
+	 */
+	static class ProjectKey {
+
+		private final IProject project;
+
+		private final ClassLoader parentClassLoader;
+
+		public ProjectKey(IProject project, ClassLoader parentClassLoader) {
 			this.project = project;
-			this.urls = urls.toArray(new URL[urls.size()]);
 			this.parentClassLoader = parentClassLoader;
-			markAsAccessed();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof ProjectKey)) {
+				return false;
+			}
+			ProjectKey other = (ProjectKey) obj;
+			return project.equals(other.project) && parentClassLoader == other.parentClassLoader;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * project.hashCode() + (parentClassLoader != null ? parentClassLoader.hashCode() : 0);
+		}
+	}
+
+	private static boolean shouldLoadFromParent(URL url) {
+		String path = url.getPath();
+		if (path.endsWith(".jar") || path.endsWith(".zip")) {
+			return true;
+		}
+		else if (path.contains("/org.eclipse.osgi/bundles/")) {
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Internal cache entry: the shared classloader for the jars and the source and output folders of each project
+	 * using it.
+	 */
+	static class ClassLoaderCacheEntry implements IElementChangedListener {
+
+		private ClassLoader jarClassLoader;
+
+		private final ClassLoaderKey key;
+
+		/** The projects using this classloader mapped to their directories, all of them have the same jars */
+		private final Map<IProject, URL[]> projects = new ConcurrentHashMap<IProject, URL[]>();
+
+		public ClassLoaderCacheEntry(ClassLoaderKey key) {
+			this.key = key;
 			JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE);
 		}
 
 		public void dispose() {
+			// the jar classloader is kept, as it might still be handed out by a concurrent getClassLoader()
 			JavaCore.removeElementChangedListener(this);
-			this.urls = null;
-			this.jarClassLoader = null;
 		}
 
 		public void elementChanged(ElementChangedEvent event) {
-			IJavaProject javaProject = JdtUtils.getJavaProject(project);
-			if (javaProject != null) {
-				for (IJavaElementDelta delta : event.getDelta().getAffectedChildren()) {
-					if ((delta.getFlags() & IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED) != 0
-							|| (delta.getFlags() & IJavaElementDelta.F_CLASSPATH_CHANGED) != 0) {
-						if (javaProject.equals(delta.getElement()) || javaProject.isOnClasspath(delta.getElement())) {
-							removeClassLoaderEntryFromCache(this);
+			for (IProject project : projects.keySet()) {
+				IJavaProject javaProject = JdtUtils.getJavaProject(project);
+				if (javaProject != null) {
+					for (IJavaElementDelta delta : event.getDelta().getAffectedChildren()) {
+						if ((delta.getFlags() & IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED) != 0
+								|| (delta.getFlags() & IJavaElementDelta.F_CLASSPATH_CHANGED) != 0) {
+							if (javaProject.equals(delta.getElement()) || javaProject.isOnClasspath(delta.getElement())) {
+								removeClassLoaderEntryFromCache(project);
+								break;
+							}
 						}
 					}
 				}
 			}
 		}
 
-		public ClassLoader getClassLoader() {
+		public ClassLoader getClassLoader(IProject project, URL[] directories) {
 			ClassLoader parent = getJarClassLoader();
 			if (useNonLockingClassLoader()) {
-				return new FilteringNonLockingJarFileClassLoader(String.format("ClassLoader for '%s'", project.getName()),
-						directories, parent);
+				return new FilteringNonLockingJarFileClassLoader(String.format("ClassLoader for '%s'",
+						project.getName()), directories, parent);
 			}
 			else {
 				return new FilteringURLClassLoader(directories, parent);
 			}
 		}
 
-		public long getLastAccess() {
-			return lastAccess;
+		public ClassLoaderKey getKey() {
+			return key;
 		}
 
-		public IProject getProject() {
-			return this.project;
+		public Set<IProject> getProjects() {
+			return projects.keySet();
 		}
 
-		public void markAsAccessed() {
-			lastAccess = System.currentTimeMillis();
+		/**
+		 * Returns the source and output folders of the given project, or <code>null</code> if the project doesn't use
+		 * this classloader.
+		 */
+		public URL[] getDirectories(IProject project) {
+			return projects.get(project);
+		}
+
+		public void addProject(IProject project, URL[] directories) {
+			projects.put(project, directories);
 		}
 
-		public boolean matches(IProject project, ClassLoader parentClassLoader) {
-			return this.project.equals(project)
-					&& ((parentClassLoader == null && this.parentClassLoader == null) || (parentClassLoader != null && parentClassLoader
-							.equals(this.parentClassLoader)));
+		public boolean removeProject(IProject project) {
+			return projects.remove(project) != null;
+		}
+
+		private String getName() {
+			StringBuilder name = new StringBuilder();
+			for (IProject project : projects.keySet()) {
+				if (name.length() > 0) {
+					name.append(", ");
+				}
+				name.append(project.getName());
+			}
+			return name.toString();
 		}
 
 		private synchronized ClassLoader getJarClassLoader() {
 			if (jarClassLoader == null) {
-				Set<URL> jars = new LinkedHashSet<URL>();
-				List<URL> dirs = new ArrayList<URL>();
-				for (URL url : urls) {
-					if (shouldLoadFromParent(url)) {
-						jars.add(url);
-					}
-					else {
-						dirs.add(url);
-					}
-				}
-				if (parentClassLoader != null) {
-					// We use the parent class loader of the org.springframework.ide.eclipse.beans.core bundle
-					if (useNonLockingClassLoader()) {
-						jarClassLoader = new FilteringNonLockingJarFileClassLoader(String.format("ClassLoader for '%s'",
-								project.getName()), (URL[]) jars.toArray(new URL[jars.size()]), parentClassLoader);
-					}
-					else {
-						jarClassLoader = new FilteringURLClassLoader((URL[]) jars.toArray(new URL[jars.size()]),
-								parentClassLoader);
-					}
+				URL[] jars = key.getUrls().toArray(new URL[key.size()]);
+				// We use the parent class loader of the org.springframework.ide.eclipse.beans.core bundle
+				ClassLoader parentClassLoader = key.getParentClassLoader() != null ? key.getParentClassLoader()
+						: cachedParentClassLoader;
+				if (useNonLockingClassLoader()) {
+					jarClassLoader = new FilteringNonLockingJarFileClassLoader(String.format("ClassLoader for '%s'",
+							getName()), jars, parentClassLoader);
 				}
 				else {
-					if (useNonLockingClassLoader()) {
-						jarClassLoader = new FilteringNonLockingJarFileClassLoader(String.format("ClassLoader for '%s'",
-								project.getName()), (URL[]) jars.toArray(new URL[jars.size()]), cachedParentClassLoader);
-					}
-					else {
-						jarClassLoader = new FilteringURLClassLoader((URL[]) jars.toArray(new URL[jars.size()]),
-								cachedParentClassLoader);
-					}
+					jarClassLoader = new FilteringURLClassLoader(jars, parentClassLoader);
 				}
-				directories = dirs.toArray(new URL[dirs.size()]);
 			}
 			return jarClassLoader;
 		}
-
-		private boolean shouldLoadFromParent(URL url) {
-			String path = url.getPath();
-			if (path.endsWith(".jar") || path.endsWith(".zip")) {
-				return true;
-			}
-			else if (path.contains("/org.eclipse.osgi/bundles/")) {
-				return true;
-			}
-			return false;
-		}
 	}
 	
 	/**
@@ -494,9 +605,7 @@ public class ProjectClassLoaderCache {
 		 */
 		public void propertyChange(PropertyChangeEvent event) {
 			if (SpringCore.USE_NON_LOCKING_CLASSLOADER.equals(event.getProperty())) {
-				synchronized (CLASSLOADER_CACHE) {
-					CLASSLOADER_CACHE.clear();
-				}
+				CLASSLOADER_CACHE.clear();
 			}
 		}
 	}
@@ -516,6 +625,13 @@ public class ProjectClassLoaderCache {
 			if (event.getSource() instanceof IWorkspace) {
 				int eventType = event.getType();
 				switch (eventType) {
+				case IResourceChangeEvent.PRE_CLOSE:
+				case IResourceChangeEvent.PRE_DELETE:
+					// release the jars of closed or deleted projects right away instead of waiting for eviction
+					if (event.getResource() instanceof IProject) {
+						removeClassLoaderEntryFromCache((IProject) event.getResource());
+					}
+					break;
 				case IResourceChangeEvent.POST_CHANGE:
 					IResourceDelta delta = event.getDelta();
 					if (delta != null) {
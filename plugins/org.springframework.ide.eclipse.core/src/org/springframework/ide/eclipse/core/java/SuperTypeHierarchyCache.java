@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,8 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.core.java;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.IType;
@@ -23,6 +23,9 @@ import org.eclipse.jdt.core.JavaModelException;
  * Cache for {@link ITypeHierarchy} instances.
  * <p>
  * The implementation has been taken from {@link org.eclipse.jdt.internal.corext.util.SuperTypeHierarchyCache}.
+ * Hierarchies are cached by their focus type. As a hierarchy also answers requests for all other types it contains,
+ * an index from each contained type to the hierarchy is maintained. The number of cached hierarchies is limited by an
+ * estimate of their memory, proportional to the number of types they contain.
  * @author Christian Dupuis
  * @since 2.0.1
  */
@@ -33,14 +36,14 @@ public class SuperTypeHierarchyCache {
 	 */
 	private static class HierarchyCacheEntry implements ITypeHierarchyChangedListener {
 
-		private long lastAccess;
+		private final IType[] types;
 
 		private ITypeHierarchy typeHierarchy;
 
 		public HierarchyCacheEntry(ITypeHierarchy hierarchy) {
 			typeHierarchy = hierarchy;
+			types = hierarchy.getAllTypes();
 			typeHierarchy.addTypeHierarchyChangedListener(this);
-			markAsAccessed();
 		}
 
 		public void dispose() {
@@ -48,75 +51,67 @@ public class SuperTypeHierarchyCache {
 			typeHierarchy = null;
 		}
 
-		public long getLastAccess() {
-			return lastAccess;
+		public IType[] getTypes() {
+			return types;
 		}
 
 		public ITypeHierarchy getTypeHierarchy() {
 			return typeHierarchy;
 		}
 
-		public void markAsAccessed() {
-			lastAccess = System.currentTimeMillis();
-		}
-
 		public void typeHierarchyChanged(ITypeHierarchy typeHierarchy) {
 			removeHierarchyEntryFromCache(this);
 		}
 	}
 
-	private static final int CACHE_SIZE = 50;
-
-	private static List<HierarchyCacheEntry> HIERACHY_CACHE = new ArrayList<HierarchyCacheEntry>(CACHE_SIZE);
+	/** Estimated memory of a hierarchy per contained type */
+	private static final long ESTIMATED_TYPE_SIZE = 2 * 1024;
 
-	private static void addTypeHierarchyToCache(ITypeHierarchy hierarchy) {
-		synchronized (HIERACHY_CACHE) {
-			int nEntries = HIERACHY_CACHE.size();
-			if (nEntries >= CACHE_SIZE) {
-				// find obsolete entries or remove entry that was least recently
-				// accessed
-				HierarchyCacheEntry oldest = null;
-				List<HierarchyCacheEntry> obsoleteHierarchies = new ArrayList<HierarchyCacheEntry>(CACHE_SIZE);
-				for (int i = 0; i < nEntries; i++) {
-					HierarchyCacheEntry entry = (HierarchyCacheEntry) HIERACHY_CACHE.get(i);
-					ITypeHierarchy curr = entry.getTypeHierarchy();
-					if (!curr.exists() || hierarchy.contains(curr.getType())) {
-						obsoleteHierarchies.add(entry);
-					}
-					else {
-						if (oldest == null || entry.getLastAccess() < oldest.getLastAccess()) {
-							oldest = entry;
-						}
-					}
+	private static final LruCache<IType, HierarchyCacheEntry> HIERACHY_CACHE = new LruCache<IType, HierarchyCacheEntry>(
+			"Type hierarchies", LruCache.budgetOfMaxMemory(0.02, 4 * 1024 * 1024),
+			new LruCache.Weigher<IType, HierarchyCacheEntry>() {
+				public long weigh(IType focusType, HierarchyCacheEntry entry) {
+					return (entry.getTypes().length + 1) * ESTIMATED_TYPE_SIZE;
 				}
-				if (!obsoleteHierarchies.isEmpty()) {
-					for (int i = 0; i < obsoleteHierarchies.size(); i++) {
-						removeHierarchyEntryFromCache((HierarchyCacheEntry) obsoleteHierarchies.get(i));
+			}, new LruCache.RemovalListener<IType, HierarchyCacheEntry>() {
+				public void removed(IType focusType, HierarchyCacheEntry entry, boolean evicted) {
+					for (IType type : entry.getTypes()) {
+						TYPE_INDEX.remove(type, focusType);
 					}
+					entry.dispose();
 				}
-				else if (oldest != null) {
-					removeHierarchyEntryFromCache(oldest);
+			});
+
+	/** The focus type of the cached hierarchy that contains a type */
+	private static final Map<IType, IType> TYPE_INDEX = new ConcurrentHashMap<IType, IType>();
+
+	private static void addTypeHierarchyToCache(ITypeHierarchy hierarchy) {
+		IType focusType = hierarchy.getType();
+		HierarchyCacheEntry newEntry = new HierarchyCacheEntry(hierarchy);
+		synchronized (TYPE_INDEX) {
+			// hierarchies of types contained in the new hierarchy are obsolete
+			for (IType type : newEntry.getTypes()) {
+				if (!type.equals(focusType)) {
+					HIERACHY_CACHE.remove(type);
 				}
 			}
-			HierarchyCacheEntry newEntry = new HierarchyCacheEntry(hierarchy);
-			HIERACHY_CACHE.add(newEntry);
+			HIERACHY_CACHE.put(focusType, newEntry);
+			for (IType type : newEntry.getTypes()) {
+				TYPE_INDEX.put(type, focusType);
+			}
 		}
 	}
 
 	private static ITypeHierarchy findTypeHierarchyInCache(IType type) {
-		synchronized (HIERACHY_CACHE) {
-			for (int i = HIERACHY_CACHE.size() - 1; i >= 0; i--) {
-				HierarchyCacheEntry curr = (HierarchyCacheEntry) HIERACHY_CACHE.get(i);
-				ITypeHierarchy hierarchy = curr.getTypeHierarchy();
-				if (!hierarchy.exists()) {
-					removeHierarchyEntryFromCache(curr);
-				}
-				else {
-					if (hierarchy.contains(type)) {
-						curr.markAsAccessed();
-						return hierarchy;
-					}
-				}
+		IType focusType = TYPE_INDEX.get(type);
+		HierarchyCacheEntry entry = HIERACHY_CACHE.get(focusType != null ? focusType : type);
+		if (entry != null) {
+			ITypeHierarchy hierarchy = entry.getTypeHierarchy();
+			if (hierarchy == null || !hierarchy.exists()) {
+				removeHierarchyEntryFromCache(entry);
+			}
+			else if (hierarchy.contains(type)) {
+				return hierarchy;
 			}
 		}
 		return null;
@@ -162,10 +157,18 @@ public class SuperTypeHierarchyCache {
 		return findTypeHierarchyInCache(type) != null;
 	}
 
+	/**
+	 * Returns hit, miss and eviction statistics of the cache.
+	 * @since 3.8.4
+	 */
+	public static String getStatistics() {
+		return HIERACHY_CACHE.getStatistics();
+	}
+
 	private static void removeHierarchyEntryFromCache(HierarchyCacheEntry entry) {
-		synchronized (HIERACHY_CACHE) {
-			entry.dispose();
-			HIERACHY_CACHE.remove(entry);
+		ITypeHierarchy hierarchy = entry.getTypeHierarchy();
+		if (hierarchy != null) {
+			HIERACHY_CACHE.remove(hierarchy.getType(), entry);
 		}
 	}
 }
@@ -35,6 +35,13 @@ public class BytecodeTypeHierarchyClassReader implements TypeHierarchyClassReade
 	public TypeHierarchyElement readTypeHierarchyInformation(char[] fullyQualifiedClassName, IProject project) {
 		String fullyQualifiedClassFileName = new String(fullyQualifiedClassName) + ".class";
 		
+		if (TypeHierarchyJarIndex.isEnabled()) {
+			TypeHierarchyElement indexedElement = lookup.getIndexedTypeHierarchy(fullyQualifiedClassName, fullyQualifiedClassFileName);
+			if (indexedElement != null) {
+				return indexedElement;
+			}
+		}
+		
 		String packageName = "";
 		String className = fullyQualifiedClassFileName;
 
@@ -20,4 +20,12 @@ public interface ClasspathLookup {
 	InputStream getStream(String fullyQualifiedClassFileName, String packageName, String className);
 	void close();
 
+	/**
+	 * Returns the type hierarchy information for the given class from a persistent {@link TypeHierarchyJarIndex},
+	 * if the class is located in an indexed jar file. Returns <code>null</code> if no index information is available,
+	 * in that case the class file needs to be read from the stream.
+	 * @since 3.8.4
+	 */
+	TypeHierarchyElement getIndexedTypeHierarchy(char[] fullyQualifiedClassName, String fullyQualifiedClassFileName);
+
 }
@@ -10,15 +10,35 @@
 *******************************************************************************/
 package org.springframework.ide.eclipse.core.java.typehierarchy;
 
+import java.io.File;
 import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.ide.eclipse.core.java.FilteringURLClassLoader;
 
 /**
+ * {@link ClasspathLookup} that reads class files through a classloader.
+ * <p>
+ * Indexed lookups don't ask the classloader for each class. The jars and directories of the
+ * {@link URLClassLoader}s at the bottom of the classloader chain are resolved once, in the order the
+ * classloaders search them, and the {@link TypeHierarchyJarIndex} of each jar is checked against the
+ * jar once and then kept as long as this lookup (and therefore the classloader) is used. Only the
+ * part of the chain that can't be resolved this way (e.g. bundle classloaders) is asked directly.
  * @author Martin Lippert
  */
 public class ClasspathLookupClassloader implements ClasspathLookup {
 	
 	private ClassLoader loader;
 
+	private Classpath classpath;
+
+	private final Map<String, TypeHierarchyJarIndex> indexes = new ConcurrentHashMap<String, TypeHierarchyJarIndex>();
+
 	public ClasspathLookupClassloader(ClassLoader loader) {
 		this.loader = loader;
 	}
@@ -27,7 +47,148 @@ public class ClasspathLookupClassloader implements ClasspathLookup {
 		return loader.getResourceAsStream(fullyQualifiedClassFileName);
 	}
 
+	public TypeHierarchyElement getIndexedTypeHierarchy(char[] fullyQualifiedClassName, String fullyQualifiedClassFileName) {
+		Classpath classpath = getClasspath();
+
+		// classes of the parent classloaders take precedence
+		URL url = classpath.parent.getResource(fullyQualifiedClassFileName);
+		if (url != null) {
+			String jarFileName = getJarFileName(url);
+			TypeHierarchyJarIndex index = jarFileName != null ? getIndex(jarFileName) : null;
+			return index != null ? index.getTypeHierarchyElement(fullyQualifiedClassName) : null;
+		}
+
+		for (File entry : classpath.entries) {
+			if (entry.isDirectory()) {
+				if (new File(entry, fullyQualifiedClassFileName).isFile()) {
+					return null;
+				}
+			}
+			else {
+				TypeHierarchyJarIndex index = getIndex(entry.getPath());
+				if (index == null) {
+					// can't tell whether the jar contains the class
+					return null;
+				}
+				TypeHierarchyElement element = index.getTypeHierarchyElement(fullyQualifiedClassName);
+				if (element != null) {
+					return element;
+				}
+			}
+		}
+		return null;
+	}
+
 	public void close() {
 	}
 
+	private TypeHierarchyJarIndex getIndex(String jarFileName) {
+		TypeHierarchyJarIndex index = indexes.get(jarFileName);
+		if (index == null) {
+			index = TypeHierarchyJarIndex.getIndex(jarFileName);
+			if (index != null) {
+				indexes.put(jarFileName, index);
+			}
+		}
+		return index;
+	}
+
+	private synchronized Classpath getClasspath() {
+		if (classpath == null) {
+			classpath = resolveClasspath(loader);
+		}
+		return classpath;
+	}
+
+	/**
+	 * Splits the classloader chain into the parent classloaders that need to be asked directly and the
+	 * jars and directories of the {@link URLClassLoader}s below them.
+	 */
+	private static Classpath resolveClasspath(ClassLoader loader) {
+		List<ClassLoader> chain = new ArrayList<ClassLoader>();
+		for (ClassLoader current = loader; current != null; current = current.getParent()) {
+			chain.add(0, current);
+		}
+
+		// the root of the chain is asked in any case, as it delegates to the bootstrap classloader
+		int resolvableFrom = 1;
+		for (int i = 1; i < chain.size(); i++) {
+			if (getEntries(chain.get(i)) == null) {
+				resolvableFrom = i + 1;
+			}
+		}
+
+		List<File> entries = new ArrayList<File>();
+		for (int i = resolvableFrom; i < chain.size(); i++) {
+			entries.addAll(getEntries(chain.get(i)));
+		}
+		return new Classpath(chain.get(resolvableFrom - 1), entries);
+	}
+
+	/**
+	 * Returns the jars and directories the given classloader loads classes from, or <code>null</code> if
+	 * they can't be determined.
+	 */
+	private static List<File> getEntries(ClassLoader loader) {
+		if (!(loader instanceof FilteringURLClassLoader) && loader.getClass() != URLClassLoader.class) {
+			return null;
+		}
+		List<File> entries = new ArrayList<File>();
+		for (URL url : ((URLClassLoader) loader).getURLs()) {
+			if (!"file".equals(url.getProtocol())) {
+				return null;
+			}
+			try {
+				File file = new File(url.toURI());
+				// like the classloader, treat urls ending with a slash as directories and skip missing jars
+				if (url.getPath().endsWith("/")) {
+					entries.add(file);
+				}
+				else if (file.isFile()) {
+					entries.add(file);
+				}
+			}
+			catch (Exception e) {
+				return null;
+			}
+		}
+		return entries;
+	}
+
+	private String getJarFileName(URL url) {
+		if (url == null || !"jar".equals(url.getProtocol())) {
+			return null;
+		}
+
+		String spec = url.getFile();
+		int separator = spec.indexOf("!/");
+		if (separator < 0) {
+			return null;
+		}
+
+		try {
+			URL jarUrl = new URL(spec.substring(0, separator));
+			if ("file".equals(jarUrl.getProtocol())) {
+				return new File(jarUrl.toURI()).getAbsolutePath();
+			}
+		} catch (Exception e) { // not a local jar file, no index available
+		}
+		return null;
+	}
+
+	/**
+	 * The resolved classpath of a classloader chain.
+	 */
+	private static class Classpath {
+
+		private final ClassLoader parent;
+
+		private final List<File> entries;
+
+		public Classpath(ClassLoader parent, List<File> entries) {
+			this.parent = parent;
+			this.entries = entries;
+		}
+	}
+
 }
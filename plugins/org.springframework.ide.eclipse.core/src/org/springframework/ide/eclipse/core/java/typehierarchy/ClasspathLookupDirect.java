@@ -84,6 +84,10 @@ public class ClasspathLookupDirect implements ClasspathLookup {
 		return null;
 	}
 
+	public TypeHierarchyElement getIndexedTypeHierarchy(char[] fullyQualifiedClassName, String fullyQualifiedClassFileName) {
+		return null;
+	}
+
 	public void close() {
 		for (int i = 0; i < cpElements.length; i++) {
 			synchronized(cpElements[i]) {
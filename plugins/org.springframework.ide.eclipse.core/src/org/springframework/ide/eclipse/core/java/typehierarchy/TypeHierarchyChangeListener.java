@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Pivotal Software, Inc. and others.
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0
+ * (http://www.eclipse.org/legal/epl-v10.html), and the Eclipse Distribution
+ * License v1.0 (http://www.eclipse.org/org/documents/edl-v10.html).
+ *
+ * Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java.typehierarchy;
+
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+
+/**
+ * Listener that gets notified by the {@link TypeHierarchyResourceChangeListener} before a build
+ * about changes that might invalidate type hierarchy information derived from the {@link TypeHierarchyEngine}.
+ * 
+ * @since 3.8.4
+ */
+public interface TypeHierarchyChangeListener {
+
+	/**
+	 * Called for changed, added or removed types of the given project. The names are fully qualified
+	 * (dotted) type names, member types of the given types (<code>$</code> separated) might have
+	 * changed as well.
+	 */
+	public void typesChanged(IProject project, Set<String> changedTypeNames);
+
+	/**
+	 * Called if the project itself or its classpath changed, in which case all type hierarchy
+	 * information for the project should be considered invalid.
+	 */
+	public void projectChanged(IProject project);
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013 Spring IDE Developers
+ * Copyright (c) 2013, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -27,6 +27,9 @@ public class TypeHierarchyElement {
 	
 	public final char[][] interfaces;
 	public TypeHierarchyElement[] interfacesElements; // array initialized, but elements being set lazy
+
+	volatile SupertypeIds supertypeIds; // lazy set by the engine once the type is queried more than once
+	private volatile boolean queried;
 	
 	public TypeHierarchyElement(char[] className, char[] superclassName, char[][] interfaces) {
 		super();
@@ -39,6 +42,19 @@ public class TypeHierarchyElement {
 		}
 	}
 	
+	/**
+	 * Marks this type as queried.
+	 * @return <code>true</code> if the type has been queried before
+	 * @since 3.8.4
+	 */
+	boolean markQueried() {
+		if (queried) {
+			return true;
+		}
+		queried = true;
+		return false;
+	}
+	
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -61,4 +77,22 @@ public class TypeHierarchyElement {
 		return true;
 	}
 
+	/**
+	 * The sorted type ids of a type and all its superclasses and of all its transitively implemented
+	 * interfaces, only valid for the type id table they have been computed with.
+	 * @since 3.8.4
+	 */
+	static class SupertypeIds {
+		
+		final TypeIdTable typeIdTable;
+		final int[] superclassIds;
+		final int[] interfaceIds;
+		
+		SupertypeIds(TypeIdTable typeIdTable, int[] superclassIds, int[] interfaceIds) {
+			this.typeIdTable = typeIdTable;
+			this.superclassIds = superclassIds;
+			this.interfaceIds = interfaceIds;
+		}
+	}
+
 }
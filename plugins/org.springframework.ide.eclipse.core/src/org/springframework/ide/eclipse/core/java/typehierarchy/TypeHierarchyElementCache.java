@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013 Spring IDE Developers
+ * Copyright (c) 2013, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,35 +10,181 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.core.java.typehierarchy;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.eclipse.jdt.core.compiler.CharOperation;
 
 /**
+ * Cache for {@link TypeHierarchyElement}s keyed by the fully qualified (slashed) class name.
+ * <p>
+ * The cache is an open-addressing hash table with linear probing that compares the full names
+ * of the types, so that types with the same hash code never overwrite each other. Entries are
+ * keyed by the name array of the cached element itself, so the cache holds a single array per
+ * type name and lookups with that array (e.g. while walking a type hierarchy) compare by identity.
+ * <p>
+ * Lookups are lock-free and don't allocate, updates are synchronized. Adding an entry writes
+ * into the current table, so a concurrent lookup may not see it yet and reads the type again.
+ * Removals compact the probe sequence on a copy of the table and publish the copy, so lookups
+ * never miss an entry that is present during the whole lookup.
+ *
  * @author Martin Lippert
  * @since 3.3.0
  */
 public class TypeHierarchyElementCache {
-	
-	private Map<Integer, TypeHierarchyElement> cache;
-	
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private volatile Entry[] table;
+	private int size;
+
 	public TypeHierarchyElementCache() {
-		this.cache = new ConcurrentHashMap<Integer, TypeHierarchyElement>();
+		this.table = new Entry[INITIAL_CAPACITY];
 	}
 
 	public TypeHierarchyElement get(char[] fullyQualifiedClassName) {
-		return cache.get(charArrayToHashcode(fullyQualifiedClassName));
+		int hash = hash(fullyQualifiedClassName);
+		Entry[] entries = this.table;
+		int mask = entries.length - 1;
+
+		for (int i = hash & mask;; i = (i + 1) & mask) {
+			Entry entry = entries[i];
+			if (entry == null) {
+				return null;
+			}
+			if (entry.name == fullyQualifiedClassName
+					|| (entry.hash == hash && CharOperation.equals(entry.name, fullyQualifiedClassName))) {
+				return entry.element;
+			}
+		}
+	}
+
+	public synchronized void put(char[] fullyQualifiedClassName, TypeHierarchyElement typeElement) {
+		int hash = hash(fullyQualifiedClassName);
+		Entry[] entries = this.table;
+		int mask = entries.length - 1;
+
+		for (int i = hash & mask;; i = (i + 1) & mask) {
+			Entry entry = entries[i];
+			if (entry == null) {
+				char[] name = CharOperation.equals(typeElement.className, fullyQualifiedClassName)
+						? typeElement.className : fullyQualifiedClassName;
+				entries[i] = new Entry(name, hash, typeElement);
+				if (++size * 2 > entries.length) {
+					resize();
+				}
+				return;
+			}
+			if (entry.hash == hash && CharOperation.equals(entry.name, fullyQualifiedClassName)) {
+				entries[i] = new Entry(entry.name, hash, typeElement);
+				return;
+			}
+		}
 	}
 
-	public void put(char[] fullyQualifiedClassName, TypeHierarchyElement typeElement) {
-		cache.put(charArrayToHashcode(fullyQualifiedClassName), typeElement);
+	public void remove(char[] fullyQualifiedClassName) {
+		removeAll(Collections.singleton(fullyQualifiedClassName));
 	}
-	
-	private int charArrayToHashcode(char[] characters) {
+
+	/**
+	 * Removes the given types with a single copy of the table.
+	 * @since 3.8.4
+	 */
+	public synchronized void removeAll(Collection<char[]> fullyQualifiedClassNames) {
+		Entry[] entries = null;
+		for (char[] fullyQualifiedClassName : fullyQualifiedClassNames) {
+			int hash = hash(fullyQualifiedClassName);
+			Entry[] current = entries != null ? entries : this.table;
+			int mask = current.length - 1;
+
+			int i = hash & mask;
+			while (current[i] != null && (current[i].hash != hash || !CharOperation.equals(current[i].name, fullyQualifiedClassName))) {
+				i = (i + 1) & mask;
+			}
+			if (current[i] == null) {
+				continue;
+			}
+
+			if (entries == null) {
+				entries = current.clone();
+			}
+
+			// shift back the following entries of the probe sequence, so that no tombstones are needed
+			entries[i] = null;
+			size--;
+			for (int j = (i + 1) & mask; entries[j] != null; j = (j + 1) & mask) {
+				Entry entry = entries[j];
+				int home = entry.hash & mask;
+				if ((j > i && (home <= i || home > j)) || (j < i && (home <= i && home > j))) {
+					entries[i] = entry;
+					entries[j] = null;
+					i = j;
+				}
+			}
+		}
+
+		if (entries != null) {
+			this.table = entries;
+		}
+	}
+
+	public synchronized TypeHierarchyElement[] getElements() {
+		TypeHierarchyElement[] result = new TypeHierarchyElement[size];
+		int index = 0;
+		for (Entry entry : this.table) {
+			if (entry != null) {
+				result[index++] = entry.element;
+			}
+		}
+		return result;
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	private void resize() {
+		Entry[] oldEntries = this.table;
+		Entry[] newEntries = new Entry[oldEntries.length * 2];
+		int mask = newEntries.length - 1;
+
+		for (Entry entry : oldEntries) {
+			if (entry != null) {
+				int i = entry.hash & mask;
+				while (newEntries[i] != null) {
+					i = (i + 1) & mask;
+				}
+				newEntries[i] = entry;
+			}
+		}
+
+		// readers continue to see a consistent (old) table until the new one is published
+		this.table = newEntries;
+	}
+
+	private static int hash(char[] characters) {
 		int h = 0;
 		for (int i = 0; i < characters.length; i++) {
-			h = 31*h + characters[i];
+			h = 31 * h + characters[i];
+		}
+		// spread the bits, the low bits are used for indexing into the table
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Immutable table entry, the final fields guarantee safe publication to lock-free readers.
+	 */
+	private static final class Entry {
+
+		final char[] name;
+		final int hash;
+		final TypeHierarchyElement element;
+
+		Entry(char[] name, int hash, TypeHierarchyElement element) {
+			this.name = name;
+			this.hash = hash;
+			this.element = element;
 		}
-        return h;
 	}
 
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2014 Spring IDE Developers
+ * Copyright (c) 2013, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,7 +11,13 @@
 package org.springframework.ide.eclipse.core.java.typehierarchy;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.resources.IProject;
@@ -19,8 +25,15 @@ import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.compiler.CharOperation;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyElement.SupertypeIds;
 
 /**
+ * Answers type hierarchy questions based on the bytecode of the classes on the classpath of a project.
+ * <p>
+ * Types that are queried more than once get their transitive superclasses and interfaces memoized
+ * as sorted arrays of type ids, so that further {@link #doesExtend(String, String, IProject)} and
+ * {@link #doesImplement(String, String, IProject)} calls for those types are a single membership test.
+ * 
  * @author Martin Lippert
  * @since 3.3.0
  */
@@ -34,12 +47,18 @@ public class TypeHierarchyEngine {
 	private final Map<IProject, TypeHierarchyElementCache> cache;
 	private final Map<IProject, TypeHierarchyClassReader> readers;
 
+	/** Type ids that are not in use anymore are dropped by replacing the table once it grows well beyond the cached types */
+	private static final int MIN_PRUNED_TYPE_IDS = 10000;
+
+	private volatile TypeIdTable typeIds;
+
 	private final boolean autoCleanup;
 	
 	public TypeHierarchyEngine(boolean autoCleanup) {
 		this.autoCleanup = autoCleanup;
 		this.cache = new ConcurrentHashMap<IProject, TypeHierarchyElementCache>();
 		this.readers = new ConcurrentHashMap<IProject, TypeHierarchyClassReader>();
+		this.typeIds = new TypeIdTable();
 	}
 
 	public void setClassReaderFactory(TypeHierarchyClassReaderFactory classReaderFactory) {
@@ -67,6 +86,7 @@ public class TypeHierarchyEngine {
 		cleanup(project);
 		this.readers.remove(project);
 		this.cache.remove(project);
+		pruneTypeIds();
 	}
 	
 	public void clearCache() {
@@ -75,6 +95,32 @@ public class TypeHierarchyEngine {
 		}
 	}
 
+	/**
+	 * Removes the cached information about the given types from the caches of all projects, together
+	 * with the information about all cached types that depend on them.
+	 * @param typeNames fully qualified type names, member types of those types are removed as well
+	 * @param simpleTypeNames simple type names (e.g. derived from changed class files), all types with a matching simple name are removed
+	 * @since 3.8.4
+	 */
+	public void clearCache(Set<String> typeNames, Set<String> simpleTypeNames) {
+		Set<String> slashedTypeNames = new HashSet<String>();
+		for (String typeName : typeNames) {
+			slashedTypeNames.add(typeName.replace('.', '/'));
+		}
+
+		for (TypeHierarchyElementCache elementCache : this.cache.values()) {
+			Map<TypeHierarchyElement, Boolean> invalidElements = new IdentityHashMap<TypeHierarchyElement, Boolean>();
+			List<char[]> invalidTypeNames = new ArrayList<char[]>();
+			for (TypeHierarchyElement element : elementCache.getElements()) {
+				if (isInvalid(element, slashedTypeNames, simpleTypeNames, invalidElements)) {
+					invalidTypeNames.add(element.className);
+				}
+			}
+			elementCache.removeAll(invalidTypeNames);
+		}
+		pruneTypeIds();
+	}
+
 	public String getSupertype(IType type) {
 		IJavaElement ancestor = type.getAncestor(IJavaElement.JAVA_PROJECT);
 		if (ancestor != null && ancestor instanceof IJavaProject) {
@@ -129,24 +175,38 @@ public class TypeHierarchyEngine {
 	
 	public boolean doesExtend(String type, String className, IProject project) {
 		char[] typeName = type.replace('.', '/').toCharArray();
-		char[] superTypeName = className.replace('.',  '/').toCharArray();
+		String superTypeNameString = className.replace('.',  '/');
+		char[] superTypeName = superTypeNameString.toCharArray();
+		
+		if (CharOperation.equals(typeName, superTypeName)) {
+			return true;
+		}
 	
 		TypeHierarchyElementCache elementCache = getTypeHierarchyElementCache(project);
 		
 		try {
-			TypeHierarchyElement typeElement = null;
-			TypeHierarchyElement previousTypeElement = null;
+			TypeHierarchyElement typeElement = getTypeElement(typeName, project, elementCache);
+			if (typeElement == null) {
+				return false;
+			}
 
-			do {
+			if (isFrequentlyQueried(typeElement)) {
+				SupertypeIds supertypeIds = getSupertypeIds(typeElement, project, elementCache);
+				return containsTypeId(supertypeIds, supertypeIds.superclassIds, superTypeNameString);
+			}
+
+			TypeHierarchyElement previousTypeElement = typeElement;
+			typeName = typeElement.superclassName;
+			typeElement = typeElement.superclassElement;
+
+			while (typeName != null) {
 				if (CharOperation.equals(typeName, superTypeName)) {
 					return true;
 				}
 				else {
 					if (typeElement == null) {
 						typeElement = getTypeElement(typeName, project, elementCache);
-						if (previousTypeElement != null) {
-							previousTypeElement.superclassElement = typeElement;
-						}
+						previousTypeElement.superclassElement = typeElement;
 					}
 					previousTypeElement = typeElement;
 
@@ -158,7 +218,7 @@ public class TypeHierarchyEngine {
 						typeName = null;
 					}
 				}
-			} while (typeName != null);
+			}
 		}
 		finally {
 			if (autoCleanup) cleanup(project);
@@ -177,11 +237,18 @@ public class TypeHierarchyEngine {
 	
 	public boolean doesImplement(final String type, final String interfaceName, IProject project) {
 		char[] classTypeName = type.replace('.', '/').toCharArray();
-		char[] interfaceTypeName = interfaceName.replace('.',  '/').toCharArray();
+		String interfaceTypeNameString = interfaceName.replace('.',  '/');
+		char[] interfaceTypeName = interfaceTypeNameString.toCharArray();
 
 		try {
 			TypeHierarchyElementCache elementCache = getTypeHierarchyElementCache(project);
 			
+			TypeHierarchyElement classTypeElement = getTypeElement(classTypeName, project, elementCache);
+			if (classTypeElement != null && isFrequentlyQueried(classTypeElement)) {
+				SupertypeIds supertypeIds = getSupertypeIds(classTypeElement, project, elementCache);
+				return containsTypeId(supertypeIds, supertypeIds.interfaceIds, interfaceTypeNameString);
+			}
+
 			// cached items first
 			boolean result = doesImplement(project, classTypeName, interfaceTypeName, true, elementCache)
 					|| doesImplement(project, classTypeName, interfaceTypeName, false, elementCache);
@@ -248,6 +315,148 @@ public class TypeHierarchyEngine {
 		return false;
 	}
 	
+	/**
+	 * The first query for a type walks the type hierarchy lazily and stops as soon as the answer is known,
+	 * types that are queried again get their complete supertype information memoized.
+	 */
+	private boolean isFrequentlyQueried(TypeHierarchyElement element) {
+		return element.supertypeIds != null || element.markQueried();
+	}
+
+	/**
+	 * Returns the memoized supertype ids of the given type, computing them if they don't exist yet
+	 * or have been computed with a type id table that has been pruned in the meantime.
+	 */
+	private SupertypeIds getSupertypeIds(TypeHierarchyElement element, IProject project, TypeHierarchyElementCache elementCache) {
+		TypeIdTable table = this.typeIds;
+		SupertypeIds supertypeIds = element.supertypeIds;
+		if (supertypeIds == null || supertypeIds.typeIdTable != table) {
+			supertypeIds = computeSupertypeIds(element, table, project, elementCache);
+			element.supertypeIds = supertypeIds;
+		}
+		return supertypeIds;
+	}
+
+	/**
+	 * Computes the sorted type ids of all superclasses and all transitively implemented
+	 * interfaces of the given type, linking all visited type hierarchy elements along the way.
+	 */
+	private SupertypeIds computeSupertypeIds(TypeHierarchyElement element, TypeIdTable table, IProject project,
+			TypeHierarchyElementCache elementCache) {
+		Set<Integer> superclassIds = new HashSet<Integer>();
+		Set<Integer> interfaceIds = new HashSet<Integer>();
+		ArrayDeque<TypeHierarchyElement> interfaceElements = new ArrayDeque<TypeHierarchyElement>();
+
+		superclassIds.add(table.getTypeId(new String(element.className)));
+
+		TypeHierarchyElement classElement = element;
+		while (classElement != null) {
+			addInterfaces(classElement, table, interfaceIds, interfaceElements, project, elementCache);
+
+			char[] superclassName = classElement.superclassName;
+			if (superclassName == null) {
+				break;
+			}
+			superclassIds.add(table.getTypeId(new String(superclassName)));
+
+			TypeHierarchyElement superclassElement = classElement.superclassElement;
+			if (superclassElement == null) {
+				superclassElement = getTypeElement(superclassName, project, elementCache);
+				classElement.superclassElement = superclassElement;
+			}
+			classElement = superclassElement;
+		}
+
+		while (!interfaceElements.isEmpty()) {
+			addInterfaces(interfaceElements.pop(), table, interfaceIds, interfaceElements, project, elementCache);
+		}
+
+		return new SupertypeIds(table, toSortedArray(superclassIds), toSortedArray(interfaceIds));
+	}
+
+	private void addInterfaces(TypeHierarchyElement element, TypeIdTable table, Set<Integer> interfaceIds,
+			ArrayDeque<TypeHierarchyElement> interfaceElements, IProject project, TypeHierarchyElementCache elementCache) {
+		if (element.interfaces == null) {
+			return;
+		}
+
+		for (int i = 0; i < element.interfaces.length; i++) {
+			if (interfaceIds.add(table.getTypeId(new String(element.interfaces[i])))) {
+				TypeHierarchyElement interfaceElement = element.interfacesElements[i];
+				if (interfaceElement == null) {
+					interfaceElement = getTypeElement(element.interfaces[i], project, elementCache);
+					element.interfacesElements[i] = interfaceElement;
+				}
+				if (interfaceElement != null) {
+					interfaceElements.add(interfaceElement);
+				}
+			}
+		}
+	}
+
+	private boolean containsTypeId(SupertypeIds supertypeIds, int[] ids, String slashedTypeName) {
+		// types without an id are not part of any memoized type hierarchy
+		Integer id = supertypeIds.typeIdTable.ids.get(slashedTypeName);
+		return id != null && Arrays.binarySearch(ids, id) >= 0;
+	}
+
+	/**
+	 * Replaces the type id table once it holds far more ids than there are cached types, i.e. after
+	 * projects or types have been removed from the caches. Memoized type ids of the remaining types
+	 * are computed again with the new table the next time they are used.
+	 */
+	private void pruneTypeIds() {
+		int cachedTypes = 0;
+		for (TypeHierarchyElementCache elementCache : this.cache.values()) {
+			cachedTypes += elementCache.size();
+		}
+		if (this.typeIds.ids.size() > 2 * cachedTypes + MIN_PRUNED_TYPE_IDS) {
+			this.typeIds = new TypeIdTable();
+		}
+	}
+
+	private static int[] toSortedArray(Set<Integer> ids) {
+		int[] result = new int[ids.size()];
+		int i = 0;
+		for (Integer id : ids) {
+			result[i++] = id;
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	private boolean isInvalid(TypeHierarchyElement element, Set<String> slashedTypeNames, Set<String> simpleTypeNames,
+			Map<TypeHierarchyElement, Boolean> invalidElements) {
+		Boolean invalid = invalidElements.get(element);
+		if (invalid != null) {
+			return invalid;
+		}
+		invalidElements.put(element, Boolean.FALSE);
+
+		boolean result = isChangedType(element.className, slashedTypeNames, simpleTypeNames)
+				|| (element.superclassName != null && isChangedType(element.superclassName, slashedTypeNames, simpleTypeNames))
+				|| (element.superclassElement != null && isInvalid(element.superclassElement, slashedTypeNames, simpleTypeNames, invalidElements));
+
+		if (!result && element.interfaces != null) {
+			for (int i = 0; i < element.interfaces.length && !result; i++) {
+				result = isChangedType(element.interfaces[i], slashedTypeNames, simpleTypeNames)
+						|| (element.interfacesElements[i] != null && isInvalid(element.interfacesElements[i], slashedTypeNames, simpleTypeNames, invalidElements));
+			}
+		}
+
+		invalidElements.put(element, result);
+		return result;
+	}
+
+	private boolean isChangedType(char[] slashedTypeName, Set<String> slashedTypeNames, Set<String> simpleTypeNames) {
+		String typeName = new String(slashedTypeName);
+		int memberTypeIndex = typeName.indexOf('$');
+		if (slashedTypeNames.contains(typeName) || (memberTypeIndex > 0 && slashedTypeNames.contains(typeName.substring(0, memberTypeIndex)))) {
+			return true;
+		}
+		return simpleTypeNames.contains(typeName.substring(typeName.lastIndexOf('/') + 1));
+	}
+
 	private TypeHierarchyElement getTypeElement(char[] fullyQualifiedClassName, IProject project, TypeHierarchyElementCache elementCache) {
 		TypeHierarchyElement result = elementCache.get(fullyQualifiedClassName);
 		if (result == null) {
@@ -0,0 +1,614 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Pivotal Software, Inc. and others.
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0
+ * (http://www.eclipse.org/legal/epl-v10.html), and the Eclipse Distribution
+ * License v1.0 (http://www.eclipse.org/org/documents/edl-v10.html).
+ *
+ * Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java.typehierarchy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.springframework.ide.eclipse.core.SpringCore;
+import org.springframework.ide.eclipse.core.java.LruCache;
+
+/**
+ * Persistent type hierarchy index for a single jar file. The index contains the superclass and the
+ * interfaces of every class file in the jar and is stored in a compact binary file in the state
+ * location of the core plugin.
+ * <p>
+ * Like the package cache of {@link ClasspathElementJar}, an index is keyed by the path of the jar
+ * and is only valid as long as the last modification time and the size of the jar are unchanged.
+ * Valid index files are memory-mapped when they are loaded, so that hierarchy queries against
+ * already indexed jars don't need to read any class file.
+ * <p>
+ * Indexes are loaded and built in the background, {@link #getIndex(String)} doesn't wait for them.
+ * Callers read the class files themselves until the index of a jar is available.
+ *
+ * @since 3.8.4
+ */
+public class TypeHierarchyJarIndex {
+
+	public static final String ENABLE_PROPERTY = "org.springframework.ide.eclipse.core.java.enableTypeHierarchyJarIndex";
+
+	private static final int MAGIC = 0x53544849;
+	private static final int VERSION = 1;
+
+	private static final String INDEX_FOLDER = "typehierarchy";
+	private static final String INDEX_FILE_EXTENSION = ".idx";
+	private static final String CLASS_FILE_EXTENSION = ".class";
+
+	private static final int TYPE_RECORD_SIZE = 4;
+
+	// global jar index cache, bounded by the size of the loaded index files
+	private static final LruCache<String, TypeHierarchyJarIndex> INDEXES = new LruCache<String, TypeHierarchyJarIndex>(
+			"Type hierarchy jar indexes", LruCache.budgetOfMaxMemory(0.02, 16 * 1024 * 1024),
+			new LruCache.Weigher<String, TypeHierarchyJarIndex>() {
+				public long weigh(String jarFileName, TypeHierarchyJarIndex index) {
+					return index.buffer.capacity();
+				}
+			}, null);
+
+	// jars whose indexes are currently loaded or built
+	private static final Set<String> PENDING = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	private static ThreadPoolExecutor indexer;
+
+	private static volatile boolean obsoleteIndexFilesDeleted = false;
+
+	private final long lastModified;
+	private final long fileSize;
+
+	private final ByteBuffer buffer;
+	private final int stringCount;
+	private final int typeCount;
+	private final int stringOffsetsStart;
+	private final int typesStart;
+	private final int interfacesStart;
+	private final int stringDataStart;
+
+	private TypeHierarchyJarIndex(ByteBuffer buffer) {
+		this.buffer = buffer;
+
+		int pos = 8; // magic + version
+		this.lastModified = buffer.getLong(pos);
+		pos += 8;
+		this.fileSize = buffer.getLong(pos);
+		pos += 8;
+		int pathLength = buffer.getInt(pos);
+		pos += 4 + pathLength * 2;
+
+		this.stringCount = buffer.getInt(pos);
+		pos += 4;
+		this.typeCount = buffer.getInt(pos);
+		pos += 4;
+		int interfacesCount = buffer.getInt(pos);
+		pos += 4;
+
+		this.stringOffsetsStart = pos;
+		this.typesStart = stringOffsetsStart + stringCount * 4;
+		this.interfacesStart = typesStart + typeCount * TYPE_RECORD_SIZE * 4;
+		this.stringDataStart = interfacesStart + interfacesCount * 4;
+	}
+
+	public static boolean isEnabled() {
+		return System.getProperty(ENABLE_PROPERTY, "true").equals("true");
+	}
+
+	/**
+	 * Returns the index for the given jar file if it is in memory and matches the current state of
+	 * the jar. Otherwise a persisted index is loaded or a new one is built (and persisted) in the
+	 * background and <code>null</code> is returned.
+	 * <p>
+	 * Each call checks the last modification time and the size of the jar, so callers should keep
+	 * the returned index for as long as they keep the jar open (e.g. in a classloader).
+	 * @return the index or <code>null</code> if it isn't available (yet)
+	 */
+	public static TypeHierarchyJarIndex getIndex(String jarFileName) {
+		if (PENDING.contains(jarFileName)) {
+			return null;
+		}
+
+		File jar = new File(jarFileName);
+		long lastModified = jar.lastModified();
+		long fileSize = jar.length();
+		if (lastModified == 0) {
+			return null;
+		}
+
+		TypeHierarchyJarIndex index = INDEXES.get(jarFileName);
+		if (index != null && index.isValid(lastModified, fileSize)) {
+			return index;
+		}
+
+		if (PENDING.add(jarFileName)) {
+			getIndexer().execute(new IndexLoader(jarFileName, lastModified, fileSize));
+		}
+		return null;
+	}
+
+	/**
+	 * Loads the index of the given jar from the given index file.
+	 * @return the index or <code>null</code> if the index file is missing, broken, written by
+	 * another version or doesn't match the current state of the jar
+	 */
+	public static TypeHierarchyJarIndex load(File jar, File indexFile) {
+		return load(indexFile, jar.getAbsolutePath(), jar.lastModified(), jar.length());
+	}
+
+	/**
+	 * Builds the index of the given jar on the calling thread and stores it in the given index file.
+	 * @return the index or <code>null</code> if the jar cannot be read
+	 */
+	public static TypeHierarchyJarIndex build(File jar, File indexFile) {
+		return build(jar.getAbsolutePath(), indexFile, jar.lastModified(), jar.length());
+	}
+
+	private static synchronized ThreadPoolExecutor getIndexer() {
+		if (indexer == null) {
+			indexer = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+					new ThreadFactory() {
+						public Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable, "Type hierarchy jar indexer");
+							thread.setDaemon(true);
+							thread.setPriority(Thread.MIN_PRIORITY);
+							return thread;
+						}
+					});
+			indexer.allowCoreThreadTimeOut(true);
+		}
+		return indexer;
+	}
+
+	/**
+	 * Loads or builds the index of a single jar.
+	 */
+	private static class IndexLoader implements Runnable {
+
+		private final String jarFileName;
+		private final long lastModified;
+		private final long fileSize;
+
+		public IndexLoader(String jarFileName, long lastModified, long fileSize) {
+			this.jarFileName = jarFileName;
+			this.lastModified = lastModified;
+			this.fileSize = fileSize;
+		}
+
+		public void run() {
+			try {
+				deleteObsoleteIndexFiles();
+
+				File indexFile = getIndexFile(jarFileName);
+				TypeHierarchyJarIndex index = load(indexFile, jarFileName, lastModified, fileSize);
+				if (index == null) {
+					index = build(jarFileName, indexFile, lastModified, fileSize);
+				}
+				if (index != null) {
+					INDEXES.put(jarFileName, index);
+				}
+			}
+			catch (Exception e) {
+				SpringCore.log(e);
+			}
+			finally {
+				PENDING.remove(jarFileName);
+			}
+		}
+	}
+
+	/**
+	 * Deletes the index files of jars that don't exist anymore (e.g. because the project moved to a
+	 * new version of a library). Index files of changed jars are replaced when they are rebuilt.
+	 */
+	private static void deleteObsoleteIndexFiles() {
+		if (obsoleteIndexFilesDeleted) {
+			return;
+		}
+		obsoleteIndexFilesDeleted = true;
+
+		SpringCore plugin = SpringCore.getDefault();
+		if (plugin == null) {
+			return;
+		}
+		File[] files = plugin.getStateLocation().append(INDEX_FOLDER).toFile().listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			if (file.getName().endsWith(INDEX_FILE_EXTENSION)) {
+				String jarFileName = readJarFileName(file);
+				if (jarFileName == null || !new File(jarFileName).isFile()) {
+					file.delete();
+				}
+			}
+			else if (file.getName().endsWith(INDEX_FILE_EXTENSION + ".tmp")) {
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * Returns the path of the jar the given index file belongs to, or <code>null</code> if the file
+	 * isn't a readable index file of the current version.
+	 */
+	private static String readJarFileName(File indexFile) {
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(indexFile, "r");
+			if (file.readInt() != MAGIC || file.readInt() != VERSION) {
+				return null;
+			}
+			file.seek(24);
+			int pathLength = file.readInt();
+			if (pathLength < 0 || pathLength > 4096) {
+				return null;
+			}
+			char[] path = new char[pathLength];
+			for (int i = 0; i < pathLength; i++) {
+				path[i] = file.readChar();
+			}
+			return new String(path);
+		}
+		catch (IOException e) {
+			return null;
+		}
+		finally {
+			if (file != null) {
+				try {
+					file.close();
+				} catch (IOException e) { // ignore it
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the type hierarchy information for the given class (in slashed notation) or
+	 * <code>null</code> if the jar doesn't contain the class.
+	 */
+	public TypeHierarchyElement getTypeHierarchyElement(char[] fullyQualifiedClassName) {
+		int nameIndex = findString(fullyQualifiedClassName);
+		if (nameIndex < 0) {
+			return null;
+		}
+
+		int low = 0;
+		int high = typeCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int record = typesStart + mid * TYPE_RECORD_SIZE * 4;
+			int midNameIndex = buffer.getInt(record);
+			if (midNameIndex < nameIndex) {
+				low = mid + 1;
+			}
+			else if (midNameIndex > nameIndex) {
+				high = mid - 1;
+			}
+			else {
+				int superclassIndex = buffer.getInt(record + 4);
+				int interfacesOffset = buffer.getInt(record + 8);
+				int interfacesLength = buffer.getInt(record + 12);
+
+				char[] superclassName = superclassIndex >= 0 ? getString(superclassIndex) : null;
+				char[][] interfaces = null;
+				if (interfacesLength > 0) {
+					interfaces = new char[interfacesLength][];
+					for (int i = 0; i < interfacesLength; i++) {
+						interfaces[i] = getString(buffer.getInt(interfacesStart + (interfacesOffset + i) * 4));
+					}
+				}
+				return new TypeHierarchyElement(fullyQualifiedClassName, superclassName, interfaces);
+			}
+		}
+		return null;
+	}
+
+	private boolean isValid(long lastModified, long fileSize) {
+		return this.lastModified == lastModified && this.fileSize == fileSize;
+	}
+
+	/**
+	 * Checks that the buffer contains all strings, i.e. that the index file isn't truncated. The
+	 * strings are stored in their sorted order at the end of the file.
+	 */
+	private boolean isComplete() {
+		if (stringCount < 0 || typeCount < 0 || stringDataStart < 0 || stringDataStart > buffer.capacity()) {
+			return false;
+		}
+		if (stringCount == 0) {
+			return stringDataStart == buffer.capacity();
+		}
+		int pos = stringDataStart + buffer.getInt(stringOffsetsStart + (stringCount - 1) * 4);
+		if (pos < stringDataStart || pos + 4 > buffer.capacity()) {
+			return false;
+		}
+		return pos + 4 + buffer.getInt(pos) * 2 == buffer.capacity();
+	}
+
+	private int findString(char[] name) {
+		int low = 0;
+		int high = stringCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = compareString(mid, name);
+			if (cmp < 0) {
+				low = mid + 1;
+			}
+			else if (cmp > 0) {
+				high = mid - 1;
+			}
+			else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	private int compareString(int index, char[] name) {
+		int pos = stringDataStart + buffer.getInt(stringOffsetsStart + index * 4);
+		int length = buffer.getInt(pos);
+		pos += 4;
+		int min = Math.min(length, name.length);
+		for (int i = 0; i < min; i++) {
+			char c = buffer.getChar(pos + i * 2);
+			if (c != name[i]) {
+				return c - name[i];
+			}
+		}
+		return length - name.length;
+	}
+
+	private char[] getString(int index) {
+		int pos = stringDataStart + buffer.getInt(stringOffsetsStart + index * 4);
+		int length = buffer.getInt(pos);
+		pos += 4;
+		char[] result = new char[length];
+		for (int i = 0; i < length; i++) {
+			result[i] = buffer.getChar(pos + i * 2);
+		}
+		return result;
+	}
+
+	private static File getIndexFile(String jarFileName) {
+		SpringCore plugin = SpringCore.getDefault();
+		if (plugin == null) {
+			return null;
+		}
+		File folder = plugin.getStateLocation().append(INDEX_FOLDER).toFile();
+		String name = new File(jarFileName).getName() + "-" + Integer.toHexString(jarFileName.hashCode()) + INDEX_FILE_EXTENSION;
+		return new File(folder, name);
+	}
+
+	private static TypeHierarchyJarIndex load(File indexFile, String jarFileName, long lastModified, long fileSize) {
+		if (indexFile == null || !indexFile.isFile()) {
+			return null;
+		}
+
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(indexFile, "r");
+			FileChannel channel = file.getChannel();
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+				return null;
+			}
+
+			// the index file name is based on a hash, so check that the index belongs to this jar
+			int pathLength = buffer.getInt(24);
+			if (pathLength != jarFileName.length()) {
+				return null;
+			}
+			for (int i = 0; i < pathLength; i++) {
+				if (buffer.getChar(28 + i * 2) != jarFileName.charAt(i)) {
+					return null;
+				}
+			}
+
+			TypeHierarchyJarIndex index = new TypeHierarchyJarIndex(buffer);
+			return index.isComplete() && index.isValid(lastModified, fileSize) ? index : null;
+		}
+		catch (Exception e) {
+			// broken or incompatible index file, will be rebuilt
+			return null;
+		}
+		finally {
+			if (file != null) {
+				try {
+					file.close();
+				} catch (IOException e) { // ignore it, the mapping remains valid
+				}
+			}
+		}
+	}
+
+	private static TypeHierarchyJarIndex build(String jarFileName, File indexFile, long lastModified, long fileSize) {
+		Map<String, TypeHierarchyElement> elements = new TreeMap<String, TypeHierarchyElement>();
+
+		JarFile jarFile = null;
+		try {
+			jarFile = new JarFile(jarFileName);
+			BytecodeTypeHierarchyClassReader reader = new BytecodeTypeHierarchyClassReader(null);
+
+			for (Enumeration<JarEntry> e = jarFile.entries(); e.hasMoreElements();) {
+				JarEntry entry = e.nextElement();
+				String entryName = entry.getName();
+				if (!entryName.endsWith(CLASS_FILE_EXTENSION) || entry.isDirectory()) {
+					continue;
+				}
+
+				InputStream stream = jarFile.getInputStream(entry);
+				try {
+					TypeHierarchyElement element = reader.readTypeHierarchy(stream);
+					if (element != null) {
+						elements.put(entryName.substring(0, entryName.length() - CLASS_FILE_EXTENSION.length()), element);
+					}
+				}
+				finally {
+					stream.close();
+				}
+			}
+		}
+		catch (IOException e) {
+			SpringCore.log(e);
+			return null;
+		}
+		finally {
+			if (jarFile != null) {
+				try {
+					jarFile.close();
+				} catch (IOException e) { // ignore it
+				}
+			}
+		}
+
+		try {
+			byte[] bytes = write(jarFileName, lastModified, fileSize, elements);
+			if (indexFile != null) {
+				store(indexFile, bytes);
+			}
+			return new TypeHierarchyJarIndex(ByteBuffer.wrap(bytes));
+		}
+		catch (IOException e) {
+			SpringCore.log(e);
+			return null;
+		}
+	}
+
+	private static byte[] write(String jarFileName, long lastModified, long fileSize, Map<String, TypeHierarchyElement> elements) throws IOException {
+		// sorted string table, so that lookups can do a binary search on the mapped file
+		TreeSet<String> strings = new TreeSet<String>();
+		int interfacesCount = 0;
+		for (Map.Entry<String, TypeHierarchyElement> entry : elements.entrySet()) {
+			TypeHierarchyElement element = entry.getValue();
+			strings.add(entry.getKey());
+			if (element.superclassName != null) {
+				strings.add(new String(element.superclassName));
+			}
+			if (element.interfaces != null) {
+				for (char[] interfaceName : element.interfaces) {
+					strings.add(new String(interfaceName));
+				}
+				interfacesCount += element.interfaces.length;
+			}
+		}
+
+		Map<String, Integer> stringIndexes = new HashMap<String, Integer>(strings.size());
+		List<String> stringList = new ArrayList<String>(strings);
+		for (int i = 0; i < stringList.size(); i++) {
+			stringIndexes.put(stringList.get(i), i);
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeLong(lastModified);
+		out.writeLong(fileSize);
+		out.writeInt(jarFileName.length());
+		out.writeChars(jarFileName);
+		out.writeInt(stringList.size());
+		out.writeInt(elements.size());
+		out.writeInt(interfacesCount);
+
+		int offset = 0;
+		for (String string : stringList) {
+			out.writeInt(offset);
+			offset += 4 + string.length() * 2;
+		}
+
+		// type records are written in the order of their names, so their name indexes are sorted, too
+		int interfacesOffset = 0;
+		for (Map.Entry<String, TypeHierarchyElement> entry : elements.entrySet()) {
+			TypeHierarchyElement element = entry.getValue();
+			int interfacesLength = element.interfaces != null ? element.interfaces.length : 0;
+
+			out.writeInt(stringIndexes.get(entry.getKey()));
+			out.writeInt(element.superclassName != null ? stringIndexes.get(new String(element.superclassName)) : -1);
+			out.writeInt(interfacesOffset);
+			out.writeInt(interfacesLength);
+			interfacesOffset += interfacesLength;
+		}
+
+		for (TypeHierarchyElement element : elements.values()) {
+			if (element.interfaces != null) {
+				for (char[] interfaceName : element.interfaces) {
+					out.writeInt(stringIndexes.get(new String(interfaceName)));
+				}
+			}
+		}
+
+		for (String string : stringList) {
+			out.writeInt(string.length());
+			out.writeChars(string);
+		}
+
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	private static void store(File indexFile, byte[] bytes) {
+		File folder = indexFile.getParentFile();
+		if (!folder.exists() && !folder.mkdirs()) {
+			return;
+		}
+
+		File tempFile = new File(folder, indexFile.getName() + ".tmp");
+		OutputStream out = null;
+		try {
+			out = new FileOutputStream(tempFile);
+			out.write(bytes);
+			out.close();
+			out = null;
+
+			// an older version of the index might still be mapped (and locked on windows),
+			// in that case the new index is used from memory only for this session
+			if (!indexFile.exists() || indexFile.delete()) {
+				tempFile.renameTo(indexFile);
+			}
+		}
+		catch (IOException e) {
+			SpringCore.log(e);
+		}
+		finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) { // ignore it
+				}
+			}
+			tempFile.delete();
+		}
+	}
+
+}
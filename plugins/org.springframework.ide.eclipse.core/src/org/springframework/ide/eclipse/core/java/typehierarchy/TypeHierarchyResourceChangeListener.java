@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013 Spring IDE Developers
+ * Copyright (c) 2013, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,40 +10,216 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.core.java.typehierarchy;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
 import org.springframework.ide.eclipse.core.SpringCore;
 
 /**
+ * Resets the type hierarchy information of the {@link TypeHierarchyEngine} before a build.
+ * <p>
+ * Changes to java source and class files only reset the cached information for the changed types
+ * (and the types that depend on them), all other changes that might affect the classpath of a
+ * project reset the cache of the whole project and of all projects that depend on it.
  * @author Martin Lippert
  * @since 3.3.0
  */
 public class TypeHierarchyResourceChangeListener implements IResourceChangeListener {
 
+	private static final String JAVA_FILE_EXTENSION = "java";
+	private static final String CLASS_FILE_EXTENSION = "class";
+
+	private static final Set<String> CLASSPATH_FILE_EXTENSIONS = new HashSet<String>(Arrays.asList("jar", "zip"));
+	private static final Set<String> CLASSPATH_FILE_NAMES = new HashSet<String>(Arrays.asList(".classpath", ".project",
+			"pom.xml", "build.gradle", "MANIFEST.MF"));
+
+	private static final CopyOnWriteArrayList<TypeHierarchyChangeListener> changeListeners = new CopyOnWriteArrayList<TypeHierarchyChangeListener>();
+
+	/**
+	 * Registers a listener that gets notified about changed types before each build.
+	 * @since 3.8.4
+	 */
+	public static void addTypeHierarchyChangeListener(TypeHierarchyChangeListener listener) {
+		changeListeners.addIfAbsent(listener);
+	}
+
+	/**
+	 * @since 3.8.4
+	 */
+	public static void removeTypeHierarchyChangeListener(TypeHierarchyChangeListener listener) {
+		changeListeners.remove(listener);
+	}
+
 	public void resourceChanged(IResourceChangeEvent event) {
 		if (event.getType() == IResourceChangeEvent.PRE_BUILD) {
 			try {
-				event.getDelta().accept(new CacheResetVisitor());
+				CacheResetVisitor visitor = new CacheResetVisitor();
+				event.getDelta().accept(visitor);
+				visitor.resetCaches(SpringCore.getTypeHierarchyEngine());
 			} catch (CoreException e) {
 				SpringCore.log(e);
 			}
 		}
 	}
-	
+
 	protected static class CacheResetVisitor implements IResourceDeltaVisitor {
+
+		private final Set<IProject> changedProjects = new LinkedHashSet<IProject>();
+		private final Map<IProject, Set<IFile>> changedJavaFiles = new LinkedHashMap<IProject, Set<IFile>>();
+		private final Set<String> changedClassFileNames = new HashSet<String>();
+
 		public boolean visit(IResourceDelta delta) {
 			IResource res = delta.getResource();
 			if (res instanceof IProject) {
-				SpringCore.getTypeHierarchyEngine().clearCache((IProject) res);
+				if (delta.getKind() != IResourceDelta.CHANGED || (delta.getFlags() & IResourceDelta.OPEN) != 0) {
+					changedProjects.add((IProject) res);
+					return false;
+				}
+				return true;
+			}
+			else if (res instanceof IFile) {
+				if (delta.getKind() == IResourceDelta.CHANGED && (delta.getFlags() & IResourceDelta.CONTENT) == 0) {
+					return false;
+				}
+
+				IProject project = res.getProject();
+				String fileExtension = res.getFileExtension();
+				if (JAVA_FILE_EXTENSION.equals(fileExtension)) {
+					Set<IFile> files = changedJavaFiles.get(project);
+					if (files == null) {
+						files = new LinkedHashSet<IFile>();
+						changedJavaFiles.put(project, files);
+					}
+					files.add((IFile) res);
+				}
+				else if (CLASS_FILE_EXTENSION.equals(fileExtension)) {
+					String fileName = res.getName();
+					changedClassFileNames.add(fileName.substring(0, fileName.length() - CLASS_FILE_EXTENSION.length() - 1));
+				}
+				else if (CLASSPATH_FILE_NAMES.contains(res.getName()) || CLASSPATH_FILE_EXTENSIONS.contains(fileExtension)) {
+					changedProjects.add(project);
+				}
 				return false;
 			}
 			return true;
 		}
+
+		public void resetCaches(TypeHierarchyEngine engine) {
+			// the classpath of a project includes the exported entries of the projects it depends on
+			addDependingProjects(changedProjects);
+			for (IProject project : changedProjects) {
+				engine.clearCache(project);
+			}
+
+			Map<IProject, Set<String>> changedTypeNames = new LinkedHashMap<IProject, Set<String>>();
+			Set<String> allChangedTypeNames = new HashSet<String>();
+			for (Map.Entry<IProject, Set<IFile>> entry : changedJavaFiles.entrySet()) {
+				if (!changedProjects.contains(entry.getKey())) {
+					Set<String> typeNames = getTypeNames(entry.getValue());
+					changedTypeNames.put(entry.getKey(), typeNames);
+					allChangedTypeNames.addAll(typeNames);
+				}
+			}
+
+			// types of one project might be cached for dependent projects as well
+			if (!allChangedTypeNames.isEmpty() || !changedClassFileNames.isEmpty()) {
+				engine.clearCache(allChangedTypeNames, changedClassFileNames);
+			}
+
+			for (TypeHierarchyChangeListener listener : changeListeners) {
+				for (IProject project : changedProjects) {
+					listener.projectChanged(project);
+				}
+				for (Map.Entry<IProject, Set<String>> entry : changedTypeNames.entrySet()) {
+					listener.typesChanged(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+
+		/**
+		 * Adds all java projects that (transitively) require one of the given projects.
+		 */
+		private void addDependingProjects(Set<IProject> projects) {
+			if (projects.isEmpty()) {
+				return;
+			}
+			try {
+				IJavaProject[] javaProjects = JavaCore.create(ResourcesPlugin.getWorkspace().getRoot()).getJavaProjects();
+				Set<String> projectNames = new HashSet<String>();
+				for (IProject project : projects) {
+					projectNames.add(project.getName());
+				}
+
+				boolean added = true;
+				while (added) {
+					added = false;
+					for (IJavaProject javaProject : javaProjects) {
+						if (projectNames.contains(javaProject.getElementName())) {
+							continue;
+						}
+						for (String requiredProjectName : javaProject.getRequiredProjectNames()) {
+							if (projectNames.contains(requiredProjectName)) {
+								projectNames.add(javaProject.getElementName());
+								projects.add(javaProject.getProject());
+								added = true;
+								break;
+							}
+						}
+					}
+				}
+			}
+			catch (JavaModelException e) {
+				SpringCore.log(e);
+			}
+		}
+
+		/**
+		 * Returns the fully qualified names of the types declared in the given java files. The types of
+		 * removed files are unknown, in that case the primary type name is used.
+		 */
+		private Set<String> getTypeNames(Set<IFile> javaFiles) {
+			Set<String> typeNames = new LinkedHashSet<String>();
+			for (IFile file : javaFiles) {
+				IJavaElement element = JavaCore.create(file);
+				if (element instanceof ICompilationUnit) {
+					ICompilationUnit unit = (ICompilationUnit) element;
+					if (unit.exists()) {
+						try {
+							for (IType type : unit.getAllTypes()) {
+								typeNames.add(type.getFullyQualifiedName());
+							}
+						}
+						catch (JavaModelException e) {
+							SpringCore.log(e);
+						}
+					}
+					String packageName = unit.getParent().getElementName();
+					String typeName = file.getName().substring(0, file.getName().length() - JAVA_FILE_EXTENSION.length() - 1);
+					typeNames.add(packageName.length() > 0 ? packageName + "." + typeName : typeName);
+				}
+			}
+			return typeNames;
+		}
 	}
 
 }
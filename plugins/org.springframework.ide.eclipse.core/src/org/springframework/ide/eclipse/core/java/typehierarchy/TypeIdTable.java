@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java.typehierarchy;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Assigns engine-wide ids to type names, so that memoized type hierarchies can be compared by id.
+ * @since 3.8.4
+ */
+class TypeIdTable {
+
+	final Map<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+	private final AtomicInteger nextTypeId = new AtomicInteger();
+
+	public int getTypeId(String slashedTypeName) {
+		Integer id = ids.get(slashedTypeName);
+		if (id == null) {
+			synchronized (ids) {
+				id = ids.get(slashedTypeName);
+				if (id == null) {
+					id = nextTypeId.getAndIncrement();
+					ids.put(slashedTypeName, id);
+				}
+			}
+		}
+		return id;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2014 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,16 +10,32 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.core.model.validation;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.springframework.ide.eclipse.core.MarkerUtils;
+import org.springframework.ide.eclipse.core.SpringCore;
 import org.springframework.ide.eclipse.core.internal.model.validation.ValidationRuleDefinition;
 import org.springframework.ide.eclipse.core.internal.model.validation.ValidationRuleDefinitionFactory;
 import org.springframework.ide.eclipse.core.model.IModelElement;
@@ -39,6 +55,12 @@ import org.springframework.ide.eclipse.core.project.IProjectContributorStateAwar
  */
 public abstract class AbstractValidator implements IValidator, IProjectContributorStateAware {
 
+	/** Upper bound for the number of threads used for parallel validation */
+	private static final int MAX_VALIDATION_THREADS = 8;
+
+	/** Interval in milliseconds to check for cancellation while waiting for parallel validation results */
+	private static final long CANCELATION_CHECK_INTERVAL = 100;
+
 	/** Internal state object */
 	private IProjectContributorState contributorState;
 
@@ -67,6 +89,7 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 	public void setProjectContributorState(IProjectContributorState contributorState) {
 		this.contributorState = contributorState;
 		this.contributorState.hold(new ValidationProgressState());
+		this.contributorState.hold(new ValidationStatistics());
 	}
 
 	public void setValidatorId(String validatorId) {
@@ -78,6 +101,11 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 	 */
 	public final void validate(Set<IResource> affectedResources, int kind, IProgressMonitor monitor)
 			throws CoreException {
+		if (affectedResources.size() > 1 && isParallelValidationEnabled()) {
+			validateInParallel(affectedResources, kind, monitor);
+			return;
+		}
+
 		SubProgressMonitor subMonitor = new SubProgressMonitor(monitor, affectedResources.size());
 		try {
 			for (IResource resource : affectedResources) {
@@ -101,7 +129,7 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 
 				Set<ValidationRuleDefinition> ruleDefinitions = getRuleDefinitions(resource);
 				if (rootElement != null && ruleDefinitions != null && ruleDefinitions.size() > 0) {
-					Set<ValidationProblem> problems = validate(callback, ruleDefinitions, subMonitor);
+					Set<ValidationProblem> problems = validate(callback, ruleDefinitions, null, subMonitor);
 					ValidationUtils.createProblemMarkers(resource, problems, getMarkerId());
 				}
 
@@ -119,6 +147,130 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 		}
 	}
 
+	/**
+	 * Validates the given resources concurrently on a bounded {@link ForkJoinPool}.
+	 * <p>
+	 * Every resource is validated by a single worker using its own {@link IValidationElementLifecycleManager},
+	 * {@link IValidationContext}s and {@link IValidationRule} instances, so rules never run concurrently. The problems
+	 * of all resources are collected and the markers are created afterwards in a single {@link IWorkspaceRunnable}, in
+	 * the same order as they would be created by a sequential validation.
+	 */
+	private void validateInParallel(Set<IResource> affectedResources, final int kind, IProgressMonitor monitor)
+			throws CoreException {
+		SubProgressMonitor subMonitor = new SubProgressMonitor(monitor, affectedResources.size());
+		ForkJoinPool pool = new ForkJoinPool(Math.min(Runtime.getRuntime().availableProcessors(),
+				MAX_VALIDATION_THREADS));
+		try {
+			// progress monitors are not thread-safe, workers only share the cancellation state
+			final IProgressMonitor workerMonitor = new CancellationForwardingProgressMonitor(monitor);
+
+			Map<IResource, Future<Set<ValidationProblem>>> results = new LinkedHashMap<IResource, Future<Set<ValidationProblem>>>();
+			for (final IResource resource : affectedResources) {
+				final Set<ValidationRuleDefinition> ruleDefinitions = getRuleDefinitions(resource);
+
+				// rules may keep state while validating, create the worker's instances up-front as rule
+				// configuration is not thread-safe
+				final Map<ValidationRuleDefinition, IValidationRule> rules = new HashMap<ValidationRuleDefinition, IValidationRule>();
+				if (ruleDefinitions != null) {
+					for (ValidationRuleDefinition ruleDefinition : ruleDefinitions) {
+						rules.put(ruleDefinition, ruleDefinition.createRule());
+					}
+				}
+
+				results.put(resource, pool.submit(new Callable<Set<ValidationProblem>>() {
+					public Set<ValidationProblem> call() throws Exception {
+						return validateResource(resource, kind, ruleDefinitions, rules, workerMonitor);
+					}
+				}));
+			}
+
+			final Map<IResource, Set<ValidationProblem>> problems = new LinkedHashMap<IResource, Set<ValidationProblem>>();
+			for (Map.Entry<IResource, Future<Set<ValidationProblem>>> result : results.entrySet()) {
+				String progressMessage = "Validating '" + result.getKey().getFullPath().toString().substring(1) + "'";
+				reportProgress(progressMessage, subMonitor);
+
+				problems.put(result.getKey(), awaitProblems(result.getValue(), subMonitor));
+				subMonitor.worked(1);
+			}
+
+			IWorkspaceRunnable markerCreation = new IWorkspaceRunnable() {
+				public void run(IProgressMonitor runnableMonitor) throws CoreException {
+					for (Map.Entry<IResource, Set<ValidationProblem>> entry : problems.entrySet()) {
+						cleanup(entry.getKey(), runnableMonitor);
+						ValidationUtils.createProblemMarkers(entry.getKey(), entry.getValue(), getMarkerId());
+					}
+				}
+			};
+			ResourcesPlugin.getWorkspace().run(markerCreation, null, IWorkspace.AVOID_UPDATE, null);
+		}
+		finally {
+			pool.shutdownNow();
+			subMonitor.done();
+		}
+	}
+
+	/**
+	 * Validates a single resource without creating markers; called by the workers of a parallel validation.
+	 */
+	private Set<ValidationProblem> validateResource(IResource resource, int kind,
+			Set<ValidationRuleDefinition> ruleDefinitions, Map<ValidationRuleDefinition, IValidationRule> rules,
+			IProgressMonitor monitor) {
+		IValidationElementLifecycleManager callback = initValidationElementCallback(resource, kind);
+		try {
+			IResourceModelElement rootElement = callback.getRootElement();
+			if (rootElement != null && !rootElement.isExternal() && ruleDefinitions != null
+					&& ruleDefinitions.size() > 0) {
+				return validate(callback, ruleDefinitions, rules, monitor);
+			}
+			return null;
+		}
+		finally {
+			// call close on callback to execute any required resource cleanup in template
+			callback.destroy();
+		}
+	}
+
+	/**
+	 * Waits for the problems of a resource that is validated in parallel and checks for cancellation in the meantime.
+	 */
+	private Set<ValidationProblem> awaitProblems(Future<Set<ValidationProblem>> result, IProgressMonitor monitor)
+			throws CoreException {
+		while (true) {
+			if (monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			try {
+				return result.get(CANCELATION_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+			}
+			catch (TimeoutException e) {
+				// still running, check for cancellation again
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			}
+			catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				else if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new CoreException(new Status(IStatus.ERROR, SpringCore.PLUGIN_ID, "Error during validation",
+						cause));
+			}
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if independent resources should be validated in parallel.
+	 */
+	private boolean isParallelValidationEnabled() {
+		return SpringCore.getDefault() != null
+				&& SpringCore.getDefault().getPluginPreferences().getBoolean(SpringCore.USE_PARALLEL_VALIDATION);
+	}
+
 	private IValidationElementLifecycleManager initValidationElementCallback(IResource resource, int kind) {
 		IValidationElementLifecycleManager callback = createValidationElementLifecycleManager();
 		if (callback instanceof IValidationElementLifecycleManagerExtension) {
@@ -129,7 +281,8 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 	}
 
 	private Set<ValidationProblem> validate(IValidationElementLifecycleManager callback,
-			Set<ValidationRuleDefinition> ruleDefinitions, SubProgressMonitor subMonitor) {
+			Set<ValidationRuleDefinition> ruleDefinitions, Map<ValidationRuleDefinition, IValidationRule> rules,
+			IProgressMonitor subMonitor) {
 		Set<ValidationProblem> problems = new LinkedHashSet<ValidationProblem>();
 		for (IResourceModelElement contextElement : callback.getContextElements()) {
 			IValidationContext context = createContext(callback.getRootElement(), contextElement);
@@ -138,7 +291,7 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 			}
 
 			if (context != null) {
-				IModelElementVisitor visitor = new ValidationVisitor(context, ruleDefinitions);
+				IModelElementVisitor visitor = new ValidationVisitor(context, ruleDefinitions, rules);
 				callback.getRootElement().accept(visitor, subMonitor);
 				problems.addAll(context.getProblems());
 			}
@@ -250,6 +403,9 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 
 	/**
 	 * {@link IModelElementVisitor} implementation that validates a specified model tree.
+	 * <p>
+	 * The detailed progress message for an element and rule is only created if the last one has been reported long
+	 * enough ago, see {@link ValidationProgressState#isProgressReportDue()}.
 	 */
 	protected final class ValidationVisitor implements IModelElementVisitor {
 
@@ -257,27 +413,65 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 
 		private Set<ValidationRuleDefinition> ruleDefinitions;
 
+		private Map<ValidationRuleDefinition, IValidationRule> rules;
+
+		private ValidationProgressState progressState;
+
+		private ValidationStatistics statistics;
+
+		private IResource resource;
+
 		public ValidationVisitor(IValidationContext context, Set<ValidationRuleDefinition> ruleDefinitions) {
+			this(context, ruleDefinitions, null);
+		}
+
+		/**
+		 * Creates a visitor that uses the given rule instances instead of the shared rules of the definitions.
+		 * @since 3.8.4
+		 */
+		public ValidationVisitor(IValidationContext context, Set<ValidationRuleDefinition> ruleDefinitions,
+				Map<ValidationRuleDefinition, IValidationRule> rules) {
 			this.ruleDefinitions = ruleDefinitions;
+			this.rules = rules;
 			this.context = context;
+			if (context.getRootElement() != null) {
+				this.resource = context.getRootElement().getElementResource();
+			}
+
+			IProjectContributorState state = getProjectContributorState();
+			this.progressState = state.get(ValidationProgressState.class);
+			if (this.progressState == null) {
+				this.progressState = new ValidationProgressState();
+			}
+			this.statistics = state.get(ValidationStatistics.class);
+			if (this.statistics == null) {
+				this.statistics = new ValidationStatistics();
+			}
 		}
 
 		@SuppressWarnings("unchecked")
 		public boolean visit(IModelElement element, IProgressMonitor monitor) {
 			if (supports(element) && shouldValidate(element, context)) {
+				statistics.elementValidated();
 				SubProgressMonitor subMonitor = new SubProgressMonitor(monitor, ruleDefinitions.size());
 				try {
 					for (ValidationRuleDefinition ruleDefinition : ruleDefinitions) {
 						if (subMonitor.isCanceled()) {
 							throw new OperationCanceledException();
 						}
-						String progressMessage = "Validating element '" + element.getElementName() + "' with rule '" + ruleDefinition.getName() + "'";
-						reportProgress(progressMessage, subMonitor);
+						if (progressState.isProgressReportDue()) {
+							String progressMessage = "Validating element '" + element.getElementName() + "' with rule '" + ruleDefinition.getName() + "'";
+							reportProgress(progressMessage, subMonitor);
+						}
 
-						IValidationRule rule = ruleDefinition.getRule();
+						IValidationRule rule = rules != null ? rules.get(ruleDefinition) : ruleDefinition.getRule();
 						if (rule.supports(element, context)) {
 							context.setCurrentRuleDefinition(ruleDefinition);
+							int problemCount = context.getProblems().size();
+							long start = System.nanoTime();
 							rule.validate(element, context, monitor);
+							statistics.ruleValidated(ruleDefinition, resource, System.nanoTime() - start,
+									context.getProblems().size() - problemCount);
 						}
 						subMonitor.worked(1);
 					}
@@ -290,4 +484,22 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 			return false;
 		}
 	}
+
+	/**
+	 * Progress monitor for the workers of a parallel validation that ignores all progress reporting and only forwards
+	 * the cancellation state of the build's progress monitor.
+	 */
+	private static class CancellationForwardingProgressMonitor extends NullProgressMonitor {
+
+		private final IProgressMonitor monitor;
+
+		public CancellationForwardingProgressMonitor(IProgressMonitor monitor) {
+			this.monitor = monitor;
+		}
+
+		@Override
+		public boolean isCanceled() {
+			return super.isCanceled() || monitor.isCanceled();
+		}
+	}
 }
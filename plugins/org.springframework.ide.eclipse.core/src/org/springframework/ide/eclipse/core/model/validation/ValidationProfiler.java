@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.model.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+import org.springframework.ide.eclipse.core.SpringCoreUtils;
+import org.springframework.ide.eclipse.core.internal.model.validation.ValidatorDefinition;
+import org.springframework.ide.eclipse.core.project.IProjectContributionEventListener;
+import org.springframework.ide.eclipse.core.project.IProjectContributorState;
+import org.springframework.ide.eclipse.core.project.ProjectBuilderDefinition;
+import org.springframework.ide.eclipse.core.project.ProjectContributionEventListenerAdapter;
+
+/**
+ * {@link IProjectContributionEventListener} implementation that keeps the {@link ValidationStatistics} of the last
+ * build of every project and renders them as a "Spring Validation Profile" report.
+ * @since 3.8.4
+ */
+public class ValidationProfiler extends ProjectContributionEventListenerAdapter {
+
+	/** Maximum number of resources listed in the report */
+	private static final int MAX_REPORTED_RESOURCES = 25;
+
+	private static final Map<IProject, ValidationStatistics> lastBuildStatistics = new ConcurrentHashMap<IProject, ValidationStatistics>();
+
+	/**
+	 * Returns the {@link ValidationStatistics} of the last build of the given project or <code>null</code> if the
+	 * project has not been validated since startup.
+	 */
+	public static ValidationStatistics getLastBuildStatistics(IProject project) {
+		return lastBuildStatistics.get(project);
+	}
+
+	/**
+	 * Returns a textual report of the {@link ValidationStatistics} of the last build of the given project, listing the
+	 * rules and resources ordered by the time spent validating them.
+	 */
+	public static String createReport(IProject project) {
+		ValidationStatistics statistics = getLastBuildStatistics(project);
+		StringBuilder report = new StringBuilder();
+		report.append("Spring Validation Profile for project '").append(project.getName()).append("'")
+				.append(SpringCoreUtils.LINE_SEPARATOR).append(SpringCoreUtils.LINE_SEPARATOR);
+
+		if (statistics == null) {
+			report.append("No validation has been run since startup.").append(SpringCoreUtils.LINE_SEPARATOR);
+			return report.toString();
+		}
+
+		report.append("Validated elements: ").append(statistics.getElementCount())
+				.append(SpringCoreUtils.LINE_SEPARATOR);
+		report.append("Rule invocations:   ").append(statistics.getRuleInvocationCount())
+				.append(SpringCoreUtils.LINE_SEPARATOR).append(SpringCoreUtils.LINE_SEPARATOR);
+
+		report.append(String.format("%10s %12s %10s  %s", "Time (ms)", "Invocations", "Problems", "Rule"))
+				.append(SpringCoreUtils.LINE_SEPARATOR);
+		for (String ruleId : sortRulesByTime(statistics)) {
+			report.append(String.format("%10.1f %12d %10d  %s", toMillis(statistics.getRuleTime(ruleId)),
+					statistics.getRuleInvocationCount(ruleId), statistics.getRuleProblemCount(ruleId),
+					statistics.getRuleName(ruleId))).append(SpringCoreUtils.LINE_SEPARATOR);
+		}
+		report.append(SpringCoreUtils.LINE_SEPARATOR);
+
+		List<IResource> resources = sortResourcesByTime(statistics);
+		report.append(String.format("%10s %12s %10s  %s", "Time (ms)", "Invocations", "Problems", "Resource"))
+				.append(SpringCoreUtils.LINE_SEPARATOR);
+		for (IResource resource : resources.subList(0, Math.min(resources.size(), MAX_REPORTED_RESOURCES))) {
+			report.append(String.format("%10.1f %12d %10d  %s", toMillis(statistics.getResourceTime(resource)),
+					statistics.getResourceInvocationCount(resource), statistics.getResourceProblemCount(resource),
+					resource.getFullPath().toString())).append(SpringCoreUtils.LINE_SEPARATOR);
+		}
+		if (resources.size() > MAX_REPORTED_RESOURCES) {
+			report.append("... ").append(resources.size() - MAX_REPORTED_RESOURCES).append(" more resources")
+					.append(SpringCoreUtils.LINE_SEPARATOR);
+		}
+		return report.toString();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void finish(int kind, IResourceDelta delta, List<ProjectBuilderDefinition> builderDefinitions,
+			List<ValidatorDefinition> validatorDefinitions, IProjectContributorState state, IProject project) {
+		ValidationStatistics statistics = state.get(ValidationStatistics.class);
+		if (statistics != null && statistics.getRuleInvocationCount() > 0) {
+			lastBuildStatistics.put(project, statistics);
+		}
+	}
+
+	private static List<String> sortRulesByTime(final ValidationStatistics statistics) {
+		List<String> ruleIds = new ArrayList<String>(statistics.getRuleIds());
+		Collections.sort(ruleIds, new Comparator<String>() {
+			public int compare(String ruleId1, String ruleId2) {
+				return compareTimes(statistics.getRuleTime(ruleId1), statistics.getRuleTime(ruleId2));
+			}
+		});
+		return ruleIds;
+	}
+
+	private static List<IResource> sortResourcesByTime(final ValidationStatistics statistics) {
+		List<IResource> resources = new ArrayList<IResource>(statistics.getResources());
+		Collections.sort(resources, new Comparator<IResource>() {
+			public int compare(IResource resource1, IResource resource2) {
+				return compareTimes(statistics.getResourceTime(resource1), statistics.getResourceTime(resource2));
+			}
+		});
+		return resources;
+	}
+
+	/**
+	 * Orders longer times first.
+	 */
+	private static int compareTimes(long time1, long time2) {
+		return time1 < time2 ? 1 : (time1 > time2 ? -1 : 0);
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / 1000000d;
+	}
+
+}
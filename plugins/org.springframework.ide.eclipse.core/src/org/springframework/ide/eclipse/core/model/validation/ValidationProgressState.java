@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009 Spring IDE Developers
+ * Copyright (c) 2009, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,45 +18,63 @@ package org.springframework.ide.eclipse.core.model.validation;
  */
 class ValidationProgressState {
 
+	/** Minimum interval in milliseconds between two detailed progress messages */
+	private static final long PROGRESS_REPORT_INTERVAL = 250;
+
+	private volatile long lastProgressReport = 0;
+
 	private int errorCount = 0;
 
 	private int infoCount = 0;
 
 	private int warningCount = 0;
 
-	public void incrementErrorCount() {
+	/**
+	 * Returns <code>true</code> if enough time passed since the last detailed progress message so that the next one
+	 * should be created and reported.
+	 */
+	public boolean isProgressReportDue() {
+		long now = System.currentTimeMillis();
+		if (now - lastProgressReport >= PROGRESS_REPORT_INTERVAL) {
+			lastProgressReport = now;
+			return true;
+		}
+		return false;
+	}
+
+	public synchronized void incrementErrorCount() {
 		errorCount++;
 	}
 
-	public void incrementErrorCountBy(int n) {
+	public synchronized void incrementErrorCountBy(int n) {
 		errorCount += n;
 	}
 
-	public void incrementInfoCount() {
+	public synchronized void incrementInfoCount() {
 		infoCount++;
 	}
 
-	public void incrementInfoCountBy(int n) {
+	public synchronized void incrementInfoCountBy(int n) {
 		infoCount += n;
 	}
 
-	public void incrementWarningCount() {
+	public synchronized void incrementWarningCount() {
 		warningCount++;
 	}
 
-	public void incrementWarningCountBy(int n) {
+	public synchronized void incrementWarningCountBy(int n) {
 		warningCount += n;
 	}
 
-	protected int getErrorCount() {
+	protected synchronized int getErrorCount() {
 		return errorCount;
 	}
 
-	protected int getInfoCount() {
+	protected synchronized int getInfoCount() {
 		return infoCount;
 	}
 
-	protected int getWarningCount() {
+	protected synchronized int getWarningCount() {
 		return warningCount;
 	}
 
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.model.validation;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.resources.IResource;
+import org.springframework.ide.eclipse.core.internal.model.validation.ValidationRuleDefinition;
+import org.springframework.ide.eclipse.core.project.IProjectContributionEventListener;
+import org.springframework.ide.eclipse.core.project.IProjectContributorState;
+
+/**
+ * Instrumentation counters of the validation run of a single build.
+ * <p>
+ * Wall time, invocation and problem counts are recorded per {@link ValidationRuleDefinition} and per validated
+ * resource. An instance is held by the {@link IProjectContributorState} of the build and can be obtained from there,
+ * e.g. in {@link IProjectContributionEventListener#finish}; the statistics of the last build of a project are
+ * available from {@link ValidationProfiler}. All counters are thread-safe.
+ * @since 3.8.4
+ */
+public class ValidationStatistics {
+
+	private final AtomicLong elementCount = new AtomicLong();
+
+	private final AtomicLong ruleInvocationCount = new AtomicLong();
+
+	private final ConcurrentMap<String, Counters> ruleCounters = new ConcurrentHashMap<String, Counters>();
+
+	private final ConcurrentMap<String, String> ruleNames = new ConcurrentHashMap<String, String>();
+
+	private final ConcurrentMap<IResource, Counters> resourceCounters = new ConcurrentHashMap<IResource, Counters>();
+
+	/**
+	 * Records that a model element has been visited by a validator.
+	 */
+	public void elementValidated() {
+		elementCount.incrementAndGet();
+	}
+
+	/**
+	 * Records a single invocation of the rule with the given definition on an element of the given resource that took
+	 * <code>nanos</code> nanoseconds and reported <code>problemCount</code> problems.
+	 * @param resource the validated resource; can be <code>null</code>
+	 */
+	public void ruleValidated(ValidationRuleDefinition ruleDefinition, IResource resource, long nanos, int problemCount) {
+		ruleInvocationCount.incrementAndGet();
+
+		String ruleId = ruleDefinition.getId();
+		Counters counters = ruleCounters.get(ruleId);
+		if (counters == null) {
+			ruleNames.putIfAbsent(ruleId, ruleDefinition.getName() != null ? ruleDefinition.getName() : ruleId);
+			counters = getCounters(ruleCounters, ruleId);
+		}
+		counters.add(nanos, problemCount);
+
+		if (resource != null) {
+			getCounters(resourceCounters, resource).add(nanos, problemCount);
+		}
+	}
+
+	/**
+	 * Returns the number of visited model elements.
+	 */
+	public long getElementCount() {
+		return elementCount.get();
+	}
+
+	/**
+	 * Returns the number of rule invocations of all rules.
+	 */
+	public long getRuleInvocationCount() {
+		return ruleInvocationCount.get();
+	}
+
+	/**
+	 * Returns the ids of all rule definitions that have been invoked.
+	 */
+	public Set<String> getRuleIds() {
+		return Collections.unmodifiableSet(ruleCounters.keySet());
+	}
+
+	/**
+	 * Returns the name of the rule with the given definition id.
+	 */
+	public String getRuleName(String ruleId) {
+		String name = ruleNames.get(ruleId);
+		return name != null ? name : ruleId;
+	}
+
+	/**
+	 * Returns the number of invocations of the rule with the given definition id.
+	 */
+	public long getRuleInvocationCount(String ruleId) {
+		Counters counters = ruleCounters.get(ruleId);
+		return counters != null ? counters.invocations.get() : 0;
+	}
+
+	/**
+	 * Returns the accumulated time in nanoseconds spent in the rule with the given definition id.
+	 */
+	public long getRuleTime(String ruleId) {
+		Counters counters = ruleCounters.get(ruleId);
+		return counters != null ? counters.time.get() : 0;
+	}
+
+	/**
+	 * Returns the number of problems reported by the rule with the given definition id.
+	 */
+	public long getRuleProblemCount(String ruleId) {
+		Counters counters = ruleCounters.get(ruleId);
+		return counters != null ? counters.problems.get() : 0;
+	}
+
+	/**
+	 * Returns all resources that have been validated.
+	 */
+	public Set<IResource> getResources() {
+		return Collections.unmodifiableSet(resourceCounters.keySet());
+	}
+
+	/**
+	 * Returns the number of rule invocations for elements of the given resource.
+	 */
+	public long getResourceInvocationCount(IResource resource) {
+		Counters counters = resourceCounters.get(resource);
+		return counters != null ? counters.invocations.get() : 0;
+	}
+
+	/**
+	 * Returns the accumulated time in nanoseconds spent in rules for elements of the given resource.
+	 */
+	public long getResourceTime(IResource resource) {
+		Counters counters = resourceCounters.get(resource);
+		return counters != null ? counters.time.get() : 0;
+	}
+
+	/**
+	 * Returns the number of problems reported for elements of the given resource.
+	 */
+	public long getResourceProblemCount(IResource resource) {
+		Counters counters = resourceCounters.get(resource);
+		return counters != null ? counters.problems.get() : 0;
+	}
+
+	private static <K> Counters getCounters(ConcurrentMap<K, Counters> countersByKey, K key) {
+		Counters counters = countersByKey.get(key);
+		if (counters == null) {
+			Counters newCounters = new Counters();
+			counters = countersByKey.putIfAbsent(key, newCounters);
+			if (counters == null) {
+				counters = newCounters;
+			}
+		}
+		return counters;
+	}
+
+	private static class Counters {
+
+		private final AtomicLong invocations = new AtomicLong();
+
+		private final AtomicLong time = new AtomicLong();
+
+		private final AtomicLong problems = new AtomicLong();
+
+		public void add(long nanos, int problemCount) {
+			invocations.incrementAndGet();
+			time.addAndGet(nanos);
+			if (problemCount > 0) {
+				problems.addAndGet(problemCount);
+			}
+		}
+	}
+
+}
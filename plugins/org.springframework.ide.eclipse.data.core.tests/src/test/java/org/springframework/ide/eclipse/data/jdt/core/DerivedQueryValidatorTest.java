@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.data.jdt.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * @since 3.8.4
+ */
+public class DerivedQueryValidatorTest {
+
+	private IProject project;
+	private IJavaProject javaProject;
+	private DerivedQueryValidator validator;
+
+	@Before
+	public void createProject() throws Exception {
+		project = StsTestUtil.createPredefinedProject("spring-data-testdata", "org.springframework.ide.eclipse.data.core.tests");
+		javaProject = JdtUtils.getJavaProject(project);
+
+		IType domainType = new RepositoryInformation(javaProject.findType("org.PersonRepository")).getManagedDomainType();
+		assertNotNull(domainType);
+		assertEquals("org.Person", domainType.getFullyQualifiedName());
+		validator = new DerivedQueryValidator(DomainTypeProperties.get(domainType));
+	}
+
+	@After
+	public void deleteProject() throws Exception {
+		project.delete(true, null);
+	}
+
+	@Test
+	public void testDomainTypeFromRepositoryDefinition() throws Exception {
+		IType type = javaProject.findType("org.ClassWithRepositoryDefinition");
+		assertEquals("java.lang.Object", new RepositoryInformation(type).getManagedDomainType().getFullyQualifiedName());
+	}
+
+	@Test
+	public void testValidQueries() throws Exception {
+		assertNull(validator.validate("findByLastname"));
+		assertNull(validator.validate("findByLastnameAndAgeGreaterThan"));
+		assertNull(validator.validate("countByActiveTrue"));
+		assertNull(validator.validate("findDistinctByLastnameIgnoreCaseOrderByAgeDesc"));
+		assertNull(validator.validate("findByAddressZipCode"));
+		assertNull(validator.validate("findByAddress_City"));
+		assertNull(validator.validate("findByFormerAddressesCityIn"));
+	}
+
+	@Test
+	public void testInterfaceAndSetterProperties() throws Exception {
+		assertNull(validator.validate("findByNickname"));
+		assertNull(validator.validate("findByEmailAndLastname"));
+	}
+
+	@Test
+	public void testInvalidQueries() throws Exception {
+		assertEquals("No property firstname found for type Person!", validator.validate("findByFirstname"));
+		assertEquals("No property street found for type Address!", validator.validate("findByAddressStreet"));
+		assertEquals("No property name found for type Person!", validator.validate("findByAgeOrderByNameAsc"));
+	}
+
+}
@@ -0,0 +1,10 @@
+package org;
+
+public class Address {
+
+	private String zipCode;
+
+	public String getCity() {
+		return null;
+	}
+}
@@ -0,0 +1,6 @@
+package org;
+
+import org.springframework.data.repository.Repository;
+
+public interface EntityRepository<T> extends Repository<T, Long> {
+}
@@ -0,0 +1,6 @@
+package org;
+
+public interface Named {
+
+	String getNickname();
+}
@@ -0,0 +1,23 @@
+package org;
+
+import java.util.List;
+
+public abstract class Person implements Named {
+
+	private String lastname;
+
+	private Address address;
+
+	private List<Address> formerAddresses;
+
+	public int getAge() {
+		return 0;
+	}
+
+	public boolean isActive() {
+		return true;
+	}
+
+	public void setEmail(String email) {
+	}
+}
@@ -0,0 +1,4 @@
+package org;
+
+public interface PersonRepository extends EntityRepository<Person> {
+}
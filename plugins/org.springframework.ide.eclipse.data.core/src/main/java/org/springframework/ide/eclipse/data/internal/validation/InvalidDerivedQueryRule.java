@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012 Spring IDE Developers
+ * Copyright (c) 2012, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,14 +16,14 @@ import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.JavaModelException;
-import org.springframework.data.mapping.PropertyReferenceException;
-import org.springframework.data.repository.query.parser.PartTree;
 import org.springframework.ide.eclipse.core.SpringCore;
 import org.springframework.ide.eclipse.core.model.IModelElement;
 import org.springframework.ide.eclipse.core.model.java.JavaModelSourceLocation;
 import org.springframework.ide.eclipse.core.model.validation.IValidationContext;
 import org.springframework.ide.eclipse.core.model.validation.IValidationRule;
 import org.springframework.ide.eclipse.core.model.validation.ValidationProblemAttribute;
+import org.springframework.ide.eclipse.data.jdt.core.DerivedQueryValidator;
+import org.springframework.ide.eclipse.data.jdt.core.DomainTypeProperties;
 import org.springframework.ide.eclipse.data.jdt.core.RepositoryInformation;
 import org.springframework.ide.eclipse.data.jdt.core.SpringDataCompilationParticipant;
 
@@ -70,11 +70,7 @@ public class InvalidDerivedQueryRule implements IValidationRule<CompilationUnit,
 		// resolve repository information and generate problem markers
 		RepositoryInformation information = new RepositoryInformation(type);
 
-		Class<?> domainClass = information.getManagedDomainClass();
-		if (domainClass == null) {
-			return false;
-		}
-		return true;
+		return information.getManagedDomainType() != null;
 	}
 
 	public void validate(CompilationUnit element,
@@ -91,18 +87,17 @@ public class InvalidDerivedQueryRule implements IValidationRule<CompilationUnit,
 			// resolve repository information and generate problem markers
 			RepositoryInformation information = new RepositoryInformation(type);
 
-			Class<?> domainClass = information.getManagedDomainClass();
-			if (domainClass == null) {
+			IType domainType = information.getManagedDomainType();
+			if (domainType == null) {
 				return;
 			}
 
-			for (IMethod method : information.getMethodsToValidate()) {
+			DerivedQueryValidator validator = new DerivedQueryValidator(DomainTypeProperties.get(domainType));
 
-				String methodName = method.getElementName();
+			for (IMethod method : information.getMethodsToValidate()) {
 
-				try {
-					new PartTree(methodName, domainClass);
-				} catch (PropertyReferenceException e) {
+				String problem = validator.validate(method.getElementName());
+				if (problem != null) {
 					element.setElementSourceLocation(new JavaModelSourceLocation(
 							method));
 					ValidationProblemAttribute start = new ValidationProblemAttribute(
@@ -113,7 +108,7 @@ public class InvalidDerivedQueryRule implements IValidationRule<CompilationUnit,
 									.getOffset()
 									+ method.getSourceRange().getLength());
 					context.error(element, "INVALID_DERIVED_QUERY",
-							"Invalid derived query! " + e.getMessage(),
+							"Invalid derived query! " + problem,
 							new ValidationProblemAttribute[] { start, end });
 				}
 			}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2015 Spring IDE Developers
+ * Copyright (c) 2012, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -77,11 +77,7 @@ public class InvalidParameterTypeRule implements
 			// resolve repository information and generate problem markers
 			RepositoryInformation information = new RepositoryInformation(type);
 
-			Class<?> domainClass = information.getManagedDomainClass();
-			if (domainClass == null) {
-				return false;
-			}
-			return true;
+			return information.getManagedDomainType() != null;
 		}
 		return false;
 	}
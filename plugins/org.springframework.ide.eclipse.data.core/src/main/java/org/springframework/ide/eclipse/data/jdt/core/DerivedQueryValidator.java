@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.data.jdt.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.jdt.core.JavaModelException;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * Validates the property references of derived query methods (e.g. <code>findByLastnameAndAddressZipCode</code>)
+ * against the {@link DomainTypeProperties} of the managed domain type.
+ * <p>
+ * The method names are split the same way as {@link PartTree} does, but the properties are looked up in the Java
+ * model, so that neither the repository nor the domain class need to be loaded. Property paths that run into a type
+ * that can't be resolved are accepted.
+ *
+ * @since 3.8.4
+ */
+public class DerivedQueryValidator {
+
+	private static final Pattern PREFIX = Pattern
+			.compile("^(find|read|get|query|stream|count|exists|delete|remove)((\\p{Lu}.*?))??By");
+
+	private static final Pattern ALL_IGNORE_CASE = Pattern.compile("AllIgnor(ing|e)Case");
+
+	private static final Pattern IGNORE_CASE = Pattern.compile("Ignor(ing|e)Case");
+
+	private static final Pattern ORDER_BY = keywordSplitter("OrderBy");
+
+	private static final Pattern OR = keywordSplitter("Or");
+
+	private static final Pattern AND = keywordSplitter("And");
+
+	private static final Pattern ORDER_BLOCK = Pattern.compile("(?<=Asc|Desc)(?=\\p{Lu})");
+
+	private static final Pattern DIRECTION = Pattern.compile("(.+?)(Asc|Desc)?$");
+
+	private static final Pattern PATH_DELIMITER = Pattern.compile("[_.]");
+
+	/** The keywords of all {@link Part.Type}s, longest first */
+	private static final List<String> KEYWORDS = new ArrayList<String>();
+
+	static {
+		for (Part.Type type : Part.Type.values()) {
+			KEYWORDS.addAll(type.getKeywords());
+		}
+		Collections.sort(KEYWORDS, new Comparator<String>() {
+			public int compare(String keyword, String other) {
+				return other.length() - keyword.length();
+			}
+		});
+	}
+
+	private final DomainTypeProperties domainType;
+
+	/**
+	 * Creates a new {@link DerivedQueryValidator} for queries on the given domain type.
+	 *
+	 * @param domainType must not be {@literal null}.
+	 */
+	public DerivedQueryValidator(DomainTypeProperties domainType) {
+		Assert.notNull(domainType);
+		this.domainType = domainType;
+	}
+
+	/**
+	 * Validates the given query method name.
+	 *
+	 * @return the message describing the first invalid property reference, or {@literal null} if there is none.
+	 */
+	public String validate(String methodName) throws JavaModelException {
+		String predicate = methodName;
+		Matcher prefix = PREFIX.matcher(methodName);
+		if (prefix.find()) {
+			predicate = methodName.substring(prefix.end());
+		}
+		predicate = remove(ALL_IGNORE_CASE, predicate);
+
+		String[] parts = ORDER_BY.split(predicate);
+		if (parts.length > 2) {
+			// not a property reference problem
+			return null;
+		}
+
+		for (String orPart : OR.split(parts[0])) {
+			for (String andPart : AND.split(orPart)) {
+				String problem = validatePart(andPart);
+				if (problem != null) {
+					return problem;
+				}
+			}
+		}
+
+		if (parts.length == 2) {
+			for (String block : ORDER_BLOCK.split(parts[1])) {
+				Matcher direction = DIRECTION.matcher(block);
+				if (direction.find()) {
+					String problem = validatePath(direction.group(1));
+					if (problem != null) {
+						return problem;
+					}
+				}
+			}
+		}
+
+		return null;
+	}
+
+	private String validatePart(String part) throws JavaModelException {
+		String property = StringUtils.uncapitalize(remove(IGNORE_CASE, part));
+		for (String keyword : KEYWORDS) {
+			if (property.endsWith(keyword)) {
+				property = property.substring(0, property.length() - keyword.length());
+				break;
+			}
+		}
+		return StringUtils.hasText(property) ? validatePath(property) : null;
+	}
+
+	private String validatePath(String path) throws JavaModelException {
+		DomainTypeProperties current = domainType;
+		for (String segment : PATH_DELIMITER.split(path)) {
+			if (current == null) {
+				// the type of the previous segment is unknown
+				return null;
+			}
+			if (segment.length() == 0) {
+				continue;
+			}
+			PropertyResolution resolution = resolve(segment, current);
+			if (resolution.missingProperty != null) {
+				return "No property " + resolution.missingProperty + " found for type "
+						+ resolution.missingOn.getType().getElementName() + "!";
+			}
+			current = resolution.type;
+		}
+		return null;
+	}
+
+	/**
+	 * Resolves a camel case property path like <code>addressZipCode</code>. Like in Spring Data, the whole name is
+	 * tried first, then the longest head that names a property, with the rest resolved against that property's type.
+	 */
+	private PropertyResolution resolve(String source, DomainTypeProperties type) throws JavaModelException {
+		String name = StringUtils.uncapitalize(source);
+		if (type.hasProperty(name)) {
+			return new PropertyResolution(type.getPropertyType(name));
+		}
+
+		PropertyResolution failure = new PropertyResolution(name, type);
+		for (int i = source.length() - 1; i > 0; i--) {
+			if (!Character.isUpperCase(source.charAt(i)) || Character.isUpperCase(source.charAt(i - 1))) {
+				continue;
+			}
+			String head = StringUtils.uncapitalize(source.substring(0, i));
+			if (type.hasProperty(head)) {
+				DomainTypeProperties headType = type.getPropertyType(head);
+				if (headType == null) {
+					// can't look any further
+					return new PropertyResolution(null);
+				}
+				PropertyResolution tail = resolve(source.substring(i), headType);
+				if (tail.missingProperty == null) {
+					return tail;
+				}
+				if (failure.missingOn == type) {
+					failure = tail;
+				}
+			}
+		}
+		return failure;
+	}
+
+	private static String remove(Pattern pattern, String source) {
+		Matcher matcher = pattern.matcher(source);
+		if (matcher.find()) {
+			return source.substring(0, matcher.start()) + source.substring(matcher.end());
+		}
+		return source;
+	}
+
+	private static Pattern keywordSplitter(String keyword) {
+		return Pattern.compile(keyword + "(?=(\\p{Lu}|\\P{InBASIC_LATIN}))");
+	}
+
+	/**
+	 * The outcome of resolving a property path: either the type of its last property (which might be unknown) or the
+	 * property that doesn't exist.
+	 */
+	private static class PropertyResolution {
+
+		private final DomainTypeProperties type;
+
+		private final String missingProperty;
+
+		private final DomainTypeProperties missingOn;
+
+		public PropertyResolution(DomainTypeProperties type) {
+			this.type = type;
+			this.missingProperty = null;
+			this.missingOn = null;
+		}
+
+		public PropertyResolution(String missingProperty, DomainTypeProperties missingOn) {
+			this.type = null;
+			this.missingProperty = missingProperty;
+			this.missingOn = missingOn;
+		}
+	}
+
+}
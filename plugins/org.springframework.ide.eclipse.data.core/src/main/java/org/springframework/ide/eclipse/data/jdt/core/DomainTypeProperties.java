@@ -0,0 +1,295 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.data.jdt.core;
+
+import java.beans.Introspector;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.Flags;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IField;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.Signature;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
+import org.springframework.ide.eclipse.core.java.LruCache;
+import org.springframework.util.Assert;
+
+/**
+ * The properties of a domain type as seen by Spring Data, i.e. its non-static fields, getters and setters (including
+ * the ones inherited from super classes and interfaces), read from the Java model instead of a loaded class.
+ * <p>
+ * For each property the type that property paths continue with is kept, i.e. the element type for arrays, collections
+ * and maps. Instances are cached per type and dropped when the compilation unit or class file of the type or one of
+ * its super types changes. The least recently used ones are evicted once the cache exceeds its memory budget.
+ *
+ * @since 3.8.4
+ */
+public class DomainTypeProperties {
+
+	/** Marks properties whose type can't be resolved, e.g. because it is a type variable */
+	private static final String UNKNOWN_TYPE = "";
+
+	private static final String OBJECT = Object.class.getName();
+
+	private static final Set<String> COLLECTION_TYPES = new HashSet<String>(Arrays.asList(Iterable.class.getName(),
+			"java.util.Collection", "java.util.List", "java.util.Set", "java.util.SortedSet", "java.util.NavigableSet",
+			"java.util.Queue", "java.util.Deque", "java.util.ArrayList", "java.util.LinkedList",
+			"java.util.HashSet", "java.util.LinkedHashSet", "java.util.TreeSet"));
+
+	private static final Set<String> MAP_TYPES = new HashSet<String>(Arrays.asList("java.util.Map",
+			"java.util.SortedMap", "java.util.NavigableMap", "java.util.HashMap", "java.util.LinkedHashMap",
+			"java.util.TreeMap", "java.util.concurrent.ConcurrentMap", "java.util.concurrent.ConcurrentHashMap"));
+
+	/** Estimated memory of an instance, per property and for the instance itself */
+	private static final long ESTIMATED_PROPERTY_SIZE = 256;
+
+	private static final LruCache<IType, DomainTypeProperties> CACHE = new LruCache<IType, DomainTypeProperties>(
+			"Domain type properties", LruCache.budgetOfMaxMemory(0.005, 1024 * 1024),
+			new LruCache.Weigher<IType, DomainTypeProperties>() {
+				public long weigh(IType type, DomainTypeProperties properties) {
+					return (properties.properties.size() + 1) * ESTIMATED_PROPERTY_SIZE;
+				}
+			}, null);
+
+	private static boolean listening = false;
+
+	private final IType type;
+
+	/** The property names mapped to the fully-qualified names of their types */
+	private final Map<String, String> properties = new HashMap<String, String>();
+
+	/** The compilation units or class files the properties have been read from */
+	private final Set<ITypeRoot> sources = new HashSet<ITypeRoot>();
+
+	private DomainTypeProperties(IType type) throws JavaModelException {
+		this.type = type;
+
+		// breadth first, so that the declarations of sub types win
+		Set<String> visited = new HashSet<String>();
+		Deque<IType> queue = new ArrayDeque<IType>();
+		queue.add(type);
+		while (!queue.isEmpty()) {
+			IType current = queue.remove();
+			if (OBJECT.equals(current.getFullyQualifiedName()) || !visited.add(current.getFullyQualifiedName())) {
+				continue;
+			}
+			sources.add(current.getTypeRoot());
+			if (!current.isInterface()) {
+				for (IField field : current.getFields()) {
+					if (!Flags.isStatic(field.getFlags()) && !properties.containsKey(field.getElementName())) {
+						properties.put(field.getElementName(), getActualTypeName(field.getTypeSignature(), current));
+					}
+				}
+			}
+			for (IMethod method : current.getMethods()) {
+				String propertyName = getPropertyName(method);
+				if (propertyName != null && !properties.containsKey(propertyName)) {
+					String typeSignature = method.getNumberOfParameters() == 0 ? method.getReturnType()
+							: method.getParameterTypes()[0];
+					properties.put(propertyName, getActualTypeName(typeSignature, current));
+				}
+			}
+			IType superclass = getSuperclass(current);
+			if (superclass != null) {
+				queue.add(superclass);
+			}
+			for (String signature : current.getSuperInterfaceTypeSignatures()) {
+				IType superInterface = JdtUtils.getJavaTypeFromSignatureClassName(Signature.getTypeErasure(signature),
+						current);
+				if (superInterface != null) {
+					queue.add(superInterface);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the properties of the given type.
+	 *
+	 * @param type must not be {@literal null}.
+	 */
+	public static DomainTypeProperties get(IType type) throws JavaModelException {
+		Assert.notNull(type);
+		listenToJavaModel();
+
+		DomainTypeProperties properties = CACHE.get(type);
+		if (properties == null) {
+			properties = new DomainTypeProperties(type);
+			CACHE.put(type, properties);
+		}
+		return properties;
+	}
+
+	public IType getType() {
+		return type;
+	}
+
+	public boolean hasProperty(String name) {
+		return properties.containsKey(name);
+	}
+
+	/**
+	 * Returns the properties of the type of the given property, or the element type in case of arrays, collections and
+	 * maps.
+	 *
+	 * @return the properties or {@literal null} if the property doesn't exist or its type can't be resolved.
+	 */
+	public DomainTypeProperties getPropertyType(String name) throws JavaModelException {
+		String typeName = properties.get(name);
+		if (typeName == null || UNKNOWN_TYPE.equals(typeName)) {
+			return null;
+		}
+		IType propertyType = type.getJavaProject().findType(typeName);
+		return propertyType != null ? get(propertyType) : null;
+	}
+
+	/**
+	 * Returns the name of the property the given method is the getter or setter of, or {@literal null}.
+	 */
+	private static String getPropertyName(IMethod method) throws JavaModelException {
+		if (Flags.isStatic(method.getFlags()) || method.isConstructor() || method.getNumberOfParameters() > 1) {
+			return null;
+		}
+		String name = method.getElementName();
+		String returnType = method.getReturnType();
+		if (method.getNumberOfParameters() == 1) {
+			if (name.length() > 3 && name.startsWith("set")) {
+				return Introspector.decapitalize(name.substring(3));
+			}
+			return null;
+		}
+		if (name.length() > 3 && name.startsWith("get") && !Signature.SIG_VOID.equals(returnType)) {
+			return Introspector.decapitalize(name.substring(3));
+		}
+		if (name.length() > 2 && name.startsWith("is") && Signature.SIG_BOOLEAN.equals(returnType)) {
+			return Introspector.decapitalize(name.substring(2));
+		}
+		return null;
+	}
+
+	private static String getActualTypeName(String signature, IType declaringType) throws JavaModelException {
+		if (Signature.getArrayCount(signature) > 0) {
+			return resolveTypeName(Signature.getElementType(signature), declaringType);
+		}
+		String typeName = resolveTypeName(signature, declaringType);
+		String[] typeArguments = Signature.getTypeArguments(signature);
+		if (typeArguments.length > 0 && !UNKNOWN_TYPE.equals(typeName)) {
+			IType resolvedType = declaringType.getJavaProject().findType(typeName);
+			if (isAssignableTo(resolvedType, MAP_TYPES, new HashSet<String>())) {
+				return resolveTypeName(typeArguments[typeArguments.length - 1], declaringType);
+			}
+			if (isAssignableTo(resolvedType, COLLECTION_TYPES, new HashSet<String>())) {
+				return resolveTypeName(typeArguments[0], declaringType);
+			}
+		}
+		return typeName;
+	}
+
+	private static String resolveTypeName(String signature, IType declaringType) {
+		if (signature.charAt(0) == Signature.C_EXTENDS) {
+			signature = signature.substring(1);
+		}
+		switch (Signature.getSignatureKind(signature)) {
+		case Signature.BASE_TYPE_SIGNATURE:
+			return Signature.toString(signature);
+		case Signature.CLASS_TYPE_SIGNATURE:
+			String erasure = Signature.getTypeErasure(signature);
+			if (declaringType.getTypeParameter(Signature.toString(erasure)).exists()) {
+				return UNKNOWN_TYPE;
+			}
+			String typeName = JdtUtils.resolveClassNameBySignature(erasure, declaringType);
+			return typeName != null ? typeName : UNKNOWN_TYPE;
+		default:
+			return UNKNOWN_TYPE;
+		}
+	}
+
+	private static boolean isAssignableTo(IType type, Set<String> typeNames, Set<String> visited)
+			throws JavaModelException {
+		if (type == null || !visited.add(type.getFullyQualifiedName())) {
+			return false;
+		}
+		if (typeNames.contains(type.getFullyQualifiedName())) {
+			return true;
+		}
+		if (isAssignableTo(getSuperclass(type), typeNames, visited)) {
+			return true;
+		}
+		for (String signature : type.getSuperInterfaceTypeSignatures()) {
+			IType superInterface = JdtUtils.getJavaTypeFromSignatureClassName(Signature.getTypeErasure(signature), type);
+			if (isAssignableTo(superInterface, typeNames, visited)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static IType getSuperclass(IType type) throws JavaModelException {
+		String signature = type.getSuperclassTypeSignature();
+		if (signature == null) {
+			return null;
+		}
+		return JdtUtils.getJavaTypeFromSignatureClassName(Signature.getTypeErasure(signature), type);
+	}
+
+	private static synchronized void listenToJavaModel() {
+		if (!listening) {
+			listening = true;
+			JavaCore.addElementChangedListener(new IElementChangedListener() {
+				public void elementChanged(ElementChangedEvent event) {
+					invalidate(event.getDelta());
+				}
+			}, ElementChangedEvent.POST_CHANGE);
+		}
+	}
+
+	private static void invalidate(IJavaElementDelta delta) {
+		IJavaElement element = delta.getElement();
+		int classpathFlags = IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED
+				| IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED | IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED;
+
+		if ((delta.getFlags() & classpathFlags) != 0 || delta.getKind() != IJavaElementDelta.CHANGED) {
+			// types might have been added or removed (also by opening, closing or deleting projects), so super types
+			// or property types might resolve differently
+			CACHE.clear();
+		}
+		else if (element instanceof ITypeRoot) {
+			invalidate((ITypeRoot) element);
+		}
+		else {
+			for (IJavaElementDelta child : delta.getAffectedChildren()) {
+				invalidate(child);
+			}
+		}
+	}
+
+	private static void invalidate(final ITypeRoot typeRoot) {
+		CACHE.removeAll(new LruCache.EntryFilter<IType, DomainTypeProperties>() {
+			public boolean matches(IType type, DomainTypeProperties properties) {
+				return properties.sources.contains(typeRoot);
+			}
+		});
+	}
+
+}
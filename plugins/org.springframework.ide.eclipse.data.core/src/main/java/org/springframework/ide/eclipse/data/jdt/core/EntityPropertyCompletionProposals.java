@@ -147,8 +147,7 @@ public class EntityPropertyCompletionProposals extends JavaCompletionProposalCom
 		int offset = javaContext.getCoreContext().getOffset();
 
 		KeywordProvider keywordProvider = information.getKeywordProvider(project);
-		QueryMethodCandidate candidate = new QueryMethodCandidate(elementName,
-				information.getManagedDomainClass());
+		QueryMethodCandidate candidate = new QueryMethodCandidate(elementName, managedDomainClass);
 		QueryMethodPart part = candidate.getPartAtPosition(positionInMethodName);
 
 		if (part == null) {
@@ -11,15 +11,23 @@
 package org.springframework.ide.eclipse.data.jdt.core;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.IAnnotation;
 import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMemberValuePair;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeParameter;
 import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.Signature;
 import org.springframework.core.GenericTypeResolver;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.Repository;
@@ -76,21 +84,13 @@ public class RepositoryInformation {
 		}
 	}
 
+	private static final String REPOSITORY_DEFINITION = "org.springframework.data.repository.RepositoryDefinition";
+
 	private final IType type;
-	private final Class<?> repositoryInterface;
-	private final Class<?> repositoryBaseInterface;
 
 	public RepositoryInformation(IType type) {
-		try {
-			this.type = type;
-
-			ClassLoader classLoader = JdtUtils.getClassLoader(type.getJavaProject().getProject(), null);
-			this.repositoryInterface = classLoader.loadClass(type.getFullyQualifiedName());
-			this.repositoryBaseInterface = classLoader.loadClass(Repository.class.getName());
-
-		} catch (ClassNotFoundException e) {
-			throw new IllegalArgumentException("Could not load class " + type.getFullyQualifiedName(), e);
-		}
+		Assert.notNull(type);
+		this.type = type;
 	}
 
 	/**
@@ -122,8 +122,6 @@ public class RepositoryInformation {
 			return type.isInterface()  && type.exists() ? new RepositoryInformation(type) : null;
 		} catch (JavaModelException e) {
 			return null;
-		} catch (IllegalArgumentException e) {
-			return null;
 		}
 	}
 
@@ -209,7 +207,7 @@ public class RepositoryInformation {
 	public KeywordProvider getKeywordProvider(IJavaProject project) {
 
 		TypePredicates predicates = new DefaultTypePredicates(project);
-		IBean repositoryBean = SpringDataUtils.getRepositoryBean(project.getProject(), repositoryInterface.getName());
+		IBean repositoryBean = SpringDataUtils.getRepositoryBean(project.getProject(), type.getFullyQualifiedName());
 		Module module = Module.getModuleOf(repositoryBean);
 
 		switch (module) {
@@ -223,17 +221,119 @@ public class RepositoryInformation {
 		}
 	}
 
+	/**
+	 * Returns the domain class managed by the repository, loaded by the class loader of the project. Prefer
+	 * {@link #getManagedDomainType()} where the Java model is sufficient, as loading the classes is expensive.
+	 * 
+	 * @return the domain class or {@literal null} if it can't be loaded.
+	 */
 	public Class<?> getManagedDomainClass() {
 		try {
-			Class<?>[] resolvedTypeArguments = GenericTypeResolver.resolveTypeArguments(this.repositoryInterface, this.repositoryBaseInterface);
+			ClassLoader classLoader = JdtUtils.getClassLoader(type.getJavaProject().getProject(), null);
+			Class<?> repositoryInterface = classLoader.loadClass(type.getFullyQualifiedName());
+			Class<?> repositoryBaseInterface = classLoader.loadClass(Repository.class.getName());
+
+			Class<?>[] resolvedTypeArguments = GenericTypeResolver.resolveTypeArguments(repositoryInterface, repositoryBaseInterface);
 			if (resolvedTypeArguments != null && resolvedTypeArguments.length > 0) {
 				return resolvedTypeArguments[0];
 			}
+		} catch (ClassNotFoundException e) {
 		} catch (TypeNotPresentException e) {
 		}
 		return null;
 	}
 
+	/**
+	 * Returns the domain type managed by the repository, resolved in the Java model from the
+	 * {@code @RepositoryDefinition} annotation or the type arguments of the {@link Repository} interface.
+	 * 
+	 * @return the domain type or {@literal null} if it can't be resolved.
+	 */
+	public IType getManagedDomainType() {
+		try {
+			String domainTypeName = getDomainTypeNameFromAnnotation();
+			if (domainTypeName == null) {
+				domainTypeName = getDomainTypeName(type, Collections.<String, String> emptyMap(), new HashSet<String>());
+			}
+			return domainTypeName != null ? type.getJavaProject().findType(domainTypeName) : null;
+		} catch (JavaModelException e) {
+			return null;
+		}
+	}
+
+	private String getDomainTypeNameFromAnnotation() throws JavaModelException {
+		for (IAnnotation annotation : type.getAnnotations()) {
+			String name = annotation.getElementName();
+			if (REPOSITORY_DEFINITION.equals(name) || REPOSITORY_DEFINITION.endsWith("." + name)) {
+				for (IMemberValuePair pair : annotation.getMemberValuePairs()) {
+					if ("domainClass".equals(pair.getMemberName()) && pair.getValueKind() == IMemberValuePair.K_CLASS
+							&& pair.getValue() instanceof String) {
+						return JdtUtils.resolveClassName((String) pair.getValue(), type);
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Walks up the super interfaces of the given type until the {@link Repository} interface is found and returns the
+	 * name of its first type argument, substituting the type variables of the interfaces on the way.
+	 */
+	private static String getDomainTypeName(IType current, Map<String, String> typeVariables, Set<String> visited)
+			throws JavaModelException {
+		if (!visited.add(current.getFullyQualifiedName())) {
+			return null;
+		}
+
+		for (String signature : current.getSuperInterfaceTypeSignatures()) {
+			String superInterfaceName = resolveTypeName(signature, current, typeVariables);
+			if (superInterfaceName == null) {
+				continue;
+			}
+
+			List<String> typeArguments = new ArrayList<String>();
+			for (String typeArgument : Signature.getTypeArguments(signature)) {
+				typeArguments.add(resolveTypeName(typeArgument, current, typeVariables));
+			}
+
+			if (Repository.class.getName().equals(superInterfaceName)) {
+				return typeArguments.isEmpty() ? null : typeArguments.get(0);
+			}
+
+			IType superInterface = current.getJavaProject().findType(superInterfaceName);
+			if (superInterface != null) {
+				Map<String, String> superTypeVariables = new HashMap<String, String>();
+				ITypeParameter[] typeParameters = superInterface.getTypeParameters();
+				for (int i = 0; i < typeParameters.length && i < typeArguments.size(); i++) {
+					superTypeVariables.put(typeParameters[i].getElementName(), typeArguments.get(i));
+				}
+				String domainTypeName = getDomainTypeName(superInterface, superTypeVariables, visited);
+				if (domainTypeName != null) {
+					return domainTypeName;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static String resolveTypeName(String signature, IType context, Map<String, String> typeVariables) {
+		int kind = Signature.getSignatureKind(signature);
+		if (kind != Signature.CLASS_TYPE_SIGNATURE && kind != Signature.TYPE_VARIABLE_SIGNATURE) {
+			return null;
+		}
+		String erasure = Signature.getTypeErasure(signature);
+		String simpleName = Signature.toString(erasure);
+		if (kind == Signature.TYPE_VARIABLE_SIGNATURE || typeVariables.containsKey(simpleName)) {
+			return typeVariables.get(simpleName);
+		}
+		if (context.getTypeParameter(simpleName).exists()) {
+			// raw use of a generic interface
+			return null;
+		}
+		return JdtUtils.resolveClassNameBySignature(erasure, context);
+	}
+
 	/**
 	 * Returns all {@link IMethod}s that shall be considered query methods (which need to be validated).
 	 * 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012 Spring IDE Developers
+ * Copyright (c) 2012, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,8 +22,6 @@ import org.eclipse.jdt.core.compiler.CategorizedProblem;
 import org.eclipse.jdt.core.compiler.CompilationParticipant;
 import org.eclipse.jdt.core.compiler.ReconcileContext;
 import org.eclipse.jdt.core.dom.CompilationUnit;
-import org.springframework.data.mapping.PropertyReferenceException;
-import org.springframework.data.repository.query.parser.PartTree;
 import org.springframework.ide.eclipse.core.SpringCore;
 import org.springframework.ide.eclipse.data.internal.validation.InvalidDerivedQueryRule;
 import org.springsource.ide.eclipse.commons.core.SpringCoreUtils;
@@ -69,22 +67,20 @@ public class SpringDataCompilationParticipant extends CompilationParticipant {
 			// resolve repository information and generate problem markers
 			RepositoryInformation information = new RepositoryInformation(type);
 
-			Class<?> domainClass = information.getManagedDomainClass();
-			if (domainClass == null) {
+			IType domainType = information.getManagedDomainType();
+			if (domainType == null) {
 				super.reconcile(context);
 				return;
 			}
 
 			List<CategorizedProblem> problems = new ArrayList<CategorizedProblem>();
+			DerivedQueryValidator validator = new DerivedQueryValidator(DomainTypeProperties.get(domainType));
 
 			for (IMethod method : information.getMethodsToValidate()) {
 
-				String methodName = method.getElementName();
-
-				try {
-					new PartTree(methodName, domainClass);
-				} catch (PropertyReferenceException e) {
-					problems.add(new InvalidDerivedQueryProblem(method, e.getMessage()));
+				String problem = validator.validate(method.getElementName());
+				if (problem != null) {
+					problems.add(new InvalidDerivedQueryProblem(method, problem));
 				}
 			}
 
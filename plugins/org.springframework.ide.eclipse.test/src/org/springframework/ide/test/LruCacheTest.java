@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.ide.eclipse.core.java.LruCache;
+
+public class LruCacheTest {
+
+	private final List<String> removed = new ArrayList<String>();
+
+	private LruCache<String, Integer> createCache(long budget) {
+		return new LruCache<String, Integer>("test", budget, new LruCache.Weigher<String, Integer>() {
+			public long weigh(String key, Integer value) {
+				return value;
+			}
+		}, new LruCache.RemovalListener<String, Integer>() {
+			public void removed(String key, Integer value, boolean evicted) {
+				removed.add(key + (evicted ? ":evicted" : ":removed"));
+			}
+		});
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() {
+		LruCache<String, Integer> cache = createCache(10);
+		cache.put("a", 4);
+		cache.put("b", 4);
+		assertEquals(Integer.valueOf(4), cache.get("a"));
+
+		cache.put("c", 4);
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("a"));
+		assertNotNull(cache.get("c"));
+		assertEquals(8, cache.getWeight());
+		assertEquals(1, cache.getEvictionCount());
+		assertEquals("[b:evicted]", removed.toString());
+	}
+
+	@Test
+	public void testEvictsUntilWithinBudget() {
+		LruCache<String, Integer> cache = createCache(10);
+		cache.put("a", 3);
+		cache.put("b", 3);
+		cache.put("c", 3);
+		cache.put("d", 9);
+		assertEquals(1, cache.size());
+		assertEquals(9, cache.getWeight());
+		assertEquals(3, cache.getEvictionCount());
+
+		// an entry larger than the budget is still cached
+		cache.put("e", 20);
+		assertEquals(1, cache.size());
+		assertNotNull(cache.get("e"));
+	}
+
+	@Test
+	public void testRemove() {
+		LruCache<String, Integer> cache = createCache(100);
+		Integer value = new Integer(5);
+		cache.put("a", value);
+		cache.put("b", 6);
+
+		assertFalse(cache.remove("a", new Integer(5)));
+		assertTrue(cache.remove("a", value));
+		assertEquals(Integer.valueOf(6), cache.remove("b"));
+		assertNull(cache.remove("b"));
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getWeight());
+		assertEquals("[a:removed, b:removed]", removed.toString());
+	}
+
+	@Test
+	public void testRemoveAll() {
+		LruCache<String, Integer> cache = createCache(100);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		cache.put("c", 3);
+
+		int count = cache.removeAll(new LruCache.EntryFilter<String, Integer>() {
+			public boolean matches(String key, Integer value) {
+				return value % 2 == 1;
+			}
+		});
+		assertEquals(2, count);
+		assertEquals(1, cache.size());
+		assertEquals(2, cache.getWeight());
+
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(3, removed.size());
+	}
+
+	@Test
+	public void testStatistics() {
+		LruCache<String, Integer> cache = createCache(100);
+		cache.put("a", 1);
+		cache.get("a");
+		cache.get("a");
+		cache.get("b");
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertTrue(cache.getStatistics().startsWith("test: 1 entries"));
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 Spring IDE Developers
+ * Copyright (c) 2006, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -43,6 +43,8 @@ public final class SpringUIMessages extends NLS {
 	public static String ProjectBuilderPropertyPage_IncrementalCompileNote;
 	public static String ProjectBuilderPropertyPage_NonLockingClassLoaderMessage;
 	public static String ProjectBuilderPropertyPage_NonLockingClassLoaderNote;
+	public static String ProjectBuilderPropertyPage_ParallelValidationMessage;
+	public static String ProjectBuilderPropertyPage_ParallelValidationNote;
 	
 	public static String ProjectValidatorPropertyPage_title;
 	public static String ProjectValidatorPropertyPage_description;
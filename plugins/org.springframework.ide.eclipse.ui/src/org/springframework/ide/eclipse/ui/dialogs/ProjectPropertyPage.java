@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2015 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -51,6 +51,8 @@ public class ProjectPropertyPage extends ProjectAndPreferencePage {
 
 	private Button useNonLockingClassLoader;
 
+	private Button useParallelValidation;
+
 	public ProjectPropertyPage() {
 		noDefaultAndApplyButton();
 	}
@@ -95,6 +97,14 @@ public class ProjectPropertyPage extends ProjectAndPreferencePage {
 			note = new Label(composite, SWT.WRAP);
 			note.setText(SpringUIMessages.ProjectBuilderPropertyPage_NonLockingClassLoaderNote);
 			note.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+
+			useParallelValidation = new Button(composite, SWT.CHECK);
+			useParallelValidation.setText(SpringUIMessages.ProjectBuilderPropertyPage_ParallelValidationMessage);
+			useParallelValidation.setSelection(prefs.getBoolean(SpringCore.USE_PARALLEL_VALIDATION, false));
+
+			note = new Label(composite, SWT.WRAP);
+			note.setText(SpringUIMessages.ProjectBuilderPropertyPage_ParallelValidationNote);
+			note.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
 		}
 
 		Dialog.applyDialogFont(folder);
@@ -130,6 +140,7 @@ public class ProjectPropertyPage extends ProjectAndPreferencePage {
 		} else {
 			prefs.putBoolean(SpringCore.USE_CHANGE_DETECTION_IN_JAVA_FILES, useChangeDetectionForJavaFiles.getSelection());
 			prefs.putBoolean(SpringCore.USE_NON_LOCKING_CLASSLOADER, useNonLockingClassLoader.getSelection());
+			prefs.putBoolean(SpringCore.USE_PARALLEL_VALIDATION, useParallelValidation.getSelection());
 		}
 
 		this.builderTab.performOk();
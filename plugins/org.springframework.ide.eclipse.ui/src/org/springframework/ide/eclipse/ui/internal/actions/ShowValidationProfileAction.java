@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.ui.internal.actions;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jface.action.IAction;
+import org.eclipse.jface.dialogs.IDialogConstants;
+import org.eclipse.jface.dialogs.TrayDialog;
+import org.eclipse.jface.resource.JFaceResources;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+import org.eclipse.ui.IObjectActionDelegate;
+import org.eclipse.ui.IWorkbenchPart;
+import org.springframework.ide.eclipse.core.model.validation.ValidationProfiler;
+
+/**
+ * This action shows the Spring Validation Profile of the last build of the selected project.
+ * @since 3.8.4
+ * @see ValidationProfiler
+ */
+public class ShowValidationProfileAction implements IObjectActionDelegate {
+
+	private IProject selected;
+
+	private Shell shell;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void setActivePart(IAction action, IWorkbenchPart targetPart) {
+		this.shell = targetPart.getSite().getShell();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void selectionChanged(IAction action, ISelection selection) {
+		selected = null;
+		if (selection instanceof IStructuredSelection && ((IStructuredSelection) selection).size() == 1) {
+			Object obj = ((IStructuredSelection) selection).getFirstElement();
+			if (obj instanceof IJavaProject) {
+				obj = ((IJavaProject) obj).getProject();
+			}
+			if (obj instanceof IProject) {
+				selected = (IProject) obj;
+			}
+		}
+		action.setEnabled(selected != null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void run(IAction action) {
+		if (selected != null) {
+			new ValidationProfileDialog(shell, ValidationProfiler.createReport(selected)).open();
+		}
+	}
+
+	/**
+	 * Simple dialog that shows the textual validation profile report.
+	 */
+	private static class ValidationProfileDialog extends TrayDialog {
+
+		private final String report;
+
+		public ValidationProfileDialog(Shell shell, String report) {
+			super(shell);
+			this.report = report;
+			setShellStyle(getShellStyle() | SWT.RESIZE);
+		}
+
+		protected void configureShell(Shell shell) {
+			super.configureShell(shell);
+			shell.setText("Spring Validation Profile");
+		}
+
+		protected Control createDialogArea(Composite parent) {
+			Composite composite = (Composite) super.createDialogArea(parent);
+
+			Text text = new Text(composite, SWT.MULTI | SWT.READ_ONLY | SWT.BORDER | SWT.H_SCROLL | SWT.V_SCROLL);
+			text.setFont(JFaceResources.getTextFont());
+			text.setText(report);
+
+			GridData data = new GridData(GridData.FILL_BOTH);
+			data.widthHint = 800;
+			data.heightHint = 500;
+			text.setLayoutData(data);
+
+			return composite;
+		}
+
+		protected void createButtonsForButtonBar(Composite parent) {
+			createButton(parent, IDialogConstants.OK_ID, IDialogConstants.OK_LABEL, true);
+		}
+	}
+
+}